@@ -0,0 +1,73 @@
+package com.bestbuy.schedulehub.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Slf4j
+@Configuration
+public class AsyncConfig {
+
+    @Value("${schedule.graph-lookup.pool-size:8}")
+    private int graphLookupPoolSize;
+
+    @Value("${schedule.mirror.pool-size:8}")
+    private int mirrorPoolSize;
+
+    /**
+     * Executor for Graph lookups started ahead of the main request flow (e.g.
+     * from early streamed entities), so they never run on a Tomcat thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor graphLookupExecutor() {
+        log.info("Creating Graph lookup executor with pool size {}", graphLookupPoolSize);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(graphLookupPoolSize);
+        executor.setMaxPoolSize(graphLookupPoolSize);
+        executor.setThreadNamePrefix("graph-lookup-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Scheduler for the background delta syncs of the calendar mirror; its
+     * threads also run the syncs, pool-size mailboxes at a time.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler calendarMirrorScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(mirrorPoolSize);
+        scheduler.setThreadNamePrefix("calendar-mirror-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * Scheduler for Graph batch deletions that were throttled, so a
+     * Retry-After pause never holds the request thread that booked the event.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler graphRetryScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("graph-retry-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * Scheduler for the background refresh of Graph access tokens, kept
+     * apart so slow mirror syncs never delay a token refresh.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler tokenRefreshScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("token-refresh-");
+        scheduler.initialize();
+        return scheduler;
+    }
+}
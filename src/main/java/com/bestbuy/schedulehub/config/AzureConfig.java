@@ -2,12 +2,17 @@ package com.bestbuy.schedulehub.config;
 
 import com.azure.core.credential.TokenCredential;
 import com.azure.identity.ClientSecretCredentialBuilder;
+import com.bestbuy.schedulehub.service.RefreshingTokenCredential;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import jakarta.annotation.PostConstruct;
 
+import java.time.Duration;
+
 @Slf4j
 @Configuration
 public class AzureConfig {
@@ -24,6 +29,24 @@ public class AzureConfig {
     @Value("${azure.activedirectory.authentication-mode:application}")
     private String authenticationMode;
 
+    @Value("${azure.activedirectory.token-refresh.enabled:true}")
+    private boolean tokenRefreshEnabled;
+
+    @Value("${azure.activedirectory.token-refresh.refresh-before:10m}")
+    private Duration refreshBefore;
+
+    @Value("${azure.activedirectory.token-refresh.retry-interval:15s}")
+    private Duration retryInterval;
+
+    @Value("${azure.activedirectory.token-refresh.max-retry-interval:2m}")
+    private Duration maxRetryInterval;
+
+    @Value("${azure.activedirectory.token-refresh.timeout:10s}")
+    private Duration tokenTimeout;
+
+    @Value("${azure.activedirectory.token-refresh.idle-timeout:2h}")
+    private Duration idleTimeout;
+
     @PostConstruct
     public void logConfiguration() {
         log.info("═══════════════════════════════════════════════════════════════");
@@ -71,7 +94,8 @@ public class AzureConfig {
     }
 
     @Bean
-    public TokenCredential tokenCredential() {
+    public TokenCredential tokenCredential(MeterRegistry meterRegistry,
+            ThreadPoolTaskScheduler tokenRefreshScheduler) {
         // This application only supports application authentication (service-driven)
         // It acts as a service principal with application permissions
         log.info("Creating Azure AD TokenCredential using Application Authentication (Client Credentials Flow)");
@@ -83,10 +107,19 @@ public class AzureConfig {
                             "This application uses application permissions and requires a client secret.");
         }
 
-        return new ClientSecretCredentialBuilder()
+        TokenCredential credential = new ClientSecretCredentialBuilder()
                 .tenantId(tenantId)
                 .clientId(clientId)
                 .clientSecret(clientSecret)
                 .build();
+        if (!tokenRefreshEnabled) {
+            return credential;
+        }
+
+        // Tokens are refreshed ahead of expiry so no Graph request waits for AAD
+        log.info("Graph tokens refreshed in the background: refreshBefore={}, retryInterval={}-{}, timeout={}",
+                refreshBefore, retryInterval, maxRetryInterval, tokenTimeout);
+        return new RefreshingTokenCredential(credential, tokenRefreshScheduler, meterRegistry,
+                refreshBefore, retryInterval, maxRetryInterval, tokenTimeout, idleTimeout);
     }
 }
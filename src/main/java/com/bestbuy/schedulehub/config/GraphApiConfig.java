@@ -1,9 +1,15 @@
 package com.bestbuy.schedulehub.config;
 
 import com.azure.core.credential.TokenCredential;
+import com.bestbuy.schedulehub.service.GraphRequestScheduler;
+import com.bestbuy.schedulehub.service.RefreshingTokenCredential;
 import com.microsoft.graph.authentication.TokenCredentialAuthProvider;
+import com.microsoft.graph.httpcore.AuthenticationHandler;
+import com.microsoft.graph.httpcore.HttpClients;
+import com.microsoft.graph.httpcore.RedirectHandler;
 import com.microsoft.graph.requests.GraphServiceClient;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -18,17 +24,32 @@ public class GraphApiConfig {
     @Value("${microsoft.graph.scope}")
     private String graphScope;
 
+    /**
+     * Graph client on the SDK's default HTTP pipeline, except that
+     * GraphRequestScheduler takes the place of its RetryHandler:
+     * concurrency, throttling pauses and retries are handled per mailbox.
+     */
     @Bean
-    public GraphServiceClient<Request> graphServiceClient(TokenCredential tokenCredential) {
+    public GraphServiceClient<Request> graphServiceClient(TokenCredential tokenCredential,
+            GraphRequestScheduler graphRequestScheduler) {
         // Split scope string by spaces to support multiple scopes
         List<String> scopes = List.of(graphScope.split("\\s+"));
         
         log.info("Creating GraphServiceClient with scopes: {}", scopes);
         
         TokenCredentialAuthProvider authProvider = new TokenCredentialAuthProvider(scopes, tokenCredential);
+        if (tokenCredential instanceof RefreshingTokenCredential refreshing) {
+            refreshing.prefetch(scopes); // First Graph request finds a token cached
+        }
+
+        OkHttpClient httpClient = HttpClients.custom()
+                .addInterceptor(new AuthenticationHandler(authProvider))
+                .addInterceptor(graphRequestScheduler)
+                .addInterceptor(new RedirectHandler())
+                .build();
 
         return GraphServiceClient.builder()
-                .authenticationProvider(authProvider)
+                .httpClient(httpClient)
                 .buildClient();
     }
 }
@@ -0,0 +1,71 @@
+package com.bestbuy.schedulehub.config;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Configuration
+public class OpenAIHttpConfig {
+
+    @Value("${openai.http.max-idle-connections:20}")
+    private int maxIdleConnections;
+
+    @Value("${openai.http.keep-alive:5m}")
+    private Duration keepAlive;
+
+    @Value("${openai.http.max-requests:128}")
+    private int maxRequests;
+
+    @Value("${openai.http.max-requests-per-host:64}")
+    private int maxRequestsPerHost;
+
+    @Value("${openai.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${openai.http.read-timeout:30s}")
+    private Duration readTimeout;
+
+    @Value("${openai.http.write-timeout:10s}")
+    private Duration writeTimeout;
+
+    @Value("${openai.http.call-timeout:60s}")
+    private Duration callTimeout;
+
+    /**
+     * Shared HTTP client for OpenAI calls.
+     * 
+     * OkHttp's defaults allow only 5 concurrent requests per host, which
+     * queues LLM calls long before the endpoint is saturated. HTTP/2 lets the
+     * calls to one endpoint share a few multiplexed connections.
+     */
+    @Bean
+    public OkHttpClient openAiHttpClient() {
+        log.info("Creating OpenAI HTTP client: maxRequests={}, maxRequestsPerHost={}, maxIdleConnections={}, "
+                + "connectTimeout={}, readTimeout={}, callTimeout={}",
+                maxRequests, maxRequestsPerHost, maxIdleConnections, connectTimeout, readTimeout, callTimeout);
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .writeTimeout(writeTimeout)
+                .callTimeout(callTimeout)
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.bestbuy.schedulehub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Azure OpenAI deployments that extraction calls are spread across.
+ *
+ * When no deployments are listed, the single openai.endpoint /
+ * openai.deployment-name pair is used as the only target, so existing
+ * configuration keeps working unchanged.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "openai.routing")
+public class OpenAIRoutingProperties {
+
+    private List<Deployment> deployments = new ArrayList<>();
+
+    /** Consecutive 429/5xx/timeout failures before a target's circuit opens */
+    private int failureThreshold = 3;
+
+    /** How long an open circuit rejects calls before a single probe is let through */
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    /** Weight of the newest sample in the latency EWMA (0-1) */
+    private double latencyAlpha = 0.2;
+
+    /** Latency assumed for a target before its first successful call */
+    private Duration initialLatency = Duration.ofSeconds(1);
+
+    @Data
+    public static class Deployment {
+
+        /** Label used in logs, metrics and the actuator endpoint */
+        private String name;
+
+        /** Azure OpenAI endpoint, e.g. https://myresource.openai.azure.com */
+        private String endpoint;
+
+        private String deploymentName;
+
+        /** Defaults to openai.api-key */
+        private String apiKey;
+
+        /** Defaults to openai.api-version */
+        private String apiVersion;
+
+        /** In-flight calls this deployment's quota comfortably sustains */
+        private int maxConcurrent = 32;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bestbuy.schedulehub.controller;
+
+import com.bestbuy.schedulehub.service.DeploymentRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint (/actuator/openaideployments) listing each OpenAI
+ * deployment target with its circuit state, latency EWMA, in-flight calls and
+ * outcome counters.
+ */
+@Component
+@Endpoint(id = "openaideployments")
+@RequiredArgsConstructor
+public class OpenAIDeploymentsEndpoint {
+
+    private final DeploymentRouter deploymentRouter;
+
+    @ReadOperation
+    public List<Map<String, Object>> deployments() {
+        return deploymentRouter.stats();
+    }
+}
@@ -6,6 +6,7 @@ import com.bestbuy.schedulehub.service.ScheduleService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -29,9 +30,11 @@ public class ScheduleController {
      * Processes a natural language scheduling request.
      * 
      * @param request The scheduling request containing natural language text
+     *                and an optional session id for follow-ups
      * @param userId  Required user ID header (user email or object ID).
      *                With application authentication, "me" is not supported.
-     * @return ScheduleResponse with booking status and event details
+     * @return ScheduleResponse with booking status and event details; HTTP 429
+     *         when the user or tenant is over its token quota
      */
     @PostMapping("/scheduleMeeting")
     public ResponseEntity<ScheduleResponse> scheduleMeeting(
@@ -53,8 +56,15 @@ public class ScheduleController {
 
         ScheduleResponse response = ScheduleService.processScheduleRequest(
                 request.getText(),
-                userId);
+                userId,
+                request.getSessionId());
 
+        if ("quota_exceeded".equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+        }
+        if ("conflict".equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
         return ResponseEntity.ok(response);
     }
 
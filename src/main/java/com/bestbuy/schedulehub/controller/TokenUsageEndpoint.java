@@ -0,0 +1,31 @@
+package com.bestbuy.schedulehub.controller;
+
+import com.bestbuy.schedulehub.service.TokenUsageTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint (/actuator/tokenusage?limit=20) listing the users and
+ * tenants that spent the most OpenAI tokens in the current quota window.
+ * The rows carry user email addresses, so it is not in the default web
+ * exposure; include it explicitly on an internal management port.
+ */
+@Component
+@Endpoint(id = "tokenusage")
+@RequiredArgsConstructor
+public class TokenUsageEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final TokenUsageTracker tokenUsageTracker;
+
+    @ReadOperation
+    public Map<String, Object> topConsumers(@Nullable Integer limit) {
+        return tokenUsageTracker.topConsumers(limit != null && limit > 0 ? limit : DEFAULT_LIMIT);
+    }
+}
@@ -0,0 +1,23 @@
+package com.bestbuy.schedulehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A busy period of the organizer or an attendee that overlaps a meeting
+ * being booked.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Conflict {
+    private String mailbox;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private String status; // "busy", "oof" or "tentative"
+}
@@ -0,0 +1,24 @@
+package com.bestbuy.schedulehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event whose subject only partly matches the one a cancel named,
+ * offered for confirmation instead of being deleted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventCandidate {
+    private String eventId;
+    private String subject;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private double score; // Share of the requested subject's trigrams found in this subject
+}
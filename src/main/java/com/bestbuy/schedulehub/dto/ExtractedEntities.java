@@ -10,7 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ExtractedEntities {
@@ -22,4 +22,6 @@ public class ExtractedEntities {
     private List<String> exceptions = new ArrayList<>();
     private String subject;
     private String location;
+    private TokenUsage usage; // Tokens spent by the OpenAI call that produced this result; null when none was made
+    private String origin; // "cache" or "coalesced" when this caller's result came without its own OpenAI call; null otherwise
 }
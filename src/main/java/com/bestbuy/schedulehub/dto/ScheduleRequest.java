@@ -9,4 +9,6 @@ public class ScheduleRequest {
     private String text;
 
     private String userId; // Optional: for multi-user support
+
+    private String sessionId; // Optional: follow-ups ("make it 4pm") in the same session edit the previous request
 }
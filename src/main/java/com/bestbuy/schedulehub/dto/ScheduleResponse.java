@@ -28,4 +28,14 @@ public class ScheduleResponse {
     private Map<String, Object> openaiOutput;  // Extracted entities from OpenAI
     private Map<String, Object> graphApiInput; // Event data sent to Graph API
     private List<Map<String, Object>> bookingResults; // List of booked meetings
+    // How the entities were extracted: "rule" (local fast path), "rule-degraded" (relaxed fast path while OpenAI
+    // breaches its SLO), "rule-downgraded" (relaxed fast path over token quota), "delta" (session follow-up),
+    // "llm" (OpenAI), "classifier" (local intent, OpenAI entities), "cache" (extraction cache hit), "coalesced"
+    // (joined an identical in-flight call), or "quota" (rejected over token quota)
+    private String extractionPath;
+    private String degradeMode; // Extraction mode: "normal", or "reduced"/"local" while OpenAI breaches its SLO
+    private List<Conflict> conflicts; // Busy periods of the organizer/attendees overlapping a booking (when checked)
+    private List<TimeSlot> suggestedSlots; // Times everyone is free, when the request gave no start time; the first is booked
+    private List<String> unresolvedAttendees; // Attendee names with no single directory match, left out of the invite
+    private List<EventCandidate> candidates; // Partial subject matches of a cancel (status "confirm"); nothing was deleted
 }
@@ -0,0 +1,22 @@
+package com.bestbuy.schedulehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A time when the organizer and all attendees are free, suggested for a
+ * meeting requested without a start time.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSlot {
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private double score; // Higher is better: sooner, on the hour, with free time around it
+}
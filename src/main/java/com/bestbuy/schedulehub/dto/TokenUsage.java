@@ -0,0 +1,23 @@
+package com.bestbuy.schedulehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Token counts from the "usage" block of a chat completion.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenUsage {
+    private int promptTokens;
+    private int completionTokens;
+    private int cachedTokens; // Prompt tokens served from the provider's prompt cache
+
+    public int getTotalTokens() {
+        return promptTokens + completionTokens;
+    }
+}
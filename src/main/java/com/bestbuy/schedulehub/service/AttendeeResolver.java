@@ -0,0 +1,309 @@
+package com.bestbuy.schedulehub.service;
+
+import com.microsoft.graph.models.Attendee;
+import com.microsoft.graph.models.AttendeeType;
+import com.microsoft.graph.models.EmailAddress;
+import com.microsoft.graph.models.User;
+import com.microsoft.graph.requests.GraphServiceClient;
+import com.microsoft.graph.requests.UserCollectionPage;
+import com.microsoft.graph.requests.UserCollectionRequestBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the attendees of a request ("bob@contoso.com", "Bob Smith") into
+ * Graph attendees.
+ *
+ * Email addresses are used as given. Names are looked up in the tenant
+ * directory: all names of a request not in the cache go out in one
+ * /users $filter call (displayName or givenName equal to the name, up to
+ * NAMES_PER_CALL names per call), following every result page. A name
+ * resolves when exactly one user has it as display name, or failing that
+ * exactly one user has it as given name; a name several users share is
+ * ambiguous and does not resolve.
+ *
+ * Results are cached by lowercased name, bounded LRU, for ttl; names with no
+ * unique match are cached as misses for negative-ttl so repeats cost no
+ * lookup either. Unresolved names fall back to name@fallback-domain when one
+ * is configured; otherwise they are left out and reported in the
+ * {@link Resolution} of {@link #resolveAll(List)}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttendeeResolver {
+
+    private static final int FILTER_CLAUSES = 15; // Graph limit on "or" clauses in a $filter
+    private static final int NAMES_PER_CALL = FILTER_CLAUSES / 2; // displayName and givenName clause per name
+
+    private final GraphServiceClient<Request> graphServiceClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${schedule.attendees.directory-lookup:true}")
+    private boolean directoryLookup;
+
+    @Value("${schedule.attendees.cache.max-size:5000}")
+    private int maxSize;
+
+    @Value("${schedule.attendees.cache.ttl:1h}")
+    private Duration ttl;
+
+    @Value("${schedule.attendees.cache.negative-ttl:10m}")
+    private Duration negativeTtl;
+
+    @Value("${schedule.attendees.fallback-domain:}")
+    private String fallbackDomain;
+
+    LongSupplier clock = System::nanoTime;
+
+    // Directory query for a chunk of names; replaceable in tests
+    DirectoryLookup directory = this::queryDirectory;
+
+    private LinkedHashMap<String, CacheEntry> cache;
+
+    /**
+     * Users whose display name or given name is any of the names.
+     */
+    @FunctionalInterface
+    interface DirectoryLookup {
+        List<User> find(List<String> names);
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        log.info("Attendee resolver: directoryLookup={}, cache maxSize={}, ttl={}, negativeTtl={}, fallback={}",
+                directoryLookup, maxSize, ttl, negativeTtl, fallbackDomain);
+    }
+
+    /**
+     * Resolves all attendees of one request, with at most one directory
+     * query per NAMES_PER_CALL uncached names.
+     */
+    public List<Attendee> resolve(List<String> inputs) {
+        return resolveAll(inputs).attendees();
+    }
+
+    /**
+     * Resolves all attendees of one request like {@link #resolve(List)} and
+     * also returns the names left out of them: not found in the directory,
+     * or shared by several users, with no fallback domain configured.
+     */
+    public Resolution resolveAll(List<String> inputs) {
+        List<Attendee> attendees = new ArrayList<>();
+        List<String> unresolved = new ArrayList<>();
+        if (inputs == null || inputs.isEmpty()) {
+            return new Resolution(attendees, unresolved);
+        }
+
+        Map<String, Resolved> resolved = new LinkedHashMap<>();
+        Set<String> uncached = new LinkedHashSet<>();
+        for (String input : inputs) {
+            String name = input.trim();
+            if (name.isEmpty() || name.contains("@")) {
+                continue;
+            }
+            CacheEntry entry = cached(key(name));
+            if (entry != null) {
+                resolved.put(key(name), entry.resolved());
+                count(entry.resolved() != null ? "hit" : "negative-hit");
+            } else {
+                uncached.add(name);
+            }
+        }
+        if (!uncached.isEmpty() && directoryLookup) {
+            resolved.putAll(lookup(new ArrayList<>(uncached)));
+        }
+
+        for (String input : inputs) {
+            String name = input.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Attendee attendee;
+            if (name.contains("@")) {
+                attendee = attendee(name, displayNameFromAddress(name));
+            } else if (resolved.get(key(name)) != null) {
+                Resolved user = resolved.get(key(name));
+                attendee = attendee(user.address(), user.displayName());
+            } else if (fallbackDomain != null && !fallbackDomain.isBlank()) {
+                log.warn("Attendee '{}' not found in the directory, using {} address", name, fallbackDomain);
+                attendee = attendee(name.toLowerCase().replace(" ", ".") + "@" + fallbackDomain, name);
+            } else {
+                log.warn("Attendee '{}' not found in the directory, leaving them out", name);
+                unresolved.add(name);
+                continue;
+            }
+            attendees.add(attendee);
+        }
+        return new Resolution(attendees, unresolved);
+    }
+
+    /**
+     * Lowercased addresses of the organizer (when their user id is an
+     * address) and the resolved attendees, organizer first.
+     */
+    public Set<String> mailboxes(String userId, List<String> inputs) {
+        Set<String> mailboxes = new LinkedHashSet<>();
+        if (userId != null && userId.contains("@")) {
+            mailboxes.add(userId.trim().toLowerCase(Locale.ROOT));
+        }
+        for (Attendee attendee : resolve(inputs)) {
+            if (attendee.emailAddress != null && attendee.emailAddress.address != null) {
+                mailboxes.add(attendee.emailAddress.address.toLowerCase(Locale.ROOT));
+            }
+        }
+        return mailboxes;
+    }
+
+    private Map<String, Resolved> lookup(List<String> names) {
+        Map<String, Resolved> results = new LinkedHashMap<>();
+        for (int from = 0; from < names.size(); from += NAMES_PER_CALL) {
+            List<String> chunk = names.subList(from, Math.min(from + NAMES_PER_CALL, names.size()));
+            List<User> users;
+            try {
+                users = directory.find(chunk);
+            } catch (Exception e) {
+                // Not cached - the next request tries again
+                log.warn("Directory lookup for {} failed: {}", chunk, e.getMessage());
+                chunk.forEach(name -> count("error"));
+                continue;
+            }
+            long now = clock.getAsLong();
+            for (String name : chunk) {
+                Resolved match = match(name, users);
+                results.put(key(name), match);
+                synchronized (this) {
+                    cache.put(key(name), new CacheEntry(match,
+                            now + (match != null ? ttl : negativeTtl).toNanos()));
+                }
+                log.info("Attendee '{}' resolved to {}", name, match != null ? match.address() : "no single user");
+                count("directory");
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The single user whose display name is the name, else the single user
+     * whose given name is; null when nobody or several users match.
+     */
+    static Resolved match(String name, List<User> users) {
+        List<User> byDisplayName = new ArrayList<>();
+        List<User> byGivenName = new ArrayList<>();
+        for (User user : users) {
+            if (address(user) == null) {
+                continue;
+            }
+            if (name.equalsIgnoreCase(user.displayName)) {
+                byDisplayName.add(user);
+            } else if (name.equalsIgnoreCase(user.givenName)) {
+                byGivenName.add(user);
+            }
+        }
+        List<User> candidates = !byDisplayName.isEmpty() ? byDisplayName : byGivenName;
+        if (candidates.size() > 1) {
+            log.warn("Attendee '{}' is ambiguous: {} users match", name, candidates.size());
+        }
+        return candidates.size() == 1
+                ? new Resolved(address(candidates.get(0)), candidates.get(0).displayName)
+                : null;
+    }
+
+    private List<User> queryDirectory(List<String> names) {
+        String filter = names.stream()
+                .map(name -> name.replace("'", "''"))
+                .map(name -> "displayName eq '" + name + "' or givenName eq '" + name + "'")
+                .collect(Collectors.joining(" or "));
+        List<User> users = new ArrayList<>();
+        UserCollectionPage page = graphServiceClient
+                .users()
+                .buildRequest()
+                .filter(filter)
+                .select("displayName,givenName,mail,userPrincipalName")
+                .top(100)
+                .get();
+        while (page != null) {
+            users.addAll(page.getCurrentPage());
+            UserCollectionRequestBuilder nextPage = page.getNextPage();
+            page = nextPage != null ? nextPage.buildRequest().get() : null;
+        }
+        return users;
+    }
+
+    private synchronized CacheEntry cached(String key) {
+        CacheEntry entry = cache.get(key);
+        if (entry != null && clock.getAsLong() - entry.expiresAtNanos() >= 0) {
+            cache.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Counts one name: hit, negative-hit (cached miss), directory (looked
+     * up) or error (lookup failed).
+     */
+    private void count(String result) {
+        Counter.builder("schedulehub.attendees.lookups")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static Attendee attendee(String address, String name) {
+        Attendee attendee = new Attendee();
+        attendee.emailAddress = new EmailAddress();
+        attendee.emailAddress.address = address;
+        attendee.emailAddress.name = name;
+        attendee.type = AttendeeType.REQUIRED;
+        return attendee;
+    }
+
+    private static String displayNameFromAddress(String address) {
+        String name = address.substring(0, address.indexOf("@"));
+        if (name.isEmpty()) {
+            return address;
+        }
+        return name.substring(0, 1).toUpperCase() + (name.length() > 1 ? name.substring(1) : "");
+    }
+
+    private static String address(User user) {
+        return user.mail != null && !user.mail.isBlank() ? user.mail : user.userPrincipalName;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    record Resolved(String address, String displayName) {
+    }
+
+    public record Resolution(List<Attendee> attendees, List<String> unresolved) {
+    }
+
+    private record CacheEntry(Resolved resolved, long expiresAtNanos) {
+    }
+}
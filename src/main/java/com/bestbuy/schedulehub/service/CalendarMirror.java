@@ -0,0 +1,427 @@
+package com.bestbuy.schedulehub.service;
+
+import com.microsoft.graph.http.GraphServiceException;
+import com.microsoft.graph.models.DateTimeTimeZone;
+import com.microsoft.graph.models.Event;
+import com.microsoft.graph.models.EventType;
+import com.microsoft.graph.options.HeaderOption;
+import com.microsoft.graph.options.Option;
+import com.microsoft.graph.options.QueryOption;
+import com.microsoft.graph.requests.EventDeltaCollectionPage;
+import com.microsoft.graph.requests.EventDeltaCollectionRequestBuilder;
+import com.microsoft.graph.requests.GraphServiceClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Local copy of each active user's calendar window, so cancel and reschedule
+ * lookups do not need a Graph round trip.
+ *
+ * A user is mirrored from their first lookup: the window (lookback before
+ * today to lookahead after it) is seeded with calendarView/delta, then kept
+ * current by following the delta link every refresh-interval. Each round
+ * queues one sync per user on the calendar-mirror pool (pool-size threads),
+ * least recently synced first; a user whose sync from an earlier round is
+ * still queued or running is not queued again. Users with no lookup for idle-timeout are dropped, and
+ * the window is re-seeded once a day so it moves with the date.
+ *
+ * Only the fields lookups use are kept per event (id, subject, start, end,
+ * type, seriesMasterId), not the Graph Event with its body and attendees.
+ *
+ * Lookups are answered only while the user's last successful sync is within
+ * max-staleness; otherwise (not seeded yet, sync failing, or a write from
+ * this service not synced yet) the caller goes to Graph. The lag gauge
+ * counts a mirror that never synced from when it started being tracked.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CalendarMirror {
+
+    private final GraphServiceClient<Request> graphServiceClient;
+    private final ThreadPoolTaskScheduler calendarMirrorScheduler;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${schedule.mirror.enabled:false}")
+    private boolean enabled;
+
+    @Value("${schedule.mirror.lookback:7d}")
+    private Duration lookback;
+
+    @Value("${schedule.mirror.lookahead:90d}")
+    private Duration lookahead;
+
+    @Value("${schedule.mirror.refresh-interval:30s}")
+    private Duration refreshInterval;
+
+    @Value("${schedule.mirror.max-staleness:2m}")
+    private Duration maxStaleness;
+
+    @Value("${schedule.mirror.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    @Value("${schedule.mirror.max-users:1000}")
+    private int maxUsers;
+
+    @Value("${schedule.mirror.page-size:100}")
+    private int pageSize;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final ConcurrentHashMap<String, UserMirror> mirrors = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("schedulehub.calendar.mirror.lag", this, CalendarMirror::maxLagSeconds)
+                .description("Time since the least recently synced mirrored calendar was synced")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.calendar.mirror.users", mirrors, Map::size)
+                .register(meterRegistry);
+        if (enabled) {
+            calendarMirrorScheduler.scheduleWithFixedDelay(this::refreshAll, refreshInterval);
+        }
+        log.info("Calendar mirror: enabled={}, window=-{}/+{}, refresh={}, maxStaleness={}, idleTimeout={}",
+                enabled, lookback, lookahead, refreshInterval, maxStaleness, idleTimeout);
+    }
+
+    /**
+     * Matches from the mirror, with the same criteria as
+     * GraphCalendarService.findEvents, or empty if the mirror cannot answer
+     * for this user right now. The first lookup for a user starts mirroring
+     * them.
+     */
+    public Optional<List<Event>> find(String subject, LocalDateTime startDate, LocalDateTime endDate, String userId) {
+        if (!enabled || userId == null) {
+            return Optional.empty();
+        }
+        long now = clock.getAsLong();
+        UserMirror mirror = mirrors.get(key(userId));
+        if (mirror == null) {
+            track(userId);
+            return Optional.empty();
+        }
+        mirror.lastAccessMillis = now;
+        if (now - mirror.lastSyncMillis > maxStaleness.toMillis()
+                || mirror.lastSyncMillis <= mirror.invalidatedMillis) {
+            return Optional.empty();
+        }
+        boolean dated = startDate != null && endDate != null;
+        LocalDateTime from = dated ? startDate : LocalDate.now().atStartOfDay();
+        LocalDateTime to = dated ? endDate : from;
+        if (from.isBefore(mirror.windowStart) || to.isAfter(mirror.windowEnd)) {
+            return Optional.empty();
+        }
+        List<Event> matches = mirror.find(subject, startDate, endDate, from);
+        log.info("Calendar mirror: {} match(es) for {}, synced {} ms ago", matches.size(), userId,
+                now - mirror.lastSyncMillis);
+        return Optional.of(matches);
+    }
+
+    /**
+     * Marks the user's mirror stale after this service changed their
+     * calendar, and syncs it in the background. Lookups go to Graph until a
+     * sync started after the change has completed.
+     */
+    public void invalidate(String userId) {
+        invalidate(userId, null);
+    }
+
+    /**
+     * As {@link #invalidate(String)}, also dropping an event this service
+     * deleted (delta results may lag the delete).
+     */
+    public void invalidate(String userId, String deletedEventId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        UserMirror mirror = mirrors.get(key(userId));
+        if (mirror != null) {
+            mirror.invalidatedMillis = clock.getAsLong();
+            if (deletedEventId != null) {
+                mirror.events.remove(deletedEventId);
+            }
+            submitSync(mirror);
+        }
+    }
+
+    private void track(String userId) {
+        if (mirrors.size() >= maxUsers) {
+            return;
+        }
+        UserMirror mirror = new UserMirror(userId, clock.getAsLong());
+        if (mirrors.putIfAbsent(key(userId), mirror) == null) {
+            mirror.lastAccessMillis = mirror.trackedMillis;
+            log.info("Mirroring calendar of {}", userId);
+            submitSync(mirror);
+        }
+    }
+
+    void refreshAll() {
+        long now = clock.getAsLong();
+        mirrors.values().removeIf(mirror -> {
+            boolean idle = now - mirror.lastAccessMillis > idleTimeout.toMillis();
+            if (idle) {
+                log.info("Calendar mirror of {} idle for {}, evicting", mirror.userId, idleTimeout);
+            }
+            return idle;
+        });
+        dueForSync().forEach(this::submitSync);
+    }
+
+    /**
+     * Mirrors without a sync queued or running, least recently synced first.
+     */
+    List<UserMirror> dueForSync() {
+        return mirrors.values().stream()
+                .filter(mirror -> !mirror.queued.get())
+                .sorted(Comparator.comparingLong(mirror -> mirror.lastSyncMillis))
+                .toList();
+    }
+
+    private void submitSync(UserMirror mirror) {
+        if (mirror.queued.compareAndSet(false, true)) {
+            calendarMirrorScheduler.execute(() -> {
+                try {
+                    sync(mirror);
+                } finally {
+                    mirror.queued.set(false);
+                }
+            });
+        }
+    }
+
+    private void sync(UserMirror mirror) {
+        if (!mirror.syncing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = clock.getAsLong();
+            LocalDateTime windowStart = LocalDate.now().atStartOfDay().minus(lookback);
+            boolean seed = mirror.deltaLink == null || !windowStart.isEqual(mirror.windowStart);
+            EventDeltaCollectionPage page;
+            if (seed) {
+                List<Option> options = List.of(
+                        new QueryOption("startDateTime", GraphCalendarService.queryDateTime(windowStart)),
+                        new QueryOption("endDateTime",
+                                GraphCalendarService.queryDateTime(windowStart.plus(lookback).plus(lookahead))),
+                        preferHeader());
+                page = graphServiceClient
+                        .users(mirror.userId)
+                        .calendar()
+                        .calendarView()
+                        .delta()
+                        .buildRequest(options)
+                        .get();
+            } else {
+                page = new EventDeltaCollectionRequestBuilder(mirror.deltaLink, graphServiceClient,
+                        List.of(preferHeader())).buildRequest().get();
+            }
+
+            List<Event> changes = new ArrayList<>();
+            String deltaLink = null;
+            while (page != null) {
+                changes.addAll(page.getCurrentPage());
+                deltaLink = page.deltaLink();
+                EventDeltaCollectionRequestBuilder nextPage = page.getNextPage();
+                page = nextPage != null ? nextPage.buildRequest().get() : null;
+            }
+
+            if (seed) {
+                mirror.replace(changes, windowStart, windowStart.plus(lookback).plus(lookahead));
+            } else {
+                mirror.apply(changes);
+            }
+            mirror.deltaLink = deltaLink;
+            mirror.lastSyncMillis = started;
+            log.debug("Calendar mirror of {} {}: {} change(s), {} event(s)", mirror.userId,
+                    seed ? "seeded" : "synced", changes.size(), mirror.events.size());
+        } catch (GraphServiceException e) {
+            if (e.getResponseCode() == 410) {
+                // Delta token expired or reset by the server - seed again
+                mirror.deltaLink = null;
+            }
+            log.warn("Calendar mirror sync for {} failed: HTTP {}", mirror.userId, e.getResponseCode());
+        } catch (Exception e) {
+            log.warn("Calendar mirror sync for {} failed: {}", mirror.userId, e.getMessage());
+        } finally {
+            mirror.syncing.set(false);
+        }
+    }
+
+    private double maxLagSeconds() {
+        long now = clock.getAsLong();
+        long lag = 0;
+        for (UserMirror mirror : mirrors.values()) {
+            // Never synced (seed failing or still queued): behind since it was tracked
+            long since = mirror.lastSyncMillis > 0 ? mirror.lastSyncMillis : mirror.trackedMillis;
+            lag = Math.max(lag, now - since);
+        }
+        return lag / 1000.0;
+    }
+
+    private HeaderOption preferHeader() {
+        return new HeaderOption("Prefer", "outlook.timezone=\"" + ZoneId.systemDefault().getId()
+                + "\", odata.maxpagesize=" + pageSize);
+    }
+
+    private static String key(String userId) {
+        return userId.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The fields of a mirrored event that lookups use; the rest of the Graph
+     * Event is not kept.
+     */
+    record MirroredEvent(String id, String subject, LocalDateTime start, LocalDateTime end, EventType type,
+            String seriesMasterId) {
+
+        static MirroredEvent of(Event event) {
+            return new MirroredEvent(event.id, event.subject, localDateTime(event.start), localDateTime(event.end),
+                    event.type, event.seriesMasterId);
+        }
+
+        /**
+         * As GraphCalendarService.matches: subject contains, and when both
+         * dates are given, starts within them.
+         */
+        boolean matches(String subject, LocalDateTime startDate, LocalDateTime endDate) {
+            if (subject != null
+                    && (this.subject == null || !this.subject.toLowerCase().contains(subject.toLowerCase()))) {
+                return false;
+            }
+            if (startDate != null && endDate != null) {
+                return start != null && !start.isBefore(startDate) && !start.isAfter(endDate);
+            }
+            return true;
+        }
+
+        Event toEvent() {
+            Event event = new Event();
+            event.id = id;
+            event.subject = subject;
+            event.start = dateTime(start);
+            event.end = dateTime(end);
+            event.type = type;
+            event.seriesMasterId = seriesMasterId;
+            return event;
+        }
+
+        private static LocalDateTime localDateTime(DateTimeTimeZone dateTime) {
+            return dateTime != null && dateTime.dateTime != null
+                    ? GraphCalendarService.parseDateTime(dateTime.dateTime).toLocalDateTime()
+                    : null;
+        }
+
+        private static DateTimeTimeZone dateTime(LocalDateTime value) {
+            if (value == null) {
+                return null;
+            }
+            DateTimeTimeZone dateTime = new DateTimeTimeZone();
+            dateTime.dateTime = value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            dateTime.timeZone = ZoneId.systemDefault().getId();
+            return dateTime;
+        }
+    }
+
+    /**
+     * The mirrored window of one user's calendar.
+     */
+    static final class UserMirror {
+
+        final String userId;
+        final long trackedMillis;
+        volatile ConcurrentHashMap<String, MirroredEvent> events = new ConcurrentHashMap<>();
+        final AtomicBoolean syncing = new AtomicBoolean();
+        final AtomicBoolean queued = new AtomicBoolean(); // A sync is waiting for or running on the pool
+        volatile LocalDateTime windowStart = LocalDateTime.MIN;
+        volatile LocalDateTime windowEnd = LocalDateTime.MIN;
+        volatile String deltaLink;
+        volatile long lastSyncMillis;
+        volatile long invalidatedMillis;
+        volatile long lastAccessMillis;
+
+        UserMirror(String userId, long trackedMillis) {
+            this.userId = userId;
+            this.trackedMillis = trackedMillis;
+        }
+
+        /**
+         * Swaps in a freshly seeded window, so lookups never see it half
+         * loaded.
+         */
+        void replace(List<Event> seed, LocalDateTime windowStart, LocalDateTime windowEnd) {
+            ConcurrentHashMap<String, MirroredEvent> seeded = new ConcurrentHashMap<>();
+            apply(seed, seeded);
+            events = seeded;
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+        }
+
+        /**
+         * Applies one round of delta results: removed and cancelled events
+         * are dropped, everything else replaces the stored copy.
+         */
+        void apply(List<Event> changes) {
+            apply(changes, events);
+        }
+
+        private static void apply(List<Event> changes, Map<String, MirroredEvent> events) {
+            for (Event event : changes) {
+                if (event.id == null) {
+                    continue;
+                }
+                boolean removed = event.additionalDataManager().containsKey("@removed")
+                        || Boolean.TRUE.equals(event.isCancelled);
+                if (removed) {
+                    events.remove(event.id);
+                } else {
+                    events.put(event.id, MirroredEvent.of(event));
+                }
+            }
+        }
+
+        /**
+         * Matching events in start order. Without dates only events starting
+         * from notBefore are considered.
+         */
+        List<Event> find(String subject, LocalDateTime startDate, LocalDateTime endDate, LocalDateTime notBefore) {
+            List<MirroredEvent> matches = new ArrayList<>();
+            for (MirroredEvent event : events.values()) {
+                if (!event.matches(subject, startDate, endDate)) {
+                    continue;
+                }
+                if ((startDate == null || endDate == null)
+                        && (event.start() == null || event.start().isBefore(notBefore))) {
+                    continue;
+                }
+                matches.add(event);
+            }
+            matches.sort(Comparator.comparing(MirroredEvent::start,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+            return matches.stream().map(MirroredEvent::toEvent).toList();
+        }
+    }
+}
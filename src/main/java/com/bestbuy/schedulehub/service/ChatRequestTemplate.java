@@ -0,0 +1,90 @@
+package com.bestbuy.schedulehub.service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Pre-serialized chat completion request body.
+ *
+ * Everything that is the same on every request - model, response format,
+ * temperature and the static system prompt - is serialized to UTF-8 JSON
+ * once. Rendering a request only escapes the dynamic messages and copies the
+ * pieces into a single exactly-sized byte array, instead of building nested
+ * HashMaps, running them through an ObjectMapper and re-encoding the String.
+ *
+ * Immutable and thread-safe.
+ */
+final class ChatRequestTemplate {
+
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+    private static final byte[] SYSTEM_OPEN = utf8(",{\"role\":\"system\",\"content\":\"");
+    private static final byte[] USER_OPEN = utf8(",{\"role\":\"user\",\"content\":\"");
+    private static final byte[] MESSAGE_CLOSE = utf8("\"}");
+    private static final byte[] END = utf8("]}");
+    private static final byte[] END_STREAM = utf8(
+            "],\"stream\":true,\"stream_options\":{\"include_usage\":true}}");
+
+    private final byte[] prefix;
+
+    /**
+     * @param model        model name for the request body, or null for Azure
+     *                     OpenAI where the deployment is in the URL
+     * @param staticPrompt the static system prompt sent first on every request
+     */
+    ChatRequestTemplate(String model, String staticPrompt) {
+        StringBuilder json = new StringBuilder(staticPrompt.length() + 128).append('{');
+        if (model != null) {
+            json.append("\"model\":\"");
+            ENCODER.quoteAsString(model, json);
+            json.append("\",");
+        }
+        json.append("\"response_format\":{\"type\":\"json_object\"},\"temperature\":0.1,\"messages\":[")
+                .append("{\"role\":\"system\",\"content\":\"");
+        ENCODER.quoteAsString(staticPrompt, json);
+        json.append("\"}");
+        this.prefix = utf8(json.toString());
+    }
+
+    /**
+     * Renders the request body as UTF-8 JSON.
+     *
+     * @param systemMessages dynamic system messages sent after the static prompt
+     * @param userContent    the user message
+     * @param stream         whether to request a streamed completion with usage
+     */
+    byte[] render(List<String> systemMessages, String userContent, boolean stream) {
+        byte[][] system = new byte[systemMessages.size()][];
+        int size = prefix.length;
+        for (int i = 0; i < system.length; i++) {
+            system[i] = ENCODER.quoteAsUTF8(systemMessages.get(i));
+            size += SYSTEM_OPEN.length + system[i].length + MESSAGE_CLOSE.length;
+        }
+        byte[] user = ENCODER.quoteAsUTF8(userContent);
+        byte[] end = stream ? END_STREAM : END;
+        size += USER_OPEN.length + user.length + MESSAGE_CLOSE.length + end.length;
+
+        byte[] body = new byte[size];
+        int pos = copy(prefix, body, 0);
+        for (byte[] message : system) {
+            pos = copy(SYSTEM_OPEN, body, pos);
+            pos = copy(message, body, pos);
+            pos = copy(MESSAGE_CLOSE, body, pos);
+        }
+        pos = copy(USER_OPEN, body, pos);
+        pos = copy(user, body, pos);
+        pos = copy(MESSAGE_CLOSE, body, pos);
+        copy(end, body, pos);
+        return body;
+    }
+
+    private static int copy(byte[] source, byte[] target, int pos) {
+        System.arraycopy(source, 0, target, pos, source.length);
+        return pos + source.length;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
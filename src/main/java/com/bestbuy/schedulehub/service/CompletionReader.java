@@ -0,0 +1,234 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.TokenUsage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads chat completions with the Jackson streaming API.
+ *
+ * The response is consumed straight from the HTTP body stream: only
+ * choices[0].message.content and the usage counters are kept, everything else
+ * is skipped token by token. The content is then bound field by field into
+ * {@link RawEntities} without building intermediate Maps.
+ *
+ * Thread-safe; the JsonFactory is shared.
+ */
+final class CompletionReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * The parts of a chat completion the service uses.
+     *
+     * @param content message content of the first choice, or null if absent
+     * @param usage   token usage, or null if the response has no usage block
+     */
+    record Completion(String content, TokenUsage usage) {
+    }
+
+    /**
+     * Extraction fields exactly as the model returned them (strings, not yet
+     * normalized or parsed into dates).
+     */
+    record RawEntities(String intent, List<String> attendees, String startDateTime, String endDateTime,
+            String subject, String location, String recurrencePattern, List<String> exceptions) {
+    }
+
+    Completion readCompletion(InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            String content = null;
+            TokenUsage usage = null;
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                    content = readFirstChoiceContent(parser);
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    usage = readUsage(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Completion(content, usage);
+        }
+    }
+
+    /**
+     * Binds the extraction JSON object produced by the model.
+     */
+    RawEntities readEntities(String content) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return readEntities(parser);
+        }
+    }
+
+    /**
+     * Binds an extraction object whose START_OBJECT has just been read.
+     */
+    RawEntities readEntities(JsonParser parser) throws IOException {
+        String intent = null;
+        List<String> attendees = null;
+        String startDateTime = null;
+        String endDateTime = null;
+        String subject = null;
+        String location = null;
+        String recurrencePattern = null;
+        List<String> exceptions = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "intent" -> intent = scalar(parser, value);
+                case "attendees" -> attendees = stringList(parser, value);
+                case "startDateTime" -> startDateTime = scalar(parser, value);
+                case "endDateTime" -> endDateTime = scalar(parser, value);
+                case "subject" -> subject = scalar(parser, value);
+                case "location" -> location = scalar(parser, value);
+                case "recurrencePattern" -> recurrencePattern = scalar(parser, value);
+                case "exceptions" -> exceptions = stringList(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+        return new RawEntities(intent, attendees, startDateTime, endDateTime, subject, location,
+                recurrencePattern, exceptions);
+    }
+
+    /**
+     * Adapts an already-parsed field map (streamed or batched responses) to
+     * the same shape, with the same rules for non-string values.
+     */
+    static RawEntities fromMap(Map<String, Object> data) {
+        return new RawEntities(
+                text(data.get("intent")),
+                textList(data.get("attendees")),
+                text(data.get("startDateTime")),
+                text(data.get("endDateTime")),
+                text(data.get("subject")),
+                text(data.get("location")),
+                text(data.get("recurrencePattern")),
+                textList(data.get("exceptions")));
+    }
+
+    private String readFirstChoiceContent(JsonParser parser) throws IOException {
+        String content = null;
+        boolean first = true;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (first && parser.currentToken() == JsonToken.START_OBJECT) {
+                content = readChoiceContent(parser);
+            } else {
+                parser.skipChildren();
+            }
+            first = false;
+        }
+        return content;
+    }
+
+    private String readChoiceContent(JsonParser parser) throws IOException {
+        String content = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("message".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String messageField = parser.currentName();
+                    JsonToken messageValue = parser.nextToken();
+                    if ("content".equals(messageField) && messageValue == JsonToken.VALUE_STRING) {
+                        content = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return content;
+    }
+
+    private TokenUsage readUsage(JsonParser parser) throws IOException {
+        TokenUsage.TokenUsageBuilder usage = TokenUsage.builder();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("prompt_tokens".equals(field)) {
+                usage.promptTokens(parser.getValueAsInt());
+            } else if ("completion_tokens".equals(field)) {
+                usage.completionTokens(parser.getValueAsInt());
+            } else if ("prompt_tokens_details".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String detail = parser.currentName();
+                    parser.nextToken();
+                    if ("cached_tokens".equals(detail)) {
+                        usage.cachedTokens(parser.getValueAsInt());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return usage.build();
+    }
+
+    private static String scalar(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static List<String> stringList(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<String> items = new ArrayList<>();
+        JsonToken item;
+        while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (item.isScalarValue() && item != JsonToken.VALUE_NULL) {
+                items.add(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return items;
+    }
+
+    private static String text(Object value) {
+        return value instanceof List || value instanceof Map || value == null ? null : value.toString();
+    }
+
+    private static List<String> textList(Object value) {
+        if (!(value instanceof List)) {
+            return null;
+        }
+        List<String> items = new ArrayList<>();
+        for (Object item : (List<?>) value) {
+            if (item != null) {
+                items.add(item.toString());
+            }
+        }
+        return items;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.Conflict;
+import com.microsoft.graph.models.Attendee;
+import com.microsoft.graph.models.CalendarGetScheduleParameterSet;
+import com.microsoft.graph.models.DateTimeTimeZone;
+import com.microsoft.graph.models.FreeBusyStatus;
+import com.microsoft.graph.models.ScheduleInformation;
+import com.microsoft.graph.models.ScheduleItem;
+import com.microsoft.graph.options.HeaderOption;
+import com.microsoft.graph.requests.CalendarGetScheduleCollectionPage;
+import com.microsoft.graph.requests.GraphServiceClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Free/busy check of the organizer and attendees before a meeting is booked.
+ *
+ * Mailboxes whose busy times for the day are not cached are fetched with a
+ * single getSchedule call covering whole days around the meeting, so a check
+ * costs at most one Graph round trip and later checks for the same people
+ * and day are answered from the cache (ttl). Each mailbox's busy periods are
+ * kept as sorted primitive arrays with a running maximum of end times, so an
+ * overlap query is a binary search.
+ *
+ * Busy and out-of-office periods are conflicts; tentative ones only with
+ * include-tentative. Recurring meetings are checked for their first
+ * occurrence.
+ *
+ * When this service creates, moves or cancels a meeting, the cached
+ * schedules of the organizer and the attendees it knows of are evicted
+ * ({@link #invalidate}), so the next check sees the change.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConflictChecker {
+
+    private final GraphServiceClient<Request> graphServiceClient;
+    private final AttendeeResolver attendeeResolver;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${schedule.conflicts.enabled:false}")
+    private boolean enabled;
+
+    @Value("${schedule.conflicts.action:warn}")
+    private String action;
+
+    @Value("${schedule.conflicts.include-tentative:false}")
+    private boolean includeTentative;
+
+    @Value("${schedule.conflicts.cache-ttl:2m}")
+    private Duration cacheTtl;
+
+    @Value("${schedule.conflicts.max-cached-mailboxes:5000}")
+    private int maxCachedMailboxes;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    // getSchedule for mailboxes over [from, to); replaceable in tests
+    ScheduleLookup schedules = this::querySchedules;
+
+    private final ConcurrentHashMap<String, BusyIntervals> cache = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    interface ScheduleLookup {
+        List<ScheduleInformation> fetch(String userId, List<String> mailboxes, LocalDateTime from, LocalDateTime to);
+    }
+
+    @PostConstruct
+    public void init() {
+        log.info("Conflict check: enabled={}, action={}, includeTentative={}, cacheTtl={}",
+                enabled, action, includeTentative, cacheTtl);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether a meeting with conflicts is not booked ("block") rather than
+     * booked and reported ("warn").
+     */
+    public boolean isBlocking() {
+        return "block".equalsIgnoreCase(action);
+    }
+
+    /**
+     * Busy periods of the organizer (when their user id is an address) and
+     * the attendees that overlap [start, end). Mailboxes whose schedule
+     * cannot be read are skipped.
+     */
+    public List<Conflict> findConflicts(String userId, List<String> attendees, LocalDateTime start,
+            LocalDateTime end) {
+        if (!enabled || start == null || end == null || !end.isAfter(start)) {
+            return List.of();
+        }
+        Set<String> mailboxes = attendeeResolver.mailboxes(userId, attendees);
+        if (mailboxes.isEmpty()) {
+            return List.of();
+        }
+
+        long now = clock.getAsLong();
+        long from = epochSeconds(start);
+        long to = epochSeconds(end);
+        List<String> missing = new ArrayList<>();
+        for (String mailbox : mailboxes) {
+            BusyIntervals cached = cache.get(mailbox);
+            if (cached == null || !cached.covers(from, to, now)) {
+                missing.add(mailbox);
+            }
+        }
+        count("hit", mailboxes.size() - missing.size());
+        if (!missing.isEmpty()) {
+            fetch(userId, missing, start, end, now);
+        }
+
+        List<Conflict> conflicts = new ArrayList<>();
+        for (String mailbox : mailboxes) {
+            BusyIntervals busy = cache.get(mailbox);
+            if (busy != null) {
+                busy.overlapping(from, to, includeTentative, mailbox, conflicts);
+            }
+        }
+        log.info("Conflict check {} - {} for {} mailbox(es), {} fetched: {} conflict(s)", start, end,
+                mailboxes.size(), missing.size(), conflicts.size());
+        return conflicts;
+    }
+
+    /**
+     * Evicts the cached schedules of the organizer (when their user id is an
+     * address) and the given attendees after their calendars changed.
+     */
+    public void invalidate(String userId, List<Attendee> attendees) {
+        if (!enabled) {
+            return;
+        }
+        if (userId != null && userId.contains("@")) {
+            cache.remove(userId.trim().toLowerCase(Locale.ROOT));
+        }
+        if (attendees != null) {
+            for (Attendee attendee : attendees) {
+                if (attendee.emailAddress != null && attendee.emailAddress.address != null) {
+                    cache.remove(attendee.emailAddress.address.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+    }
+
+    private void fetch(String userId, List<String> mailboxes, LocalDateTime start, LocalDateTime end, long now) {
+        // Whole days, so other meetings on the same days hit the cache
+        LocalDateTime from = start.toLocalDate().atStartOfDay();
+        LocalDateTime to = end.toLocalDate().plusDays(1).atStartOfDay();
+        List<ScheduleInformation> schedules;
+        try {
+            schedules = this.schedules.fetch(userId, mailboxes, from, to);
+            count("fetched", mailboxes.size());
+        } catch (Exception e) {
+            log.warn("getSchedule for {} failed, booking without a conflict check: {}", mailboxes, e.getMessage());
+            count("error", mailboxes.size());
+            return;
+        }
+        if (cache.size() + mailboxes.size() > maxCachedMailboxes) {
+            cache.values().removeIf(busy -> busy.isExpired(now));
+        }
+        long expiresAt = now + cacheTtl.toMillis();
+        for (ScheduleInformation schedule : schedules) {
+            if (schedule.scheduleId == null) {
+                continue;
+            }
+            if (schedule.error != null) {
+                log.warn("No free/busy for {}: {}", schedule.scheduleId, schedule.error.message);
+                continue;
+            }
+            if (cache.size() < maxCachedMailboxes || cache.containsKey(schedule.scheduleId.toLowerCase(Locale.ROOT))) {
+                cache.put(schedule.scheduleId.toLowerCase(Locale.ROOT),
+                        BusyIntervals.of(schedule.scheduleItems, epochSeconds(from), epochSeconds(to), expiresAt));
+            }
+        }
+    }
+
+    private List<ScheduleInformation> querySchedules(String userId, List<String> mailboxes, LocalDateTime from,
+            LocalDateTime to) {
+        CalendarGetScheduleCollectionPage page = graphServiceClient
+                .users(userId)
+                .calendar()
+                .getSchedule(CalendarGetScheduleParameterSet.newBuilder()
+                        .withSchedules(mailboxes)
+                        .withStartTime(dateTime(from))
+                        .withEndTime(dateTime(to))
+                        .build())
+                .buildRequest(List.of(new HeaderOption("Prefer",
+                        "outlook.timezone=\"" + ZoneId.systemDefault().getId() + "\"")))
+                .post();
+        return page != null ? page.getCurrentPage() : List.of();
+    }
+
+    private void count(String result, int mailboxes) {
+        if (mailboxes > 0) {
+            Counter.builder("schedulehub.conflicts.mailboxes")
+                    .tag("result", result)
+                    .register(meterRegistry)
+                    .increment(mailboxes);
+        }
+    }
+
+    private static DateTimeTimeZone dateTime(LocalDateTime value) {
+        DateTimeTimeZone dateTime = new DateTimeTimeZone();
+        dateTime.dateTime = value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        dateTime.timeZone = ZoneId.systemDefault().getId();
+        return dateTime;
+    }
+
+    static long epochSeconds(LocalDateTime value) {
+        return value.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static LocalDateTime fromEpochSeconds(long value) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(value), ZoneId.systemDefault());
+    }
+
+    /**
+     * One mailbox's busy periods over a covered range, sorted by start.
+     * maxEnd[i] is the latest end among periods 0..i, so it is
+     * non-decreasing and the first period that can overlap a query is found
+     * by binary search even when periods overlap each other.
+     */
+    static final class BusyIntervals {
+
+        static final byte BUSY = 0;
+        static final byte OOF = 1;
+        static final byte TENTATIVE = 2;
+
+        private final long[] starts;
+        private final long[] ends;
+        private final long[] maxEnd;
+        private final byte[] statuses;
+        private final long coveredFrom;
+        private final long coveredTo;
+        private final long expiresAtMillis;
+
+        BusyIntervals(long[] starts, long[] ends, byte[] statuses, long coveredFrom, long coveredTo,
+                long expiresAtMillis) {
+            Integer[] order = new Integer[starts.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+            this.starts = new long[starts.length];
+            this.ends = new long[starts.length];
+            this.maxEnd = new long[starts.length];
+            this.statuses = new byte[starts.length];
+            long latest = Long.MIN_VALUE;
+            for (int i = 0; i < order.length; i++) {
+                this.starts[i] = starts[order[i]];
+                this.ends[i] = ends[order[i]];
+                this.statuses[i] = statuses[order[i]];
+                latest = Math.max(latest, this.ends[i]);
+                this.maxEnd[i] = latest;
+            }
+            this.coveredFrom = coveredFrom;
+            this.coveredTo = coveredTo;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        static BusyIntervals of(List<ScheduleItem> items, long coveredFrom, long coveredTo, long expiresAtMillis) {
+            List<ScheduleItem> busy = new ArrayList<>();
+            if (items != null) {
+                for (ScheduleItem item : items) {
+                    if (status(item.status) >= 0 && item.start != null && item.end != null
+                            && item.start.dateTime != null && item.end.dateTime != null) {
+                        busy.add(item);
+                    }
+                }
+            }
+            long[] starts = new long[busy.size()];
+            long[] ends = new long[busy.size()];
+            byte[] statuses = new byte[busy.size()];
+            for (int i = 0; i < busy.size(); i++) {
+                ScheduleItem item = busy.get(i);
+                starts[i] = epochSeconds(GraphCalendarService.parseDateTime(item.start.dateTime).toLocalDateTime());
+                ends[i] = epochSeconds(GraphCalendarService.parseDateTime(item.end.dateTime).toLocalDateTime());
+                statuses[i] = (byte) status(item.status);
+            }
+            return new BusyIntervals(starts, ends, statuses, coveredFrom, coveredTo, expiresAtMillis);
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtMillis >= 0;
+        }
+
+        boolean covers(long from, long to, long now) {
+            return !isExpired(now) && from >= coveredFrom && to <= coveredTo;
+        }
+
+        /**
+         * Adds the periods overlapping [from, to) to conflicts.
+         */
+        void overlapping(long from, long to, boolean includeTentative, String mailbox, List<Conflict> conflicts) {
+            // First period whose running max end is after from
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (maxEnd[mid] <= from) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < starts.length && starts[i] < to; i++) {
+                if (ends[i] > from && (statuses[i] != TENTATIVE || includeTentative)) {
+                    conflicts.add(Conflict.builder()
+                            .mailbox(mailbox)
+                            .start(fromEpochSeconds(starts[i]))
+                            .end(fromEpochSeconds(ends[i]))
+                            .status(statuses[i] == BUSY ? "busy" : statuses[i] == OOF ? "oof" : "tentative")
+                            .build());
+                }
+            }
+        }
+
+        private static int status(FreeBusyStatus status) {
+            if (status == FreeBusyStatus.BUSY) {
+                return BUSY;
+            }
+            if (status == FreeBusyStatus.OOF) {
+                return OOF;
+            }
+            if (status == FreeBusyStatus.TENTATIVE) {
+                return TENTATIVE;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Conversation state for follow-up utterances ("actually make it 4pm", "add
+ * Bob too").
+ *
+ * Keyed by user and the client's session id (ScheduleRequest.sessionId);
+ * requests without a session id have no conversation state. Each session
+ * keeps the last extracted entities and the id of the event they created or
+ * changed. Sessions expire after the configured TTL without a new turn, and
+ * the least recently updated sessions are evicted once max-sessions is
+ * reached.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConversationSessionStore {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${schedule.session.enabled:true}")
+    private boolean enabled;
+
+    @Value("${schedule.session.ttl:15m}")
+    private Duration ttl;
+
+    @Value("${schedule.session.max-sessions:10000}")
+    private int maxSessions;
+
+    LongSupplier clock = System::nanoTime;
+
+    // Insertion order is update order, so the eldest entries expire first
+    private final LinkedHashMap<String, Entry> sessions = new LinkedHashMap<>();
+
+    /**
+     * The state of one conversation after its last successful turn.
+     */
+    public record Session(ExtractedEntities entities, String eventId) {
+    }
+
+    private record Entry(Session session, long expiresAtNanos) {
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("schedulehub.session.active", this, ConversationSessionStore::size)
+                .register(meterRegistry);
+        log.info("Conversation sessions: enabled={}, ttl={}, maxSessions={}", enabled, ttl, maxSessions);
+    }
+
+    public Optional<Session> get(String userId, String sessionId) {
+        if (!enabled || sessionId == null || sessionId.isBlank()) {
+            return Optional.empty();
+        }
+        String key = key(userId, sessionId);
+        synchronized (this) {
+            Entry entry = sessions.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (clock.getAsLong() - entry.expiresAtNanos >= 0) {
+                sessions.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(new Session(ExtractionCache.copyOf(entry.session.entities()),
+                    entry.session.eventId()));
+        }
+    }
+
+    /**
+     * Stores the outcome of a turn, replacing the session's previous state and
+     * restarting its TTL.
+     */
+    public void put(String userId, String sessionId, ExtractedEntities entities, String eventId) {
+        if (!enabled || sessionId == null || sessionId.isBlank() || entities == null) {
+            return;
+        }
+        ExtractedEntities stored = ExtractionCache.copyOf(entities);
+        stored.setUsage(null);
+        String key = key(userId, sessionId);
+        synchronized (this) {
+            long now = clock.getAsLong();
+            sessions.remove(key);
+            sessions.put(key, new Entry(new Session(stored, eventId), now + ttl.toNanos()));
+            purge(now);
+        }
+    }
+
+    public synchronized void remove(String userId, String sessionId) {
+        if (sessionId != null) {
+            sessions.remove(key(userId, sessionId));
+        }
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    private void purge(long now) {
+        Iterator<Map.Entry<String, Entry>> it = sessions.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            if (sessions.size() <= maxSessions && now - eldest.expiresAtNanos < 0) {
+                return;
+            }
+            it.remove();
+        }
+    }
+
+    private static String key(String userId, String sessionId) {
+        return (userId == null ? "" : userId.trim().toLowerCase(Locale.ROOT)) + "|" + sessionId.trim();
+    }
+}
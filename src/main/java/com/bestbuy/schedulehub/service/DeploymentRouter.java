@@ -0,0 +1,204 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.config.OpenAIRoutingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Picks the OpenAI deployment for each extraction call.
+ *
+ * Routing favors the available target with the lowest latency EWMA scaled by
+ * its remaining headroom (see {@link DeploymentTarget#score()}). Targets whose
+ * circuit is open are skipped; callers report each outcome back so 429s, 5xx
+ * and timeouts eject a target and a later probe lets it back in.
+ *
+ * Per-target gauges are published under schedulehub.openai.deployment.* and
+ * the full state is available at /actuator/openaideployments.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeploymentRouter {
+
+    private final OpenAIRoutingProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${openai.api-key:}")
+    private String defaultApiKey;
+
+    @Value("${openai.model:gpt-5-chat}")
+    private String defaultModel;
+
+    @Value("${openai.endpoint:}")
+    private String defaultEndpoint;
+
+    @Value("${openai.deployment-name:}")
+    private String defaultDeploymentName;
+
+    @Value("${openai.api-version:2025-01-01-preview}")
+    private String defaultApiVersion;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private List<DeploymentTarget> targets;
+    private Counter failovers;
+
+    @PostConstruct
+    public void init() {
+        List<DeploymentTarget> built = new ArrayList<>();
+        if (properties.getDeployments().isEmpty()) {
+            built.add(newTarget("default", defaultEndpoint, defaultDeploymentName, defaultApiKey,
+                    defaultApiVersion, Integer.MAX_VALUE));
+        } else {
+            for (OpenAIRoutingProperties.Deployment deployment : properties.getDeployments()) {
+                String name = hasText(deployment.getName()) ? deployment.getName()
+                        : deployment.getDeploymentName() + "@" + deployment.getEndpoint();
+                built.add(newTarget(name, deployment.getEndpoint(), deployment.getDeploymentName(),
+                        hasText(deployment.getApiKey()) ? deployment.getApiKey() : defaultApiKey,
+                        hasText(deployment.getApiVersion()) ? deployment.getApiVersion() : defaultApiVersion,
+                        deployment.getMaxConcurrent()));
+            }
+        }
+        targets = Collections.unmodifiableList(built);
+
+        failovers = Counter.builder("schedulehub.openai.deployment.failovers")
+                .description("Extraction calls retried on another deployment after a 429, 5xx or timeout")
+                .register(meterRegistry);
+        for (DeploymentTarget target : targets) {
+            Gauge.builder("schedulehub.openai.deployment.latency", target, DeploymentTarget::getEwmaLatencyMillis)
+                    .description("EWMA of successful call latency")
+                    .tag("deployment", target.getName())
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("schedulehub.openai.deployment.in-flight", target, DeploymentTarget::getInFlight)
+                    .tag("deployment", target.getName())
+                    .register(meterRegistry);
+            Gauge.builder("schedulehub.openai.deployment.circuit", target, t -> t.getState().ordinal())
+                    .description("Circuit state: 0 closed, 1 half-open, 2 open")
+                    .tag("deployment", target.getName())
+                    .register(meterRegistry);
+            log.info("OpenAI deployment target '{}': {}", target.getName(), target.getUrl());
+        }
+    }
+
+    /**
+     * Reserves a call on the best available target.
+     *
+     * @param excluded names of targets already tried for this request
+     * @return the reserved target, or empty if every remaining circuit is open
+     */
+    public Optional<DeploymentTarget> acquire(Set<String> excluded) {
+        while (true) {
+            DeploymentTarget best = null;
+            double bestScore = Double.MAX_VALUE;
+            for (DeploymentTarget target : targets) {
+                if (excluded.contains(target.getName()) || !target.isAvailable()) {
+                    continue;
+                }
+                double score = target.score();
+                if (score < bestScore) {
+                    best = target;
+                    bestScore = score;
+                }
+            }
+            if (best == null) {
+                return Optional.empty();
+            }
+            // Another thread may have taken the half-open probe in between
+            if (best.tryAcquire()) {
+                return Optional.of(best);
+            }
+        }
+    }
+
+    /**
+     * Reserves a call on the named target, if it exists and its circuit
+     * allows it.
+     */
+    public Optional<DeploymentTarget> acquire(String name) {
+        for (DeploymentTarget target : targets) {
+            if (target.getName().equals(name) && target.isAvailable() && target.tryAcquire()) {
+                return Optional.of(target);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void recordSuccess(DeploymentTarget target, long latencyMillis) {
+        target.recordSuccess(latencyMillis);
+    }
+
+    public void recordFailure(DeploymentTarget target, String reason) {
+        if (target.recordFailure()) {
+            log.warn("⚠️  Circuit opened for OpenAI deployment '{}' after {} - ejected for {}",
+                    target.getName(), reason, properties.getOpenDuration());
+        } else {
+            log.warn("OpenAI deployment '{}' failed: {}", target.getName(), reason);
+        }
+    }
+
+    public void release(DeploymentTarget target) {
+        target.release();
+    }
+
+    public void recordFailover(DeploymentTarget from, DeploymentTarget to) {
+        failovers.increment();
+        log.info("Failing over from OpenAI deployment '{}' to '{}'", from.getName(), to.getName());
+    }
+
+    /**
+     * Whether a status code means the deployment (not the request) is the
+     * problem, so the call should be retried elsewhere.
+     */
+    public static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    public List<DeploymentTarget> getTargets() {
+        return targets;
+    }
+
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (DeploymentTarget target : targets) {
+            stats.add(target.stats());
+        }
+        return stats;
+    }
+
+    private DeploymentTarget newTarget(String name, String endpoint, String deploymentName, String apiKey,
+            String apiVersion, int maxConcurrent) {
+        boolean azure = hasText(endpoint);
+        String url;
+        if (azure) {
+            String baseUrl = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+            // Use model name as deployment if not specified
+            String deployment = hasText(deploymentName) ? deploymentName : defaultModel;
+            url = String.format("%s/openai/deployments/%s/chat/completions?api-version=%s",
+                    baseUrl, deployment, apiVersion);
+        } else {
+            url = "https://api.openai.com/v1/chat/completions";
+        }
+        return new DeploymentTarget(name, url, apiKey, azure, maxConcurrent,
+                properties.getFailureThreshold(), properties.getOpenDuration().toMillis(),
+                properties.getLatencyAlpha(), properties.getInitialLatency().toMillis(), clock);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
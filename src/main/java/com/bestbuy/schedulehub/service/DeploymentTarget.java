@@ -0,0 +1,199 @@
+package com.bestbuy.schedulehub.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * One OpenAI deployment plus its live routing state: EWMA latency, calls in
+ * flight and a circuit breaker.
+ *
+ * Circuit states:
+ * - CLOSED: normal routing
+ * - OPEN: after failureThreshold consecutive failures; rejects calls until
+ * openDuration has passed
+ * - HALF_OPEN: lets exactly one probe through; success closes the circuit,
+ * failure opens it again
+ */
+public class DeploymentTarget {
+
+    public enum CircuitState {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final String url;
+    private final String apiKey;
+    private final boolean azure;
+    private final int maxConcurrent;
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final double latencyAlpha;
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    // Guarded by this
+    private double ewmaLatencyMillis;
+    private int consecutiveFailures;
+    private CircuitState state = CircuitState.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    DeploymentTarget(String name, String url, String apiKey, boolean azure, int maxConcurrent,
+            int failureThreshold, long openDurationMillis, double latencyAlpha, long initialLatencyMillis,
+            LongSupplier clock) {
+        this.name = name;
+        this.url = url;
+        this.apiKey = apiKey;
+        this.azure = azure;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMillis = openDurationMillis;
+        this.latencyAlpha = latencyAlpha;
+        this.ewmaLatencyMillis = initialLatencyMillis;
+        this.clock = clock;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public boolean isAzure() {
+        return azure;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized double getEwmaLatencyMillis() {
+        return ewmaLatencyMillis;
+    }
+
+    public synchronized CircuitState getState() {
+        return state;
+    }
+
+    /**
+     * Routing cost: expected latency inflated by how much of the deployment's
+     * headroom is already in use. Lower is better.
+     */
+    synchronized double score() {
+        int free = maxConcurrent - inFlight.get();
+        double headroom = Math.max(free, 0.5) / maxConcurrent;
+        return ewmaLatencyMillis / headroom;
+    }
+
+    /**
+     * Whether the circuit currently lets a call through (without reserving it).
+     */
+    synchronized boolean isAvailable() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return clock.getAsLong() - openedAt >= openDurationMillis;
+            default:
+                return !probeInFlight;
+        }
+    }
+
+    /**
+     * Reserves a call on this target. Moves an expired OPEN circuit to
+     * HALF_OPEN and claims its single probe.
+     *
+     * @return false if the circuit rejects the call
+     */
+    synchronized boolean tryAcquire() {
+        if (state == CircuitState.OPEN) {
+            if (clock.getAsLong() - openedAt < openDurationMillis) {
+                rejections.incrementAndGet();
+                return false;
+            }
+            state = CircuitState.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == CircuitState.HALF_OPEN) {
+            if (probeInFlight) {
+                rejections.incrementAndGet();
+                return false;
+            }
+            probeInFlight = true;
+        }
+        inFlight.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Releases a call that completed successfully and folds its latency into
+     * the EWMA.
+     */
+    synchronized void recordSuccess(long latencyMillis) {
+        inFlight.decrementAndGet();
+        successes.incrementAndGet();
+        ewmaLatencyMillis = latencyAlpha * latencyMillis + (1 - latencyAlpha) * ewmaLatencyMillis;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = CircuitState.CLOSED;
+    }
+
+    /**
+     * Releases a call that failed with 429, 5xx or a timeout.
+     *
+     * @return true if this failure opened the circuit
+     */
+    synchronized boolean recordFailure() {
+        inFlight.decrementAndGet();
+        failures.incrementAndGet();
+        consecutiveFailures++;
+        if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            boolean opened = state != CircuitState.OPEN;
+            state = CircuitState.OPEN;
+            openedAt = clock.getAsLong();
+            probeInFlight = false;
+            return opened;
+        }
+        return false;
+    }
+
+    /**
+     * Releases a call whose outcome says nothing about the deployment's health
+     * (e.g. a 400 for a bad request, or a call cancelled by the caller).
+     */
+    synchronized void release() {
+        inFlight.decrementAndGet();
+        probeInFlight = false;
+    }
+
+    /**
+     * Snapshot for the actuator endpoint.
+     */
+    synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("url", url);
+        stats.put("state", state);
+        stats.put("ewmaLatencyMs", Math.round(ewmaLatencyMillis));
+        stats.put("inFlight", inFlight.get());
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("successes", successes.get());
+        stats.put("failures", failures.get());
+        stats.put("rejections", rejections.get());
+        return stats;
+    }
+}
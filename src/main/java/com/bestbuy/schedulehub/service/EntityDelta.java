@@ -0,0 +1,193 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import com.bestbuy.schedulehub.dto.TokenUsage;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The changes a follow-up utterance ("actually make it 4pm", "add Bob too")
+ * makes to the request in its conversation session, as returned by the delta
+ * prompt ({@link ExtractionPrompts#deltaSystemPrompt()}). The delta is
+ * applied locally to the session's last entities.
+ *
+ * A null field is unchanged; clearLocation and clearRecurrence record an
+ * explicit JSON null for those fields.
+ *
+ * Only utterances that {@link #looksLikeFollowUp(String) look like a
+ * follow-up} get a delta call; anything else in a session goes straight to
+ * full extraction instead of paying for a delta round trip first.
+ */
+record EntityDelta(
+        boolean newRequest,
+        String intent,
+        LocalDateTime startDateTime,
+        LocalDateTime endDateTime,
+        String subject,
+        String location,
+        boolean clearLocation,
+        String recurrencePattern,
+        boolean clearRecurrence,
+        List<String> addAttendees,
+        List<String> removeAttendees,
+        List<String> exceptions,
+        TokenUsage usage) {
+
+    // Openers that amend what was just said ("actually ...", "also invite ...")
+    private static final Pattern FOLLOW_UP_LEAD = Pattern.compile(
+            "^(?:actually|also|and|but|instead|rather|no|nope|wait|oh|oops|sorry|plus|then|add|invite|include|"
+                    + "drop|remove|exclude|without|with|same|make)\\b");
+    // References to the request in the session ("move it", "4pm instead", "Bob too")
+    private static final Pattern REFERENCE = Pattern.compile(
+            "\\b(?:it|them|instead|too|as well|the same)\\b");
+    // Openers of a request that stands on its own
+    private static final Pattern NEW_REQUEST_LEAD = Pattern.compile(
+            "^(?:please\\s+)?(?:book|schedule|set up|setup|create|arrange|organi[sz]e|plan|cancel|reschedule|"
+                    + "find|what|when|show|list|do i|am i)\\b");
+    private static final int SHORT_UTTERANCE_WORDS = 5;
+
+    /**
+     * The utterance is not a follow-up (or the delta call failed) - extract it
+     * as a new request.
+     */
+    static EntityDelta newRequest(TokenUsage usage) {
+        return new EntityDelta(true, null, null, null, null, null, false, null, false, null, null, null, usage);
+    }
+
+    /**
+     * Whether an utterance in a session reads as an amendment of the previous
+     * request: it opens like one, refers back to it, or is a short fragment
+     * ("friday at 3") that does not open like a new request.
+     */
+    static boolean looksLikeFollowUp(String text) {
+        if (text == null || text.isBlank()) {
+            return false;
+        }
+        String normalized = ExtractionCache.normalize(text);
+        if (FOLLOW_UP_LEAD.matcher(normalized).find() || REFERENCE.matcher(normalized).find()) {
+            return true;
+        }
+        return !NEW_REQUEST_LEAD.matcher(normalized).find()
+                && normalized.split(" ").length <= SHORT_UTTERANCE_WORDS;
+    }
+
+    static EntityDelta parse(JsonNode node, DateTimeFormatter dateTimeFormat, TokenUsage usage) {
+        if (node == null || !node.isObject() || node.path("newRequest").asBoolean(false)) {
+            return newRequest(usage);
+        }
+        return new EntityDelta(false,
+                text(node, "intent"),
+                dateTime(node, "startDateTime", dateTimeFormat),
+                dateTime(node, "endDateTime", dateTimeFormat),
+                text(node, "subject"),
+                text(node, "location"),
+                node.has("location") && text(node, "location") == null,
+                text(node, "recurrencePattern"),
+                node.has("recurrencePattern") && text(node, "recurrencePattern") == null,
+                list(node, "addAttendees"),
+                list(node, "removeAttendees"),
+                list(node, "exceptions"),
+                usage);
+    }
+
+    /**
+     * Returns a copy of the current entities with this delta applied. A new
+     * start without a new end keeps the meeting's length. The delta's token
+     * usage is not carried over.
+     */
+    ExtractedEntities applyTo(ExtractedEntities current) {
+        ExtractedEntities merged = ExtractionCache.copyOf(current);
+        merged.setUsage(null);
+        if (intent != null) {
+            merged.setIntent(intent);
+        }
+        if (startDateTime != null) {
+            LocalDateTime end = endDateTime;
+            if (end == null) {
+                Duration length = current.getStartDateTime() != null && current.getEndDateTime() != null
+                        ? Duration.between(current.getStartDateTime(), current.getEndDateTime())
+                        : Duration.ofHours(1);
+                end = startDateTime.plus(length);
+            }
+            merged.setStartDateTime(startDateTime);
+            merged.setEndDateTime(end);
+        } else if (endDateTime != null) {
+            merged.setEndDateTime(endDateTime);
+        }
+        if (subject != null) {
+            merged.setSubject(subject);
+        }
+        if (location != null || clearLocation) {
+            merged.setLocation(location);
+        }
+        if (recurrencePattern != null || clearRecurrence) {
+            merged.setRecurrencePattern(recurrencePattern);
+        }
+        if (exceptions != null) {
+            merged.setExceptions(new ArrayList<>(exceptions));
+        }
+        if (addAttendees != null || removeAttendees != null) {
+            List<String> attendees = merged.getAttendees() != null ? merged.getAttendees() : new ArrayList<>();
+            if (removeAttendees != null) {
+                attendees.removeIf(a -> removeAttendees.stream().anyMatch(a::equalsIgnoreCase));
+            }
+            if (addAttendees != null) {
+                for (String added : addAttendees) {
+                    if (attendees.stream().noneMatch(added::equalsIgnoreCase)) {
+                        attendees.add(added);
+                    }
+                }
+            }
+            merged.setAttendees(attendees);
+        }
+        return merged;
+    }
+
+    boolean isEmpty() {
+        return !newRequest && intent == null && startDateTime == null && endDateTime == null && subject == null
+                && location == null && !clearLocation && recurrencePattern == null && !clearRecurrence
+                && addAttendees == null && removeAttendees == null && exceptions == null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isTextual()) {
+            return null;
+        }
+        String text = value.asText().trim();
+        return text.isEmpty() || text.equalsIgnoreCase("null") ? null : text;
+    }
+
+    private static LocalDateTime dateTime(JsonNode node, String field, DateTimeFormatter format) {
+        String text = text(node, field);
+        if (text == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(text, format);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static List<String> list(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isArray()) {
+            return null;
+        }
+        List<String> items = new ArrayList<>();
+        for (JsonNode item : value) {
+            if (item.isTextual() && !item.asText().isBlank()) {
+                items.add(item.asText().trim());
+            }
+        }
+        return items;
+    }
+}
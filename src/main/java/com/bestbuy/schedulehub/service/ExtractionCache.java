@@ -0,0 +1,239 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded in-process cache of OpenAI extraction results.
+ * 
+ * Users send the same few phrasings over and over, so the result of
+ * {@link OpenAIService#extractIntentAndEntities(String)} is cached by:
+ * - The normalized utterance (case, whitespace and edge punctuation folded)
+ * - The date-context bucket the prompt was built with, so relative dates
+ * like "tomorrow" never resolve against a stale day
+ * 
+ * Cacheable prompts carry the start of the bucket as their current time
+ * ({@link #promptTime(String, LocalDateTime)}), so a cached "today at 5"
+ * is exactly what a fresh call in the same bucket would return. Utterances
+ * relative to the clock ("in 30 minutes", "now") need the exact time: they
+ * are never cached, and their key only coalesces identical requests in the
+ * same minute.
+ * 
+ * Entries are evicted least-recently-used once max-size is reached and
+ * expire after the configured TTL. Hit, miss and eviction counters are
+ * published through Micrometer and visible under /actuator/metrics.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExtractionCache {
+
+    // Punctuation at the edge of a token ("tomorrow!", "(Bob)") - keeps
+    // punctuation inside tokens such as "3:30" or "bob.smith@example.com"
+    private static final Pattern EDGE_PUNCTUATION = Pattern
+            .compile("(?<![\\p{L}\\p{N}])\\p{Punct}+|\\p{Punct}+(?![\\p{L}\\p{N}])");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Offsets from the current time, matched against the normalized utterance
+    private static final Pattern CLOCK_RELATIVE = Pattern.compile(
+            "\\b(?:in|within|after)\\s+(?:an?|half an?|one|two|three|four|five|ten|fifteen|twenty|thirty|forty|a few|"
+                    + "a couple of|\\d+)\\s*(?:min|mins|minutes?|hrs?|hours?)\\b"
+                    + "|\\b(?:now|asap|right away|from now)\\b");
+    // Prefix of keys that are never stored
+    private static final String UNCACHED = "now:";
+    // Entries examined for expiry on each put
+    private static final int PURGE_BUDGET = 8;
+    // ExtractedEntities.origin of every result served from the cache
+    static final String ORIGIN = "cache";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${openai.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${openai.cache.max-size:1000}")
+    private int maxSize;
+
+    @Value("${openai.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${openai.cache.date-bucket-minutes:60}")
+    private int dateBucketMinutes;
+
+    private LinkedHashMap<String, CacheEntry> entries;
+    private Counter hits;
+    private Counter misses;
+    private Counter sizeEvictions;
+    private Counter expiredEvictions;
+
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        hits = Counter.builder("schedulehub.extraction.cache.hits")
+                .description("Extraction requests answered from the cache")
+                .register(meterRegistry);
+        misses = Counter.builder("schedulehub.extraction.cache.misses")
+                .description("Extraction requests that had to call OpenAI")
+                .register(meterRegistry);
+        sizeEvictions = Counter.builder("schedulehub.extraction.cache.evictions")
+                .tag("cause", "size")
+                .register(meterRegistry);
+        expiredEvictions = Counter.builder("schedulehub.extraction.cache.evictions")
+                .tag("cause", "expired")
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.extraction.cache.size", this, ExtractionCache::size)
+                .register(meterRegistry);
+        log.info("Extraction cache: enabled={}, maxSize={}, ttl={}, dateBucketMinutes={}",
+                enabled, maxSize, ttl, dateBucketMinutes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Builds the cache key for an utterance evaluated at the given time.
+     */
+    public String key(String text, LocalDateTime now) {
+        String normalized = normalize(text);
+        if (isClockRelative(normalized)) {
+            return UNCACHED + now.truncatedTo(ChronoUnit.MINUTES) + "|" + normalized;
+        }
+        return bucketStart(now) + "|" + normalized;
+    }
+
+    /**
+     * Builds the key for an entity-only extraction, whose intent came from
+     * the local classifier. The intent is part of the result, so these never
+     * share an entry (or an in-flight call) with full extractions; the
+     * suffix cannot occur in a full key, whose utterance is lower case.
+     */
+    public String key(String text, LocalDateTime now, String knownIntent) {
+        return key(text, now) + "|Intent=" + knownIntent;
+    }
+
+    /**
+     * The current time to build the utterance's prompt with: the start of the
+     * date bucket, or the exact time when the utterance is relative to the
+     * clock or caching is off.
+     */
+    public LocalDateTime promptTime(String text, LocalDateTime now) {
+        if (!enabled || isClockRelative(normalize(text))) {
+            return now;
+        }
+        return bucketStart(now);
+    }
+
+    /**
+     * Returns a copy of the cached entities, or null if absent or expired.
+     */
+    public synchronized ExtractedEntities get(String key) {
+        if (!enabled || key.startsWith(UNCACHED)) {
+            return null;
+        }
+        CacheEntry entry = entries.get(key);
+        if (entry != null && entry.isExpired(System.nanoTime())) {
+            entries.remove(key);
+            expiredEvictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copyOf(entry.entities);
+    }
+
+    public synchronized void put(String key, ExtractedEntities entities) {
+        if (!enabled || key.startsWith(UNCACHED) || entities == null
+                || "Unknown".equalsIgnoreCase(entities.getIntent())) {
+            return;
+        }
+        long now = System.nanoTime();
+        purgeExpired(now);
+        ExtractedEntities stored = copyOf(entities);
+        // Cache hits cost no tokens
+        stored.setUsage(null);
+        stored.setOrigin(ORIGIN);
+        entries.put(key, new CacheEntry(stored, now + ttl.toNanos()));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops expired entries from the least recently used end, looking at no
+     * more than PURGE_BUDGET entries, so a miss never scans the whole cache
+     * under the lock. Expired entries elsewhere are dropped when read or
+     * pushed out by the size bound.
+     */
+    private void purgeExpired(long now) {
+        Iterator<CacheEntry> it = entries.values().iterator();
+        for (int examined = 0; examined < PURGE_BUDGET && it.hasNext(); examined++) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+                expiredEvictions.increment();
+            }
+        }
+    }
+
+    private LocalDateTime bucketStart(LocalDateTime now) {
+        int bucketMinutes = Math.max(1, dateBucketMinutes);
+        LocalDateTime minute = now.truncatedTo(ChronoUnit.MINUTES);
+        int minuteOfDay = minute.getHour() * 60 + minute.getMinute();
+        return minute.toLocalDate().atStartOfDay()
+                .plusMinutes(minuteOfDay - (minuteOfDay % bucketMinutes));
+    }
+
+    static boolean isClockRelative(String normalized) {
+        return CLOCK_RELATIVE.matcher(normalized).find();
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = EDGE_PUNCTUATION.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    }
+
+    static ExtractedEntities copyOf(ExtractedEntities source) {
+        return source.toBuilder()
+                .attendees(source.getAttendees() != null ? new ArrayList<>(source.getAttendees()) : null)
+                .exceptions(source.getExceptions() != null ? new ArrayList<>(source.getExceptions()) : null)
+                .build();
+    }
+
+    private record CacheEntry(ExtractedEntities entities, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
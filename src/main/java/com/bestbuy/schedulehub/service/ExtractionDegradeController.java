@@ -0,0 +1,201 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Switches the extraction stage to cheaper modes while it breaches its
+ * latency or error-rate SLO.
+ *
+ * Every request OpenAIService actually sends is recorded with its latency
+ * and whether it failed; cache hits and single-flight joiners are not calls,
+ * and only I/O errors, timeouts and 5xx answers count as failures (an
+ * "Unknown" intent is a valid answer). Over a window of recent calls, when the p95 latency
+ * exceeds latency-slo or the error rate exceeds error-rate-slo, the mode
+ * steps up one level:
+ * - NORMAL: configured prompt, deployments, timeouts and hedging
+ * - REDUCED: compact prompt, reduced-deployment preferred if set,
+ * reduced-call-timeout per call, no hedging
+ * - LOCAL: as REDUCED, and the rule-based parser is tried at
+ * local-min-confidence first, so only requests it cannot parse reach OpenAI
+ *
+ * It steps back down one level only when both p95 and error rate are below
+ * recovery-ratio times their SLO. Each change clears the window and is
+ * followed by at least min-dwell in the new mode, so the mode does not flap
+ * around the threshold.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExtractionDegradeController {
+
+    public enum Mode {
+        NORMAL, REDUCED, LOCAL;
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${schedule.degrade.enabled:true}")
+    private boolean enabled;
+
+    @Value("${schedule.degrade.latency-slo:4s}")
+    private Duration latencySlo;
+
+    @Value("${schedule.degrade.error-rate-slo:0.2}")
+    private double errorRateSlo;
+
+    @Value("${schedule.degrade.window-size:50}")
+    private int windowSize;
+
+    @Value("${schedule.degrade.min-samples:20}")
+    private int minSamples;
+
+    @Value("${schedule.degrade.recovery-ratio:0.6}")
+    private double recoveryRatio;
+
+    @Value("${schedule.degrade.min-dwell:30s}")
+    private Duration minDwell;
+
+    @Value("${schedule.degrade.reduced-call-timeout:8s}")
+    private Duration reducedCallTimeout;
+
+    @Value("${schedule.degrade.reduced-deployment:}")
+    private String reducedDeployment;
+
+    @Value("${schedule.degrade.local-min-confidence:0.6}")
+    private double localMinConfidence;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private volatile Mode mode = Mode.NORMAL;
+    private long[] latencies;
+    private boolean[] failures;
+    private int next;
+    private int samples;
+    private long lastChangeMillis;
+
+    @PostConstruct
+    public void init() {
+        windowSize = Math.max(1, windowSize);
+        latencies = new long[windowSize];
+        failures = new boolean[windowSize];
+        lastChangeMillis = clock.getAsLong();
+        Gauge.builder("schedulehub.extraction.degrade.mode", this, c -> c.mode().ordinal())
+                .description("Extraction mode: 0 normal, 1 reduced, 2 local")
+                .register(meterRegistry);
+        log.info("Extraction degrade control: enabled={}, latencySlo={}, errorRateSlo={}, window={}, minDwell={}",
+                enabled, latencySlo, errorRateSlo, windowSize, minDwell);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public boolean isDegraded() {
+        return mode != Mode.NORMAL;
+    }
+
+    /**
+     * Records one request sent to OpenAI and steps the mode if the window
+     * breaches the SLO or has recovered.
+     */
+    public void record(long latencyMillis, boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        Mode from;
+        Mode to;
+        double p95;
+        double errorRate;
+        synchronized (this) {
+            latencies[next] = latencyMillis;
+            failures[next] = failed;
+            next = (next + 1) % latencies.length;
+            samples = Math.min(samples + 1, latencies.length);
+            long now = clock.getAsLong();
+            if (samples == 0 || samples < minSamples || now - lastChangeMillis < minDwell.toMillis()) {
+                return;
+            }
+            p95 = percentile95();
+            errorRate = errorRate();
+            long slo = latencySlo.toMillis();
+            from = mode;
+            if ((p95 > slo || errorRate > errorRateSlo) && mode != Mode.LOCAL) {
+                to = Mode.values()[mode.ordinal() + 1];
+            } else if (p95 < slo * recoveryRatio && errorRate < errorRateSlo * recoveryRatio
+                    && mode != Mode.NORMAL) {
+                to = Mode.values()[mode.ordinal() - 1];
+            } else {
+                return;
+            }
+            mode = to;
+            lastChangeMillis = now;
+            samples = 0;
+            next = 0;
+        }
+        Counter.builder("schedulehub.extraction.degrade.transitions")
+                .tag("from", from.label())
+                .tag("to", to.label())
+                .register(meterRegistry)
+                .increment();
+        if (to.ordinal() > from.ordinal()) {
+            log.warn("═══════════════════════════════════════════════════════════════");
+            log.warn("⚠️  Extraction SLO breached - degrading {} -> {}", from.label(), to.label());
+            log.warn("p95 latency {} ms (SLO {} ms), error rate {} (SLO {})", (long) p95,
+                    latencySlo.toMillis(), String.format("%.2f", errorRate), errorRateSlo);
+            log.warn("═══════════════════════════════════════════════════════════════");
+        } else {
+            log.info("Extraction recovered - {} -> {} (p95 {} ms, error rate {})", from.label(), to.label(),
+                    (long) p95, String.format("%.2f", errorRate));
+        }
+    }
+
+    /**
+     * Whole-call timeout for OpenAI calls in the current mode, or 0 for the
+     * client's configured timeout.
+     */
+    public long callTimeoutMillis() {
+        return isDegraded() ? reducedCallTimeout.toMillis() : 0;
+    }
+
+    /**
+     * Deployment to try first in the current mode, or null for the router's
+     * normal choice.
+     */
+    public String preferredDeployment() {
+        return isDegraded() && reducedDeployment != null && !reducedDeployment.isBlank() ? reducedDeployment : null;
+    }
+
+    public double getLocalMinConfidence() {
+        return localMinConfidence;
+    }
+
+    private double percentile95() {
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        return sorted[Math.min(samples - 1, (int) Math.ceil(samples * 0.95) - 1)];
+    }
+
+    private double errorRate() {
+        int failed = 0;
+        for (int i = 0; i < samples; i++) {
+            failed += failures[i] ? 1 : 0;
+        }
+        return (double) failed / samples;
+    }
+}
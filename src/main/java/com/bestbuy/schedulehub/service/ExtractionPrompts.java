@@ -0,0 +1,208 @@
+package com.bestbuy.schedulehub.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * System prompts for intent and entity extraction.
+ * 
+ * The prompt is sent as two system messages:
+ * 1. A static prefix that is byte-for-byte identical on every request, so
+ * provider-side prompt caching can reuse it
+ * 2. A short dynamic message with the current date and time
+ * 
+ * Batched extraction adds a static batch-instructions message right after
+ * the prefix and sends the utterances as one indexed JSON array.
+ * 
+ * When the intent is already known from the local classifier, a smaller
+ * entity-only prefix is used and the intent goes into the dynamic message.
+ * 
+ * Follow-ups in a conversation session ("make it 4pm") use a delta prefix
+ * that asks only for the changed fields; the session's current request goes
+ * into the dynamic message.
+ * 
+ * Two static prefixes are available: the full prompt and a compacted variant
+ * with the same rules in far fewer tokens. Their estimated token counts are
+ * computed once at class initialization and checked by ExtractionPromptsTest
+ * during the build.
+ */
+public final class ExtractionPrompts {
+
+    public static final String VARIANT_FULL = "full";
+    public static final String VARIANT_COMPACT = "compact";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    // Word pieces and individual symbols, roughly how BPE tokenizers split text
+    private static final Pattern TOKEN_PIECE = Pattern.compile("\\p{L}+|\\p{N}+|[^\\s\\p{L}\\p{N}]");
+
+    static final String FULL_SYSTEM_PROMPT = """
+            You are a calendar scheduling assistant. Extract intent and entities from user requests about scheduling meetings.
+
+            Extract the following information:
+            - Intent: One of "BookMeeting", "CancelMeeting", or "RescheduleMeeting"
+            - Attendees: List of person names or email addresses mentioned (e.g., ["John", "mary@example.com", "Bob Smith"])
+            - Start DateTime: When the meeting starts (ISO 8601 format: yyyy-MM-ddTHH:mm). Use current date as reference for relative dates like "tomorrow", "next Friday", "3PM today"
+            - End DateTime: When the meeting ends (ISO 8601 format: yyyy-MM-ddTHH:mm). If not specified, calculate 1 hour after start time
+            - Subject: Meeting title/subject (default to "Meeting" if not specified)
+            - Location: Meeting location name if mentioned (e.g., "Conference Room A", "Building 5", "Teams Meeting")
+            - Recurrence Pattern: If recurring, use one of: "daily", "weekly", "weekday", "monthly" (or null if not recurring)
+            - Exceptions: List of exception rules for recurring meetings (e.g., ["monday", "first tuesday", "second friday"] or null)
+
+            Current date and time context: Given in the next system message. Use it to resolve relative dates like "tomorrow", "today", "next week", etc.
+
+            Return ONLY valid JSON in this exact format (use null for optional fields that are not mentioned):
+            {
+              "intent": "BookMeeting",
+              "attendees": ["John", "mary@example.com"],
+              "startDateTime": "2025-12-10T15:00",
+              "endDateTime": "2025-12-10T16:00",
+              "subject": "Meeting with John",
+              "location": null,
+              "recurrencePattern": null,
+              "exceptions": null
+            }
+
+            IMPORTANT JSON Format Rules:
+            - All date/time values MUST be in ISO 8601 format: yyyy-MM-ddTHH:mm (use literal 'T' between date and time)
+            - Use null (not empty string or "null" string) for optional fields that are not mentioned
+            - Attendees array can contain names or email addresses (both are acceptable)
+            - Location should be a string (location name) or null
+            - RecurrencePattern should be one of: "daily", "weekly", "weekday", "monthly", or null
+            - Exceptions should be an array of strings (e.g., ["monday", "first tuesday"]) or null
+            - Subject should never be null (use "Meeting" as default if not specified)
+
+            Date/Time Rules:
+            - Use current date as reference for relative dates like "tomorrow", "next Friday"
+            - If only time is given (e.g., "3PM"), assume today's date
+            - If no end time specified, calculate 1 hour after start time
+            - Always use 24-hour format (e.g., "15:00" for 3PM, "09:30" for 9:30AM)
+
+            Intent Classification Rules:
+            - Intent must be exactly one of: BookMeeting, CancelMeeting, RescheduleMeeting
+            - For "book", "schedule", "create", "set up", "add" -> BookMeeting
+            - For "cancel", "delete", "remove", "delete" -> CancelMeeting
+            - For "reschedule", "move", "change", "update", "modify" -> RescheduleMeeting
+            """;
+
+    static final String COMPACT_SYSTEM_PROMPT = """
+            Extract a calendar request as JSON. Reply with ONLY this object, using null for anything not mentioned:
+            {"intent":"BookMeeting|CancelMeeting|RescheduleMeeting","attendees":["name or email"],"startDateTime":"yyyy-MM-ddTHH:mm","endDateTime":"yyyy-MM-ddTHH:mm","subject":"Meeting","location":null,"recurrencePattern":"daily|weekly|weekday|monthly","exceptions":["monday","first tuesday"]}
+            Rules:
+            - book/schedule/create/set up/add -> BookMeeting; cancel/delete/remove -> CancelMeeting; reschedule/move/change/update/modify -> RescheduleMeeting
+            - Resolve relative dates from the current date message; time only means today; 24-hour clock
+            - endDateTime defaults to 1 hour after start; subject defaults to "Meeting"
+            - Use JSON null, never "" or "null"
+            """;
+
+    // Sent after the static prefix (which stays cacheable) for batched extraction
+    static final String BATCH_INSTRUCTIONS = """
+            Batch mode: the user message is a JSON array of {"index": n, "text": "..."} requests.
+            Extract each request independently with the rules above and reply with ONLY:
+            {"results":[{"index": n, ...the extraction object for that request...}]}
+            Include exactly one result per index, in any order.
+            """;
+
+    // Static prefix when the intent comes from the local classifier
+    static final String ENTITY_SYSTEM_PROMPT = """
+            Extract the details of a calendar request; its intent is given in the next system message. Reply with ONLY this object, using null for anything not mentioned:
+            {"attendees":["name or email"],"startDateTime":"yyyy-MM-ddTHH:mm","endDateTime":"yyyy-MM-ddTHH:mm","subject":"Meeting","location":null,"recurrencePattern":"daily|weekly|weekday|monthly","exceptions":["monday","first tuesday"]}
+            Rules:
+            - For RescheduleMeeting the dates are the new time
+            - Resolve relative dates from the current date message; time only means today; 24-hour clock
+            - endDateTime defaults to 1 hour after start; subject defaults to "Meeting"
+            - Use JSON null, never "" or "null"
+            """;
+
+    // Static prefix for follow-ups in a conversation session; the current request goes in the dynamic message
+    static final String DELTA_SYSTEM_PROMPT = """
+            The user is changing the calendar request given in the next system message. Reply with ONLY the fields the follow-up changes:
+            {"intent":"BookMeeting|CancelMeeting|RescheduleMeeting","startDateTime":"yyyy-MM-ddTHH:mm","endDateTime":"yyyy-MM-ddTHH:mm","subject":"...","location":"...","recurrencePattern":"daily|weekly|weekday|monthly","addAttendees":["name or email"],"removeAttendees":["name or email"],"exceptions":["monday"]}
+            Rules:
+            - Omit unchanged fields; {} if nothing changes; null clears location or recurrencePattern
+            - A new time without a new length: startDateTime only
+            - If it is a new, unrelated request, reply {"newRequest":true}
+            """;
+
+    public static final int FULL_PROMPT_TOKENS = estimateTokens(FULL_SYSTEM_PROMPT);
+    public static final int COMPACT_PROMPT_TOKENS = estimateTokens(COMPACT_SYSTEM_PROMPT);
+    public static final int ENTITY_PROMPT_TOKENS = estimateTokens(ENTITY_SYSTEM_PROMPT);
+    public static final int DELTA_PROMPT_TOKENS = estimateTokens(DELTA_SYSTEM_PROMPT);
+
+    private ExtractionPrompts() {
+    }
+
+    /**
+     * Returns the static system prompt prefix for the variant ("full" or
+     * "compact"). Unknown variants fall back to the full prompt.
+     */
+    public static String systemPrompt(String variant) {
+        return VARIANT_COMPACT.equalsIgnoreCase(variant) ? COMPACT_SYSTEM_PROMPT : FULL_SYSTEM_PROMPT;
+    }
+
+    public static int systemPromptTokens(String variant) {
+        return VARIANT_COMPACT.equalsIgnoreCase(variant) ? COMPACT_PROMPT_TOKENS : FULL_PROMPT_TOKENS;
+    }
+
+    /**
+     * Static instructions for batched extraction, sent as a second system
+     * message so the single-request prefix stays identical.
+     */
+    public static String batchInstructions() {
+        return BATCH_INSTRUCTIONS;
+    }
+
+    /**
+     * Static prefix for entity-only extraction, when the intent is known.
+     */
+    public static String entitySystemPrompt() {
+        return ENTITY_SYSTEM_PROMPT;
+    }
+
+    /**
+     * The dynamic part of the entity-only prompt: the date context plus the
+     * known intent.
+     */
+    public static String intentContext(LocalDateTime now, String intent) {
+        return dateContext(now) + ", Intent: " + intent;
+    }
+
+    /**
+     * Static prefix for a follow-up utterance, answered with only the changed
+     * fields.
+     */
+    public static String deltaSystemPrompt() {
+        return DELTA_SYSTEM_PROMPT;
+    }
+
+    /**
+     * The dynamic part of the delta prompt: the date context plus the
+     * session's current request as compact JSON.
+     */
+    public static String deltaContext(LocalDateTime now, String currentRequestJson) {
+        return dateContext(now) + "\nCurrent request: " + currentRequestJson;
+    }
+
+    /**
+     * The dynamic part of the prompt, sent as its own short system message.
+     */
+    public static String dateContext(LocalDateTime now) {
+        return "Current date: " + now.format(DATE_FORMAT) + ", Current time: " + now.format(TIME_FORMAT);
+    }
+
+    /**
+     * Estimates the token count of a prompt: one token per symbol and per
+     * word piece of up to eight characters. Close enough to the real
+     * tokenizer to compare prompt variants and track budgets.
+     */
+    static int estimateTokens(String text) {
+        int tokens = 0;
+        Matcher matcher = TOKEN_PIECE.matcher(text);
+        while (matcher.find()) {
+            tokens += (matcher.end() - matcher.start() + 7) / 8;
+        }
+        return tokens;
+    }
+}
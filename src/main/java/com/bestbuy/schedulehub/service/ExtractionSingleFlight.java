@@ -0,0 +1,152 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical extraction requests that are in flight at the same
+ * time.
+ *
+ * The first caller for a key (the {@link ExtractionCache} key: normalized
+ * utterance plus date bucket) starts the OpenAI call; every concurrent caller
+ * with the same key waits on that call instead of starting its own, and each
+ * receives its own copy of the result (token usage only on the starting
+ * caller's copy). Once the call completes the key is released, and later
+ * callers are served by the ExtractionCache.
+ *
+ * Cancelling a caller's future only detaches that caller; the shared call is
+ * cancelled when every caller waiting on it has cancelled.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExtractionSingleFlight {
+
+    // ExtractedEntities.origin of the copies handed to callers that joined a call
+    static final String ORIGIN = "coalesced";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${openai.single-flight.enabled:true}")
+    private boolean enabled;
+
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private Counter leaders;
+    private Counter coalesced;
+    private DistributionSummary waitersPerFlight;
+
+    @PostConstruct
+    public void init() {
+        leaders = Counter.builder("schedulehub.extraction.single-flight.calls")
+                .description("Extraction calls started on behalf of one or more callers")
+                .register(meterRegistry);
+        coalesced = Counter.builder("schedulehub.extraction.single-flight.coalesced")
+                .description("Callers that joined an identical in-flight extraction instead of calling OpenAI")
+                .register(meterRegistry);
+        waitersPerFlight = DistributionSummary.builder("schedulehub.extraction.single-flight.waiters")
+                .description("Callers served by each extraction call")
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.extraction.single-flight.in-flight", flights, ConcurrentHashMap::size)
+                .register(meterRegistry);
+        log.info("Extraction single-flight: enabled={}", enabled);
+    }
+
+    /**
+     * Runs the call for the key, or joins the identical call already in flight.
+     *
+     * @param key  Extraction cache key of the request
+     * @param call Starts the OpenAI call; only invoked by the first caller
+     * @return this caller's copy of the result; completes with intent
+     *         "Unknown" if the shared call fails
+     */
+    public CompletableFuture<ExtractedEntities> execute(String key,
+            Supplier<CompletableFuture<ExtractedEntities>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        Flight created = new Flight();
+        Flight flight = flights.putIfAbsent(key, created);
+        if (flight == null) {
+            flight = created;
+            leaders.increment();
+            start(key, created, call);
+        } else {
+            coalesced.increment();
+            log.info("Joined in-flight extraction for '{}' ({} callers waiting)", key,
+                    flight.waiters.get() + 1);
+        }
+        return join(key, flight, flight == created);
+    }
+
+    int inFlight() {
+        return flights.size();
+    }
+
+    private void start(String key, Flight flight, Supplier<CompletableFuture<ExtractedEntities>> call) {
+        CompletableFuture<ExtractedEntities> source;
+        try {
+            source = call.get();
+        } catch (RuntimeException e) {
+            flights.remove(key, flight);
+            flight.shared.completeExceptionally(e);
+            throw e;
+        }
+        flight.source = source;
+        source.whenComplete((result, error) -> {
+            flights.remove(key, flight);
+            waitersPerFlight.record(flight.joined.get());
+            if (error != null) {
+                flight.shared.complete(ExtractedEntities.builder()
+                        .intent("Unknown")
+                        .build());
+            } else {
+                flight.shared.complete(result);
+            }
+        });
+    }
+
+    private CompletableFuture<ExtractedEntities> join(String key, Flight flight, boolean leader) {
+        flight.waiters.incrementAndGet();
+        flight.joined.incrementAndGet();
+        CompletableFuture<ExtractedEntities> mine = flight.shared.thenApply(result -> {
+            ExtractedEntities copy = ExtractionCache.copyOf(result);
+            if (!leader) {
+                // The tokens are charged to the caller that started the call
+                copy.setUsage(null);
+                copy.setOrigin(ORIGIN);
+            }
+            return copy;
+        });
+        mine.whenComplete((result, error) -> {
+            if (mine.isCancelled() && flight.waiters.decrementAndGet() == 0) {
+                // Last interested caller is gone - stop the shared call
+                flights.remove(key, flight);
+                CompletableFuture<ExtractedEntities> source = flight.source;
+                if (source != null) {
+                    source.cancel(true);
+                }
+            }
+        });
+        return mine;
+    }
+
+    private static final class Flight {
+        final CompletableFuture<ExtractedEntities> shared = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger();
+        final AtomicInteger joined = new AtomicInteger();
+        volatile CompletableFuture<ExtractedEntities> source;
+    }
+}
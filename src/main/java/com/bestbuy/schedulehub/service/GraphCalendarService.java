@@ -1,22 +1,42 @@
 package com.bestbuy.schedulehub.service;
 
 import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import com.microsoft.graph.content.BatchRequestContent;
+import com.microsoft.graph.content.BatchResponseContent;
+import com.microsoft.graph.content.BatchResponseStep;
 import com.microsoft.graph.core.DateOnly;
+import com.microsoft.graph.http.GraphServiceException;
+import com.microsoft.graph.http.HttpMethod;
 import com.microsoft.graph.models.*;
+import com.microsoft.graph.options.HeaderOption;
+import com.microsoft.graph.options.Option;
+import com.microsoft.graph.options.QueryOption;
 import com.microsoft.graph.requests.EventCollectionPage;
+import com.microsoft.graph.requests.EventCollectionRequest;
+import com.microsoft.graph.requests.EventCollectionRequestBuilder;
 import com.microsoft.graph.requests.GraphServiceClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Request;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -33,7 +53,36 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class GraphCalendarService {
 
+    private static final int RECURRENCE_MONTHS = 6; // Length of a recurring series
+    private static final int INSTANCE_PAGE_SIZE = 100;
+    private static final int BATCH_SIZE = 20; // Graph $batch limit
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    private static final long BATCH_RETRY_BASE_MILLIS = 500;
+    private static final long MAX_BATCH_RETRY_MILLIS = 30_000;
+
+    private static final String FIND_SELECT = "id,subject,start,end";
+
     private final GraphServiceClient<Request> graphServiceClient;
+    private final CalendarMirror calendarMirror;
+    private final SubjectIndex subjectIndex;
+    private final AttendeeResolver attendeeResolver;
+    private final ConflictChecker conflictChecker;
+    private final ThreadPoolTaskScheduler graphRetryScheduler;
+
+    @Value("${schedule.graph.find.lookahead:90d}")
+    private Duration findLookahead;
+
+    @Value("${schedule.graph.find.page-size:50}")
+    private int findPageSize;
+
+    @Value("${schedule.graph.find.max-pages:10}")
+    private int findMaxPages;
+
+    @Value("${schedule.graph.find.server-subject-filter:true}")
+    private boolean serverSubjectFilter;
+
+    // Mailboxes where Graph rejected contains(subject, ...); matched on the client only
+    private final Set<String> clientSubjectFilterMailboxes = ConcurrentHashMap.newKeySet();
 
     /**
      * Validates that userId is provided and not "me" for application
@@ -100,7 +149,13 @@ public class GraphCalendarService {
                 userId, isValidEmail, isValidObjectId);
     }
 
-    public String createEvent(ExtractedEntities entities, String userId) {
+    /**
+     * Creates the event in the user's calendar.
+     *
+     * @return the new event's id and the attendee names that were left out
+     *         because they did not resolve to a single directory user
+     */
+    public CreatedEvent createEvent(ExtractedEntities entities, String userId) {
         try {
             Event event = new Event();
             event.subject = entities.getSubject() != null ? entities.getSubject() : "Meeting";
@@ -126,30 +181,9 @@ public class GraphCalendarService {
 
             // Add attendees - Graph API expects Attendee objects with emailAddress
             // (emailAddress.address and emailAddress.name)
-            if (entities.getAttendees() != null && !entities.getAttendees().isEmpty()) {
-                List<Attendee> attendees = entities.getAttendees().stream()
-                        .map(attendeeInput -> {
-                            Attendee attendee = new Attendee();
-                            attendee.emailAddress = new EmailAddress();
-                            // If input contains @, treat as email; otherwise assume it's a name and
-                            // construct email
-                            if (attendeeInput.contains("@")) {
-                                attendee.emailAddress.address = attendeeInput;
-                                // Extract name from email (part before @) or use full email
-                                String name = attendeeInput.substring(0, attendeeInput.indexOf("@"));
-                                attendee.emailAddress.name = name.substring(0, 1).toUpperCase() +
-                                        (name.length() > 1 ? name.substring(1) : "");
-                            } else {
-                                // Name only - construct email (in production, you'd look this up)
-                                attendee.emailAddress.name = attendeeInput;
-                                attendee.emailAddress.address = attendeeInput.toLowerCase().replace(" ", ".")
-                                        + "@example.com";
-                            }
-                            attendee.type = AttendeeType.REQUIRED;
-                            return attendee;
-                        })
-                        .collect(Collectors.toList());
-                event.attendees = attendees;
+            AttendeeResolver.Resolution resolution = attendeeResolver.resolveAll(entities.getAttendees());
+            if (!resolution.attendees().isEmpty()) {
+                event.attendees = resolution.attendees();
             }
 
             // Set location - Graph API expects Location object with displayName property,
@@ -162,8 +196,19 @@ public class GraphCalendarService {
 
             // Handle recurrence - Graph API expects PatternedRecurrence object (not a
             // string)
+            RecurrenceCompiler.Compiled compiledRecurrence = null;
             if (entities.getRecurrencePattern() != null && !entities.getRecurrencePattern().isEmpty()) {
-                event.recurrence = createRecurrencePattern(entities);
+                compiledRecurrence = RecurrenceCompiler.compile(entities.getRecurrencePattern(),
+                        entities.getExceptions(), start.toLocalDate());
+                event.recurrence = createRecurrencePattern(compiledRecurrence, start.toLocalDate());
+                log.info("Recurrence '{}' except {} compiled to {} every {} {}{}; {} rule(s) left for instance deletion",
+                        entities.getRecurrencePattern(), entities.getExceptions(), compiledRecurrence.frequency(),
+                        compiledRecurrence.interval(), compiledRecurrence.daysOfWeek(),
+                        compiledRecurrence.index() != null ? " (" + compiledRecurrence.index() + ")" : "",
+                        compiledRecurrence.residual().size());
+                if (!compiledRecurrence.unrecognized().isEmpty()) {
+                    log.warn("Ignoring exceptions that are not day rules: {}", compiledRecurrence.unrecognized());
+                }
             }
 
             // Create event
@@ -190,13 +235,18 @@ public class GraphCalendarService {
 
             log.info("Event created successfully: {}", createdEvent.id);
 
-            // Handle exceptions if recurrence exists
-            if (createdEvent.recurrence != null && entities.getExceptions() != null
-                    && !entities.getExceptions().isEmpty()) {
-                applyExceptions(createdEvent.id, entities, userId);
+            // Delete the instances matching exceptions the pattern could not express
+            if (createdEvent.recurrence != null && compiledRecurrence != null
+                    && !compiledRecurrence.residual().isEmpty()) {
+                LocalDateTime windowStart = start.toLocalDate().atStartOfDay();
+                applyExceptions(createdEvent.id, compiledRecurrence.residual(), windowStart,
+                        windowStart.plusMonths(RECURRENCE_MONTHS).plusDays(1), userId);
             }
+            calendarMirror.invalidate(userId);
+            subjectIndex.invalidate(userId);
+            conflictChecker.invalidate(userId, event.attendees);
 
-            return createdEvent.id;
+            return new CreatedEvent(createdEvent.id, resolution.unresolved());
         } catch (Exception e) {
             log.error("═══════════════════════════════════════════════════════════════");
             log.error("❌ Error creating calendar event");
@@ -370,64 +420,31 @@ public class GraphCalendarService {
         }
     }
 
-    private PatternedRecurrence createRecurrencePattern(ExtractedEntities entities) {
+    private PatternedRecurrence createRecurrencePattern(RecurrenceCompiler.Compiled compiled, LocalDate startLocalDate) {
         PatternedRecurrence recurrence = new PatternedRecurrence();
         RecurrencePattern pattern = new RecurrencePattern();
         RecurrenceRange range = new RecurrenceRange();
 
-        String recurrenceText = entities.getRecurrencePattern().toLowerCase();
-
-        // Parse recurrence pattern
-        if (recurrenceText.contains("daily")) {
-            pattern.type = RecurrencePatternType.DAILY;
-            pattern.interval = 1;
-        } else if (recurrenceText.contains("weekly")) {
-            pattern.type = RecurrencePatternType.WEEKLY;
-            pattern.interval = 1;
-
-            // Extract days of week
+        pattern.type = RecurrencePatternType.valueOf(compiled.frequency().name());
+        pattern.interval = compiled.interval();
+        if (compiled.frequency() == RecurrenceCompiler.Frequency.WEEKLY
+                || compiled.frequency() == RecurrenceCompiler.Frequency.RELATIVE_MONTHLY) {
             List<DayOfWeek> daysOfWeek = new ArrayList<>();
-            if (recurrenceText.contains("monday") || recurrenceText.contains("weekday")) {
-                daysOfWeek.add(DayOfWeek.MONDAY);
-            }
-            if (recurrenceText.contains("tuesday") || recurrenceText.contains("weekday")) {
-                daysOfWeek.add(DayOfWeek.TUESDAY);
+            for (java.time.DayOfWeek day : compiled.daysOfWeek()) {
+                daysOfWeek.add(DayOfWeek.valueOf(day.name()));
             }
-            if (recurrenceText.contains("wednesday") || recurrenceText.contains("weekday")) {
-                daysOfWeek.add(DayOfWeek.WEDNESDAY);
-            }
-            if (recurrenceText.contains("thursday") || recurrenceText.contains("weekday")) {
-                daysOfWeek.add(DayOfWeek.THURSDAY);
-            }
-            if (recurrenceText.contains("friday") || recurrenceText.contains("weekday")) {
-                daysOfWeek.add(DayOfWeek.FRIDAY);
-            }
-            if (recurrenceText.contains("saturday")) {
-                daysOfWeek.add(DayOfWeek.SATURDAY);
-            }
-            if (recurrenceText.contains("sunday")) {
-                daysOfWeek.add(DayOfWeek.SUNDAY);
-            }
-
-            if (!daysOfWeek.isEmpty()) {
-                pattern.daysOfWeek = daysOfWeek;
-            }
-        } else if (recurrenceText.contains("monthly")) {
-            pattern.type = RecurrencePatternType.ABSOLUTE_MONTHLY;
-            pattern.interval = 1;
-        } else {
-            // Default to weekly
-            pattern.type = RecurrencePatternType.WEEKLY;
-            pattern.interval = 1;
+            pattern.daysOfWeek = daysOfWeek;
+        }
+        if (compiled.frequency() == RecurrenceCompiler.Frequency.RELATIVE_MONTHLY) {
+            pattern.index = WeekIndex.valueOf(compiled.index().name());
+        }
+        if (compiled.frequency() == RecurrenceCompiler.Frequency.ABSOLUTE_MONTHLY) {
+            pattern.dayOfMonth = compiled.dayOfMonth();
         }
 
-        // Set range (default: 6 months)
+        // Set range (default: RECURRENCE_MONTHS)
         range.type = RecurrenceRangeType.END_DATE;
-        LocalDateTime startDate = entities.getStartDateTime() != null
-                ? entities.getStartDateTime()
-                : LocalDateTime.now();
-        LocalDate startLocalDate = startDate.toLocalDate();
-        LocalDate endLocalDate = startDate.plusMonths(6).toLocalDate();
+        LocalDate endLocalDate = startLocalDate.plusMonths(RECURRENCE_MONTHS);
         range.startDate = new DateOnly(startLocalDate.getYear(), startLocalDate.getMonthValue(),
                 startLocalDate.getDayOfMonth());
         range.endDate = new DateOnly(endLocalDate.getYear(), endLocalDate.getMonthValue(),
@@ -439,93 +456,189 @@ public class GraphCalendarService {
         return recurrence;
     }
 
-    private void applyExceptions(String eventId, ExtractedEntities entities, String userId) {
+    /**
+     * Deletes the instances of a new recurring event that match the exception
+     * rules its recurrence pattern could not express (see
+     * {@link RecurrenceCompiler}).
+     *
+     * Instances are paged over the recurrence window with only id and start
+     * selected, in the event's time zone so weekday rules match local days.
+     * Matching instances are deleted through the Graph $batch endpoint, up to
+     * 20 per request, so a six-month series costs a handful of round trips
+     * instead of one per instance.
+     */
+    private void applyExceptions(String eventId, List<RecurrenceCompiler.DayRule> rules, LocalDateTime windowStart,
+            LocalDateTime windowEnd, String userId) {
         try {
             validateUserId(userId, "applyExceptions");
 
-            // Get all instances of the recurring event
-            EventCollectionPage instances = graphServiceClient
+            List<Option> options = List.of(
+                    new QueryOption("startDateTime", queryDateTime(windowStart)),
+                    new QueryOption("endDateTime", queryDateTime(windowEnd)),
+                    timeZoneHeader());
+
+            // Get all instances of the recurring event, following every page
+            EventCollectionPage page = graphServiceClient
                     .users(userId)
                     .calendar()
                     .events(eventId)
                     .instances()
-                    .buildRequest()
+                    .buildRequest(options)
+                    .select("id,start")
+                    .top(INSTANCE_PAGE_SIZE)
                     .get();
 
-            List<Event> eventsToDelete = new ArrayList<>();
-
-            for (Event instance : instances.getCurrentPage()) {
-                // Check if this instance matches any exception rule
-                if (matchesException(instance, entities.getExceptions())) {
-                    eventsToDelete.add(instance);
+            List<String> idsToDelete = new ArrayList<>();
+            int instanceCount = 0;
+            int pages = 0;
+            while (page != null) {
+                pages++;
+                for (Event instance : page.getCurrentPage()) {
+                    instanceCount++;
+                    // Check if this instance matches any exception rule
+                    if (matchesException(instance, rules)) {
+                        idsToDelete.add(instance.id);
+                    }
                 }
+                EventCollectionRequestBuilder nextPage = page.getNextPage();
+                page = nextPage != null ? nextPage.buildRequest().get() : null;
             }
+            log.info("Recurring event {}: {} instances in {} page(s), {} match exceptions {}",
+                    eventId, instanceCount, pages, idsToDelete.size(),
+                    rules.stream().map(RecurrenceCompiler.DayRule::text).collect(Collectors.toList()));
 
             // Delete matching instances
-            for (Event eventToDelete : eventsToDelete) {
-                graphServiceClient
-                        .users(userId)
-                        .calendar()
-                        .events(eventToDelete.id)
-                        .buildRequest()
-                        .delete();
-                log.info("Deleted exception instance: {}", eventToDelete.id);
-            }
+            deleteInBatches(idsToDelete, userId);
         } catch (Exception e) {
             log.error("Error applying exceptions", e);
         }
     }
 
-    private boolean matchesException(Event instance, List<String> exceptions) {
-        if (exceptions == null || exceptions.isEmpty()) {
-            return false;
+    /**
+     * Deletes events through the Graph $batch endpoint, BATCH_SIZE per
+     * request. Items answered with 429 or 5xx (or missing from the response)
+     * are retried in a later batch request after the longest Retry-After of
+     * the batch, or exponential backoff, up to MAX_BATCH_ATTEMPTS times.
+     * Retries run on graphRetryScheduler, so the caller only waits for the
+     * first attempt of each batch. 404 counts as deleted.
+     */
+    private void deleteInBatches(List<String> eventIds, String userId) {
+        int deleted = 0;
+        int failed = 0;
+        int retrying = 0;
+        int batchRequests = 0;
+        for (int from = 0; from < eventIds.size(); from += BATCH_SIZE) {
+            BatchDeletion result = deleteBatch(eventIds.subList(from, Math.min(from + BATCH_SIZE, eventIds.size())),
+                    userId, 1);
+            deleted += result.deleted();
+            failed += result.failed();
+            retrying += result.retrying();
+            batchRequests++;
         }
+        log.info("Deleted {} exception instance(s) with {} batch request(s){}{}", deleted, batchRequests,
+                failed > 0 ? ", " + failed + " failed" : "",
+                retrying > 0 ? ", " + retrying + " retrying in the background" : "");
+    }
 
-        ZonedDateTime instanceStart = parseDateTime(instance.start.dateTime);
-        String dayOfWeek = instanceStart.getDayOfWeek().toString().toLowerCase();
+    /**
+     * Id of a created event, and the attendee names left out of it.
+     */
+    public record CreatedEvent(String id, List<String> unresolvedAttendees) {
+    }
 
-        for (String exception : exceptions) {
-            String exc = exception.toLowerCase();
+    private record BatchDeletion(int deleted, int failed, int retrying) {
+    }
 
-            // Check for "second Tuesday", "first Monday", etc.
-            if (exc.contains("second") && dayOfWeek.contains("tuesday")) {
-                int weekOfMonth = (instanceStart.getDayOfMonth() - 1) / 7 + 1;
-                if (weekOfMonth == 2) {
-                    return true;
-                }
+    /**
+     * Sends one batch of deletions and schedules the items to retry, if any.
+     */
+    private BatchDeletion deleteBatch(List<String> eventIds, String userId, int attempt) {
+        BatchRequestContent batch = new BatchRequestContent();
+        Map<String, String> stepToEvent = new LinkedHashMap<>();
+        for (String id : eventIds) {
+            String stepId = batch.addBatchRequestStep(graphServiceClient
+                    .users(userId)
+                    .calendar()
+                    .events(id)
+                    .buildRequest(), HttpMethod.DELETE);
+            stepToEvent.put(stepId, id);
+        }
+        BatchResponseContent response = graphServiceClient.batch().buildRequest().post(batch);
+
+        int deleted = 0;
+        int failed = 0;
+        List<String> retry = new ArrayList<>();
+        long retryAfterMillis = 0;
+        for (Map.Entry<String, String> step : stepToEvent.entrySet()) {
+            BatchResponseStep<?> result = response != null ? response.getResponseById(step.getKey()) : null;
+            int status = result != null ? result.status : 0;
+            if ((status >= 200 && status < 300) || status == 404) {
+                deleted++;
+                log.debug("Deleted exception instance: {}", step.getValue());
+            } else if (status == 0 || status == 429 || status >= 500) {
+                retry.add(step.getValue());
+                retryAfterMillis = Math.max(retryAfterMillis, retryAfterMillis(result));
+            } else {
+                failed++;
+                log.warn("Could not delete exception instance {}: HTTP {}", step.getValue(), status);
             }
+        }
+        if (!retry.isEmpty() && attempt >= MAX_BATCH_ATTEMPTS) {
+            log.warn("Giving up on {} exception instance(s) after {} attempts: {}", retry.size(), attempt, retry);
+            return new BatchDeletion(deleted, failed + retry.size(), 0);
+        }
+        if (!retry.isEmpty()) {
+            long backoff = Math.min(Math.max(retryAfterMillis, BATCH_RETRY_BASE_MILLIS << (attempt - 1)),
+                    MAX_BATCH_RETRY_MILLIS);
+            log.info("Retrying {} throttled/failed deletion(s) in {} ms", retry.size(), backoff);
+            graphRetryScheduler.schedule(() -> retryDeletions(retry, userId, attempt + 1),
+                    Instant.now().plusMillis(backoff));
+        }
+        return new BatchDeletion(deleted, failed, retry.size());
+    }
 
-            if (exc.contains("first") && dayOfWeek.contains("monday")) {
-                int weekOfMonth = (instanceStart.getDayOfMonth() - 1) / 7 + 1;
-                if (weekOfMonth == 1) {
-                    return true;
-                }
-            }
+    private void retryDeletions(List<String> eventIds, String userId, int attempt) {
+        try {
+            BatchDeletion result = deleteBatch(eventIds, userId, attempt);
+            log.info("Retried {} exception instance deletion(s) (attempt {}): {} deleted, {} failed, {} retrying",
+                    eventIds.size(), attempt, result.deleted(), result.failed(), result.retrying());
+        } catch (Exception e) {
+            log.error("Error retrying exception instance deletions", e);
+        }
+    }
 
-            // Check for specific days
-            if (exc.contains("monday") && dayOfWeek.contains("monday")) {
-                return true;
-            }
-            if (exc.contains("tuesday") && dayOfWeek.contains("tuesday")) {
-                return true;
-            }
-            if (exc.contains("wednesday") && dayOfWeek.contains("wednesday")) {
-                return true;
-            }
-            if (exc.contains("thursday") && dayOfWeek.contains("thursday")) {
-                return true;
-            }
-            if (exc.contains("friday") && dayOfWeek.contains("friday")) {
-                return true;
+    private static long retryAfterMillis(BatchResponseStep<?> result) {
+        if (result == null || result.headers == null) {
+            return 0;
+        }
+        for (Map.Entry<String, String> header : result.headers.entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(header.getKey())) {
+                try {
+                    return Long.parseLong(header.getValue().trim()) * 1000;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
             }
         }
+        return 0;
+    }
 
-        return false;
+    private boolean matchesException(Event instance, List<RecurrenceCompiler.DayRule> rules) {
+        if (instance.start == null || instance.start.dateTime == null) {
+            return false;
+        }
+        LocalDate instanceDate = parseDateTime(instance.start.dateTime).toLocalDate();
+        return rules.stream().anyMatch(rule -> rule.matches(instanceDate));
     }
 
-    private ZonedDateTime parseDateTime(String dateTimeString) {
+    static ZonedDateTime parseDateTime(String dateTimeString) {
         try {
             return ZonedDateTime.parse(dateTimeString);
+        } catch (Exception e) {
+            // Graph sends local date-times ("2025-12-10T15:00:00.0000000") in the requested time zone
+        }
+        try {
+            return LocalDateTime.parse(dateTimeString).atZone(ZoneId.systemDefault());
         } catch (Exception e) {
             log.warn("Could not parse datetime: {}", dateTimeString);
             return ZonedDateTime.now();
@@ -543,13 +656,23 @@ public class GraphCalendarService {
                     .buildRequest()
                     .delete();
             log.info("Event deleted successfully: {}", eventId);
+            calendarMirror.invalidate(userId, eventId);
+            subjectIndex.invalidate(userId);
+            // The attendees of the cancelled meeting are not known here; their entries expire with the ttl
+            conflictChecker.invalidate(userId, null);
         } catch (Exception e) {
             log.error("Error deleting event", e);
             throw new RuntimeException("Failed to delete event: " + e.getMessage(), e);
         }
     }
 
-    public void updateEvent(String eventId, ExtractedEntities entities, String userId) {
+    /**
+     * Patches the fields the entities set on the event.
+     *
+     * @return the attendee names that were left out because they did not
+     *         resolve to a single directory user
+     */
+    public List<String> updateEvent(String eventId, ExtractedEntities entities, String userId) {
         try {
             Event event = new Event();
 
@@ -570,26 +693,9 @@ public class GraphCalendarService {
             }
 
             // Update attendees - Graph API expects Attendee objects with emailAddress
-            if (entities.getAttendees() != null && !entities.getAttendees().isEmpty()) {
-                List<Attendee> attendees = entities.getAttendees().stream()
-                        .map(attendeeInput -> {
-                            Attendee attendee = new Attendee();
-                            attendee.emailAddress = new EmailAddress();
-                            if (attendeeInput.contains("@")) {
-                                attendee.emailAddress.address = attendeeInput;
-                                String name = attendeeInput.substring(0, attendeeInput.indexOf("@"));
-                                attendee.emailAddress.name = name.substring(0, 1).toUpperCase() +
-                                        (name.length() > 1 ? name.substring(1) : "");
-                            } else {
-                                attendee.emailAddress.name = attendeeInput;
-                                attendee.emailAddress.address = attendeeInput.toLowerCase().replace(" ", ".")
-                                        + "@example.com";
-                            }
-                            attendee.type = AttendeeType.REQUIRED;
-                            return attendee;
-                        })
-                        .collect(Collectors.toList());
-                event.attendees = attendees;
+            AttendeeResolver.Resolution resolution = attendeeResolver.resolveAll(entities.getAttendees());
+            if (!resolution.attendees().isEmpty()) {
+                event.attendees = resolution.attendees();
             }
 
             // Update location - Graph API expects Location object with displayName property
@@ -601,7 +707,7 @@ public class GraphCalendarService {
 
             validateUserId(userId, "updateEvent");
 
-            graphServiceClient
+            Event updated = graphServiceClient
                     .users(userId)
                     .calendar()
                     .events(eventId)
@@ -609,38 +715,92 @@ public class GraphCalendarService {
                     .patch(event);
 
             log.info("Event updated successfully: {}", eventId);
+            calendarMirror.invalidate(userId);
+            subjectIndex.invalidate(userId);
+            // The patched event lists all attendees, not only the ones this update set
+            conflictChecker.invalidate(userId, updated != null && updated.attendees != null
+                    ? updated.attendees
+                    : event.attendees);
+            return resolution.unresolved();
         } catch (Exception e) {
             log.error("Error updating event", e);
             throw new RuntimeException("Failed to update event: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Finds events whose subject contains subject (case-insensitive) and, when
+     * both dates are given, that start within [startDate, endDate].
+     *
+     * Searches the calendarView, so recurring meetings are matched by their
+     * occurrences. Without dates it searches from the start of today to
+     * find.lookahead ahead. Only the fields callers use are selected, times
+     * come back in the server's time zone, and the subject is filtered on the
+     * server when Graph accepts the filter. Pages are fetched in start order
+     * and paging stops at the first page with a match, so the nearest matches
+     * are returned without reading the rest of the calendar.
+     *
+     * When the calendar mirror is enabled and fresh for the user, it answers
+     * instead of Graph.
+     */
     public List<Event> findEvents(String subject, LocalDateTime startDate, LocalDateTime endDate, String userId) {
         try {
-            String filter = "";
-            if (startDate != null && endDate != null) {
-                filter = String.format("start/dateTime ge '%s' and start/dateTime le '%s'",
-                        startDate.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
-                        endDate.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            }
-
             validateUserId(userId, "findEvents");
 
-            EventCollectionPage events = graphServiceClient
-                    .users(userId)
-                    .calendar()
-                    .events()
-                    .buildRequest()
-                    .filter(filter)
-                    .get();
+            Optional<List<Event>> mirrored = calendarMirror.find(subject, startDate, endDate, userId);
+            if (mirrored.isPresent()) {
+                subjectIndex.add(userId, mirrored.get());
+                return mirrored.get();
+            }
+
+            boolean dated = startDate != null && endDate != null;
+            LocalDateTime windowStart = dated ? startDate : LocalDate.now().atStartOfDay();
+            LocalDateTime windowEnd = dated ? endDate : LocalDateTime.now().plus(findLookahead);
+            String mailbox = userId.trim().toLowerCase(Locale.ROOT);
+            String serverFilter = subject != null && !subject.isBlank() && serverSubjectFilter
+                    && !clientSubjectFilterMailboxes.contains(mailbox)
+                    ? subjectFilter(subject)
+                    : null;
+
+            List<Option> options = List.of(
+                    new QueryOption("startDateTime", queryDateTime(windowStart)),
+                    new QueryOption("endDateTime", queryDateTime(windowEnd)),
+                    timeZoneHeader());
+
+            EventCollectionPage page;
+            try {
+                page = calendarViewRequest(userId, options, serverFilter).get();
+            } catch (GraphServiceException e) {
+                if (serverFilter == null || e.getResponseCode() != 400) {
+                    throw e;
+                }
+                // Some mailboxes reject contains() on subject; match on the client only for this one
+                log.warn("Graph rejected subject filter '{}' for {}, falling back to client-side matching",
+                        serverFilter, userId);
+                clientSubjectFilterMailboxes.add(mailbox);
+                page = calendarViewRequest(userId, options, null).get();
+            }
 
             List<Event> matchingEvents = new ArrayList<>();
-            for (Event event : events.getCurrentPage()) {
-                if (subject == null
-                        || (event.subject != null && event.subject.toLowerCase().contains(subject.toLowerCase()))) {
-                    matchingEvents.add(event);
+            int pages = 0;
+            int scanned = 0;
+            while (page != null && pages < findMaxPages) {
+                pages++;
+                subjectIndex.add(userId, page.getCurrentPage());
+                for (Event event : page.getCurrentPage()) {
+                    scanned++;
+                    if (matches(event, subject, startDate, endDate)) {
+                        matchingEvents.add(event);
+                    }
+                }
+                if (!matchingEvents.isEmpty()) {
+                    break;
                 }
+                EventCollectionRequestBuilder nextPage = page.getNextPage();
+                page = nextPage != null ? nextPage.buildRequest().get() : null;
             }
+            log.info("calendarView {} - {}: {} match(es) in {} event(s), {} page(s), filter={}",
+                    windowStart, windowEnd, matchingEvents.size(), scanned, pages, serverFilter);
 
             return matchingEvents;
         } catch (Exception e) {
@@ -648,4 +808,52 @@ public class GraphCalendarService {
             return new ArrayList<>();
         }
     }
+
+    private EventCollectionRequest calendarViewRequest(String userId, List<Option> options, String filter) {
+        EventCollectionRequest request = graphServiceClient
+                .users(userId)
+                .calendar()
+                .calendarView()
+                .buildRequest(options)
+                .select(FIND_SELECT)
+                .orderBy("start/dateTime")
+                .top(findPageSize);
+        return filter != null ? request.filter(filter) : request;
+    }
+
+    private static String subjectFilter(String subject) {
+        return "contains(subject,'" + subject.trim().replace("'", "''") + "')";
+    }
+
+    static boolean matches(Event event, String subject, LocalDateTime startDate, LocalDateTime endDate) {
+        if (subject != null
+                && (event.subject == null || !event.subject.toLowerCase().contains(subject.toLowerCase()))) {
+            return false;
+        }
+        if (startDate != null && endDate != null) {
+            // calendarView returns overlapping events; keep only those starting in the window
+            if (event.start == null || event.start.dateTime == null) {
+                return false;
+            }
+            LocalDateTime start = parseDateTime(event.start.dateTime).toLocalDateTime();
+            return !start.isBefore(startDate) && !start.isAfter(endDate);
+        }
+        return true;
+    }
+
+    /**
+     * A calendarView/instances window bound in the server's time zone. Graph
+     * reads a date-time without an offset as UTC, so the offset is included.
+     */
+    static String queryDateTime(LocalDateTime value) {
+        return value.atZone(ZoneId.systemDefault()).toOffsetDateTime().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+
+    /**
+     * Asks Graph to return event times in the server's time zone, the zone
+     * events are created in.
+     */
+    private static HeaderOption timeZoneHeader() {
+        return new HeaderOption("Prefer", "outlook.timezone=\"" + ZoneId.systemDefault().getId() + "\"");
+    }
 }
@@ -0,0 +1,323 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Schedules Graph requests per mailbox. It sits in the Graph client's OkHttp
+ * pipeline in place of the SDK's RetryHandler.
+ *
+ * Exchange throttles each mailbox on its own: only a few concurrent requests
+ * per app and mailbox, and 429 (or 503) with Retry-After beyond its limits.
+ * Requests are keyed by the mailbox in their URL (/users/{id}/...). At most
+ * max-concurrent-per-mailbox run at once and the rest wait in arrival
+ * order, for up to queue-timeout, so a busy mailbox never delays another.
+ *
+ * A 429, 503 or (except for POST) 504 pauses the whole mailbox for
+ * Retry-After (exponential backoff from default-retry-after when absent)
+ * and the request is retried transparently, up to max-retries. The request
+ * that drew the 429 waits out its pause however long it is (at most
+ * max-retry-after). Other requests for the mailbox wait out the pause
+ * rather than drawing more 429s; if the pause is longer than queue-timeout,
+ * they are answered with a local 429 and never reach Graph.
+ * Directory queries and $batch calls are keyed by their path instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GraphRequestScheduler implements Interceptor {
+
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${schedule.graph.throttle.max-concurrent-per-mailbox:4}")
+    private int maxConcurrent;
+
+    @Value("${schedule.graph.throttle.queue-timeout:30s}")
+    private Duration queueTimeout;
+
+    @Value("${schedule.graph.throttle.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${schedule.graph.throttle.default-retry-after:2s}")
+    private Duration defaultRetryAfter;
+
+    @Value("${schedule.graph.throttle.max-retry-after:60s}")
+    private Duration maxRetryAfter;
+
+    @Value("${schedule.graph.throttle.max-mailboxes:10000}")
+    private int maxMailboxes;
+
+    LongSupplier clock = System::nanoTime;
+
+    // Waits out a pause; replaceable in tests
+    Sleeper sleeper = Thread::sleep;
+
+    private final ConcurrentHashMap<String, MailboxState> mailboxes = new ConcurrentHashMap<>();
+
+    private Timer queueWait;
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    @PostConstruct
+    public void init() {
+        queueWait = Timer.builder("schedulehub.graph.queue.wait")
+                .description("Time Graph requests waited for their mailbox (slot or throttling pause)")
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.graph.mailboxes.paused", this, scheduler -> scheduler.count(MailboxState::isPaused))
+                .description("Mailboxes currently paused after a 429/503 from Graph")
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.graph.mailboxes.tracked", mailboxes, ConcurrentHashMap::size)
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.graph.requests.in-flight", this,
+                        scheduler -> scheduler.sum(state -> state.inFlight.get()))
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.graph.requests.queued", this,
+                        scheduler -> scheduler.sum(state -> state.permits.getQueueLength()))
+                .register(meterRegistry);
+        log.info("Graph request scheduler: maxConcurrentPerMailbox={}, queueTimeout={}, maxRetries={}, "
+                + "defaultRetryAfter={}, maxRetryAfter={}",
+                maxConcurrent, queueTimeout, maxRetries, defaultRetryAfter, maxRetryAfter);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String mailbox = mailboxOf(request.url());
+        MailboxState state = state(mailbox);
+
+        for (int attempt = 0; ; attempt++) {
+            long waitStarted = clock.getAsLong();
+            // A retry waits out its own pause; queue-timeout only bounds new arrivals
+            long paused = awaitPause(state, attempt == 0 ? queueTimeout.toNanos() : Long.MAX_VALUE);
+            if (paused > 0) {
+                retry("rejected");
+                log.warn("Mailbox {} paused for {} ms, answering {} {} with 429", mailbox,
+                        TimeUnit.NANOSECONDS.toMillis(paused), request.method(), request.url().encodedPath());
+                return localThrottle(request, mailbox, paused);
+            }
+            if (!acquire(state)) {
+                retry("rejected");
+                log.warn("No Graph request slot for mailbox {} within {}", mailbox, queueTimeout);
+                return localThrottle(request, mailbox, defaultRetryAfter.toNanos());
+            }
+            queueWait.record(clock.getAsLong() - waitStarted, TimeUnit.NANOSECONDS);
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } finally {
+                state.release();
+            }
+            if (!isThrottled(response.code(), request.method())) {
+                return response;
+            }
+
+            long delayNanos = retryAfterNanos(response, attempt);
+            state.pause(clock.getAsLong() + Math.min(delayNanos, maxRetryAfter.toNanos()));
+            Counter.builder("schedulehub.graph.throttled")
+                    .tag("status", String.valueOf(response.code()))
+                    .register(meterRegistry)
+                    .increment();
+            if (attempt >= maxRetries || delayNanos > maxRetryAfter.toNanos()) {
+                retry("gave-up");
+                log.warn("Graph {} for mailbox {} on {} {} after {} attempt(s), giving up", response.code(),
+                        mailbox, request.method(), request.url().encodedPath(), attempt + 1);
+                return response;
+            }
+            retry("retried");
+            log.warn("Graph {} for mailbox {}, pausing it for {} ms before retry {}/{}", response.code(), mailbox,
+                    TimeUnit.NANOSECONDS.toMillis(delayNanos), attempt + 1, maxRetries);
+            response.close();
+        }
+    }
+
+    /**
+     * The mailbox a request is throttled under: the user id or address of
+     * /users/{id}/..., "me", or the first path segment in parentheses.
+     */
+    static String mailboxOf(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        // segments.get(0) is the API version
+        if (segments.size() >= 4 && segments.get(1).equals("users")) {
+            return segments.get(2).toLowerCase(Locale.ROOT);
+        }
+        if (segments.size() >= 2 && segments.get(1).equals("me")) {
+            return "me";
+        }
+        return "(" + (segments.size() >= 2 ? segments.get(1) : "") + ")";
+    }
+
+    /**
+     * Waits until the mailbox is not paused. Returns 0, or the remaining
+     * pause when it is longer than maxWaitNanos.
+     */
+    private long awaitPause(MailboxState state, long maxWaitNanos) throws IOException {
+        while (true) {
+            long remaining = state.pausedUntilNanos - clock.getAsLong();
+            if (remaining <= 0) {
+                return 0;
+            }
+            if (remaining > maxWaitNanos) {
+                return remaining;
+            }
+            try {
+                sleeper.sleep(TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting out Graph throttling");
+            }
+        }
+    }
+
+    private boolean acquire(MailboxState state) throws IOException {
+        try {
+            if (!state.permits.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a Graph request slot");
+        }
+        state.inFlight.incrementAndGet();
+        state.lastUsedNanos = clock.getAsLong();
+        return true;
+    }
+
+    /**
+     * 429 and 503 mean the request was not processed. A 504 may have been,
+     * so it is retried only for requests other than POST (no duplicate
+     * events).
+     */
+    private static boolean isThrottled(int code, String method) {
+        return code == 429 || code == 503 || (code == 504 && !"POST".equals(method));
+    }
+
+    /**
+     * Retry-After in seconds or as an HTTP date, else exponential backoff.
+     */
+    private long retryAfterNanos(Response response, int attempt) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException e) {
+                try {
+                    ZonedDateTime at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    return Math.max(0, Duration.between(ZonedDateTime.now(), at).toNanos());
+                } catch (DateTimeParseException ignored) {
+                    // Fall back to backoff
+                }
+            }
+        }
+        return Math.min(defaultRetryAfter.toNanos() << Math.min(attempt, 20), maxRetryAfter.toNanos());
+    }
+
+    private Response localThrottle(Request request, String mailbox, long pausedNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(pausedNanos + 999_999_999L));
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(429)
+                .message("Too Many Requests")
+                .header("Retry-After", String.valueOf(seconds))
+                .body(ResponseBody.create("{\"error\":{\"code\":\"TooManyRequests\",\"message\":\"Mailbox "
+                        + mailbox.replace("\"", "") + " is throttled, retry after " + seconds + "s\"}}", JSON))
+                .build();
+    }
+
+    private MailboxState state(String mailbox) {
+        if (mailboxes.size() >= maxMailboxes && !mailboxes.containsKey(mailbox)) {
+            // A request holding an evicted state just runs outside the cap once
+            long now = clock.getAsLong();
+            mailboxes.values().removeIf(state -> state.isIdle(now));
+        }
+        return mailboxes.computeIfAbsent(mailbox, key -> new MailboxState(maxConcurrent, clock.getAsLong()));
+    }
+
+    private void retry(String outcome) {
+        Counter.builder("schedulehub.graph.retries")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private double count(BiPredicate<MailboxState, Long> predicate) {
+        long now = clock.getAsLong();
+        return mailboxes.values().stream().filter(state -> predicate.test(state, now)).count();
+    }
+
+    private double sum(ToIntFunction<MailboxState> value) {
+        return mailboxes.values().stream().mapToInt(value).sum();
+    }
+
+    /**
+     * Concurrency slots and throttling pause of one mailbox.
+     */
+    static final class MailboxState {
+
+        final Semaphore permits;
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile long pausedUntilNanos;
+        volatile long lastUsedNanos;
+
+        MailboxState(int maxConcurrent, long now) {
+            this.permits = new Semaphore(maxConcurrent, true);
+            this.pausedUntilNanos = now;
+            this.lastUsedNanos = now;
+        }
+
+        synchronized void pause(long untilNanos) {
+            if (untilNanos - pausedUntilNanos > 0) {
+                pausedUntilNanos = untilNanos;
+            }
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+            permits.release();
+        }
+
+        boolean isPaused(long now) {
+            return pausedUntilNanos - now > 0;
+        }
+
+        boolean isIdle(long now) {
+            return inFlight.get() == 0 && !permits.hasQueuedThreads() && !isPaused(now);
+        }
+    }
+}
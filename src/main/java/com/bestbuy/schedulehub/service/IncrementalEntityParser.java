@@ -0,0 +1,139 @@
+package com.bestbuy.schedulehub.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incrementally parses the extraction JSON object while the model is still
+ * generating it.
+ *
+ * Content deltas from a streamed chat completion are fed in as they arrive;
+ * each top-level field becomes available as soon as its value is complete,
+ * so callers can act on "intent" and "subject" before the closing brace.
+ * Values are kept in the same shape Jackson would produce for a Map (strings,
+ * nulls and lists of strings).
+ *
+ * Not thread-safe - one instance per streamed response.
+ */
+class IncrementalEntityParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+
+    private int depth;
+    private String currentField;
+    private List<String> currentArray;
+    private boolean complete;
+
+    IncrementalEntityParser() {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create non-blocking JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feeds the next content delta and consumes every token it completes.
+     */
+    void feed(String chunk) throws IOException {
+        if (complete || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        JsonToken token;
+        while (!complete && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token);
+        }
+    }
+
+    /**
+     * Whether the top-level field has been fully received (including explicit
+     * nulls).
+     */
+    boolean has(String field) {
+        return fields.containsKey(field);
+    }
+
+    /**
+     * Value of a completed top-level field, or null if absent.
+     */
+    Object get(String field) {
+        return fields.get(field);
+    }
+
+    /**
+     * Whether the closing brace of the top-level object has been received.
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Snapshot of the fields completed so far.
+     */
+    Map<String, Object> fields() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(fields));
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT -> depth++;
+            case END_OBJECT -> {
+                depth--;
+                if (depth == 0) {
+                    complete = true;
+                    feeder.endOfInput();
+                }
+            }
+            case FIELD_NAME -> {
+                if (depth == 1) {
+                    currentField = parser.currentName();
+                }
+            }
+            case START_ARRAY -> {
+                depth++;
+                if (depth == 2 && currentField != null) {
+                    currentArray = new ArrayList<>();
+                }
+            }
+            case END_ARRAY -> {
+                depth--;
+                if (depth == 1 && currentArray != null) {
+                    fields.put(currentField, currentArray);
+                    currentArray = null;
+                }
+            }
+            case VALUE_NULL -> {
+                if (depth == 1) {
+                    fields.put(currentField, null);
+                }
+            }
+            default -> {
+                if (!token.isScalarValue()) {
+                    return;
+                }
+                if (depth == 1) {
+                    fields.put(currentField, parser.getText());
+                } else if (depth == 2 && currentArray != null) {
+                    currentArray.add(parser.getText());
+                }
+            }
+        }
+    }
+}
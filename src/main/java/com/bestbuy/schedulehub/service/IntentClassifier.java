@@ -0,0 +1,196 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local intent classifier, trained offline from logged LLM extractions.
+ *
+ * Loads an {@link IntentModel} from schedule.intent-classifier.model-path at
+ * startup; without a model it is disabled and every request goes to the LLM
+ * as before. Predictions below min-confidence are discarded so the LLM still
+ * decides ambiguous utterances.
+ *
+ * When training-log is set, every intent the LLM returns is appended to that
+ * file as "utterance TAB intent", which is the input format of
+ * {@link IntentClassifierTrainer}. Labels are buffered (up to
+ * training-log-buffer, then dropped) and written by a background thread
+ * once a second, so no request thread waits on the file.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IntentClassifier {
+
+    private static final Set<String> KNOWN_INTENTS = Set.of("BookMeeting", "CancelMeeting", "RescheduleMeeting");
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${schedule.intent-classifier.model-path:}")
+    private String modelPath;
+
+    @Value("${schedule.intent-classifier.min-confidence:0.9}")
+    private double minConfidence;
+
+    @Value("${schedule.intent-classifier.training-log:}")
+    private String trainingLogPath;
+
+    @Value("${schedule.intent-classifier.training-log-buffer:10000}")
+    private int trainingLogBuffer;
+
+    private volatile IntentModel model;
+    private BufferedWriter trainingLog; // Guarded by this
+    private BlockingQueue<String> pendingLabels;
+    private ScheduledExecutorService trainingLogWriter;
+
+    private Timer latency;
+    private Counter confident;
+    private Counter deferred;
+    private Counter droppedLabels;
+
+    @PostConstruct
+    public void init() {
+        latency = Timer.builder("schedulehub.intent-classifier.latency")
+                .description("Local intent classification time")
+                .register(meterRegistry);
+        confident = Counter.builder("schedulehub.intent-classifier.predictions")
+                .tag("outcome", "confident")
+                .register(meterRegistry);
+        deferred = Counter.builder("schedulehub.intent-classifier.predictions")
+                .tag("outcome", "deferred")
+                .register(meterRegistry);
+        droppedLabels = Counter.builder("schedulehub.intent-classifier.training-log.dropped")
+                .description("LLM labels not logged because the write buffer was full")
+                .register(meterRegistry);
+
+        if (modelPath != null && !modelPath.isBlank()) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(modelPath)))) {
+                model = IntentModel.read(in);
+                log.info("Intent classifier loaded from {}: intents={}, {} hashed features, min confidence {}",
+                        modelPath, model.labels(), model.dimensions(), minConfidence);
+            } catch (IOException e) {
+                log.error("Could not load intent classifier model from {} - classifier disabled", modelPath, e);
+            }
+        }
+        if (trainingLogPath != null && !trainingLogPath.isBlank()) {
+            try {
+                trainingLog = Files.newBufferedWriter(Path.of(trainingLogPath), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                pendingLabels = new ArrayBlockingQueue<>(Math.max(1, trainingLogBuffer));
+                trainingLogWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "intent-training-log");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                trainingLogWriter.scheduleWithFixedDelay(this::flushLabels, 1, 1, TimeUnit.SECONDS);
+                log.info("Logging LLM intents for classifier training to {}", trainingLogPath);
+            } catch (IOException e) {
+                log.error("Could not open intent training log {}", trainingLogPath, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (trainingLogWriter != null) {
+            trainingLogWriter.shutdown();
+        }
+        flushLabels();
+        synchronized (this) {
+            if (trainingLog != null) {
+                trainingLog.close();
+                trainingLog = null;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return model != null;
+    }
+
+    /**
+     * Classifies the utterance locally.
+     *
+     * @return the intent if a model is loaded and its probability reaches
+     *         min-confidence, otherwise empty
+     */
+    public Optional<IntentModel.Prediction> classify(String text) {
+        IntentModel current = model;
+        if (current == null || text == null) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        IntentModel.Prediction prediction = current.predict(text);
+        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (prediction.probability() < minConfidence) {
+            deferred.increment();
+            log.debug("Intent classifier not confident: {} (p={})", prediction.label(), prediction.probability());
+            return Optional.empty();
+        }
+        confident.increment();
+        return Optional.of(prediction);
+    }
+
+    /**
+     * Queues an utterance labelled by an LLM call for the training log, if
+     * configured. Call it once per LLM answer, not for cached results.
+     */
+    public void recordLabel(String text, String intent) {
+        BlockingQueue<String> pending = pendingLabels;
+        if (pending == null || text == null || !KNOWN_INTENTS.contains(intent)) {
+            return;
+        }
+        if (!pending.offer(text.replaceAll("[\\t\\r\\n]+", " ").trim() + "\t" + intent)) {
+            droppedLabels.increment();
+        }
+    }
+
+    /**
+     * Writes the queued labels to the training log.
+     */
+    synchronized void flushLabels() {
+        if (trainingLog == null || pendingLabels.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        pendingLabels.drainTo(lines);
+        try {
+            for (String line : lines) {
+                trainingLog.write(line);
+                trainingLog.newLine();
+            }
+            trainingLog.flush();
+        } catch (IOException e) {
+            log.warn("Could not append {} label(s) to intent training log", lines.size(), e);
+        }
+    }
+
+    void setModel(IntentModel model) {
+        this.model = model;
+    }
+}
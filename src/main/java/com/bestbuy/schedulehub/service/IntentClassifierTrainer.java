@@ -0,0 +1,141 @@
+package com.bestbuy.schedulehub.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Offline trainer and evaluation report for {@link IntentClassifier}.
+ *
+ * Usage:
+ * java -cp schedule-hub.jar com.bestbuy.schedulehub.service.IntentClassifierTrainer
+ * intents.tsv intent-model.bin [holdout-fraction] [min-confidence]
+ *
+ * The input has one "utterance TAB intent" pair per line (the format written
+ * by schedule.intent-classifier.training-log). A shuffled holdout (default
+ * 20%) is used for the report: accuracy, confusion matrix, accuracy and
+ * coverage above min-confidence, and prediction latency. The saved model is
+ * then retrained on all examples.
+ */
+public final class IntentClassifierTrainer {
+
+    private IntentClassifierTrainer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: IntentClassifierTrainer <intents.tsv> <model.bin> [holdout-fraction] [min-confidence]");
+            System.exit(2);
+        }
+        List<IntentModel.Example> examples = readExamples(Path.of(args[0]));
+        double holdout = args.length > 2 ? Double.parseDouble(args[2]) : 0.2;
+        double minConfidence = args.length > 3 ? Double.parseDouble(args[3]) : 0.9;
+        IntentModel.Options options = IntentModel.Options.defaults();
+
+        report(examples, holdout, minConfidence, options, System.out);
+
+        IntentModel model = IntentModel.train(examples, options);
+        Path output = Path.of(args[1]);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+            model.write(out);
+        }
+        System.out.printf("Model trained on %d examples written to %s (%d bytes)%n",
+                examples.size(), output, Files.size(output));
+    }
+
+    static List<IntentModel.Example> readExamples(Path file) throws IOException {
+        List<IntentModel.Example> examples = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int tab = line.lastIndexOf('\t');
+            if (tab <= 0 || tab == line.length() - 1) {
+                continue;
+            }
+            examples.add(new IntentModel.Example(line.substring(0, tab).trim(), line.substring(tab + 1).trim()));
+        }
+        return examples;
+    }
+
+    /**
+     * Trains on the training split and prints the holdout evaluation.
+     *
+     * @return holdout accuracy
+     */
+    static double report(List<IntentModel.Example> examples, double holdout, double minConfidence,
+            IntentModel.Options options, PrintStream out) {
+        List<IntentModel.Example> shuffled = new ArrayList<>(examples);
+        Collections.shuffle(shuffled, new Random(options.seed()));
+        int testSize = Math.max(1, (int) Math.round(shuffled.size() * holdout));
+        List<IntentModel.Example> test = shuffled.subList(0, testSize);
+        List<IntentModel.Example> train = shuffled.subList(testSize, shuffled.size());
+
+        long trainStart = System.nanoTime();
+        IntentModel model = IntentModel.train(train, options);
+        long trainMillis = (System.nanoTime() - trainStart) / 1_000_000;
+
+        List<String> labels = model.labels();
+        int[][] confusion = new int[labels.size()][labels.size()];
+        int correct = 0;
+        int confident = 0;
+        int confidentCorrect = 0;
+        for (IntentModel.Example example : test) {
+            IntentModel.Prediction prediction = model.predict(example.text());
+            boolean right = prediction.label().equals(example.label());
+            correct += right ? 1 : 0;
+            int actual = labels.indexOf(example.label());
+            if (actual >= 0) {
+                confusion[actual][labels.indexOf(prediction.label())]++;
+            }
+            if (prediction.probability() >= minConfidence) {
+                confident++;
+                confidentCorrect += right ? 1 : 0;
+            }
+        }
+
+        // Latency: warm up, then time each prediction individually
+        for (int i = 0; i < 20_000; i++) {
+            model.predict(test.get(i % test.size()).text());
+        }
+        int rounds = Math.max(1, 20_000 / test.size());
+        long[] nanos = new long[rounds * test.size()];
+        int n = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (IntentModel.Example example : test) {
+                long start = System.nanoTime();
+                model.predict(example.text());
+                nanos[n++] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(nanos);
+
+        double accuracy = (double) correct / test.size();
+        out.println("═══════════════════════════════════════════════════════════════");
+        out.println("Intent classifier evaluation");
+        out.println("═══════════════════════════════════════════════════════════════");
+        out.printf("Examples: %d (train %d, holdout %d), trained in %d ms%n",
+                examples.size(), train.size(), test.size(), trainMillis);
+        out.printf("Holdout accuracy: %.2f%%%n", accuracy * 100);
+        out.printf("At min-confidence %.2f: coverage %.2f%%, accuracy %.2f%%%n", minConfidence,
+                100.0 * confident / test.size(), confident == 0 ? 0 : 100.0 * confidentCorrect / confident);
+        out.println("Confusion matrix (rows actual, columns predicted):");
+        for (int i = 0; i < labels.size(); i++) {
+            StringBuilder row = new StringBuilder(String.format("  %-18s", labels.get(i)));
+            for (int j = 0; j < labels.size(); j++) {
+                row.append(String.format("%7d", confusion[i][j]));
+            }
+            out.println(row);
+        }
+        out.printf("Prediction latency: p50 %.1f µs, p99 %.1f µs, max %.1f µs%n",
+                nanos[n / 2] / 1000.0, nanos[(int) (n * 0.99)] / 1000.0, nanos[n - 1] / 1000.0);
+        out.println("═══════════════════════════════════════════════════════════════");
+        return accuracy;
+    }
+}
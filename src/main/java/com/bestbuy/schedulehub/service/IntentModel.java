@@ -0,0 +1,297 @@
+package com.bestbuy.schedulehub.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Multinomial logistic regression over hashed character n-grams.
+ *
+ * An utterance is lower-cased, whitespace-collapsed and padded with spaces;
+ * every character n-gram (minN..maxN) is hashed with FNV-1a into one of
+ * 2^dimBits buckets. The feature vector is L2-normalized term counts, and
+ * weights live in one flat float array (label-major), so prediction is a
+ * few hundred array reads with no per-call allocation beyond the feature
+ * buffer.
+ *
+ * Immutable after training or loading; thread-safe for prediction.
+ */
+final class IntentModel {
+
+    private static final int MAGIC = 0x494E544D; // "INTM"
+    private static final int VERSION = 1;
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final String[] labels;
+    private final int dimBits;
+    private final int minN;
+    private final int maxN;
+    private final float[] weights;
+    private final float[] bias;
+
+    private IntentModel(String[] labels, int dimBits, int minN, int maxN, float[] weights, float[] bias) {
+        this.labels = labels;
+        this.dimBits = dimBits;
+        this.minN = minN;
+        this.maxN = maxN;
+        this.weights = weights;
+        this.bias = bias;
+    }
+
+    /**
+     * One labelled utterance.
+     */
+    record Example(String text, String label) {
+    }
+
+    /**
+     * @param label       the most probable label
+     * @param probability its softmax probability
+     */
+    record Prediction(String label, double probability) {
+    }
+
+    /**
+     * Training hyperparameters; the defaults suit a few thousand utterances.
+     */
+    record Options(int dimBits, int minN, int maxN, int epochs, double learningRate, double l2, long seed) {
+
+        static Options defaults() {
+            return new Options(18, 2, 4, 12, 0.5, 1e-6, 42);
+        }
+    }
+
+    List<String> labels() {
+        return List.of(labels);
+    }
+
+    int dimensions() {
+        return 1 << dimBits;
+    }
+
+    Prediction predict(String text) {
+        Features features = features(text);
+        double[] scores = scores(features);
+        int best = 0;
+        for (int c = 1; c < scores.length; c++) {
+            if (scores[c] > scores[best]) {
+                best = c;
+            }
+        }
+        return new Prediction(labels[best], scores[best]);
+    }
+
+    /**
+     * Trains a model with plain SGD on the softmax cross-entropy loss.
+     */
+    static IntentModel train(List<Example> examples, Options options) {
+        String[] labels = examples.stream().map(Example::label).distinct().sorted().toArray(String[]::new);
+        if (labels.length < 2) {
+            throw new IllegalArgumentException("Training data needs at least two intents, found "
+                    + Arrays.toString(labels));
+        }
+        int dim = 1 << options.dimBits();
+        IntentModel model = new IntentModel(labels, options.dimBits(), options.minN(), options.maxN(),
+                new float[labels.length * dim], new float[labels.length]);
+
+        List<Features> featureCache = new ArrayList<>(examples.size());
+        int[] targets = new int[examples.size()];
+        for (int i = 0; i < examples.size(); i++) {
+            featureCache.add(model.features(examples.get(i).text()));
+            targets[i] = Arrays.binarySearch(labels, examples.get(i).label());
+        }
+
+        Random random = new Random(options.seed());
+        int[] order = new int[examples.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int epoch = 0; epoch < options.epochs(); epoch++) {
+            shuffle(order, random);
+            double rate = options.learningRate() / (1 + epoch);
+            for (int i : order) {
+                model.update(featureCache.get(i), targets[i], rate, options.l2());
+            }
+        }
+        return model;
+    }
+
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(dimBits);
+        data.writeInt(minN);
+        data.writeInt(maxN);
+        data.writeInt(labels.length);
+        for (String label : labels) {
+            data.writeUTF(label);
+        }
+        for (float b : bias) {
+            data.writeFloat(b);
+        }
+        for (float w : weights) {
+            data.writeFloat(w);
+        }
+        data.flush();
+    }
+
+    static IntentModel read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an intent model file");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported intent model version " + version);
+        }
+        int dimBits = data.readInt();
+        int minN = data.readInt();
+        int maxN = data.readInt();
+        if (dimBits < 1 || dimBits > 24 || minN < 1 || maxN < minN) {
+            throw new IOException("Corrupt intent model header");
+        }
+        String[] labels = new String[data.readInt()];
+        for (int c = 0; c < labels.length; c++) {
+            labels[c] = data.readUTF();
+        }
+        float[] bias = new float[labels.length];
+        for (int c = 0; c < bias.length; c++) {
+            bias[c] = data.readFloat();
+        }
+        float[] weights = new float[labels.length << dimBits];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = data.readFloat();
+        }
+        return new IntentModel(labels, dimBits, minN, maxN, weights, bias);
+    }
+
+    private void update(Features features, int target, double rate, double l2) {
+        double[] probabilities = scores(features);
+        int dim = 1 << dimBits;
+        for (int c = 0; c < labels.length; c++) {
+            double gradient = probabilities[c] - (c == target ? 1 : 0);
+            if (gradient == 0) {
+                continue;
+            }
+            int offset = c * dim;
+            for (int k = 0; k < features.size; k++) {
+                int index = offset + features.indices[k];
+                weights[index] -= (float) (rate * (gradient * features.values[k] + l2 * weights[index]));
+            }
+            bias[c] -= (float) (rate * gradient);
+        }
+    }
+
+    private double[] scores(Features features) {
+        int dim = 1 << dimBits;
+        double[] scores = new double[labels.length];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < labels.length; c++) {
+            double score = bias[c];
+            int offset = c * dim;
+            for (int k = 0; k < features.size; k++) {
+                score += weights[offset + features.indices[k]] * features.values[k];
+            }
+            scores[c] = score;
+            max = Math.max(max, score);
+        }
+        double sum = 0;
+        for (int c = 0; c < scores.length; c++) {
+            scores[c] = Math.exp(scores[c] - max);
+            sum += scores[c];
+        }
+        for (int c = 0; c < scores.length; c++) {
+            scores[c] /= sum;
+        }
+        return scores;
+    }
+
+    /**
+     * Hashed n-gram counts, merged per bucket and L2-normalized.
+     */
+    Features features(String text) {
+        char[] chars = normalize(text);
+        int mask = (1 << dimBits) - 1;
+        int count = 0;
+        for (int n = minN; n <= maxN; n++) {
+            count += Math.max(0, chars.length - n + 1);
+        }
+        int[] hashes = new int[count];
+        int h = 0;
+        for (int start = 0; start < chars.length; start++) {
+            int hash = FNV_OFFSET;
+            for (int n = 1; n <= maxN && start + n <= chars.length; n++) {
+                hash = (hash ^ chars[start + n - 1]) * FNV_PRIME;
+                if (n >= minN) {
+                    // Mix in n so "ab" and the 3-gram prefix "ab" of "abc" differ
+                    hashes[h++] = ((hash ^ n) * FNV_PRIME) & mask;
+                }
+            }
+        }
+        Arrays.sort(hashes, 0, h);
+
+        int[] indices = new int[h];
+        float[] values = new float[h];
+        int size = 0;
+        double norm = 0;
+        for (int i = 0; i < h; i++) {
+            if (size > 0 && indices[size - 1] == hashes[i]) {
+                values[size - 1]++;
+            } else {
+                indices[size] = hashes[i];
+                values[size++] = 1;
+            }
+        }
+        for (int k = 0; k < size; k++) {
+            norm += values[k] * values[k];
+        }
+        float scale = norm > 0 ? (float) (1 / Math.sqrt(norm)) : 0;
+        for (int k = 0; k < size; k++) {
+            values[k] *= scale;
+        }
+        return new Features(indices, values, size);
+    }
+
+    private static char[] normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length() + 2).append(' ');
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isWhitespace(c)) {
+                if (!space) {
+                    normalized.append(' ');
+                    space = true;
+                }
+            } else {
+                normalized.append(c);
+                space = false;
+            }
+        }
+        if (!space) {
+            normalized.append(' ');
+        }
+        char[] chars = new char[normalized.length()];
+        normalized.getChars(0, chars.length, chars, 0);
+        return chars;
+    }
+
+    private static void shuffle(int[] order, Random random) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    record Features(int[] indices, float[] values, int size) {
+    }
+}
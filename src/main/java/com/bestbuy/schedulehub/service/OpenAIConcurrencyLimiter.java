@@ -0,0 +1,391 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side AIMD limit on concurrent OpenAI calls.
+ *
+ * The window (allowed in-flight calls) adapts to what the provider tells us:
+ * - Success with healthy rate-limit headers and normal latency: additive
+ * increase, about +1 per full window of successes
+ * - x-ratelimit-remaining-requests / -tokens running low, or recent latency
+ * well above its longer-term average: multiplicative decrease
+ * - 429: halve the window and admit nothing until retry-after has passed
+ *
+ * Latency is tracked per call type, since a 20-item batch legitimately takes
+ * far longer than a single extraction. Each type keeps a fast EWMA (about
+ * the last 5 calls) and a slow one (about the last 50) that decays with
+ * them; congestion is the fast one exceeding latency-tolerance times the
+ * slow one, so the occasional slow tail call does not shrink the window.
+ * Calls reported without a type (batches, deltas) only count as successes.
+ *
+ * The window is cut once per congestion episode: every permit carries the
+ * sequence number it was issued under, and a decrease signal from a call
+ * issued before the last decrease is ignored - those calls were sent into
+ * the congestion the cut already answered, so N concurrent 429s halve the
+ * window once rather than N times (retry-after pauses still apply).
+ *
+ * Calls over the window wait in a FIFO queue for at most max-wait; when the
+ * queue is full or the wait expires the call is rejected instead of being
+ * sent. Window, in-flight calls and queue depth are published as
+ * schedulehub.openai.limiter.* gauges.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OpenAIConcurrencyLimiter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${openai.limiter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${openai.limiter.initial-limit:16}")
+    private int initialLimit;
+
+    @Value("${openai.limiter.min-limit:1}")
+    private int minLimit;
+
+    @Value("${openai.limiter.max-limit:128}")
+    private int maxLimit;
+
+    @Value("${openai.limiter.max-queue:200}")
+    private int maxQueue;
+
+    @Value("${openai.limiter.max-wait:5s}")
+    private Duration maxWait;
+
+    @Value("${openai.limiter.max-retry-after:30s}")
+    private Duration maxRetryAfter;
+
+    @Value("${openai.limiter.low-remaining-requests:5}")
+    private long lowRemainingRequests;
+
+    @Value("${openai.limiter.low-remaining-tokens:4000}")
+    private long lowRemainingTokens;
+
+    @Value("${openai.limiter.latency-tolerance:2.0}")
+    private double latencyTolerance; // Recent latency above this multiple of the average counts as congestion
+
+    @Value("${openai.limiter.latency-warmup:20}")
+    private int latencyWarmup; // Calls of a type before its latency is judged
+
+    // EWMA weights of the recent and the long-term latency of a call type
+    private static final double RECENT_WEIGHT = 0.2;
+    private static final double BASELINE_WEIGHT = 0.02;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    // Guarded by this
+    private double limit;
+    private int inFlight;
+    private long pausedUntil;
+    private long issued; // Sequence number of the last permit handed out
+    private long lastDecrease; // Value of issued when the window was last cut
+    private final Map<String, Latency> latencies = new HashMap<>();
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+
+    private Counter rejected;
+    private Counter decreases;
+    private Timer queueWait;
+
+    @PostConstruct
+    public void init() {
+        limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        issued = 0;
+        lastDecrease = 0;
+        latencies.clear();
+        Gauge.builder("schedulehub.openai.limiter.limit", this, OpenAIConcurrencyLimiter::getLimit)
+                .description("Current AIMD window of allowed in-flight OpenAI calls")
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.openai.limiter.in-flight", this, OpenAIConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.openai.limiter.queue-depth", this, OpenAIConcurrencyLimiter::getQueueDepth)
+                .description("OpenAI calls waiting for a slot in the window")
+                .register(meterRegistry);
+        rejected = Counter.builder("schedulehub.openai.limiter.rejected")
+                .description("Calls rejected because the queue was full or the wait expired")
+                .register(meterRegistry);
+        decreases = Counter.builder("schedulehub.openai.limiter.decreases")
+                .register(meterRegistry);
+        queueWait = Timer.builder("schedulehub.openai.limiter.queue-wait")
+                .register(meterRegistry);
+        log.info("OpenAI concurrency limiter: enabled={}, initialLimit={}, range=[{}, {}], maxQueue={}, maxWait={}",
+                enabled, initialLimit, minLimit, maxLimit, maxQueue, maxWait);
+    }
+
+    /**
+     * Requests a slot in the window.
+     *
+     * @return a future permit; completes immediately when there is room,
+     *         otherwise once a slot frees up. Completes exceptionally with
+     *         {@link LimitExceededException} if the queue is full or max-wait
+     *         expires.
+     */
+    public CompletableFuture<Permit> acquire() {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(new Permit(false, 0));
+        }
+        Waiter waiter;
+        synchronized (this) {
+            if (queue.isEmpty() && hasRoom()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(true, ++issued));
+            }
+            if (queue.size() >= maxQueue) {
+                rejected.increment();
+                return CompletableFuture.failedFuture(
+                        new LimitExceededException("OpenAI call queue is full (" + queue.size() + " waiting)"));
+            }
+            waiter = new Waiter(clock.getAsLong());
+            queue.add(waiter);
+        }
+        // Slots may have opened without a release, e.g. a retry-after pause ending
+        drain();
+        return waiter.future.orTimeout(maxWait.toMillis(), TimeUnit.MILLISECONDS).handle((permit, error) -> {
+            if (error != null) {
+                synchronized (this) {
+                    queue.remove(waiter);
+                }
+                rejected.increment();
+                throw new LimitExceededException("Waited " + maxWait + " for an OpenAI call slot");
+            }
+            return permit;
+        });
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    private boolean hasRoom() {
+        return inFlight < (int) limit && clock.getAsLong() >= pausedUntil;
+    }
+
+    private synchronized void onSuccess(long sequence, String callType, long latencyMillis,
+            long remainingRequests, long remainingTokens) {
+        inFlight--;
+        boolean quotaLow = (remainingRequests >= 0 && remainingRequests < lowRemainingRequests)
+                || (remainingTokens >= 0 && remainingTokens < lowRemainingTokens);
+        boolean slow = false;
+        if (callType != null) {
+            Latency latency = latencies.computeIfAbsent(callType, type -> new Latency());
+            latency.record(latencyMillis);
+            slow = latency.samples > latencyWarmup && latency.recent > latencyTolerance * latency.baseline;
+        }
+        if (quotaLow || slow) {
+            decrease(sequence, 0.9, quotaLow ? "rate-limit headroom low"
+                    : callType + " latency " + Math.round(latencies.get(callType).recent) + " ms, average "
+                            + Math.round(latencies.get(callType).baseline) + " ms");
+        } else if (inFlight + 1 >= limit / 2) {
+            // Only grow when the window is actually in use
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private synchronized void onRateLimited(long sequence, long retryAfterMillis) {
+        inFlight--;
+        decrease(sequence, 0.5, "429");
+        if (retryAfterMillis > 0) {
+            long pause = Math.min(retryAfterMillis, maxRetryAfter.toMillis());
+            pausedUntil = Math.max(pausedUntil, clock.getAsLong() + pause);
+            log.warn("OpenAI rate limited - pausing new calls for {} ms", pause);
+            CompletableFuture.delayedExecutor(pause, TimeUnit.MILLISECONDS).execute(this::drain);
+        }
+    }
+
+    private synchronized void onRelease() {
+        inFlight--;
+    }
+
+    private void decrease(long sequence, double factor, String reason) {
+        if (sequence <= lastDecrease) {
+            // Sent before the last cut - part of the episode already answered
+            log.debug("OpenAI concurrency limit kept at {} ({}, call predates the last decrease)",
+                    String.format("%.1f", limit), reason);
+            return;
+        }
+        lastDecrease = issued;
+        double previous = limit;
+        limit = Math.max(minLimit, limit * factor);
+        decreases.increment();
+        log.info("OpenAI concurrency limit {} -> {} ({})", String.format("%.1f", previous),
+                String.format("%.1f", limit), reason);
+    }
+
+    /**
+     * Hands free slots to queued callers, outside the lock.
+     */
+    private void drain() {
+        List<Waiter> admitted = new ArrayList<>();
+        List<Permit> permits = new ArrayList<>();
+        synchronized (this) {
+            while (!queue.isEmpty() && hasRoom()) {
+                admitted.add(queue.poll());
+                permits.add(new Permit(true, ++issued));
+                inFlight++;
+            }
+        }
+        long now = clock.getAsLong();
+        for (int i = 0; i < admitted.size(); i++) {
+            Waiter waiter = admitted.get(i);
+            queueWait.record(now - waiter.enqueuedAt, TimeUnit.MILLISECONDS);
+            if (!waiter.future.complete(permits.get(i))) {
+                // Timed out concurrently - give the slot back
+                onRelease();
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Parses retry-after-ms or retry-after (seconds) into milliseconds, or -1.
+     */
+    static long retryAfterMillis(String retryAfterMs, String retryAfter) {
+        try {
+            if (retryAfterMs != null) {
+                return Math.round(Double.parseDouble(retryAfterMs.trim()));
+            }
+            if (retryAfter != null) {
+                return Math.round(Double.parseDouble(retryAfter.trim()) * 1000);
+            }
+        } catch (NumberFormatException e) {
+            // HTTP-date form is not used by OpenAI
+        }
+        return -1;
+    }
+
+    static long headerValue(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A slot in the window. Exactly one of the outcome methods must be called;
+     * later calls are ignored.
+     */
+    public final class Permit {
+
+        private final boolean counted;
+        private final long sequence;
+        private boolean done;
+
+        private Permit(boolean counted, long sequence) {
+            this.counted = counted;
+            this.sequence = sequence;
+        }
+
+        /**
+         * @param callType          latency class of the call ("full",
+         *                          "entities", ...), or null to keep it out of
+         *                          the latency signal
+         * @param remainingRequests x-ratelimit-remaining-requests, or -1
+         * @param remainingTokens   x-ratelimit-remaining-tokens, or -1
+         */
+        public void onSuccess(String callType, long latencyMillis, long remainingRequests, long remainingTokens) {
+            if (finish()) {
+                OpenAIConcurrencyLimiter.this.onSuccess(sequence, callType, latencyMillis, remainingRequests,
+                        remainingTokens);
+                drain();
+            }
+        }
+
+        /**
+         * @param retryAfterMillis server-requested pause, or -1 if none was sent
+         */
+        public void onRateLimited(long retryAfterMillis) {
+            if (finish()) {
+                OpenAIConcurrencyLimiter.this.onRateLimited(sequence, retryAfterMillis);
+                drain();
+            }
+        }
+
+        /**
+         * Releases the slot without adjusting the window (errors unrelated to
+         * load, cancelled calls).
+         */
+        public void release() {
+            if (finish()) {
+                onRelease();
+                drain();
+            }
+        }
+
+        private synchronized boolean finish() {
+            if (done || !counted) {
+                return false;
+            }
+            done = true;
+            return true;
+        }
+    }
+
+    public static class LimitExceededException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Recent and long-term latency of one call type; guarded by the limiter.
+     */
+    private static final class Latency {
+        long samples;
+        double recent;
+        double baseline;
+
+        void record(long latencyMillis) {
+            if (samples++ == 0) {
+                recent = latencyMillis;
+                baseline = latencyMillis;
+                return;
+            }
+            recent += RECENT_WEIGHT * (latencyMillis - recent);
+            baseline += BASELINE_WEIGHT * (latencyMillis - baseline);
+        }
+    }
+
+    private static final class Waiter {
+        final CompletableFuture<Permit> future = new CompletableFuture<>();
+        final long enqueuedAt;
+
+        Waiter(long enqueuedAt) {
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Decides when a slow OpenAI call gets a hedged (duplicate) request.
+ *
+ * The hedge delay is a percentile (default p95) of recent successful call
+ * latencies, kept in a fixed-size ring buffer. Hedges are paid for from a
+ * budget: every primary call deposits budget-percent/100 of a token and every
+ * hedge spends one, so at most that share of extra calls is sent however slow
+ * the provider gets. Opt-in via openai.hedging.enabled.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OpenAIHedgingPolicy {
+
+    private static final double MAX_BUDGET_TOKENS = 10; // Bounds the burst of hedges after a quiet period
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${openai.hedging.enabled:false}")
+    private boolean enabled;
+
+    @Value("${openai.hedging.percentile:0.95}")
+    private double percentile;
+
+    @Value("${openai.hedging.budget-percent:5}")
+    private double budgetPercent;
+
+    @Value("${openai.hedging.min-delay:500ms}")
+    private Duration minDelay;
+
+    @Value("${openai.hedging.window-size:200}")
+    private int windowSize;
+
+    @Value("${openai.hedging.min-samples:20}")
+    private int minSamples; // No hedging until this many latencies have been seen
+
+    // Guarded by this
+    private long[] latencies;
+    private int samples;
+    private int next;
+    private long cachedDelay = -1;
+    private boolean delayStale = true;
+    private double budget;
+
+    private Counter fired;
+    private Counter won;
+    private Counter budgetExhausted;
+
+    @PostConstruct
+    public void init() {
+        latencies = new long[Math.max(1, windowSize)];
+        samples = 0;
+        next = 0;
+        delayStale = true;
+        budget = 0;
+        fired = Counter.builder("schedulehub.openai.hedge.fired")
+                .description("Hedged OpenAI requests sent because the first call was slow")
+                .register(meterRegistry);
+        won = Counter.builder("schedulehub.openai.hedge.won")
+                .description("Hedged OpenAI requests that answered before the original call")
+                .register(meterRegistry);
+        budgetExhausted = Counter.builder("schedulehub.openai.hedge.budget-exhausted")
+                .description("Hedges skipped because the hedge budget was spent")
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.openai.hedge.delay", this, p -> p.currentDelayMillis())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        if (enabled) {
+            log.info("OpenAI hedging enabled: p{} of last {} calls (min {}), budget {}%",
+                    Math.round(percentile * 100), windowSize, minDelay, budgetPercent);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the latency of a successful OpenAI call.
+     */
+    public synchronized void recordLatency(long millis) {
+        latencies[next] = millis;
+        next = (next + 1) % latencies.length;
+        samples = Math.min(samples + 1, latencies.length);
+        delayStale = true;
+    }
+
+    /**
+     * Called once per hedgeable call; deposits its share of the hedge budget.
+     *
+     * @return milliseconds to wait before hedging, or -1 if there are not yet
+     *         enough samples to know what "slow" is
+     */
+    public synchronized long onCall() {
+        budget = Math.min(MAX_BUDGET_TOKENS, budget + budgetPercent / 100.0);
+        return currentDelayMillis();
+    }
+
+    /**
+     * Spends one hedge from the budget.
+     *
+     * @return false if the budget is exhausted and the hedge must be skipped
+     */
+    public synchronized boolean tryHedge() {
+        if (budget < 1) {
+            budgetExhausted.increment();
+            return false;
+        }
+        budget -= 1;
+        fired.increment();
+        return true;
+    }
+
+    public void recordWin() {
+        won.increment();
+    }
+
+    synchronized long currentDelayMillis() {
+        if (samples == 0 || samples < minSamples) {
+            return -1;
+        }
+        if (delayStale) {
+            long[] sorted = Arrays.copyOf(latencies, samples);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            cachedDelay = Math.max(minDelay.toMillis(), sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+            delayStale = false;
+        }
+        return cachedDelay;
+    }
+}
@@ -1,22 +1,39 @@
 package com.bestbuy.schedulehub.service;
 
 import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import com.bestbuy.schedulehub.dto.TokenUsage;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Service for extracting intents and entities from natural language text using
@@ -36,9 +53,19 @@ import java.util.*;
 @RequiredArgsConstructor
 public class OpenAIService {
 
-    private final OkHttpClient httpClient = new OkHttpClient();
+    private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CompletionReader completionReader = new CompletionReader();
+    private final ExtractionCache extractionCache;
+    private final MeterRegistry meterRegistry;
+    private final DeploymentRouter deploymentRouter;
+    private final ExtractionSingleFlight singleFlight;
+    private final OpenAIConcurrencyLimiter concurrencyLimiter;
+    private final OpenAIHedgingPolicy hedgingPolicy;
+    private final ExtractionDegradeController degradeController;
+    private final IntentClassifier intentClassifier;
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
 
     @Value("${openai.api-key}")
     private String openAiApiKey;
@@ -56,6 +83,19 @@ public class OpenAIService {
     @Value("${openai.api-version:2025-01-01-preview}")
     private String apiVersion; // Azure OpenAI API version
 
+    @Value("${openai.prompt.variant:full}")
+    private String promptVariant; // "full" or "compact" static system prompt
+
+    @Value("${openai.batch.max-size:20}")
+    private int batchMaxSize; // Utterances packed into one batched completion
+
+    @Value("${openai.streaming.enabled:false}")
+    private boolean streamingEnabled; // Stream completions and hand off early entities
+
+    // Request bodies with the static part pre-serialized, per target type and
+    // static prompt; built on first use
+    private final Map<String, ChatRequestTemplate> templates = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void logConfiguration() {
         log.info("═══════════════════════════════════════════════════════════════");
@@ -88,72 +128,976 @@ public class OpenAIService {
         } else {
             log.info("Using standard OpenAI endpoint: https://api.openai.com/v1/chat/completions");
         }
+        if (deploymentRouter.getTargets().size() > 1) {
+            log.info("Routing across {} deployments (openai.routing.deployments): {}",
+                    deploymentRouter.getTargets().size(),
+                    deploymentRouter.getTargets().stream().map(DeploymentTarget::getName).toList());
+        }
+        log.info("Streaming: {}", streamingEnabled ? "enabled" : "disabled");
+        log.info("Prompt Variant: {} (~{} tokens static prefix; full ~{}, compact ~{})",
+                promptVariant, ExtractionPrompts.systemPromptTokens(promptVariant),
+                ExtractionPrompts.FULL_PROMPT_TOKENS, ExtractionPrompts.COMPACT_PROMPT_TOKENS);
         log.info("═══════════════════════════════════════════════════════════════");
     }
 
-    private static final String SYSTEM_PROMPT = """
-            You are a calendar scheduling assistant. Extract intent and entities from user requests about scheduling meetings.
-
-            Extract the following information:
-            - Intent: One of "BookMeeting", "CancelMeeting", or "RescheduleMeeting"
-            - Attendees: List of person names or email addresses mentioned (e.g., ["John", "mary@example.com", "Bob Smith"])
-            - Start DateTime: When the meeting starts (ISO 8601 format: yyyy-MM-ddTHH:mm). Use current date as reference for relative dates like "tomorrow", "next Friday", "3PM today"
-            - End DateTime: When the meeting ends (ISO 8601 format: yyyy-MM-ddTHH:mm). If not specified, calculate 1 hour after start time
-            - Subject: Meeting title/subject (default to "Meeting" if not specified)
-            - Location: Meeting location name if mentioned (e.g., "Conference Room A", "Building 5", "Teams Meeting")
-            - Recurrence Pattern: If recurring, use one of: "daily", "weekly", "weekday", "monthly" (or null if not recurring)
-            - Exceptions: List of exception rules for recurring meetings (e.g., ["monday", "first tuesday", "second friday"] or null)
-
-            Current date and time context: Use this to resolve relative dates like "tomorrow", "today", "next week", etc.
-
-            Return ONLY valid JSON in this exact format (use null for optional fields that are not mentioned):
-            {
-              "intent": "BookMeeting",
-              "attendees": ["John", "mary@example.com"],
-              "startDateTime": "2025-12-10T15:00",
-              "endDateTime": "2025-12-10T16:00",
-              "subject": "Meeting with John",
-              "location": null,
-              "recurrencePattern": null,
-              "exceptions": null
-            }
-
-            IMPORTANT JSON Format Rules:
-            - All date/time values MUST be in ISO 8601 format: yyyy-MM-ddTHH:mm (use literal 'T' between date and time)
-            - Use null (not empty string or "null" string) for optional fields that are not mentioned
-            - Attendees array can contain names or email addresses (both are acceptable)
-            - Location should be a string (location name) or null
-            - RecurrencePattern should be one of: "daily", "weekly", "weekday", "monthly", or null
-            - Exceptions should be an array of strings (e.g., ["monday", "first tuesday"]) or null
-            - Subject should never be null (use "Meeting" as default if not specified)
-
-            Date/Time Rules:
-            - Use current date as reference for relative dates like "tomorrow", "next Friday"
-            - If only time is given (e.g., "3PM"), assume today's date
-            - If no end time specified, calculate 1 hour after start time
-            - Always use 24-hour format (e.g., "15:00" for 3PM, "09:30" for 9:30AM)
-
-            Intent Classification Rules:
-            - Intent must be exactly one of: BookMeeting, CancelMeeting, RescheduleMeeting
-            - For "book", "schedule", "create", "set up", "add" -> BookMeeting
-            - For "cancel", "delete", "remove", "delete" -> CancelMeeting
-            - For "reschedule", "move", "change", "update", "modify" -> RescheduleMeeting
-            """;
-
     /**
      * Extracts intent and entities from natural language text using OpenAI API.
      * 
+     * Blocking wrapper over {@link #extractIntentAndEntitiesAsync(String)}.
+     * 
      * @param text The user's natural language scheduling request
      * @return ExtractedEntities containing intent, attendees, dates, and other
      *         meeting details
      */
     public ExtractedEntities extractIntentAndEntities(String text) {
+        return extractIntentAndEntitiesAsync(text).join();
+    }
+
+    /**
+     * Extracts intent and entities without blocking the calling thread.
+     * 
+     * The chat completion is sent with OkHttp's enqueue, so no request thread
+     * is held while the model generates. The future always completes normally;
+     * failures complete it with intent "Unknown", like the blocking API.
+     * Identical requests already in flight share one call (see
+     * {@link ExtractionSingleFlight}); cancelling the future cancels the HTTP
+     * call once no other caller is waiting on it.
+     * 
+     * @param text The user's natural language scheduling request
+     * @return future ExtractedEntities, completed on an OkHttp dispatcher thread
+     */
+    public CompletableFuture<ExtractedEntities> extractIntentAndEntitiesAsync(String text) {
         log.info("=== OpenAI Service: Starting intent and entity extraction ===");
         log.info("Input text: '{}'", text);
 
-        // Determine if using Azure OpenAI or standard OpenAI
-        boolean isAzureOpenAI = openAiEndpoint != null && !openAiEndpoint.trim().isEmpty();
+        // Get current date/time for context - also selects the cache bucket
+        LocalDateTime now = LocalDateTime.now();
+        String cacheKey = extractionCache.key(text, now);
+        ExtractedEntities cached = extractionCache.get(cacheKey);
+        if (cached != null) {
+            log.info("=== OpenAI Service: Extraction served from cache ===");
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        // Identical requests already in flight share one call
+        return singleFlight.execute(cacheKey, () -> callOpenAI(text, now, cacheKey));
+    }
+
+    private CompletableFuture<ExtractedEntities> callOpenAI(String text, LocalDateTime now, String cacheKey) {
+        LocalDateTime promptTime = extractionCache.promptTime(text, now);
+        CompletableFuture<ExtractedEntities> call = sendHedged(new ChatCall<>("full",
+                target -> buildChatRequest(target, List.of(ExtractionPrompts.dateContext(promptTime)), text, false),
+                response -> {
+                    ExtractedEntities result = readCompletion(response);
+                    extractionCache.put(cacheKey, result);
+                    return result;
+                },
+                () -> ExtractedEntities.builder()
+                        .intent("Unknown")
+                        .build()));
+        // Once per LLM answer - cache hits and coalesced callers never get here
+        call.thenAccept(result -> intentClassifier.recordLabel(text, result.getIntent()));
+        return call;
+    }
 
+    /**
+     * Extracts only the entities of a request whose intent is already known
+     * (from the local intent classifier).
+     * 
+     * Uses the smaller entity-only static prompt and passes the intent in the
+     * dynamic message; the result carries the given intent. Results are
+     * cached and coalesced under their own key per intent, apart from full
+     * extractions; failure handling is the same as
+     * {@link #extractIntentAndEntitiesAsync(String)}.
+     * 
+     * @param text   The user's natural language scheduling request
+     * @param intent BookMeeting, CancelMeeting or RescheduleMeeting
+     * @return future ExtractedEntities with the given intent
+     */
+    public CompletableFuture<ExtractedEntities> extractEntitiesAsync(String text, String intent) {
+        log.info("=== OpenAI Service: Starting entity extraction (intent {} known) ===", intent);
+        log.info("Input text: '{}'", text);
+
+        LocalDateTime now = LocalDateTime.now();
+        String cacheKey = extractionCache.key(text, now, intent);
+        ExtractedEntities cached = extractionCache.get(cacheKey);
+        if (cached != null) {
+            log.info("=== OpenAI Service: Entity extraction served from cache ===");
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        LocalDateTime promptTime = extractionCache.promptTime(text, now);
+        return singleFlight.execute(cacheKey, () -> sendHedged(new ChatCall<>("entities",
+                target -> buildChatRequest(target, ExtractionPrompts.entitySystemPrompt(),
+                        List.of(ExtractionPrompts.intentContext(promptTime, intent)), text, false),
+                response -> {
+                    ExtractedEntities result = readCompletion(response);
+                    result.setIntent(intent);
+                    extractionCache.put(cacheKey, result);
+                    return result;
+                },
+                () -> ExtractedEntities.builder()
+                        .intent("Unknown")
+                        .build())));
+    }
+
+    public ExtractedEntities extractEntities(String text, String intent) {
+        return extractEntitiesAsync(text, intent).join();
+    }
+
+    /**
+     * Asks only for the changes a follow-up utterance makes to the current
+     * request of a conversation session.
+     * 
+     * Uses the short delta static prompt and sends the current request as
+     * compact JSON in the dynamic message. Not cached: the answer depends on
+     * the session state.
+     * 
+     * @param text    The follow-up, e.g. "actually make it 4pm"
+     * @param current The session's last extracted entities
+     * @return future delta; {@link EntityDelta#newRequest()} is true if the
+     *         utterance is not a follow-up or the call failed
+     */
+    CompletableFuture<EntityDelta> extractDeltaAsync(String text, ExtractedEntities current) {
+        log.info("=== OpenAI Service: Starting follow-up delta extraction ===");
+        log.info("Input text: '{}'", text);
+
+        LocalDateTime now = LocalDateTime.now();
+        String state = sessionState(current);
+        // Deltas vary with the session state - kept out of the limiter's latency signal
+        return sendHedged(new ChatCall<>(null,
+                target -> buildChatRequest(target, ExtractionPrompts.deltaSystemPrompt(),
+                        List.of(ExtractionPrompts.deltaContext(now, state)), text, false),
+                response -> {
+                    CompletionReader.Completion completion = readContent(response);
+                    if (completion.content() == null) {
+                        return EntityDelta.newRequest(completion.usage());
+                    }
+                    EntityDelta delta = EntityDelta.parse(objectMapper.readTree(completion.content()),
+                            DATE_TIME_FORMAT, completion.usage());
+                    log.info("=== OpenAI Service: Delta extraction complete (new request: {}) ===",
+                            delta.newRequest());
+                    return delta;
+                },
+                () -> EntityDelta.newRequest(null)));
+    }
+
+    /**
+     * The session's current request as compact JSON for the delta prompt;
+     * empty fields are left out.
+     */
+    private String sessionState(ExtractedEntities current) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("intent", current.getIntent());
+        if (current.getAttendees() != null && !current.getAttendees().isEmpty()) {
+            state.put("attendees", current.getAttendees());
+        }
+        if (current.getStartDateTime() != null) {
+            state.put("startDateTime", current.getStartDateTime().format(DATE_TIME_FORMAT));
+        }
+        if (current.getEndDateTime() != null) {
+            state.put("endDateTime", current.getEndDateTime().format(DATE_TIME_FORMAT));
+        }
+        state.put("subject", current.getSubject());
+        if (current.getLocation() != null) {
+            state.put("location", current.getLocation());
+        }
+        if (current.getRecurrencePattern() != null) {
+            state.put("recurrencePattern", current.getRecurrencePattern());
+        }
+        if (current.getExceptions() != null && !current.getExceptions().isEmpty()) {
+            state.put("exceptions", current.getExceptions());
+        }
+        try {
+            return objectMapper.writeValueAsString(state);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize session state", e);
+        }
+    }
+
+    /**
+     * Extracts intent and entities for many utterances with few chat
+     * completions.
+     * 
+     * Utterances are packed, up to openai.batch.max-size at a time, into one
+     * completion that sends the static prompt once and returns an indexed JSON
+     * array. Cached utterances are not sent. Any item that is missing from the
+     * batched response or fails to parse falls back to a single call. When the
+     * batched call itself fails (429, 5xx, no deployment), its items come back
+     * with intent "Unknown" instead of becoming one call each against an
+     * endpoint that is already throttling.
+     * 
+     * @param texts The users' natural language scheduling requests
+     * @return one ExtractedEntities per input, in input order
+     */
+    public List<ExtractedEntities> extractIntentAndEntitiesBatch(List<String> texts) {
+        return extractIntentAndEntitiesBatchAsync(texts).join();
+    }
+
+    /**
+     * Non-blocking variant of {@link #extractIntentAndEntitiesBatch(List)}.
+     */
+    public CompletableFuture<List<ExtractedEntities>> extractIntentAndEntitiesBatchAsync(List<String> texts) {
+        log.info("=== OpenAI Service: Starting batch extraction of {} utterances ===", texts.size());
+        LocalDateTime now = LocalDateTime.now();
+        ExtractedEntities[] results = new ExtractedEntities[texts.size()];
+        // Utterances share a completion only if their prompts carry the same time
+        Map<LocalDateTime, List<Integer>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            results[i] = extractionCache.get(extractionCache.key(texts.get(i), now));
+            if (results[i] != null) {
+                batchItems("cached").increment();
+            } else {
+                pending.computeIfAbsent(extractionCache.promptTime(texts.get(i), now), time -> new ArrayList<>())
+                        .add(i);
+            }
+        }
+
+        int chunkSize = Math.max(1, batchMaxSize);
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (Map.Entry<LocalDateTime, List<Integer>> group : pending.entrySet()) {
+            List<Integer> indices = group.getValue();
+            for (int from = 0; from < indices.size(); from += chunkSize) {
+                List<Integer> chunk = indices.subList(from, Math.min(indices.size(), from + chunkSize));
+                chunks.add(extractChunk(texts, chunk, now, group.getKey(), results));
+            }
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    log.info("=== OpenAI Service: Batch extraction complete ===");
+                    return Arrays.asList(results);
+                });
+    }
+
+    private CompletableFuture<Void> extractChunk(List<String> texts, List<Integer> indices, LocalDateTime now,
+            LocalDateTime promptTime, ExtractedEntities[] results) {
+        if (indices.size() == 1) {
+            int index = indices.get(0);
+            return extractSingle(texts.get(index), now)
+                    .thenAccept(result -> results[index] = result);
+        }
+        List<String> chunkTexts = new ArrayList<>();
+        for (int index : indices) {
+            chunkTexts.add(texts.get(index));
+        }
+        // Batches take far longer than single calls - kept out of the limiter's latency signal
+        CompletableFuture<ExtractedEntities[]> batch = sendChat(new ChatCall<>(null,
+                target -> buildChatRequest(target,
+                        List.of(ExtractionPrompts.batchInstructions(), ExtractionPrompts.dateContext(promptTime)),
+                        batchUserContent(chunkTexts), false),
+                response -> readBatchCompletion(response, chunkTexts.size()),
+                () -> null));
+
+        return batch.thenCompose(batched -> {
+            if (batched == null) {
+                log.warn("Batched OpenAI call for {} utterances failed - not retrying them one by one",
+                        indices.size());
+                for (int index : indices) {
+                    batchItems("failed").increment();
+                    results[index] = ExtractedEntities.builder().intent("Unknown").build();
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+            List<CompletableFuture<Void>> fallbacks = new ArrayList<>();
+            for (int i = 0; i < indices.size(); i++) {
+                int index = indices.get(i);
+                ExtractedEntities result = batched[i];
+                if (result != null) {
+                    // An "Unknown" item was understood as such; the cache skips it
+                    batchItems("batched").increment();
+                    extractionCache.put(extractionCache.key(texts.get(index), now), result);
+                    results[index] = result;
+                } else {
+                    batchItems("fallback").increment();
+                    log.warn("Batch item {} missing or unparseable - falling back to a single call", index);
+                    fallbacks.add(extractSingle(texts.get(index), now)
+                            .thenAccept(single -> results[index] = single));
+                }
+            }
+            return CompletableFuture.allOf(fallbacks.toArray(new CompletableFuture<?>[0]));
+        });
+    }
+
+    private CompletableFuture<ExtractedEntities> extractSingle(String text, LocalDateTime now) {
+        String cacheKey = extractionCache.key(text, now);
+        return singleFlight.execute(cacheKey, () -> callOpenAI(text, now, cacheKey));
+    }
+
+    private Counter batchItems(String outcome) {
+        return Counter.builder("schedulehub.openai.batch.items")
+                .description("Utterances extracted through the batch API, by how they were answered")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One logical chat completion: its latency class for the concurrency
+     * limiter (null keeps it out of the latency signal), how to build its
+     * request for a deployment, how to read a successful response, and the
+     * result used when it fails.
+     */
+    private record ChatCall<T>(String callType, RequestFactory request, ResponseReader<T> reader,
+            Supplier<T> fallback) {
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        Request create(DeploymentTarget target) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(Response response) throws IOException;
+    }
+
+    /**
+     * Per-call state shared by every attempt of one logical completion.
+     */
+    private static final class ChatAttempts {
+        final Set<String> tried = new HashSet<>();
+        final Set<String> avoid = new HashSet<>(); // Deployments to use only if nothing else is available
+        final AtomicReference<Call> currentCall = new AtomicReference<>();
+        boolean rateLimited; // Last attempt was answered with 429
+        boolean rateLimitRetried; // The one retry after retry-after has been used
+        volatile boolean succeeded; // Completed with a read response rather than the fallback
+    }
+
+    private <T> CompletableFuture<T> sendChat(ChatCall<T> chat) {
+        return sendChat(chat, new ChatAttempts());
+    }
+
+    /**
+     * Reserves a deployment, trying the degrade mode's preferred deployment
+     * first.
+     */
+    private Optional<DeploymentTarget> acquireTarget(Set<String> excluded) {
+        String preferred = degradeController.preferredDeployment();
+        if (preferred != null && !excluded.contains(preferred)) {
+            Optional<DeploymentTarget> target = deploymentRouter.acquire(preferred);
+            if (target.isPresent()) {
+                return target;
+            }
+        }
+        return deploymentRouter.acquire(excluded);
+    }
+
+    /**
+     * Creates the call, with the degrade mode's shorter whole-call timeout
+     * when the extraction stage is degraded.
+     */
+    private Call newCall(Request request) {
+        Call call = httpClient.newCall(request);
+        long timeout = degradeController.callTimeoutMillis();
+        if (timeout > 0) {
+            call.timeout().timeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        return call;
+    }
+
+    private <T> CompletableFuture<T> sendChat(ChatCall<T> chat, ChatAttempts attempts) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        sendAsync(chat, attempts, null, future);
+        future.whenComplete((result, error) -> {
+            Call call = attempts.currentCall.get();
+            if (future.isCancelled() && call != null) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Waits for a slot from the concurrency limiter, then sends the attempt.
+     * Calls rejected by the limiter (queue full or max-wait expired) complete
+     * with the fallback instead of being sent.
+     */
+    private <T> void sendAsync(ChatCall<T> chat, ChatAttempts attempts, DeploymentTarget failedTarget,
+            CompletableFuture<T> future) {
+        if (future.isDone()) {
+            return;
+        }
+        concurrencyLimiter.acquire().whenComplete((permit, error) -> {
+            if (error != null) {
+                log.warn("⚠️ OpenAI call not sent: {}", rootMessage(error));
+                future.complete(chat.fallback().get());
+                return;
+            }
+            if (future.isDone()) {
+                permit.release();
+                return;
+            }
+            dispatch(chat, attempts, failedTarget, permit, future);
+        });
+    }
+
+    /**
+     * Sends the completion to the best available deployment. A 429, 5xx or
+     * timeout reports the failure to the router and retries on the next
+     * target not yet tried for this request. When every deployment has
+     * answered 429, the call is retried once after the limiter's retry-after
+     * pause instead of returning the fallback.
+     */
+    private <T> void dispatch(ChatCall<T> chat, ChatAttempts attempts, DeploymentTarget failedTarget,
+            OpenAIConcurrencyLimiter.Permit permit, CompletableFuture<T> future) {
+        Set<String> tried = attempts.tried;
+        Optional<DeploymentTarget> acquired = Optional.empty();
+        if (!attempts.avoid.isEmpty()) {
+            Set<String> excluded = new HashSet<>(tried);
+            excluded.addAll(attempts.avoid);
+            acquired = acquireTarget(excluded);
+        }
+        if (acquired.isEmpty()) {
+            acquired = acquireTarget(tried);
+        }
+        if (acquired.isEmpty() && attempts.rateLimited && !attempts.rateLimitRetried) {
+            // The permit was only granted once the limiter's retry-after pause ended
+            attempts.rateLimitRetried = true;
+            log.info("All OpenAI deployments rate limited - retrying once after retry-after");
+            tried.clear();
+            failedTarget = null;
+            acquired = acquireTarget(tried);
+        }
+        if (acquired.isEmpty()) {
+            permit.release();
+            log.error("❌ No OpenAI deployment available (tried: {}; the rest have open circuits)", tried);
+            future.complete(chat.fallback().get());
+            return;
+        }
+        DeploymentTarget target = acquired.get();
+        tried.add(target.getName());
+        attempts.rateLimited = false;
+        if (failedTarget != null) {
+            deploymentRouter.recordFailover(failedTarget, target);
+        }
+
+        if (!hasValidApiKey(target)) {
+            permit.release();
+            deploymentRouter.release(target);
+            future.complete(chat.fallback().get());
+            return;
+        }
+
+        Request request;
+        try {
+            request = chat.request().create(target);
+        } catch (IOException e) {
+            permit.release();
+            deploymentRouter.release(target);
+            log.error("Could not build OpenAI API request", e);
+            future.complete(chat.fallback().get());
+            return;
+        }
+
+        log.info("Sending OpenAI API request to deployment '{}'...", target.getName());
+        long startTime = System.currentTimeMillis();
+        Call call = newCall(request);
+        attempts.currentCall.set(call);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                permit.release();
+                if (call.isCanceled()) {
+                    deploymentRouter.release(target);
+                    future.complete(chat.fallback().get());
+                    return;
+                }
+                log.error("IOException calling OpenAI API", e);
+                degradeController.record(System.currentTimeMillis() - startTime, true);
+                deploymentRouter.recordFailure(target, e.getClass().getSimpleName());
+                failover();
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    long duration = System.currentTimeMillis() - startTime;
+                    log.info("OpenAI API response received in {} ms - Status: {} {}",
+                            duration, response.code(), response.message());
+                    reportToLimiter(permit, response, chat.callType(), duration);
+
+                    if (!response.isSuccessful()) {
+                        logFailedResponse(response, target);
+                        if (response.code() >= 500) {
+                            degradeController.record(duration, true);
+                        }
+                        if (DeploymentRouter.isRetryable(response.code())) {
+                            deploymentRouter.recordFailure(target, "HTTP " + response.code());
+                            attempts.rateLimited = response.code() == 429;
+                            failover();
+                            return;
+                        }
+                        deploymentRouter.release(target);
+                        future.complete(chat.fallback().get());
+                        return;
+                    }
+
+                    meterRegistry.timer("schedulehub.openai.time-to-first-token", "mode", "blocking",
+                            "variant", effectivePromptVariant()).record(duration, TimeUnit.MILLISECONDS);
+                    T result = chat.reader().read(response);
+                    long total = System.currentTimeMillis() - startTime;
+                    deploymentRouter.recordSuccess(target, total);
+                    hedgingPolicy.recordLatency(total);
+                    degradeController.record(total, false);
+                    attempts.succeeded = true;
+                    future.complete(result);
+                } catch (IOException e) {
+                    log.error("IOException reading OpenAI API response", e);
+                    degradeController.record(System.currentTimeMillis() - startTime, true);
+                    deploymentRouter.recordFailure(target, e.getClass().getSimpleName());
+                    failover();
+                } catch (Exception e) {
+                    log.error("Unexpected error in OpenAI service", e);
+                    deploymentRouter.release(target);
+                    future.complete(chat.fallback().get());
+                }
+            }
+
+            private void failover() {
+                sendAsync(chat, attempts, target, future);
+            }
+        });
+    }
+
+    /**
+     * Sends the completion, hedging it when openai.hedging is enabled: if no
+     * answer has arrived after the hedge delay (a percentile of recent
+     * latency), an identical request goes out, preferring a deployment the
+     * first call is not using. The first successful answer wins and the other
+     * call is cancelled; a call that fails waits for the other one. No hedge
+     * is sent while the extraction stage is degraded.
+     */
+    private <T> CompletableFuture<T> sendHedged(ChatCall<T> chat) {
+        // Duplicate calls would add load to a deployment that is already slow
+        if (!hedgingPolicy.isEnabled() || degradeController.isDegraded()) {
+            return sendChat(chat);
+        }
+        long delay = hedgingPolicy.onCall();
+        ChatAttempts primaryAttempts = new ChatAttempts();
+        CompletableFuture<T> primary = sendChat(chat, primaryAttempts);
+        if (delay < 0) {
+            return primary;
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> hedge = new AtomicReference<>();
+        primary.whenComplete((value, error) -> settleHedged(result, value, primaryAttempts, hedge.get(), false));
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone() || !hedgingPolicy.tryHedge()) {
+                return;
+            }
+            log.info("OpenAI call still pending after {} ms - sending hedged request", delay);
+            ChatAttempts hedgeAttempts = new ChatAttempts();
+            hedgeAttempts.avoid.addAll(primaryAttempts.tried);
+            CompletableFuture<T> second = sendChat(chat, hedgeAttempts);
+            synchronized (result) {
+                hedge.set(second);
+            }
+            second.whenComplete((value, error) -> settleHedged(result, value, hedgeAttempts, primary, true));
+            if (result.isDone()) {
+                second.cancel(true);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                primary.cancel(true);
+                CompletableFuture<T> second = hedge.get();
+                if (second != null) {
+                    second.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    private <T> void settleHedged(CompletableFuture<T> result, T value, ChatAttempts attempts,
+            CompletableFuture<T> other, boolean isHedge) {
+        synchronized (result) {
+            if (result.isDone() || value == null) {
+                return;
+            }
+            boolean otherPending = other != null && !other.isDone();
+            if (!attempts.succeeded && otherPending) {
+                // Failed; the other call may still answer
+                return;
+            }
+            result.complete(value);
+            if (otherPending) {
+                other.cancel(true);
+            }
+            if (isHedge && attempts.succeeded) {
+                log.info("Hedged OpenAI request answered first");
+                hedgingPolicy.recordWin();
+            }
+        }
+    }
+
+    /**
+     * Feeds the outcome of one attempt and its rate-limit headers to the
+     * concurrency limiter: 429 shrinks the window and pauses for retry-after,
+     * success grows it unless x-ratelimit-remaining-* is running low.
+     */
+    private void reportToLimiter(OpenAIConcurrencyLimiter.Permit permit, Response response, String callType,
+            long latencyMillis) {
+        if (response.code() == 429) {
+            long retryAfter = OpenAIConcurrencyLimiter.retryAfterMillis(
+                    response.header("retry-after-ms"), response.header("retry-after"));
+            log.warn("OpenAI rate limit hit (retry-after: {} ms)", retryAfter);
+            permit.onRateLimited(retryAfter);
+        } else if (response.isSuccessful()) {
+            permit.onSuccess(callType, latencyMillis,
+                    OpenAIConcurrencyLimiter.headerValue(response.header("x-ratelimit-remaining-requests")),
+                    OpenAIConcurrencyLimiter.headerValue(response.header("x-ratelimit-remaining-tokens")));
+        } else {
+            permit.release();
+        }
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    /**
+     * Reads the completion body and records token usage. The content is null
+     * if the response has no choices.
+     */
+    private CompletionReader.Completion readContent(Response response) throws IOException {
+        // Streamed straight from the body; only content and usage are kept
+        CompletionReader.Completion completion = completionReader.readCompletion(response.body().byteStream());
+        recordUsage(completion.usage());
+        if (completion.content() == null) {
+            log.error("No choices in OpenAI response");
+            return completion;
+        }
+        log.info("OpenAI extracted content: {}", completion.content());
+        return completion;
+    }
+
+    private ExtractedEntities readCompletion(Response response) throws IOException {
+        CompletionReader.Completion completion = readContent(response);
+        String content = completion.content();
+        if (content == null) {
+            return ExtractedEntities.builder().intent("Unknown").usage(completion.usage()).build();
+        }
+
+        // Bind the JSON content directly, without an intermediate Map
+        CompletionReader.RawEntities raw = completionReader.readEntities(content);
+        log.debug("Raw extracted data from OpenAI: {}", raw);
+
+        ExtractedEntities result = toEntities(raw);
+        result.setUsage(completion.usage());
+
+        log.info("=== OpenAI Service: Extraction complete ===");
+        log.info(
+                "Final extracted entities: intent={}, startDateTime={}, endDateTime={}, attendees={}, subject={}, location={}",
+                result.getIntent(), result.getStartDateTime(), result.getEndDateTime(),
+                result.getAttendees(), result.getSubject(), result.getLocation());
+        return result;
+    }
+
+    /**
+     * Parses a batched completion into one slot per request index. Slots stay
+     * null for items that are missing, duplicated or fail to parse.
+     */
+    private ExtractedEntities[] readBatchCompletion(Response response, int size) throws IOException {
+        ExtractedEntities[] batched = new ExtractedEntities[size];
+        String content = readContent(response).content();
+        if (content == null) {
+            return batched;
+        }
+        JsonNode items = objectMapper.readTree(content).path("results");
+        if (!items.isArray()) {
+            log.error("Batched OpenAI response has no results array");
+            return batched;
+        }
+        for (JsonNode item : items) {
+            int index = item.path("index").asInt(-1);
+            if (index < 0 || index >= size || batched[index] != null) {
+                log.warn("Ignoring batch result with invalid or duplicate index: {}", item.path("index"));
+                continue;
+            }
+            try {
+                if (item.path("intent").isTextual()) {
+                    try (JsonParser parser = item.traverse()) {
+                        parser.nextToken();
+                        batched[index] = toEntities(completionReader.readEntities(parser));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Could not parse batch result {}", index, e);
+            }
+        }
+        return batched;
+    }
+
+    public boolean isStreamingEnabled() {
+        return streamingEnabled;
+    }
+
+    /**
+     * Streaming variant of {@link #extractIntentAndEntities(String)}.
+     * 
+     * Reads the chat completion as server-sent events and parses the JSON
+     * object incrementally as tokens arrive. As soon as the intent and the
+     * fields that intent needs for its Graph lookup are complete, a partial
+     * ExtractedEntities is handed to onEarlyEntities (at most once):
+     * - CancelMeeting: subject, startDateTime and endDateTime
+     * - RescheduleMeeting: subject
+     * 
+     * @param text            The user's natural language scheduling request
+     * @param onEarlyEntities Receives the partial entities before generation
+     *                        finishes; not called for BookMeeting or cache hits
+     * @return ExtractedEntities parsed from the complete response
+     */
+    public ExtractedEntities extractIntentAndEntitiesStreaming(String text,
+            Consumer<ExtractedEntities> onEarlyEntities) {
+        log.info("=== OpenAI Service: Starting streaming intent and entity extraction ===");
+        log.info("Input text: '{}'", text);
+
+        LocalDateTime now = LocalDateTime.now();
+        String cacheKey = extractionCache.key(text, now);
+        ExtractedEntities cached = extractionCache.get(cacheKey);
+        if (cached != null) {
+            log.info("=== OpenAI Service: Extraction served from cache ===");
+            return cached;
+        }
+
+        Set<String> tried = new HashSet<>();
+        DeploymentTarget failedTarget = null;
+        while (true) {
+            // Wait for the limiter before holding a deployment slot
+            OpenAIConcurrencyLimiter.Permit permit;
+            try {
+                permit = concurrencyLimiter.acquire().join();
+            } catch (CompletionException e) {
+                log.warn("⚠️ OpenAI streaming call not sent: {}", rootMessage(e));
+                return ExtractedEntities.builder()
+                        .intent("Unknown")
+                        .build();
+            }
+
+            Optional<DeploymentTarget> acquired = acquireTarget(tried);
+            if (acquired.isEmpty()) {
+                permit.release();
+                log.error("❌ No OpenAI deployment available (tried: {}; the rest have open circuits)", tried);
+                return ExtractedEntities.builder()
+                        .intent("Unknown")
+                        .build();
+            }
+            DeploymentTarget target = acquired.get();
+            tried.add(target.getName());
+            if (failedTarget != null) {
+                deploymentRouter.recordFailover(failedTarget, target);
+            }
+            if (!hasValidApiKey(target)) {
+                permit.release();
+                deploymentRouter.release(target);
+                return ExtractedEntities.builder()
+                        .intent("Unknown")
+                        .build();
+            }
+
+            ExtractedEntities result;
+            try {
+                result = streamFrom(target, permit, text, now, cacheKey, onEarlyEntities);
+            } finally {
+                // No-op if streamFrom already reported the outcome
+                permit.release();
+            }
+            if (result != null) {
+                return result;
+            }
+            failedTarget = target;
+        }
+    }
+
+    /**
+     * Streams one completion from the given deployment and reports the outcome
+     * to the router.
+     * 
+     * @return the extracted entities, or null if the deployment failed (429,
+     *         5xx or I/O error) before the first token and the call should be
+     *         retried on another deployment
+     */
+    private ExtractedEntities streamFrom(DeploymentTarget target, OpenAIConcurrencyLimiter.Permit permit,
+            String text, LocalDateTime now, String cacheKey, Consumer<ExtractedEntities> onEarlyEntities) {
+        boolean firstToken = true;
+        long startTime = System.currentTimeMillis();
+        try {
+            Request request = buildChatRequest(target,
+                    List.of(ExtractionPrompts.dateContext(extractionCache.promptTime(text, now))), text, true);
+
+            log.info("Sending streaming OpenAI API request to deployment '{}'...", target.getName());
+            startTime = System.currentTimeMillis();
+
+            try (Response response = newCall(request).execute()) {
+                long openedIn = System.currentTimeMillis() - startTime;
+                log.info("OpenAI API stream opened in {} ms - Status: {} {}",
+                        openedIn, response.code(), response.message());
+                reportToLimiter(permit, response, "stream", openedIn);
+
+                if (!response.isSuccessful()) {
+                    logFailedResponse(response, target);
+                    if (response.code() >= 500) {
+                        degradeController.record(openedIn, true);
+                    }
+                    if (DeploymentRouter.isRetryable(response.code())) {
+                        deploymentRouter.recordFailure(target, "HTTP " + response.code());
+                        return null;
+                    }
+                    deploymentRouter.release(target);
+                    return ExtractedEntities.builder()
+                            .intent("Unknown")
+                            .build();
+                }
+
+                IncrementalEntityParser entityParser = new IncrementalEntityParser();
+                boolean handedOff = false;
+                TokenUsage usage = null;
+                BufferedSource source = response.body().source();
+                String line;
+                while ((line = source.readUtf8Line()) != null) {
+                    // Server-sent events: "data: {chunk}" lines, terminated by "data: [DONE]"
+                    if (!line.startsWith("data:")) {
+                        continue;
+                    }
+                    String data = line.substring(5).trim();
+                    if ("[DONE]".equals(data)) {
+                        break;
+                    }
+                    JsonNode chunk = objectMapper.readTree(data);
+                    // With include_usage the last chunk carries usage and no choices
+                    TokenUsage chunkUsage = recordUsage(chunk.get("usage"));
+                    if (chunkUsage != null) {
+                        usage = chunkUsage;
+                    }
+                    JsonNode delta = chunk.path("choices").path(0).path("delta").path("content");
+                    if (!delta.isTextual()) {
+                        continue;
+                    }
+                    if (firstToken) {
+                        firstToken = false;
+                        long timeToFirstToken = System.currentTimeMillis() - startTime;
+                        log.info("First OpenAI token received in {} ms", timeToFirstToken);
+                        meterRegistry.timer("schedulehub.openai.time-to-first-token", "mode", "streaming",
+                                "variant", effectivePromptVariant()).record(timeToFirstToken, TimeUnit.MILLISECONDS);
+                    }
+                    entityParser.feed(delta.asText());
+
+                    if (!handedOff && isReadyForLookup(entityParser)) {
+                        handedOff = true;
+                        ExtractedEntities partial = parseOpenAIResponse(entityParser.fields());
+                        log.info("Early entities ready in {} ms: intent={}, subject={}",
+                                System.currentTimeMillis() - startTime, partial.getIntent(), partial.getSubject());
+                        onEarlyEntities.accept(partial);
+                    }
+                }
+                long duration = System.currentTimeMillis() - startTime;
+                log.info("OpenAI API stream completed in {} ms", duration);
+                deploymentRouter.recordSuccess(target, duration);
+                degradeController.record(duration, false);
+
+                if (!entityParser.has("intent")) {
+                    log.error("Streamed OpenAI response ended without an intent");
+                    return ExtractedEntities.builder().intent("Unknown").usage(usage).build();
+                }
+
+                ExtractedEntities result = parseOpenAIResponse(entityParser.fields());
+                result.setUsage(usage);
+
+                log.info("=== OpenAI Service: Streaming extraction complete ===");
+                log.info(
+                        "Final extracted entities: intent={}, startDateTime={}, endDateTime={}, attendees={}, subject={}, location={}",
+                        result.getIntent(), result.getStartDateTime(), result.getEndDateTime(),
+                        result.getAttendees(), result.getSubject(), result.getLocation());
+                extractionCache.put(cacheKey, result);
+                intentClassifier.recordLabel(text, result.getIntent());
+                return result;
+            }
+        } catch (IOException e) {
+            log.error("IOException streaming from OpenAI API", e);
+            degradeController.record(System.currentTimeMillis() - startTime, true);
+            deploymentRouter.recordFailure(target, e.getClass().getSimpleName());
+            // Once tokens have arrived the early entities may already be handed
+            // off, so only a stream that never started is retried elsewhere
+            if (firstToken) {
+                return null;
+            }
+            return ExtractedEntities.builder()
+                    .intent("Unknown")
+                    .build();
+        } catch (Exception e) {
+            log.error("Unexpected error in OpenAI streaming", e);
+            deploymentRouter.release(target);
+            return ExtractedEntities.builder()
+                    .intent("Unknown")
+                    .build();
+        }
+    }
+
+    /**
+     * Parses the "usage" block of a completion and records prompt, completion
+     * and cached prompt token counts.
+     * 
+     * @return the parsed usage, or null if the block is absent
+     */
+    private TokenUsage recordUsage(JsonNode usageNode) {
+        if (usageNode == null || !usageNode.isObject()) {
+            return null;
+        }
+        return recordUsage(TokenUsage.builder()
+                .promptTokens(usageNode.path("prompt_tokens").asInt())
+                .completionTokens(usageNode.path("completion_tokens").asInt())
+                .cachedTokens(usageNode.path("prompt_tokens_details").path("cached_tokens").asInt())
+                .build());
+    }
+
+    private TokenUsage recordUsage(TokenUsage usage) {
+        if (usage == null) {
+            return null;
+        }
+        log.info("OpenAI token usage: prompt={}, completion={}, cached={}",
+                usage.getPromptTokens(), usage.getCompletionTokens(), usage.getCachedTokens());
+        recordTokens("prompt", usage.getPromptTokens());
+        recordTokens("completion", usage.getCompletionTokens());
+        recordTokens("cached", usage.getCachedTokens());
+        return usage;
+    }
+
+    private void recordTokens(String type, int tokens) {
+        DistributionSummary.builder("schedulehub.openai.tokens")
+                .tag("type", type)
+                .tag("variant", effectivePromptVariant())
+                .baseUnit("tokens")
+                .register(meterRegistry)
+                .record(tokens);
+    }
+
+    private boolean isReadyForLookup(IncrementalEntityParser entityParser) {
+        Object intent = entityParser.get("intent");
+        if (intent == null) {
+            return false;
+        }
+        switch (intent.toString().toLowerCase()) {
+            case "cancelmeeting":
+            case "deletemeeting":
+                return entityParser.has("subject")
+                        && entityParser.has("startDateTime")
+                        && entityParser.has("endDateTime");
+            case "reschedulemeeting":
+            case "updatemeeting":
+                return entityParser.has("subject");
+            default:
+                return false;
+        }
+    }
+
+    private boolean hasValidApiKey(DeploymentTarget target) {
+        boolean isAzureOpenAI = target.isAzure();
+        String openAiApiKey = target.getApiKey();
         // Validate API key format based on service type
         if (openAiApiKey == null || openAiApiKey.trim().isEmpty() ||
                 openAiApiKey.equals("sk-your-openai-api-key-here")) {
@@ -168,9 +1112,7 @@ public class OpenAIService {
             }
             log.error("Please update your application.yml with a valid OpenAI API key.");
             log.error("═══════════════════════════════════════════════════════════════");
-            return ExtractedEntities.builder()
-                    .intent("Unknown")
-                    .build();
+            return false;
         }
 
         // Validate standard OpenAI key format (only if not using Azure)
@@ -183,246 +1125,181 @@ public class OpenAIService {
             log.error("Current key format: {}",
                     openAiApiKey.length() > 10 ? openAiApiKey.substring(0, 10) + "..." : openAiApiKey);
             log.error("═══════════════════════════════════════════════════════════════");
-            return ExtractedEntities.builder()
-                    .intent("Unknown")
-                    .build();
+            return false;
         }
+        return true;
+    }
 
-        try {
-            // Build URL based on service type
-            String url;
-            if (isAzureOpenAI) {
-                // Azure OpenAI endpoint format
-                String baseUrl = openAiEndpoint.endsWith("/")
-                        ? openAiEndpoint.substring(0, openAiEndpoint.length() - 1)
-                        : openAiEndpoint;
-                String deployment = deploymentName != null && !deploymentName.trim().isEmpty()
-                        ? deploymentName
-                        : openAiModel; // Use model name as deployment if not specified
-                url = String.format("%s/openai/deployments/%s/chat/completions?api-version=%s",
-                        baseUrl, deployment, apiVersion);
-                log.info("Using Azure OpenAI endpoint: {}", url);
-            } else {
-                // Standard OpenAI endpoint
-                url = "https://api.openai.com/v1/chat/completions";
-                log.info("Using standard OpenAI endpoint: {}", url);
-            }
-
-            // Get current date/time for context
-            LocalDateTime now = LocalDateTime.now();
-            String dateContext = String.format("Current date: %s, Current time: %s",
-                    now.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
-                    now.format(DateTimeFormatter.ofPattern("HH:mm")));
-
-            Map<String, Object> requestBody = new HashMap<>();
-            // Azure OpenAI doesn't use "model" field, it's in the URL
-            if (!isAzureOpenAI) {
-                requestBody.put("model", openAiModel);
-            }
-            Map<String, String> responseFormat = new HashMap<>();
-            responseFormat.put("type", "json_object");
-            requestBody.put("response_format", responseFormat);
-            requestBody.put("temperature", 0.1);
-
-            List<Map<String, String>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", SYSTEM_PROMPT + "\n\n" + dateContext));
-            messages.add(Map.of("role", "user", "content", text));
-            requestBody.put("messages", messages);
-
-            String jsonBody = objectMapper.writeValueAsString(requestBody);
-            log.info("═══════════════════════════════════════════════════════════════");
-            log.info("📤 OpenAI API Request Details");
-            log.info("═══════════════════════════════════════════════════════════════");
-            log.info("URL: {}", url);
-            log.info("Service Type: {}", isAzureOpenAI ? "Azure OpenAI" : "Standard OpenAI");
-            if (isAzureOpenAI) {
-                log.info("Deployment: {}", deploymentName != null && !deploymentName.trim().isEmpty()
-                        ? deploymentName
-                        : openAiModel);
-                log.info("API Version: {}", apiVersion);
-                log.info("Header: api-key (length: {})", openAiApiKey != null ? openAiApiKey.length() : 0);
-            } else {
-                log.info("Model: {}", openAiModel);
-                log.info("Header: Authorization: Bearer (key length: {})",
-                        openAiApiKey != null ? openAiApiKey.length() : 0);
-            }
-            log.info("Request Body Size: {} bytes", jsonBody.length());
-            log.info("Request Body Preview: {}",
-                    jsonBody.length() > 500 ? jsonBody.substring(0, 500) + "..." : jsonBody);
-            log.info("═══════════════════════════════════════════════════════════════");
-
-            RequestBody body = RequestBody.create(jsonBody, JSON);
-            Request.Builder requestBuilder = new Request.Builder()
-                    .url(url)
-                    .post(body)
-                    .addHeader("Content-Type", "application/json");
-
-            // Azure OpenAI uses "api-key" header, standard OpenAI uses "Authorization:
-            // Bearer"
-            if (isAzureOpenAI) {
-                requestBuilder.addHeader("api-key", openAiApiKey);
-            } else {
-                requestBuilder.addHeader("Authorization", "Bearer " + openAiApiKey);
-            }
+    /**
+     * User message for a batched extraction: the utterances as one indexed
+     * JSON array.
+     */
+    private String batchUserContent(List<String> texts) throws IOException {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            items.add(Map.of("index", i, "text", texts.get(i)));
+        }
+        return objectMapper.writeValueAsString(items);
+    }
 
-            Request request = requestBuilder.build();
+    /**
+     * Pre-serialized request template for the target. The static system prompt
+     * is first and byte-identical across requests so the provider can serve
+     * it from its prompt cache; the date goes in its own message.
+     */
+    private ChatRequestTemplate template(DeploymentTarget target, String staticPrompt) {
+        // Azure OpenAI doesn't use "model" field, it's in the URL
+        String model = target.isAzure() ? null : openAiModel;
+        return templates.computeIfAbsent(model + "|" + staticPrompt,
+                key -> new ChatRequestTemplate(model, staticPrompt));
+    }
 
-            log.info("Sending OpenAI API request...");
-            long startTime = System.currentTimeMillis();
+    private Request buildChatRequest(DeploymentTarget target, List<String> systemMessages, String userContent,
+            boolean stream) {
+        return buildChatRequest(target, ExtractionPrompts.systemPrompt(effectivePromptVariant()), systemMessages,
+                userContent, stream);
+    }
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                long duration = System.currentTimeMillis() - startTime;
-                log.info("OpenAI API response received in {} ms - Status: {} {}",
-                        duration, response.code(), response.message());
+    /**
+     * The configured prompt variant, or the compact one while the extraction
+     * stage is degraded.
+     */
+    private String effectivePromptVariant() {
+        return degradeController.isDegraded() ? ExtractionPrompts.VARIANT_COMPACT : promptVariant;
+    }
 
-                if (!response.isSuccessful()) {
-                    log.error("═══════════════════════════════════════════════════════════════");
-                    log.error("❌ OpenAI API Call Failed");
-                    log.error("═══════════════════════════════════════════════════════════════");
-                    log.error("Status Code: {} {}", response.code(), response.message());
-                    log.error("Request URL: {}", url);
-                    log.error("Service Type: {}", isAzureOpenAI ? "Azure OpenAI" : "Standard OpenAI");
-
-                    String errorBody = response.body() != null ? response.body().string() : "No error body";
-                    log.error("Error Response Body: {}", errorBody);
-
-                    // Parse error details if available
-                    try {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> errorJson = objectMapper.readValue(errorBody, Map.class);
-                        if (errorJson.containsKey("error")) {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> error = (Map<String, Object>) errorJson.get("error");
-                            log.error("Error Code: {}", error.get("code"));
-                            log.error("Error Message: {}", error.get("message"));
-                        }
-                    } catch (Exception e) {
-                        // Ignore parsing errors
-                    }
+    private Request buildChatRequest(DeploymentTarget target, String staticPrompt, List<String> systemMessages,
+            String userContent, boolean stream) {
+        String url = target.getUrl();
+        boolean isAzureOpenAI = target.isAzure();
+        byte[] jsonBody = template(target, staticPrompt).render(systemMessages, userContent, stream);
+        log.info("═══════════════════════════════════════════════════════════════");
+        log.info("📤 OpenAI API Request Details");
+        log.info("═══════════════════════════════════════════════════════════════");
+        log.info("URL: {}", url);
+        log.info("Service Type: {}", isAzureOpenAI ? "Azure OpenAI" : "Standard OpenAI");
+        if (isAzureOpenAI) {
+            log.info("Deployment: {}", target.getName());
+            log.info("Header: api-key (length: {})", target.getApiKey() != null ? target.getApiKey().length() : 0);
+        } else {
+            log.info("Model: {}", openAiModel);
+            log.info("Header: Authorization: Bearer (key length: {})",
+                    target.getApiKey() != null ? target.getApiKey().length() : 0);
+        }
+        log.info("Request Body Size: {} bytes", jsonBody.length);
+        log.info("Request Body Preview: {}",
+                jsonBody.length > 500
+                        ? new String(jsonBody, 0, 500, StandardCharsets.UTF_8) + "..."
+                        : new String(jsonBody, StandardCharsets.UTF_8));
+        log.info("═══════════════════════════════════════════════════════════════");
 
-                    if (response.code() == 401) {
-                        log.error("═══════════════════════════════════════════════════════════════");
-                        log.error("❌ OPENAI API AUTHENTICATION FAILED (401)");
-                        log.error("═══════════════════════════════════════════════════════════════");
-                        log.error("Your OpenAI API key is invalid or expired.");
-                        log.error("Please check your application.yml openai.api-key configuration.");
-                        log.error("Get your API key from: https://platform.openai.com/api-keys");
-                        log.error("═══════════════════════════════════════════════════════════════");
-                    } else if (response.code() == 404) {
-                        log.error("═══════════════════════════════════════════════════════════════");
-                        log.error("❌ RESOURCE NOT FOUND (404)");
-                        log.error("═══════════════════════════════════════════════════════════════");
-                        if (isAzureOpenAI) {
-                            log.error("The Azure OpenAI deployment or endpoint was not found.");
-                            log.error("Please verify:");
-                            log.error("1. Endpoint: {}", openAiEndpoint);
-                            log.error("2. Deployment Name: {}",
-                                    deploymentName != null && !deploymentName.trim().isEmpty()
-                                            ? deploymentName
-                                            : openAiModel);
-                            log.error("3. API Version: {}", apiVersion);
-                            log.error("4. Check Azure Portal → Your OpenAI Resource → Deployments");
-                            log.error("   - Verify the deployment name matches exactly (case-sensitive)");
-                            log.error("   - Verify the deployment is active and not deleted");
-                            log.error("5. Common API versions: 2024-02-15-preview, 2024-06-01, 2024-08-01-preview");
-                            log.error("   Current API version: {}", apiVersion);
-                            log.error("6. Verify the endpoint URL is correct (should end with .azure.com)");
-                        } else {
-                            log.error("The OpenAI endpoint was not found.");
-                            log.error("Verify the endpoint URL is correct.");
-                        }
-                        log.error("═══════════════════════════════════════════════════════════════");
-                    } else if (response.code() == 403) {
-                        log.error("═══════════════════════════════════════════════════════════════");
-                        log.error("❌ FORBIDDEN (403)");
-                        log.error("═══════════════════════════════════════════════════════════════");
-                        log.error("Access denied. Possible causes:");
-                        log.error("1. API key doesn't have permission for this resource");
-                        log.error("2. Resource is in a different subscription");
-                        log.error("3. Network restrictions or firewall blocking access");
-                        log.error("═══════════════════════════════════════════════════════════════");
-                    }
+        RequestBody body = RequestBody.create(jsonBody, JSON);
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(url)
+                .post(body)
+                .addHeader("Content-Type", "application/json");
 
-                    return ExtractedEntities.builder()
-                            .intent("Unknown")
-                            .build();
-                }
+        // Azure OpenAI uses "api-key" header, standard OpenAI uses "Authorization:
+        // Bearer"
+        if (isAzureOpenAI) {
+            requestBuilder.addHeader("api-key", target.getApiKey());
+        } else {
+            requestBuilder.addHeader("Authorization", "Bearer " + target.getApiKey());
+        }
 
-                String responseBody = response.body().string();
-                log.debug("OpenAI API response body: {}", responseBody);
+        return requestBuilder.build();
+    }
 
-                // Parse OpenAI response
-                @SuppressWarnings("unchecked")
-                Map<String, Object> openAiResponse = objectMapper.readValue(responseBody, Map.class);
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> choices = (List<Map<String, Object>>) openAiResponse.get("choices");
-                if (choices == null || choices.isEmpty()) {
-                    log.error("No choices in OpenAI response");
-                    return ExtractedEntities.builder().intent("Unknown").build();
-                }
+    private void logFailedResponse(Response response, DeploymentTarget target) throws IOException {
+        boolean isAzureOpenAI = target.isAzure();
+        log.error("═══════════════════════════════════════════════════════════════");
+        log.error("❌ OpenAI API Call Failed");
+        log.error("═══════════════════════════════════════════════════════════════");
+        log.error("Status Code: {} {}", response.code(), response.message());
+        log.error("Deployment: {}", target.getName());
+        log.error("Request URL: {}", target.getUrl());
+        log.error("Service Type: {}", isAzureOpenAI ? "Azure OpenAI" : "Standard OpenAI");
 
-                @SuppressWarnings("unchecked")
-                Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
-                String content = (String) message.get("content");
-                log.info("OpenAI extracted content: {}", content);
+        String errorBody = response.body() != null ? response.body().string() : "No error body";
+        log.error("Error Response Body: {}", errorBody);
 
-                // Parse the JSON content
+        // Parse error details if available
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> errorJson = objectMapper.readValue(errorBody, Map.class);
+            if (errorJson.containsKey("error")) {
                 @SuppressWarnings("unchecked")
-                Map<String, Object> extractedData = (Map<String, Object>) objectMapper.readValue(content, Map.class);
-
-                // Log the raw extracted data for debugging
-                log.debug("Raw extracted data from OpenAI: {}", extractedData);
-
-                ExtractedEntities result = parseOpenAIResponse(extractedData);
-
-                log.info("=== OpenAI Service: Extraction complete ===");
-                log.info(
-                        "Final extracted entities: intent={}, startDateTime={}, endDateTime={}, attendees={}, subject={}, location={}",
-                        result.getIntent(), result.getStartDateTime(), result.getEndDateTime(),
-                        result.getAttendees(), result.getSubject(), result.getLocation());
-                return result;
+                Map<String, Object> error = (Map<String, Object>) errorJson.get("error");
+                log.error("Error Code: {}", error.get("code"));
+                log.error("Error Message: {}", error.get("message"));
             }
-        } catch (IOException e) {
-            log.error("IOException calling OpenAI API", e);
-            return ExtractedEntities.builder()
-                    .intent("Unknown")
-                    .build();
         } catch (Exception e) {
-            log.error("Unexpected error in OpenAI service", e);
-            return ExtractedEntities.builder()
-                    .intent("Unknown")
-                    .build();
+            // Ignore parsing errors
+        }
+
+        if (response.code() == 401) {
+            log.error("═══════════════════════════════════════════════════════════════");
+            log.error("❌ OPENAI API AUTHENTICATION FAILED (401)");
+            log.error("═══════════════════════════════════════════════════════════════");
+            log.error("Your OpenAI API key is invalid or expired.");
+            log.error("Please check your application.yml openai.api-key configuration.");
+            log.error("Get your API key from: https://platform.openai.com/api-keys");
+            log.error("═══════════════════════════════════════════════════════════════");
+        } else if (response.code() == 404) {
+            log.error("═══════════════════════════════════════════════════════════════");
+            log.error("❌ RESOURCE NOT FOUND (404)");
+            log.error("═══════════════════════════════════════════════════════════════");
+            if (isAzureOpenAI) {
+                log.error("The Azure OpenAI deployment or endpoint was not found.");
+                log.error("Please verify:");
+                log.error("1-3. Endpoint, deployment name and API version in: {}", target.getUrl());
+                log.error("4. Check Azure Portal → Your OpenAI Resource → Deployments");
+                log.error("   - Verify the deployment name matches exactly (case-sensitive)");
+                log.error("   - Verify the deployment is active and not deleted");
+                log.error("5. Common API versions: 2024-02-15-preview, 2024-06-01, 2024-08-01-preview");
+                log.error("6. Verify the endpoint URL is correct (should end with .azure.com)");
+            } else {
+                log.error("The OpenAI endpoint was not found.");
+                log.error("Verify the endpoint URL is correct.");
+            }
+            log.error("═══════════════════════════════════════════════════════════════");
+        } else if (response.code() == 403) {
+            log.error("═══════════════════════════════════════════════════════════════");
+            log.error("❌ FORBIDDEN (403)");
+            log.error("═══════════════════════════════════════════════════════════════");
+            log.error("Access denied. Possible causes:");
+            log.error("1. API key doesn't have permission for this resource");
+            log.error("2. Resource is in a different subscription");
+            log.error("3. Network restrictions or firewall blocking access");
+            log.error("═══════════════════════════════════════════════════════════════");
         }
     }
 
     private ExtractedEntities parseOpenAIResponse(Map<String, Object> data) {
+        return toEntities(CompletionReader.fromMap(data));
+    }
+
+    private ExtractedEntities toEntities(CompletionReader.RawEntities data) {
         log.info("=== Parsing OpenAI Response ===");
         ExtractedEntities.ExtractedEntitiesBuilder builder = ExtractedEntities.builder();
 
         // Intent
-        String intent = (String) data.get("intent");
+        String intent = data.intent();
         log.info("Extracted intent: {}", intent);
         builder.intent(intent != null ? intent : "Unknown");
 
         // Attendees
-        Object attendeesObj = data.get("attendees");
-        if (attendeesObj instanceof List) {
-            List<String> attendees = new ArrayList<>();
-            for (Object item : (List<?>) attendeesObj) {
-                if (item != null) {
-                    attendees.add(item.toString());
-                }
-            }
+        if (data.attendees() != null) {
+            List<String> attendees = data.attendees();
             log.info("Extracted attendees: {}", attendees);
             builder.attendees(attendees);
         }
 
         // Start DateTime
-        String startDateTimeStr = (String) data.get("startDateTime");
+        String startDateTimeStr = data.startDateTime();
         if (startDateTimeStr != null && !startDateTimeStr.isEmpty()) {
             try {
-                LocalDateTime startDateTime = LocalDateTime.parse(startDateTimeStr,
-                        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"));
+                LocalDateTime startDateTime = LocalDateTime.parse(startDateTimeStr, DATE_TIME_FORMAT);
                 log.info("Parsed startDateTime: {}", startDateTime);
                 builder.startDateTime(startDateTime);
             } catch (Exception e) {
@@ -431,11 +1308,10 @@ public class OpenAIService {
         }
 
         // End DateTime
-        String endDateTimeStr = (String) data.get("endDateTime");
+        String endDateTimeStr = data.endDateTime();
         if (endDateTimeStr != null && !endDateTimeStr.isEmpty()) {
             try {
-                LocalDateTime endDateTime = LocalDateTime.parse(endDateTimeStr,
-                        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"));
+                LocalDateTime endDateTime = LocalDateTime.parse(endDateTimeStr, DATE_TIME_FORMAT);
                 log.info("Parsed endDateTime: {}", endDateTime);
                 builder.endDateTime(endDateTime);
             } catch (Exception e) {
@@ -444,9 +1320,8 @@ public class OpenAIService {
         }
 
         // Subject - provide default if null or empty
-        Object subjectObj = data.get("subject");
-        String subject = (subjectObj != null && !subjectObj.toString().equalsIgnoreCase("null"))
-                ? subjectObj.toString().trim()
+        String subject = (data.subject() != null && !data.subject().equalsIgnoreCase("null"))
+                ? data.subject().trim()
                 : null;
         if (subject == null || subject.isEmpty()) {
             subject = "Meeting"; // Default subject
@@ -457,9 +1332,8 @@ public class OpenAIService {
         builder.subject(subject);
 
         // Location - handle null, empty string, and "null" string
-        Object locationObj = data.get("location");
-        if (locationObj != null && !locationObj.toString().equalsIgnoreCase("null")) {
-            String location = locationObj.toString().trim();
+        if (data.location() != null && !data.location().equalsIgnoreCase("null")) {
+            String location = data.location().trim();
             if (!location.isEmpty()) {
                 log.info("Extracted location: {}", location);
                 builder.location(location);
@@ -467,9 +1341,8 @@ public class OpenAIService {
         }
 
         // Recurrence Pattern - handle null, empty string, and "null" string
-        Object recurrencePatternObj = data.get("recurrencePattern");
-        if (recurrencePatternObj != null && !recurrencePatternObj.toString().equalsIgnoreCase("null")) {
-            String recurrencePattern = recurrencePatternObj.toString().trim();
+        if (data.recurrencePattern() != null && !data.recurrencePattern().equalsIgnoreCase("null")) {
+            String recurrencePattern = data.recurrencePattern().trim();
             if (!recurrencePattern.isEmpty()) {
                 log.info("Extracted recurrencePattern: {}", recurrencePattern);
                 builder.recurrencePattern(recurrencePattern);
@@ -477,18 +1350,10 @@ public class OpenAIService {
         }
 
         // Exceptions
-        Object exceptionsObj = data.get("exceptions");
-        if (exceptionsObj instanceof List) {
-            List<String> exceptions = new ArrayList<>();
-            for (Object item : (List<?>) exceptionsObj) {
-                if (item != null) {
-                    exceptions.add(item.toString());
-                }
-            }
-            if (!exceptions.isEmpty()) {
-                log.info("Extracted exceptions: {}", exceptions);
-                builder.exceptions(exceptions);
-            }
+        if (data.exceptions() != null && !data.exceptions().isEmpty()) {
+            List<String> exceptions = data.exceptions();
+            log.info("Extracted exceptions: {}", exceptions);
+            builder.exceptions(exceptions);
         }
 
         ExtractedEntities result = builder.build();
@@ -0,0 +1,209 @@
+package com.bestbuy.schedulehub.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the extracted recurrence pattern and exception rules ("daily",
+ * ["monday"]) into the narrowest Graph recurrence that already leaves the
+ * exceptions out ("weekly on Tuesday-Friday"), so the series is created with
+ * a single POST.
+ *
+ * Rules the pattern cannot express ("second tuesday" of a weekly series) are
+ * returned as residual rules; only for those does the caller still delete
+ * instances after the series is created. Exceptions that cannot match any
+ * instance are dropped, and ones that are not day rules at all are returned
+ * as unrecognized.
+ */
+final class RecurrenceCompiler {
+
+    enum Frequency {
+        DAILY, WEEKLY, ABSOLUTE_MONTHLY, RELATIVE_MONTHLY
+    }
+
+    /**
+     * Week of the month, named as Graph's WeekIndex.
+     */
+    enum WeekIndex {
+        FIRST, SECOND, THIRD, FOURTH, LAST
+    }
+
+    private static final Set<DayOfWeek> WEEKDAYS = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+    private static final Set<DayOfWeek> WEEKEND = EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY);
+
+    private static final Pattern DAY = Pattern.compile(
+            "\\b(monday|tuesday|wednesday|thursday|friday|saturday|sunday|weekday|weekend)s?\\b");
+    private static final Pattern ORDINAL_DAY = Pattern.compile(
+            "\\b(first|1st|second|2nd|third|3rd|fourth|4th|last)\\s+"
+                    + "(monday|tuesday|wednesday|thursday|friday|saturday|sunday)s?\\b");
+    private static final Pattern EVERY_N = Pattern.compile(
+            "\\bevery\\s+(\\d+|two|three|four|other)\\s+(day|week|month)s?\\b");
+    private static final Pattern DAILY = Pattern.compile("\\bdaily\\b|\\bevery\\s+(?:\\w+\\s+)?days?\\b");
+    private static final Pattern DAY_OF_MONTH = Pattern.compile("\\b([1-9]|[12]\\d|3[01])(?:st|nd|rd|th)\\b");
+
+    private RecurrenceCompiler() {
+    }
+
+    /**
+     * An exception rule: every instance on one of days, or with index only the
+     * instances in that week of the month.
+     */
+    record DayRule(WeekIndex index, Set<DayOfWeek> days, String text) {
+
+        boolean matches(LocalDate date) {
+            if (!days.contains(date.getDayOfWeek())) {
+                return false;
+            }
+            if (index == null) {
+                return true;
+            }
+            if (index == WeekIndex.LAST) {
+                return date.plusWeeks(1).getMonthValue() != date.getMonthValue();
+            }
+            return (date.getDayOfMonth() - 1) / 7 == index.ordinal();
+        }
+    }
+
+    /**
+     * The Graph pattern to create and the rules it could not absorb.
+     * daysOfWeek is set for WEEKLY and RELATIVE_MONTHLY, index for
+     * RELATIVE_MONTHLY and dayOfMonth for ABSOLUTE_MONTHLY.
+     */
+    record Compiled(
+            Frequency frequency,
+            int interval,
+            Set<DayOfWeek> daysOfWeek,
+            WeekIndex index,
+            int dayOfMonth,
+            List<DayRule> residual,
+            List<String> unrecognized) {
+    }
+
+    static Compiled compile(String recurrencePattern, List<String> exceptions, LocalDate start) {
+        String text = recurrencePattern == null ? "" : recurrencePattern.toLowerCase(Locale.ROOT);
+        int interval = interval(text);
+        Set<DayOfWeek> days = days(text);
+        DayRule ordinal = ordinal(text);
+
+        Frequency frequency;
+        WeekIndex index = null;
+        int dayOfMonth = 0;
+        if (ordinal != null && !text.contains("week") && !text.contains("daily")) {
+            // "first monday of the month"
+            frequency = Frequency.RELATIVE_MONTHLY;
+            index = ordinal.index();
+            days = EnumSet.copyOf(ordinal.days());
+        } else if (DAILY.matcher(text).find() && days.isEmpty()) {
+            frequency = Frequency.DAILY;
+        } else if (text.contains("month") && days.isEmpty()) {
+            frequency = Frequency.ABSOLUTE_MONTHLY;
+            Matcher m = DAY_OF_MONTH.matcher(text);
+            dayOfMonth = m.find() ? Integer.parseInt(m.group(1)) : start.getDayOfMonth();
+        } else {
+            // Weekly, also the default for anything unrecognized
+            frequency = Frequency.WEEKLY;
+            if (days.isEmpty()) {
+                days.add(start.getDayOfWeek());
+            }
+        }
+
+        List<DayRule> residual = new ArrayList<>();
+        List<String> unrecognized = new ArrayList<>();
+        if (exceptions != null) {
+            for (String exception : exceptions) {
+                DayRule rule = parseRule(exception);
+                if (rule == null) {
+                    unrecognized.add(exception);
+                    continue;
+                }
+                if (frequency == Frequency.DAILY && interval == 1 && rule.index() == null
+                        && !rule.days().containsAll(EnumSet.allOf(DayOfWeek.class))) {
+                    // Daily except some days is weekly on the others
+                    frequency = Frequency.WEEKLY;
+                    days = EnumSet.complementOf(EnumSet.copyOf(rule.days()));
+                } else if (frequency == Frequency.DAILY || frequency == Frequency.ABSOLUTE_MONTHLY) {
+                    residual.add(rule);
+                } else if (Collections.disjoint(days, rule.days())) {
+                    // Can never match an instance
+                } else if (frequency == Frequency.WEEKLY && rule.index() == null && !rule.days().containsAll(days)) {
+                    days.removeAll(rule.days());
+                } else if (frequency == Frequency.RELATIVE_MONTHLY && rule.index() != null && days.size() == 1
+                        && rule.index() != index) {
+                    // A different week of the month - can never match an instance
+                } else {
+                    residual.add(rule);
+                }
+            }
+        }
+        return new Compiled(frequency, interval, days, index, dayOfMonth, residual, unrecognized);
+    }
+
+    /**
+     * Parses one exception rule ("monday", "weekends", "second tuesday"), or
+     * returns null if it is not a day rule.
+     */
+    static DayRule parseRule(String exception) {
+        if (exception == null) {
+            return null;
+        }
+        String text = exception.toLowerCase(Locale.ROOT).trim();
+        DayRule ordinal = ordinal(text);
+        if (ordinal != null) {
+            return new DayRule(ordinal.index(), ordinal.days(), exception);
+        }
+        Set<DayOfWeek> days = days(text);
+        return days.isEmpty() ? null : new DayRule(null, days, exception);
+    }
+
+    private static int interval(String text) {
+        if (text.contains("biweekly") || text.contains("fortnight")) {
+            return 2;
+        }
+        Matcher m = EVERY_N.matcher(text);
+        if (!m.find()) {
+            return 1;
+        }
+        return switch (m.group(1)) {
+            case "other", "two" -> 2;
+            case "three" -> 3;
+            case "four" -> 4;
+            default -> Math.max(1, Integer.parseInt(m.group(1)));
+        };
+    }
+
+    private static Set<DayOfWeek> days(String text) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        Matcher m = DAY.matcher(text);
+        while (m.find()) {
+            switch (m.group(1)) {
+                case "weekday" -> days.addAll(WEEKDAYS);
+                case "weekend" -> days.addAll(WEEKEND);
+                default -> days.add(DayOfWeek.valueOf(m.group(1).toUpperCase(Locale.ROOT)));
+            }
+        }
+        return days;
+    }
+
+    private static DayRule ordinal(String text) {
+        Matcher m = ORDINAL_DAY.matcher(text);
+        if (!m.find()) {
+            return null;
+        }
+        WeekIndex index = switch (m.group(1)) {
+            case "first", "1st" -> WeekIndex.FIRST;
+            case "second", "2nd" -> WeekIndex.SECOND;
+            case "third", "3rd" -> WeekIndex.THIRD;
+            case "fourth", "4th" -> WeekIndex.FOURTH;
+            default -> WeekIndex.LAST;
+        };
+        return new DayRule(index, EnumSet.of(DayOfWeek.valueOf(m.group(2).toUpperCase(Locale.ROOT))), text);
+    }
+}
@@ -0,0 +1,272 @@
+package com.bestbuy.schedulehub.service;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * TokenCredential that keeps Graph access tokens fresh in the background.
+ *
+ * TokenCredentialAuthProvider asks for a token on every Graph request, and
+ * the wrapped credential only goes to AAD once its cached token is (nearly)
+ * expired - on a user's request, which shows as periodic p99 spikes. Here
+ * tokens are cached per scope set and refreshed on a scheduler refresh-before
+ * their expiry (at half the remaining lifetime for short-lived tokens), so
+ * requests only read the cache.
+ *
+ * A failed refresh keeps the last good token, which stays valid until it
+ * expires, and is retried with backoff; an AAD outage shorter than
+ * refresh-before goes unnoticed. Only the first request for a scope set, or
+ * one after its token expired, waits for AAD, and concurrent ones share that
+ * fetch. Requests with claims (CAE challenges) always go to the wrapped
+ * credential. Scope sets unused for idle-timeout are no longer refreshed.
+ */
+@Slf4j
+public class RefreshingTokenCredential implements TokenCredential {
+
+    // Tokens this close to expiry are not handed out
+    private static final Duration EXPIRY_MARGIN = Duration.ofSeconds(30);
+
+    // Keeps a token returned close to its expiry from refreshing in a loop
+    private static final Duration MIN_REFRESH_DELAY = Duration.ofSeconds(1);
+
+    private final TokenCredential delegate;
+    private final TaskScheduler scheduler;
+    private final MeterRegistry meterRegistry;
+    private final Duration refreshBefore;
+    private final Duration retryInterval;
+    private final Duration maxRetryInterval;
+    private final Duration timeout;
+    private final Duration idleTimeout;
+
+    Supplier<OffsetDateTime> clock = OffsetDateTime::now;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public RefreshingTokenCredential(TokenCredential delegate, TaskScheduler scheduler, MeterRegistry meterRegistry,
+            Duration refreshBefore, Duration retryInterval, Duration maxRetryInterval, Duration timeout,
+            Duration idleTimeout) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+        this.meterRegistry = meterRegistry;
+        this.refreshBefore = refreshBefore;
+        this.retryInterval = retryInterval;
+        this.maxRetryInterval = maxRetryInterval;
+        this.timeout = timeout;
+        this.idleTimeout = idleTimeout;
+
+        Gauge.builder("schedulehub.graph.token.age", this, RefreshingTokenCredential::oldestTokenAgeSeconds)
+                .description("Seconds since the oldest cached Graph token was acquired")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("schedulehub.graph.token.remaining", this, RefreshingTokenCredential::shortestRemainingSeconds)
+                .description("Seconds until the first cached Graph token expires")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<AccessToken> getToken(TokenRequestContext request) {
+        if (request.getClaims() != null) {
+            return delegate.getToken(request);
+        }
+        Entry entry = entry(request);
+        entry.lastUsed = clock.get();
+        AccessToken token = entry.token;
+        if (usable(token)) {
+            return Mono.just(token);
+        }
+        return Mono.defer(() -> Mono.fromFuture(fetch(entry, false)))
+                .onErrorResume(error -> {
+                    AccessToken last = entry.token;
+                    if (last != null && last.getExpiresAt().isAfter(clock.get())) {
+                        log.warn("Graph token fetch for {} failed, using the current token until {}: {}",
+                                entry.key, last.getExpiresAt(), error.getMessage());
+                        return Mono.just(last);
+                    }
+                    return Mono.error(error);
+                });
+    }
+
+    @Override
+    public AccessToken getTokenSync(TokenRequestContext request) {
+        return getToken(request).block();
+    }
+
+    /**
+     * Starts fetching the token for the scopes in the background, so the
+     * first Graph request finds it cached.
+     */
+    public void prefetch(List<String> scopes) {
+        Entry entry = entry(new TokenRequestContext().setScopes(new ArrayList<>(scopes)));
+        entry.lastUsed = clock.get();
+        fetch(entry, true);
+    }
+
+    Entry entry(TokenRequestContext request) {
+        List<String> scopes = new ArrayList<>(request.getScopes());
+        scopes.sort(null);
+        String key = (request.getTenantId() != null ? request.getTenantId() + ":" : "") + String.join(" ", scopes);
+        return entries.computeIfAbsent(key, k -> new Entry(k, new TokenRequestContext()
+                .setScopes(new ArrayList<>(request.getScopes()))
+                .setTenantId(request.getTenantId()), clock.get()));
+    }
+
+    /**
+     * The scheduled refresh of an entry, unless it has been idle too long.
+     */
+    void refresh(Entry entry) {
+        if (Duration.between(entry.lastUsed, clock.get()).compareTo(idleTimeout) > 0) {
+            entries.remove(entry.key, entry);
+            log.info("Graph token for {} unused for {}, no longer refreshed", entry.key, idleTimeout);
+            return;
+        }
+        fetch(entry, true);
+    }
+
+    private CompletableFuture<AccessToken> fetch(Entry entry, boolean background) {
+        synchronized (entry) {
+            if (entry.inFlight != null) {
+                return entry.inFlight;
+            }
+            long started = System.nanoTime();
+            CompletableFuture<AccessToken> future = delegate.getToken(entry.request)
+                    .timeout(timeout)
+                    .toFuture();
+            entry.inFlight = future;
+            future.whenComplete((token, error) -> completed(entry, token, error, started, background));
+            return future;
+        }
+    }
+
+    private void completed(Entry entry, AccessToken token, Throwable error, long started, boolean background) {
+        long elapsed = System.nanoTime() - started;
+        boolean ok = error == null && token != null;
+        Timer.builder("schedulehub.graph.token.refresh")
+                .description("AAD token requests: background (ahead of expiry) or blocking (a request waited)")
+                .tag("mode", background ? "background" : "blocking")
+                .tag("outcome", ok ? "success" : "failure")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        int failures;
+        synchronized (entry) {
+            entry.inFlight = null;
+            if (ok) {
+                entry.token = token;
+                entry.acquiredAt = clock.get();
+                entry.failures = 0;
+            } else {
+                entry.failures++;
+            }
+            failures = entry.failures;
+        }
+
+        if (ok) {
+            OffsetDateTime next = nextRefresh(token);
+            log.info("Graph token for {} acquired in {} ms ({}), expires {}, next refresh {}", entry.key,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), background ? "background" : "blocking",
+                    token.getExpiresAt(), next);
+            schedule(entry, next);
+            return;
+        }
+        String reason = error != null ? error.getMessage() : "no token returned";
+        AccessToken last = entry.token;
+        if (usable(last)) {
+            long backoff = Math.min(retryInterval.toMillis() << Math.min(failures - 1, 20), maxRetryInterval.toMillis());
+            OffsetDateTime retryAt = clock.get().plus(Duration.ofMillis(backoff));
+            OffsetDateTime latest = last.getExpiresAt().minus(EXPIRY_MARGIN);
+            log.warn("Graph token refresh for {} failed ({} in a row), keeping the current token until {}, "
+                    + "retrying at {}: {}", entry.key, failures, last.getExpiresAt(), retryAt, reason);
+            schedule(entry, retryAt.isBefore(latest) ? retryAt : latest);
+        } else {
+            log.error("Graph token fetch for {} failed and no valid token is cached: {}", entry.key, reason);
+        }
+    }
+
+    /**
+     * refresh-before the expiry, or half way there when that is later.
+     */
+    private OffsetDateTime nextRefresh(AccessToken token) {
+        OffsetDateTime now = clock.get();
+        Duration remaining = Duration.between(now, token.getExpiresAt());
+        Duration wait = remaining.minus(refreshBefore);
+        Duration half = remaining.dividedBy(2);
+        return now.plus(wait.compareTo(half) < 0 ? half : wait);
+    }
+
+    private void schedule(Entry entry, OffsetDateTime at) {
+        // As a delay, so the scheduler's own clock decides when it runs
+        Duration delay = Duration.between(clock.get(), at);
+        if (delay.compareTo(MIN_REFRESH_DELAY) < 0) {
+            delay = MIN_REFRESH_DELAY;
+        }
+        Instant runAt = Instant.now().plus(delay);
+        synchronized (entry) {
+            if (entry.scheduled != null) {
+                entry.scheduled.cancel(false);
+            }
+            entry.scheduled = scheduler.schedule(() -> refresh(entry), runAt);
+        }
+    }
+
+    private boolean usable(AccessToken token) {
+        return token != null && token.getExpiresAt().minus(EXPIRY_MARGIN).isAfter(clock.get());
+    }
+
+    private double oldestTokenAgeSeconds() {
+        OffsetDateTime now = clock.get();
+        return entries.values().stream()
+                .filter(entry -> entry.acquiredAt != null)
+                .mapToDouble(entry -> Duration.between(entry.acquiredAt, now).toMillis() / 1000.0)
+                .max()
+                .orElse(Double.NaN);
+    }
+
+    private double shortestRemainingSeconds() {
+        OffsetDateTime now = clock.get();
+        return entries.values().stream()
+                .filter(entry -> entry.token != null)
+                .mapToDouble(entry -> Duration.between(now, entry.token.getExpiresAt()).toMillis() / 1000.0)
+                .min()
+                .orElse(Double.NaN);
+    }
+
+    /**
+     * Cached token and refresh state of one scope set.
+     */
+    static final class Entry {
+
+        final String key;
+        final TokenRequestContext request;
+        volatile AccessToken token;
+        volatile OffsetDateTime acquiredAt;
+        volatile OffsetDateTime lastUsed;
+        int failures;
+        CompletableFuture<AccessToken> inFlight;
+        ScheduledFuture<?> scheduled;
+
+        Entry(String key, TokenRequestContext request, OffsetDateTime now) {
+            this.key = key;
+            this.request = request;
+            this.lastUsed = now;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic fast path for simple, unambiguous scheduling utterances.
+ *
+ * Runs before OpenAI and handles the common shapes:
+ * - "cancel <subject> [today|tomorrow|on <weekday>]"
+ * - "book <subject> with <names> at <time> [today|tomorrow|on <weekday>]"
+ * - "move <subject> to <time> [today|tomorrow|on <weekday>]"
+ *
+ * Each match is scored; anything below the configured confidence (ambiguous
+ * times such as "at 9", recurrence, extra clauses) is left to the LLM.
+ */
+@Slf4j
+@Component
+public class RuleBasedIntentParser {
+
+    private static final String DAY = "today|tomorrow|(?:on )?(?:monday|tuesday|wednesday|thursday|friday|saturday|sunday)";
+    private static final String TIME = "\\d{1,2}(?::\\d{2})?\\s*(?:am|pm)?";
+
+    private static final Pattern CANCEL = Pattern.compile(
+            "^(?:cancel|delete|remove) (?:my |the )?(?<subject>.+?)(?: (?<day>" + DAY + "))?$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern BOOK = Pattern.compile(
+            "^(?:book|schedule|set up) (?:a |an )?(?<subject>.+?) with (?<names>.+?)"
+                    + "(?: (?<day1>" + DAY + "))? at (?<time>" + TIME + ")(?: (?<day2>" + DAY + "))?$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern MOVE = Pattern.compile(
+            "^(?:move|reschedule) (?:my |the )?(?<subject>.+?) to (?<time>" + TIME + ")(?: (?<day>" + DAY + "))?$",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern TIME_PARTS = Pattern.compile("(\\d{1,2})(?::(\\d{2}))?\\s*(am|pm)?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern NAME_SEPARATOR = Pattern.compile("\\s*(?:,|\\band\\b|&)\\s*",
+            Pattern.CASE_INSENSITIVE);
+    // Anything the grammar does not model - recurrence, ranges, explicit dates
+    private static final Pattern UNSUPPORTED = Pattern.compile(
+            "\\b(?:every|daily|weekly|monthly|weekday|weekdays|except|skip|recurring|each|from|until|between|next|this|"
+                    + "jan|feb|mar|apr|may|jun|jul|aug|sep|sept|oct|nov|dec)\\b|\\d{1,4}[/-]\\d{1,2}",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SUBJECT_NOISE = Pattern.compile(
+            "\\d|\\b(?:at|on|to|with|today|tomorrow|am|pm)\\b", Pattern.CASE_INSENSITIVE);
+    // Pronouns and deictic references name whatever the conversation is about, not an event subject
+    private static final Pattern REFERENCE_SUBJECT = Pattern.compile(
+            "it|them|this|that|these|those|one|all|everything|all of them"
+                    + "|(?:(?:this|that|these|those|all|all my|all the) )?(?:one|meetings?|events?)",
+            Pattern.CASE_INSENSITIVE);
+
+    @Value("${schedule.fast-path.enabled:true}")
+    private boolean enabled;
+
+    @Value("${schedule.fast-path.min-confidence:0.9}")
+    private double minConfidence;
+
+    /**
+     * Parses the utterance if it matches one of the supported shapes with
+     * sufficient confidence.
+     *
+     * @param text The user's natural language scheduling request
+     * @param now  Reference time for relative dates
+     * @return Extracted entities, or empty if the request should go to the LLM
+     */
+    public Optional<ExtractedEntities> parse(String text, LocalDateTime now) {
+        return parse(text, now, minConfidence);
+    }
+
+    /**
+     * Same as {@link #parse(String, LocalDateTime)} with a caller-supplied
+     * confidence threshold, e.g. a relaxed one for users over their token
+     * quota.
+     */
+    public Optional<ExtractedEntities> parse(String text, LocalDateTime now, double threshold) {
+        if (!enabled || text == null) {
+            return Optional.empty();
+        }
+        String normalized = text.trim().replaceAll("\\s+", " ").replaceAll("[.!?]+$", "");
+        if (normalized.isEmpty() || UNSUPPORTED.matcher(normalized).find()) {
+            return Optional.empty();
+        }
+
+        Match match = matchCancel(normalized, now);
+        if (match == null) {
+            match = matchBook(normalized, now);
+        }
+        if (match == null) {
+            match = matchMove(normalized, now);
+        }
+        if (match == null) {
+            return Optional.empty();
+        }
+        if (match.confidence < threshold) {
+            log.debug("Fast path confidence {} below threshold {} for '{}'", match.confidence, threshold, text);
+            return Optional.empty();
+        }
+        log.info("Fast path matched '{}' as {} (confidence {})", text, match.entities.getIntent(), match.confidence);
+        return Optional.of(match.entities);
+    }
+
+    private Match matchCancel(String text, LocalDateTime now) {
+        Matcher m = CANCEL.matcher(text);
+        if (!m.matches() || !isPlainSubject(m.group("subject"))) {
+            return null;
+        }
+        ExtractedEntities.ExtractedEntitiesBuilder builder = ExtractedEntities.builder()
+                .intent("CancelMeeting")
+                .subject(capitalize(m.group("subject")));
+        LocalDate day = resolveDay(m.group("day"), now);
+        if (day != null) {
+            // Whole day, so the Graph lookup matches the event at any time
+            builder.startDateTime(day.atStartOfDay())
+                    .endDateTime(day.atTime(LocalTime.of(23, 59)));
+        }
+        return new Match(builder.build(), 0.95);
+    }
+
+    private Match matchBook(String text, LocalDateTime now) {
+        Matcher m = BOOK.matcher(text);
+        if (!m.matches() || !isPlainSubject(m.group("subject"))
+                || (m.group("day1") != null && m.group("day2") != null)) {
+            return null;
+        }
+        List<String> attendees = new ArrayList<>();
+        for (String name : NAME_SEPARATOR.split(m.group("names"))) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty() || SUBJECT_NOISE.matcher(trimmed).find()) {
+                return null;
+            }
+            attendees.add(trimmed);
+        }
+        TimeOfDay time = parseTime(m.group("time"));
+        if (time == null) {
+            return null;
+        }
+        String dayText = m.group("day1") != null ? m.group("day1") : m.group("day2");
+        LocalDate day = dayText != null ? resolveDay(dayText, now) : now.toLocalDate();
+        LocalDateTime start = day.atTime(time.value);
+        return new Match(ExtractedEntities.builder()
+                .intent("BookMeeting")
+                .subject(capitalize(m.group("subject")))
+                .attendees(attendees)
+                .startDateTime(start)
+                .endDateTime(start.plusHours(1))
+                .build(), time.confidence);
+    }
+
+    private Match matchMove(String text, LocalDateTime now) {
+        Matcher m = MOVE.matcher(text);
+        if (!m.matches() || !isPlainSubject(m.group("subject"))) {
+            return null;
+        }
+        TimeOfDay time = parseTime(m.group("time"));
+        if (time == null) {
+            return null;
+        }
+        LocalDate day = m.group("day") != null ? resolveDay(m.group("day"), now) : now.toLocalDate();
+        LocalDateTime start = day.atTime(time.value);
+        return new Match(ExtractedEntities.builder()
+                .intent("RescheduleMeeting")
+                .subject(capitalize(m.group("subject")))
+                .startDateTime(start)
+                .endDateTime(start.plusHours(1))
+                .build(), time.confidence);
+    }
+
+    private boolean isPlainSubject(String subject) {
+        return subject != null
+                && !subject.isBlank()
+                && subject.split(" ").length <= 6
+                && !SUBJECT_NOISE.matcher(subject).find()
+                && !REFERENCE_SUBJECT.matcher(subject.trim()).matches();
+    }
+
+    private LocalDate resolveDay(String dayText, LocalDateTime now) {
+        if (dayText == null) {
+            return null;
+        }
+        String day = dayText.toLowerCase(Locale.ROOT).replace("on ", "").trim();
+        LocalDate today = now.toLocalDate();
+        if ("today".equals(day)) {
+            return today;
+        }
+        if ("tomorrow".equals(day)) {
+            return today.plusDays(1);
+        }
+        return today.with(TemporalAdjusters.nextOrSame(DayOfWeek.valueOf(day.toUpperCase(Locale.ROOT))));
+    }
+
+    /**
+     * Parses "3pm", "3:30 pm" or "15:00". A bare 12-hour value such as "at 9"
+     * is ambiguous and scores below the default threshold.
+     */
+    private TimeOfDay parseTime(String timeText) {
+        Matcher m = TIME_PARTS.matcher(timeText.trim());
+        if (!m.matches()) {
+            return null;
+        }
+        int hour = Integer.parseInt(m.group(1));
+        int minute = m.group(2) != null ? Integer.parseInt(m.group(2)) : 0;
+        String meridiem = m.group(3) != null ? m.group(3).toLowerCase(Locale.ROOT) : null;
+        if (minute > 59) {
+            return null;
+        }
+        if (meridiem != null) {
+            if (hour < 1 || hour > 12) {
+                return null;
+            }
+            hour = hour % 12 + ("pm".equals(meridiem) ? 12 : 0);
+            return new TimeOfDay(LocalTime.of(hour, minute), 0.95);
+        }
+        if (hour > 23) {
+            return null;
+        }
+        return new TimeOfDay(LocalTime.of(hour, minute), hour > 12 || hour == 0 ? 0.95 : 0.6);
+    }
+
+    private static String capitalize(String value) {
+        String trimmed = value.trim();
+        return trimmed.substring(0, 1).toUpperCase(Locale.ROOT) + trimmed.substring(1);
+    }
+
+    private record Match(ExtractedEntities entities, double confidence) {
+    }
+
+    private record TimeOfDay(LocalTime value, double confidence) {
+    }
+}
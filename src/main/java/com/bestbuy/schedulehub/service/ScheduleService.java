@@ -1,22 +1,41 @@
 package com.bestbuy.schedulehub.service;
 
 import com.bestbuy.schedulehub.dto.ScheduleResponse;
+import com.bestbuy.schedulehub.dto.Conflict;
+import com.bestbuy.schedulehub.dto.EventCandidate;
 import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import com.bestbuy.schedulehub.dto.TimeSlot;
 import com.microsoft.graph.models.Event;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Main service for processing scheduling requests.
  * 
  * Orchestrates the flow:
- * 1. Extract intent and entities from natural language using OpenAI
+ * 1. Extract intent and entities from natural language - simple utterances
+ * are handled by the rule-based fast path, everything else by OpenAI. When
+ * the local intent classifier is confident, OpenAI only extracts the
+ * entities and the Graph lookup for cancel/reschedule starts immediately.
+ * Users or tenants over their token quota get no LLM call (see
+ * {@link TokenUsageTracker}). Follow-ups in a conversation session only ask
+ * OpenAI for the changes, which are applied to the session's last request.
+ * While OpenAI breaches its latency/error SLO, {@link ExtractionDegradeController}
+ * switches extraction to cheaper modes
  * 2. Route to appropriate handler (BookMeeting, CancelMeeting,
  * RescheduleMeeting)
  * 3. Interact with Microsoft Graph API to manage calendar events
@@ -26,19 +45,141 @@ import java.util.ArrayList;
 @RequiredArgsConstructor
 public class ScheduleService {
 
+    // Fuzzy matches offered when a cancel names no existing subject
+    private static final int MAX_CANDIDATES = 3;
+
     private final OpenAIService openAIService;
     private final GraphCalendarService graphCalendarService;
+    private final SubjectIndex subjectIndex;
+    private final ConflictChecker conflictChecker;
+    private final SlotFinder slotFinder;
+    private final RuleBasedIntentParser ruleBasedIntentParser;
+    private final IntentClassifier intentClassifier;
+    private final TokenUsageTracker tokenUsageTracker;
+    private final ConversationSessionStore sessionStore;
+    private final ExtractionDegradeController degradeController;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskExecutor graphLookupExecutor;
 
     public ScheduleResponse processScheduleRequest(String text, String userId) {
+        return processScheduleRequest(text, userId, null);
+    }
+
+    /**
+     * Processes a request that may follow up on an earlier one in the same
+     * conversation session ("actually make it 4pm", "add Bob too").
+     * 
+     * @param sessionId Optional client session id; without it every request
+     *                  stands alone
+     */
+    public ScheduleResponse processScheduleRequest(String text, String userId, String sessionId) {
         log.info("=== Schedule Service: Processing request ===");
         log.info("Input text: '{}'", text);
         log.info("User ID: {}", userId);
+        if (sessionId != null) {
+            log.info("Session ID: {}", sessionId);
+        }
 
         try {
-            // Extract intent and entities using OpenAI
-            log.info("Calling OpenAI service to extract intent and entities...");
-            ExtractedEntities entities = openAIService.extractIntentAndEntities(text);
-            log.info("OpenAI extraction completed");
+            // Extract intent and entities - fast path first, OpenAI as fallback
+            ExtractedEntities entities;
+            String extractionPath;
+            Timer.Sample extractionTimer = Timer.start(meterRegistry);
+            AtomicReference<EventLookup> earlyLookup = new AtomicReference<>();
+            ExtractionDegradeController.Mode mode = degradeController.mode();
+            // A follow-up in a known session is resolved against the session before the fast path,
+            // so "cancel it" or "move that to 4pm" never reaches the rules with a pronoun for a subject
+            Optional<ConversationSessionStore.Session> activeSession = sessionStore.get(userId, sessionId);
+            boolean followUp = activeSession.isPresent() && EntityDelta.looksLikeFollowUp(text);
+            Optional<ExtractedEntities> fastPath = followUp
+                    ? Optional.empty()
+                    : ruleBasedIntentParser.parse(text, LocalDateTime.now());
+            boolean relaxedFastPath = false;
+            if (fastPath.isEmpty() && !followUp && mode == ExtractionDegradeController.Mode.LOCAL) {
+                // OpenAI is breaching its SLO - accept a less certain local parse instead of waiting on it
+                fastPath = ruleBasedIntentParser.parse(text, LocalDateTime.now(),
+                        degradeController.getLocalMinConfidence());
+                relaxedFastPath = fastPath.isPresent();
+            }
+            TokenUsageTracker.QuotaStatus quota = fastPath.isPresent()
+                    ? TokenUsageTracker.QuotaStatus.ALLOWED
+                    : tokenUsageTracker.check(userId);
+            // A follow-up in a known session only asks OpenAI for the changes
+            Optional<ConversationSessionStore.Session> session = followUp
+                    && quota == TokenUsageTracker.QuotaStatus.ALLOWED
+                            ? activeSession
+                            : Optional.empty();
+            EntityDelta delta = null;
+            if (activeSession.isPresent() && !followUp && fastPath.isEmpty()) {
+                log.info("Session request does not look like a follow-up - extracting it as a new request");
+            } else if (session.isPresent()) {
+                log.info("Calling OpenAI service for the follow-up delta...");
+                delta = openAIService.extractDeltaAsync(text, session.get().entities()).join();
+                tokenUsageTracker.record(userId, delta.usage());
+            }
+            String followUpEventId = null;
+            if (fastPath.isPresent()) {
+                log.info("Request served by rule-based fast path{}", relaxedFastPath ? " (degraded)" : "");
+                entities = fastPath.get();
+                extractionPath = relaxedFastPath ? "rule-degraded" : "rule";
+            } else if (quota != TokenUsageTracker.QuotaStatus.ALLOWED) {
+                // Over the token quota - no LLM call; at most a less strict local parse
+                Optional<ExtractedEntities> relaxed = tokenUsageTracker.isDowngrade()
+                        ? ruleBasedIntentParser.parse(text, LocalDateTime.now(),
+                                tokenUsageTracker.getDowngradeMinConfidence())
+                        : Optional.empty();
+                if (relaxed.isEmpty()) {
+                    log.warn("Token quota exceeded ({}) for user {} - request rejected", quota, userId);
+                    return ScheduleResponse.builder()
+                            .status("quota_exceeded")
+                            .message(quota == TokenUsageTracker.QuotaStatus.TENANT_EXCEEDED
+                                    ? "Your organization has used its AI token quota. Try a simpler request (e.g. \"cancel standup tomorrow\") or try again later."
+                                    : "You have used your AI token quota. Try a simpler request (e.g. \"cancel standup tomorrow\") or try again later.")
+                            .extractionPath("quota")
+                            .build();
+                }
+                log.info("Token quota exceeded ({}) for user {} - served by relaxed fast path", quota, userId);
+                entities = relaxed.get();
+                extractionPath = "rule-downgraded";
+            } else if (delta != null && !delta.newRequest()) {
+                log.info("Follow-up applied to session state: {}", delta);
+                if (delta.isEmpty()) {
+                    return ScheduleResponse.builder()
+                            .status("success")
+                            .message("Nothing to change")
+                            .eventId(session.get().eventId())
+                            .extractionPath("delta")
+                            .build();
+                }
+                entities = delta.applyTo(session.get().entities());
+                followUpEventId = session.get().eventId();
+                extractionPath = "delta";
+            } else if (openAIService.isStreamingEnabled()) {
+                // Start the Graph lookup as soon as the streamed entities allow it
+                log.info("Calling OpenAI service in streaming mode...");
+                entities = openAIService.extractIntentAndEntitiesStreaming(text,
+                        partial -> earlyLookup.set(startEventLookup(partial, userId)));
+                extractionPath = llmPath(entities, "llm");
+                log.info("OpenAI streaming extraction completed");
+            } else {
+                Optional<IntentModel.Prediction> predicted = intentClassifier.classify(text);
+                if (predicted.isPresent()) {
+                    String knownIntent = predicted.get().label();
+                    log.info("Local intent classifier: {} (p={})", knownIntent,
+                            String.format("%.3f", predicted.get().probability()));
+                    earlyLookup.set(startIntentPrefetch(knownIntent, userId));
+                    log.info("Calling OpenAI service to extract entities only...");
+                    entities = openAIService.extractEntities(text, knownIntent);
+                    extractionPath = llmPath(entities, "classifier");
+                } else {
+                    log.info("Calling OpenAI service to extract intent and entities...");
+                    entities = openAIService.extractIntentAndEntities(text);
+                    extractionPath = llmPath(entities, "llm");
+                }
+                log.info("OpenAI extraction completed");
+            }
+            extractionTimer.stop(meterRegistry.timer("schedulehub.extraction.latency", "path", extractionPath));
+            tokenUsageTracker.record(userId, entities.getUsage());
             log.info("Extracted intent: '{}'", entities.getIntent());
             log.info("Extracted entities details:");
             log.info("  - Attendees: {}", entities.getAttendees());
@@ -62,59 +203,73 @@ public class ScheduleService {
             openaiOutput.put("location", entities.getLocation());
             openaiOutput.put("recurrencePattern", entities.getRecurrencePattern());
             openaiOutput.put("exceptions", entities.getExceptions());
+            openaiOutput.put("extractionPath", extractionPath);
 
             ScheduleResponse response;
-            switch (intent) {
-                case "bookmeeting":
-                case "schedulemeeting":
-                    log.info("Routing to handleBookMeeting");
-                    response = handleBookMeeting(entities, userId, openaiOutput);
-                    break;
-
-                case "cancelmeeting":
-                case "deletemeeting":
-                    log.info("Routing to handleCancelMeeting");
-                    response = handleCancelMeeting(entities, userId);
-                    response.setOpenaiOutput(openaiOutput);
-                    break;
-
-                case "reschedulemeeting":
-                case "updatemeeting":
-                    log.info("Routing to handleRescheduleMeeting");
-                    response = handleRescheduleMeeting(entities, userId);
-                    response.setOpenaiOutput(openaiOutput);
-                    break;
-
-                default:
-                    if ("openai_api_error".equalsIgnoreCase(intent) || "unknown".equalsIgnoreCase(intent)) {
-                        log.error("═══════════════════════════════════════════════════════════════");
-                        log.error("❌ OpenAI API ERROR - Cannot process request");
-                        log.error("═══════════════════════════════════════════════════════════════");
-                        log.error("The OpenAI API call failed or returned an unknown intent.");
-                        log.error("This is preventing intent and entity extraction.");
-                        log.error("Please check the logs above for detailed error information.");
-                        log.error("═══════════════════════════════════════════════════════════════");
-                        response = ScheduleResponse.builder()
-                                .status("error")
-                                .message(
-                                        "OpenAI API error. Please check your OpenAI API key in application.yml. See logs for details.")
-                                .build();
-                    } else {
-                        log.warn("Unknown intent: '{}'", intent);
-                        response = ScheduleResponse.builder()
-                                .status("error")
-                                .message("Unknown intent: " + intent
-                                        + ". The AI service may not have recognized your request. Try rephrasing your request.")
-                                .openaiOutput(openaiOutput)
-                                .build();
-                    }
-                    break;
+            if (followUpEventId != null && isMeetingIntent(intent)) {
+                // The event the session created or changed is known - no lookup
+                log.info("Routing to handleFollowUp for event {}", followUpEventId);
+                response = handleFollowUp(entities, followUpEventId, userId);
+                response.setOpenaiOutput(openaiOutput);
+            } else {
+                switch (intent) {
+                    case "bookmeeting":
+                    case "schedulemeeting":
+                        log.info("Routing to handleBookMeeting");
+                        response = handleBookMeeting(entities, userId, openaiOutput);
+                        break;
+
+                    case "cancelmeeting":
+                    case "deletemeeting":
+                        log.info("Routing to handleCancelMeeting");
+                        response = handleCancelMeeting(entities, userId, earlyLookup.get());
+                        response.setOpenaiOutput(openaiOutput);
+                        break;
+
+                    case "reschedulemeeting":
+                    case "updatemeeting":
+                        log.info("Routing to handleRescheduleMeeting");
+                        response = handleRescheduleMeeting(entities, userId, earlyLookup.get());
+                        response.setOpenaiOutput(openaiOutput);
+                        break;
+
+                    default:
+                        if ("openai_api_error".equalsIgnoreCase(intent) || "unknown".equalsIgnoreCase(intent)) {
+                            log.error("═══════════════════════════════════════════════════════════════");
+                            log.error("❌ OpenAI API ERROR - Cannot process request");
+                            log.error("═══════════════════════════════════════════════════════════════");
+                            log.error("The OpenAI API call failed or returned an unknown intent.");
+                            log.error("This is preventing intent and entity extraction.");
+                            log.error("Please check the logs above for detailed error information.");
+                            log.error("═══════════════════════════════════════════════════════════════");
+                            response = ScheduleResponse.builder()
+                                    .status("error")
+                                    .message(
+                                            "OpenAI API error. Please check your OpenAI API key in application.yml. See logs for details.")
+                                    .build();
+                        } else {
+                            log.warn("Unknown intent: '{}'", intent);
+                            response = ScheduleResponse.builder()
+                                    .status("error")
+                                    .message("Unknown intent: " + intent
+                                            + ". The AI service may not have recognized your request. Try rephrasing your request.")
+                                    .openaiOutput(openaiOutput)
+                                    .build();
+                        }
+                        break;
+                }
             }
 
             // Set OpenAI output for all responses
             if (response != null && response.getOpenaiOutput() == null) {
                 response.setOpenaiOutput(openaiOutput);
             }
+            response.setExtractionPath(extractionPath);
+            response.setDegradeMode(mode.label());
+            if ("success".equals(response.getStatus())) {
+                boolean cancelled = intent.equals("cancelmeeting") || intent.equals("deletemeeting");
+                sessionStore.put(userId, sessionId, entities, cancelled ? null : response.getEventId());
+            }
 
             log.info("=== Schedule Service: Request processing complete ===");
             log.info("Response status: {}, message: {}", response.getStatus(), response.getMessage());
@@ -138,6 +293,23 @@ public class ScheduleService {
                 entities.getSubject(), entities.getAttendees());
 
         try {
+            // No start time given - pick the first suggested time everyone is free
+            List<TimeSlot> suggestedSlots = null;
+            if (entities.getStartDateTime() == null && slotFinder.isEnabled()) {
+                suggestedSlots = slotFinder.suggest(userId, entities.getAttendees(), null);
+                if (!suggestedSlots.isEmpty()) {
+                    TimeSlot slot = suggestedSlots.get(0);
+                    log.info("No start time given, booking suggested slot {} - {}", slot.getStart(), slot.getEnd());
+                    entities = entities.toBuilder()
+                            .startDateTime(slot.getStart())
+                            .endDateTime(slot.getEnd())
+                            .build();
+                } else {
+                    log.warn("No common free slot found, booking at the default start time");
+                }
+            }
+            boolean slotSuggested = suggestedSlots != null && !suggestedSlots.isEmpty();
+
             // Prepare Graph API input for UI
             Map<String, Object> graphApiInput = new HashMap<>();
             graphApiInput.put("subject", entities.getSubject() != null ? entities.getSubject() : "Meeting");
@@ -150,9 +322,34 @@ public class ScheduleService {
             graphApiInput.put("exceptions", entities.getExceptions());
             graphApiInput.put("userId", userId);
 
+            // Optional free/busy check of the organizer and attendees - at most one Graph call.
+            // A suggested slot is free for everyone already.
+            List<Conflict> conflicts = slotSuggested ? List.of()
+                    : conflictChecker.findConflicts(userId, entities.getAttendees(),
+                            entities.getStartDateTime(), entities.getEndDateTime());
+            if (!conflicts.isEmpty()) {
+                log.warn("Booking conflicts with {} busy period(s): {}", conflicts.size(), conflicts);
+                if (conflictChecker.isBlocking()) {
+                    return ScheduleResponse.builder()
+                            .status("conflict")
+                            .message("Not booked: " + conflicts.size() + " conflicting busy period(s)")
+                            .eventSubject(entities.getSubject())
+                            .startTime(entities.getStartDateTime())
+                            .endTime(entities.getEndDateTime())
+                            .attendees(entities.getAttendees())
+                            .openaiOutput(openaiOutput)
+                            .graphApiInput(graphApiInput)
+                            .conflicts(conflicts)
+                            .suggestedSlots(suggestedSlots)
+                            .build();
+                }
+            }
+
             log.info("Calling GraphCalendarService.createEvent...");
-            String eventId = graphCalendarService.createEvent(entities, userId);
+            GraphCalendarService.CreatedEvent created = graphCalendarService.createEvent(entities, userId);
+            String eventId = created.id();
             log.info("Event created successfully with ID: {}", eventId);
+            List<String> unresolved = created.unresolvedAttendees();
 
             // Prepare booking results
             List<Map<String, Object>> bookingResults = new ArrayList<>();
@@ -169,7 +366,8 @@ public class ScheduleService {
 
             ScheduleResponse response = ScheduleResponse.builder()
                     .status("success")
-                    .message("Meeting scheduled successfully")
+                    .message(withUnresolved(conflicts.isEmpty() ? "Meeting scheduled successfully"
+                            : "Meeting scheduled with " + conflicts.size() + " conflict(s)", unresolved))
                     .eventId(eventId)
                     .eventSubject(entities.getSubject())
                     .startTime(entities.getStartDateTime())
@@ -180,6 +378,9 @@ public class ScheduleService {
                     .openaiOutput(openaiOutput)
                     .graphApiInput(graphApiInput)
                     .bookingResults(bookingResults)
+                    .conflicts(conflictChecker.isEnabled() ? conflicts : null)
+                    .suggestedSlots(suggestedSlots)
+                    .unresolvedAttendees(unresolved.isEmpty() ? null : unresolved)
                     .build();
 
             // ===== DETAILED BOOKING SUMMARY =====
@@ -227,7 +428,81 @@ public class ScheduleService {
         }
     }
 
-    private ScheduleResponse handleCancelMeeting(ExtractedEntities entities, String userId) {
+    /**
+     * Applies a follow-up to the event created or changed earlier in the
+     * session: cancels it, or updates it with the merged entities.
+     */
+    private ScheduleResponse handleFollowUp(ExtractedEntities entities, String eventId, String userId) {
+        log.info("=== Handling follow-up for event {} ===", eventId);
+        String intent = entities.getIntent().toLowerCase();
+        try {
+            if ("cancelmeeting".equals(intent) || "deletemeeting".equals(intent)) {
+                graphCalendarService.deleteEvent(eventId, userId);
+                log.info("Event cancelled successfully");
+                return ScheduleResponse.builder()
+                        .status("success")
+                        .message("Meeting cancelled successfully")
+                        .eventId(eventId)
+                        .eventSubject(entities.getSubject())
+                        .build();
+            }
+            List<String> unresolved = graphCalendarService.updateEvent(eventId, entities, userId);
+            log.info("Event updated successfully");
+            return ScheduleResponse.builder()
+                    .status("success")
+                    .message(withUnresolved("Meeting updated successfully", unresolved))
+                    .eventId(eventId)
+                    .eventSubject(entities.getSubject())
+                    .startTime(entities.getStartDateTime())
+                    .endTime(entities.getEndDateTime())
+                    .attendees(entities.getAttendees())
+                    .recurrencePattern(entities.getRecurrencePattern())
+                    .exceptions(entities.getExceptions())
+                    .unresolvedAttendees(unresolved.isEmpty() ? null : unresolved)
+                    .build();
+        } catch (Exception e) {
+            log.error("Error applying follow-up", e);
+            log.error("Exception details - Message: {}, Cause: {}",
+                    e.getMessage(), e.getCause() != null ? e.getCause().getMessage() : "N/A");
+            return ScheduleResponse.builder()
+                    .status("error")
+                    .message("Failed to update meeting: " + e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * Names the attendees that could not be invited, after the outcome.
+     */
+    private static String withUnresolved(String message, List<String> unresolved) {
+        return unresolved.isEmpty() ? message
+                : message + "; not invited (no single directory match): " + String.join(", ", unresolved);
+    }
+
+    /**
+     * Extraction path of an OpenAIService result: "cache" or "coalesced" when
+     * no OpenAI call was made for this request, the given path otherwise.
+     */
+    private static String llmPath(ExtractedEntities entities, String path) {
+        return entities.getOrigin() != null ? entities.getOrigin() : path;
+    }
+
+    private static boolean isMeetingIntent(String intent) {
+        switch (intent) {
+            case "bookmeeting":
+            case "schedulemeeting":
+            case "cancelmeeting":
+            case "deletemeeting":
+            case "reschedulemeeting":
+            case "updatemeeting":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private ScheduleResponse handleCancelMeeting(ExtractedEntities entities, String userId,
+            EventLookup earlyLookup) {
         log.info("=== Handling CancelMeeting request ===");
         log.info("Search criteria: subject={}, startDateTime={}, endDateTime={}",
                 entities.getSubject(), entities.getStartDateTime(), entities.getEndDateTime());
@@ -235,14 +510,25 @@ public class ScheduleService {
         try {
             // Find the event to cancel
             log.info("Searching for events to cancel...");
-            List<Event> events = graphCalendarService.findEvents(
+            EventMatch match = resolveEvent(
                     entities.getSubject(),
                     entities.getStartDateTime(),
                     entities.getEndDateTime(),
-                    userId);
-            log.info("Found {} matching event(s)", events.size());
+                    userId,
+                    earlyLookup);
 
-            if (events.isEmpty()) {
+            if (match.event() == null && !match.candidates().isEmpty()) {
+                // A partial subject match is not enough to delete a meeting
+                log.warn("No exact subject match for '{}' - asking to confirm among {} candidate(s)",
+                        entities.getSubject(), match.candidates().size());
+                return ScheduleResponse.builder()
+                        .status("confirm")
+                        .message("No meeting titled '" + entities.getSubject()
+                                + "' found. Nothing was cancelled; repeat the request with one of these titles")
+                        .candidates(match.candidates().stream().map(ScheduleService::toCandidate).toList())
+                        .build();
+            }
+            if (match.event() == null) {
                 log.warn("No matching events found to cancel");
                 return ScheduleResponse.builder()
                         .status("error")
@@ -250,8 +536,8 @@ public class ScheduleService {
                         .build();
             }
 
-            // Delete the first matching event
-            Event eventToCancel = events.get(0);
+            // Delete the best matching event
+            Event eventToCancel = match.event();
             log.info("Cancelling event: id={}, subject={}", eventToCancel.id, eventToCancel.subject);
             graphCalendarService.deleteEvent(eventToCancel.id, userId);
             log.info("Event cancelled successfully");
@@ -273,7 +559,8 @@ public class ScheduleService {
         }
     }
 
-    private ScheduleResponse handleRescheduleMeeting(ExtractedEntities entities, String userId) {
+    private ScheduleResponse handleRescheduleMeeting(ExtractedEntities entities, String userId,
+            EventLookup earlyLookup) {
         log.info("=== Handling RescheduleMeeting request ===");
         log.info("Search criteria: subject={}", entities.getSubject());
         log.info("New schedule: startDateTime={}, endDateTime={}",
@@ -282,14 +569,14 @@ public class ScheduleService {
         try {
             // Find the event to reschedule
             log.info("Searching for events to reschedule...");
-            List<Event> events = graphCalendarService.findEvents(
+            EventMatch match = resolveEvent(
                     entities.getSubject(),
                     null,
                     null,
-                    userId);
-            log.info("Found {} matching event(s)", events.size());
+                    userId,
+                    earlyLookup);
 
-            if (events.isEmpty()) {
+            if (match.best().isEmpty()) {
                 log.warn("No matching events found to reschedule");
                 return ScheduleResponse.builder()
                         .status("error")
@@ -297,22 +584,23 @@ public class ScheduleService {
                         .build();
             }
 
-            // Update the first matching event
-            Event eventToUpdate = events.get(0);
+            // Update the best matching event
+            Event eventToUpdate = match.best().get();
             log.info("Rescheduling event: id={}, subject={}, current start={}, current end={}",
                     eventToUpdate.id, eventToUpdate.subject,
                     eventToUpdate.start != null ? eventToUpdate.start.dateTime : "N/A",
                     eventToUpdate.end != null ? eventToUpdate.end.dateTime : "N/A");
-            graphCalendarService.updateEvent(eventToUpdate.id, entities, userId);
+            List<String> unresolved = graphCalendarService.updateEvent(eventToUpdate.id, entities, userId);
             log.info("Event rescheduled successfully");
 
             return ScheduleResponse.builder()
                     .status("success")
-                    .message("Meeting rescheduled successfully")
+                    .message(withUnresolved("Meeting rescheduled successfully", unresolved))
                     .eventId(eventToUpdate.id)
                     .eventSubject(eventToUpdate.subject)
                     .startTime(entities.getStartDateTime())
                     .endTime(entities.getEndDateTime())
+                    .unresolvedAttendees(unresolved.isEmpty() ? null : unresolved)
                     .build();
         } catch (Exception e) {
             log.error("Error rescheduling meeting", e);
@@ -324,4 +612,145 @@ public class ScheduleService {
                     .build();
         }
     }
+
+    /**
+     * Starts the Graph lookup for a cancel or reschedule from entities that
+     * were handed off before the OpenAI stream completed.
+     */
+    private EventLookup startEventLookup(ExtractedEntities partial, String userId) {
+        String intent = partial.getIntent().toLowerCase();
+        boolean isCancel = "cancelmeeting".equals(intent) || "deletemeeting".equals(intent);
+        // Reschedule searches by subject only - the dates are the new schedule
+        LocalDateTime start = isCancel ? partial.getStartDateTime() : null;
+        LocalDateTime end = isCancel ? partial.getEndDateTime() : null;
+        log.info("Starting early Graph lookup: intent={}, subject={}", partial.getIntent(), partial.getSubject());
+        CompletableFuture<List<Event>> events = CompletableFuture.supplyAsync(
+                () -> graphCalendarService.findEvents(partial.getSubject(), start, end, userId),
+                graphLookupExecutor);
+        return new EventLookup(partial.getSubject(), start, end, events);
+    }
+
+    /**
+     * Starts an unfiltered Graph lookup as soon as the classifier says the
+     * request is a cancel or reschedule, while OpenAI extracts the entities.
+     */
+    private EventLookup startIntentPrefetch(String intent, String userId) {
+        if (!"CancelMeeting".equals(intent) && !"RescheduleMeeting".equals(intent)) {
+            return null;
+        }
+        log.info("Prefetching calendar events for {}", intent);
+        CompletableFuture<List<Event>> events = CompletableFuture.supplyAsync(
+                () -> graphCalendarService.findEvents(null, null, null, userId),
+                graphLookupExecutor);
+        return new EventLookup(null, null, null, events);
+    }
+
+    /**
+     * Finds the event a cancel or reschedule refers to.
+     *
+     * The subject index is tried first, but only an exact hit (every word of
+     * the subject found) is taken without a Graph query. Otherwise the Graph
+     * subject search decides; when it finds nothing, the window is read
+     * unfiltered (which indexes it) and ranked fuzzily, so "sync with Mary"
+     * still finds "Mary / Alex weekly sync". Fuzzy results come back as
+     * ranked candidates only: a reschedule takes the best one, a cancel asks
+     * for confirmation.
+     */
+    private EventMatch resolveEvent(String subject, LocalDateTime startDate, LocalDateTime endDate,
+            String userId, EventLookup earlyLookup) {
+        Optional<SubjectIndex.Candidate> indexed = subjectIndex.best(userId, subject, startDate, endDate);
+        if (indexed.isPresent() && indexed.get().isExact()) {
+            log.info("Subject index match: '{}'", indexed.get().entry().subject());
+            if (earlyLookup != null) {
+                earlyLookup.events().cancel(false);
+            }
+            return new EventMatch(indexed.get().entry().toEvent(), List.of());
+        }
+
+        List<Event> events = findEvents(subject, startDate, endDate, userId, earlyLookup);
+        log.info("Found {} matching event(s)", events.size());
+        if (!events.isEmpty()) {
+            return new EventMatch(events.get(0), List.of());
+        }
+        if (subject == null || subject.isBlank()) {
+            return new EventMatch(null, List.of());
+        }
+
+        log.info("No subject match for '{}', ranking nearby events by similarity", subject);
+        graphCalendarService.findEvents(null, startDate, endDate, userId);
+        List<SubjectIndex.Candidate> candidates = subjectIndex.search(userId, subject, startDate, endDate,
+                MAX_CANDIDATES);
+        candidates.forEach(candidate -> log.info("Fuzzy candidate: '{}' (score {})", candidate.entry().subject(),
+                String.format("%.2f", candidate.score())));
+        return new EventMatch(null, candidates);
+    }
+
+    private static EventCandidate toCandidate(SubjectIndex.Candidate candidate) {
+        return EventCandidate.builder()
+                .eventId(candidate.entry().id())
+                .subject(candidate.entry().subject())
+                .start(candidate.entry().start())
+                .end(candidate.entry().end())
+                .score(candidate.score())
+                .build();
+    }
+
+    /**
+     * Finds events, reusing the early lookup when it was started with the same
+     * criteria as the final entities. An unfiltered prefetch is filtered
+     * locally; it is only a subset of the calendar, so a search with no local
+     * match still goes to Graph.
+     */
+    private List<Event> findEvents(String subject, LocalDateTime startDate, LocalDateTime endDate, String userId,
+            EventLookup earlyLookup) {
+        if (earlyLookup != null && earlyLookup.isUnfiltered()
+                && (subject != null || startDate != null || endDate != null)) {
+            List<Event> matching = earlyLookup.events().join().stream()
+                    .filter(event -> GraphCalendarService.matches(event, subject, startDate, endDate))
+                    .toList();
+            if (!matching.isEmpty()) {
+                log.info("Using {} event(s) from the classifier prefetch", matching.size());
+                return matching;
+            }
+            log.info("No match in prefetched events, searching Graph");
+            return graphCalendarService.findEvents(subject, startDate, endDate, userId);
+        }
+        if (earlyLookup != null) {
+            if (earlyLookup.matches(subject, startDate, endDate)) {
+                log.info("Using Graph lookup started during OpenAI streaming");
+                return earlyLookup.events().join();
+            }
+            log.info("Early Graph lookup criteria changed, searching again");
+            earlyLookup.events().cancel(false);
+        }
+        return graphCalendarService.findEvents(subject, startDate, endDate, userId);
+    }
+
+    /**
+     * An event matched by subject, or failing that the fuzzy candidates,
+     * best first.
+     */
+    private record EventMatch(Event event, List<SubjectIndex.Candidate> candidates) {
+
+        Optional<Event> best() {
+            if (event != null) {
+                return Optional.of(event);
+            }
+            return candidates.isEmpty() ? Optional.empty() : Optional.of(candidates.get(0).entry().toEvent());
+        }
+    }
+
+    private record EventLookup(String subject, LocalDateTime startDate, LocalDateTime endDate,
+            CompletableFuture<List<Event>> events) {
+
+        boolean isUnfiltered() {
+            return subject == null && startDate == null && endDate == null;
+        }
+
+        boolean matches(String subject, LocalDateTime startDate, LocalDateTime endDate) {
+            return Objects.equals(this.subject, subject)
+                    && Objects.equals(this.startDate, startDate)
+                    && Objects.equals(this.endDate, endDate);
+        }
+    }
 }
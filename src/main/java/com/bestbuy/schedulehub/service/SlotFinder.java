@@ -0,0 +1,525 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.TimeSlot;
+import com.microsoft.graph.models.CalendarGetScheduleParameterSet;
+import com.microsoft.graph.models.DateTimeTimeZone;
+import com.microsoft.graph.models.FreeBusyStatus;
+import com.microsoft.graph.models.ScheduleInformation;
+import com.microsoft.graph.models.ScheduleItem;
+import com.microsoft.graph.models.WorkingHours;
+import com.microsoft.graph.options.HeaderOption;
+import com.microsoft.graph.requests.CalendarGetScheduleCollectionPage;
+import com.microsoft.graph.requests.GraphServiceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Suggests meeting times when a request gives none ("book a sync with Bob
+ * and Carol").
+ *
+ * The availability of the organizer and all attendees over the horizon is
+ * read with getSchedule (SCHEDULES_PER_CALL mailboxes per call, the calls
+ * for larger meetings sent concurrently on the graph-lookup executor) as an
+ * availability view of slot-minutes slots. Each person becomes a bitset of
+ * those slots - their working hours minus their busy time - and the sets are
+ * ANDed together, so one long covers 64 slots for everyone at once. A
+ * meeting of n slots fits where n consecutive bits are set; the first k such
+ * starts (ranking earliest) or the k best-scored ones (ranking best) are
+ * suggested.
+ *
+ * Working hours are those Graph reports for the person, else the configured
+ * ones. Graph often names time zones the Windows way ("Pacific Standard
+ * Time"); those are taken to be the service's own zone.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SlotFinder {
+
+    private static final int SCHEDULES_PER_CALL = 20;
+
+    private final GraphServiceClient<Request> graphServiceClient;
+    private final AttendeeResolver attendeeResolver;
+    private final MeterRegistry meterRegistry;
+    private final Executor graphLookupExecutor;
+
+    @Value("${schedule.slots.enabled:false}")
+    private boolean enabled;
+
+    @Value("${schedule.slots.slot-minutes:15}")
+    private int slotMinutes;
+
+    @Value("${schedule.slots.horizon:14d}")
+    private Duration horizon;
+
+    @Value("${schedule.slots.min-notice:30m}")
+    private Duration minNotice;
+
+    @Value("${schedule.slots.default-length:1h}")
+    private Duration defaultLength;
+
+    @Value("${schedule.slots.suggestions:3}")
+    private int suggestions;
+
+    @Value("${schedule.slots.ranking:earliest}")
+    private String ranking;
+
+    @Value("${schedule.slots.tentative-is-busy:true}")
+    private boolean tentativeIsBusy;
+
+    @Value("${schedule.slots.working-hours.days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+    private String workDays;
+
+    @Value("${schedule.slots.working-hours.start:09:00}")
+    private String workStart;
+
+    @Value("${schedule.slots.working-hours.end:17:00}")
+    private String workEnd;
+
+    Supplier<LocalDateTime> now = LocalDateTime::now;
+
+    // getSchedule for mailboxes over [from, to); replaceable in tests
+    ConflictChecker.ScheduleLookup schedules = this::querySchedules;
+
+    private Hours defaultHours;
+
+    /**
+     * Working days and hours of a person, in their zone.
+     */
+    record Hours(Set<DayOfWeek> days, LocalTime start, LocalTime end, ZoneId zone) {
+
+        /**
+         * The hours Graph reports, or the fallback when it reports none.
+         */
+        static Hours of(WorkingHours hours, Hours fallback) {
+            if (hours == null || hours.daysOfWeek == null || hours.startTime == null || hours.endTime == null) {
+                return fallback;
+            }
+            Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            for (com.microsoft.graph.models.DayOfWeek day : hours.daysOfWeek) {
+                try {
+                    days.add(DayOfWeek.valueOf(day.name()));
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    // Unknown value - not a working day
+                }
+            }
+            ZoneId zone = fallback.zone();
+            if (hours.timeZone != null && hours.timeZone.name != null) {
+                try {
+                    zone = ZoneId.of(hours.timeZone.name);
+                } catch (DateTimeException e) {
+                    // Windows zone name - assume the service's zone
+                }
+            }
+            return new Hours(days, LocalTime.of(hours.startTime.getHour(), hours.startTime.getMinute()),
+                    LocalTime.of(hours.endTime.getHour(), hours.endTime.getMinute()), zone);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (slotMinutes < 5 || 60 % slotMinutes != 0) {
+            log.warn("schedule.slots.slot-minutes={} does not divide an hour, using 15", slotMinutes);
+            slotMinutes = 15;
+        }
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : workDays.split(",")) {
+            if (!day.isBlank()) {
+                days.add(DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        defaultHours = new Hours(days, LocalTime.parse(workStart.trim()), LocalTime.parse(workEnd.trim()),
+                ZoneId.systemDefault());
+        log.info("Slot finder: enabled={}, slot={}m, horizon={}, hours={} {}-{}, ranking={}, suggestions={}",
+                enabled, slotMinutes, horizon, days, defaultHours.start(), defaultHours.end(), ranking, suggestions);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Up to suggestions times of the given length (default-length when
+     * null) when the organizer (if their user id is an address) and all
+     * attendees are free, or none when no schedule could be read.
+     */
+    public List<TimeSlot> suggest(String userId, List<String> attendees, Duration length) {
+        if (!enabled) {
+            return List.of();
+        }
+        Duration meeting = length != null && !length.isNegative() && !length.isZero() ? length : defaultLength;
+        LocalDateTime from = firstSlotAfter(now.get().plus(minNotice));
+        int slots = (int) (horizon.toMinutes() / slotMinutes);
+        int need = (int) ((meeting.toMinutes() + slotMinutes - 1) / slotMinutes);
+        LocalDateTime to = from.plusMinutes((long) slots * slotMinutes);
+
+        List<String> mailboxes = new ArrayList<>(attendeeResolver.mailboxes(userId, attendees));
+        List<CompletableFuture<List<ScheduleInformation>>> calls = new ArrayList<>();
+        for (int i = 0; i < mailboxes.size(); i += SCHEDULES_PER_CALL) {
+            List<String> chunk = mailboxes.subList(i, Math.min(i + SCHEDULES_PER_CALL, mailboxes.size()));
+            // The last chunk is fetched on this thread while the others are in flight
+            calls.add(i + SCHEDULES_PER_CALL < mailboxes.size()
+                    ? CompletableFuture.supplyAsync(() -> this.schedules.fetch(userId, chunk, from, to),
+                            graphLookupExecutor)
+                    : fetchNow(userId, chunk, from, to));
+        }
+        List<ScheduleInformation> schedules = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<ScheduleInformation>> call : calls) {
+                schedules.addAll(call.join());
+            }
+        } catch (CompletionException e) {
+            log.warn("getSchedule for {} mailbox(es) failed, no time suggested: {}", mailboxes.size(),
+                    e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            calls.forEach(call -> call.cancel(false));
+            return List.of();
+        }
+
+        long started = System.nanoTime();
+        List<TimeSlot> found = find(schedules, from, slots, Math.max(1, need));
+        long elapsed = System.nanoTime() - started;
+        meterRegistry.timer("schedulehub.slots.compute").record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Slot search {} - {} for {} mailbox(es), {} slot(s) long: {} suggestion(s) in {} us",
+                from, to, mailboxes.size(), need, found.size(), elapsed / 1000);
+        return found;
+    }
+
+    private CompletableFuture<List<ScheduleInformation>> fetchNow(String userId, List<String> mailboxes,
+            LocalDateTime from, LocalDateTime to) {
+        try {
+            return CompletableFuture.completedFuture(schedules.fetch(userId, mailboxes, from, to));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * The suggestions for slots from the read schedules: the AND of
+     * everyone's working hours minus their busy slots. With no schedules
+     * the configured working hours alone decide.
+     */
+    List<TimeSlot> find(List<ScheduleInformation> schedules, LocalDateTime from, int slots, int need) {
+        Grid free = new Grid(slots);
+        free.set(0, slots);
+        Map<Hours, Grid> masks = new HashMap<>();
+        boolean anyHours = false;
+        for (ScheduleInformation schedule : schedules) {
+            if (schedule.error != null) {
+                log.warn("No free/busy for {}, suggesting without them: {}", schedule.scheduleId,
+                        schedule.error.message);
+                continue;
+            }
+            Hours hours = Hours.of(schedule.workingHours, defaultHours);
+            free.and(masks.computeIfAbsent(hours, h -> Grid.working(h, from, slots, slotMinutes)));
+            anyHours = true;
+            if (schedule.availabilityView != null && schedule.availabilityView.length() >= slots) {
+                free.clearBusy(schedule.availabilityView, tentativeIsBusy);
+            } else if (schedule.scheduleItems != null) {
+                clearItems(free, schedule.scheduleItems, from);
+            }
+        }
+        if (!anyHours) {
+            free.and(Grid.working(defaultHours, from, slots, slotMinutes));
+        }
+        return rank(free, from, need);
+    }
+
+    private List<TimeSlot> rank(Grid free, LocalDateTime from, int need) {
+        Grid starts = free.runs(need);
+        List<Integer> chosen = new ArrayList<>();
+        if ("best".equalsIgnoreCase(ranking)) {
+            List<Scored> candidates = new ArrayList<>();
+            for (int i = starts.nextSetBit(0); i >= 0; i = starts.nextSetBit(i + 1)) {
+                candidates.add(new Scored(i, score(free, from, i, need)));
+            }
+            candidates.sort(Comparator.comparingDouble(Scored::score).reversed()
+                    .thenComparingInt(Scored::slot));
+            for (Scored candidate : candidates) {
+                if (chosen.size() >= suggestions) {
+                    break;
+                }
+                if (chosen.stream().noneMatch(slot -> Math.abs(slot - candidate.slot()) < need)) {
+                    chosen.add(candidate.slot());
+                }
+            }
+        } else {
+            for (int i = starts.nextSetBit(0); i >= 0 && chosen.size() < suggestions; i = starts.nextSetBit(i + need)) {
+                chosen.add(i);
+            }
+        }
+
+        List<TimeSlot> slots = new ArrayList<>(chosen.size());
+        for (int slot : chosen) {
+            LocalDateTime start = from.plusMinutes((long) slot * slotMinutes);
+            slots.add(TimeSlot.builder()
+                    .start(start)
+                    .end(start.plusMinutes((long) need * slotMinutes))
+                    .score(score(free, from, slot, need))
+                    .build());
+        }
+        return slots;
+    }
+
+    /**
+     * Sooner is better, starting on the hour (or half hour) is better, and
+     * free time right before and after is better.
+     */
+    private double score(Grid free, LocalDateTime from, int slot, int need) {
+        int minutes = from.getHour() * 60 + from.getMinute() + slot * slotMinutes;
+        double score = 1.0 - 0.05 * (minutes / 1440);
+        if (minutes % 60 == 0) {
+            score += 0.3;
+        } else if (minutes % 30 == 0) {
+            score += 0.15;
+        }
+        if (slot > 0 && free.get(slot - 1)) {
+            score += 0.1;
+        }
+        if (free.get(slot + need)) {
+            score += 0.1;
+        }
+        return score;
+    }
+
+    private void clearItems(Grid free, List<ScheduleItem> items, LocalDateTime from) {
+        for (ScheduleItem item : items) {
+            boolean busy = item.status == FreeBusyStatus.BUSY || item.status == FreeBusyStatus.OOF
+                    || (tentativeIsBusy && item.status == FreeBusyStatus.TENTATIVE);
+            if (!busy || item.start == null || item.end == null || item.start.dateTime == null
+                    || item.end.dateTime == null) {
+                continue;
+            }
+            long start = ChronoUnit.MINUTES.between(from,
+                    GraphCalendarService.parseDateTime(item.start.dateTime).toLocalDateTime());
+            long end = ChronoUnit.MINUTES.between(from,
+                    GraphCalendarService.parseDateTime(item.end.dateTime).toLocalDateTime());
+            free.clear(Grid.index(Math.floorDiv(start, slotMinutes), free.slots),
+                    Grid.index(Math.floorDiv(end + slotMinutes - 1, slotMinutes), free.slots));
+        }
+    }
+
+    private LocalDateTime firstSlotAfter(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        if (minute.isBefore(time)) {
+            minute = minute.plusMinutes(1);
+        }
+        int past = (minute.getHour() * 60 + minute.getMinute()) % slotMinutes;
+        return past == 0 ? minute : minute.plusMinutes(slotMinutes - past);
+    }
+
+    private List<ScheduleInformation> querySchedules(String userId, List<String> mailboxes, LocalDateTime from,
+            LocalDateTime to) {
+        CalendarGetScheduleCollectionPage page = graphServiceClient
+                .users(userId)
+                .calendar()
+                .getSchedule(CalendarGetScheduleParameterSet.newBuilder()
+                        .withSchedules(mailboxes)
+                        .withStartTime(dateTime(from))
+                        .withEndTime(dateTime(to))
+                        .withAvailabilityViewInterval(slotMinutes)
+                        .build())
+                .buildRequest(List.of(new HeaderOption("Prefer",
+                        "outlook.timezone=\"" + ZoneId.systemDefault().getId() + "\"")))
+                .post();
+        return page != null ? page.getCurrentPage() : List.of();
+    }
+
+    private static DateTimeTimeZone dateTime(LocalDateTime value) {
+        DateTimeTimeZone dateTime = new DateTimeTimeZone();
+        dateTime.dateTime = value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        dateTime.timeZone = ZoneId.systemDefault().getId();
+        return dateTime;
+    }
+
+    private record Scored(int slot, double score) {
+    }
+
+    /**
+     * A set of slots [0, slots) packed 64 to a long; bit i is slot i.
+     */
+    static final class Grid {
+
+        final int slots;
+        final long[] bits;
+
+        Grid(int slots) {
+            this.slots = slots;
+            this.bits = new long[(slots + 63) >>> 6];
+        }
+
+        /**
+         * Slots entirely inside the working hours of the days the window
+         * [from, from + slots) touches.
+         */
+        static Grid working(Hours hours, LocalDateTime from, int slots, int slotMinutes) {
+            Grid grid = new Grid(slots);
+            ZoneId local = ZoneId.systemDefault();
+            long origin = from.atZone(local).toEpochSecond();
+            long slotSeconds = slotMinutes * 60L;
+            LocalDate day = from.atZone(local).withZoneSameInstant(hours.zone()).toLocalDate();
+            LocalDate last = from.plusMinutes((long) slots * slotMinutes).atZone(local)
+                    .withZoneSameInstant(hours.zone()).toLocalDate();
+            for (; !day.isAfter(last); day = day.plusDays(1)) {
+                if (!hours.days().contains(day.getDayOfWeek())) {
+                    continue;
+                }
+                LocalDateTime endAt = day.atTime(hours.end());
+                if (!hours.end().isAfter(hours.start())) {
+                    endAt = endAt.plusDays(1); // Overnight hours
+                }
+                long start = day.atTime(hours.start()).atZone(hours.zone()).toEpochSecond() - origin;
+                long end = endAt.atZone(hours.zone()).toEpochSecond() - origin;
+                grid.set(index(Math.floorDiv(start + slotSeconds - 1, slotSeconds), slots),
+                        index(Math.floorDiv(end, slotSeconds), slots));
+            }
+            return grid;
+        }
+
+        static int index(long slot, int slots) {
+            return (int) Math.max(0, Math.min(slot, slots));
+        }
+
+        boolean get(int slot) {
+            return slot >= 0 && slot < slots && (bits[slot >>> 6] & (1L << slot)) != 0;
+        }
+
+        /**
+         * Sets slots [from, to).
+         */
+        void set(int from, int to) {
+            if (from >= to) {
+                return;
+            }
+            int first = from >>> 6;
+            int last = (to - 1) >>> 6;
+            long firstMask = -1L << from;
+            long lastMask = -1L >>> -to;
+            if (first == last) {
+                bits[first] |= firstMask & lastMask;
+                return;
+            }
+            bits[first] |= firstMask;
+            for (int word = first + 1; word < last; word++) {
+                bits[word] = -1L;
+            }
+            bits[last] |= lastMask;
+        }
+
+        /**
+         * Clears slots [from, to).
+         */
+        void clear(int from, int to) {
+            if (from >= to) {
+                return;
+            }
+            int first = from >>> 6;
+            int last = (to - 1) >>> 6;
+            long firstMask = -1L << from;
+            long lastMask = -1L >>> -to;
+            if (first == last) {
+                bits[first] &= ~(firstMask & lastMask);
+                return;
+            }
+            bits[first] &= ~firstMask;
+            for (int word = first + 1; word < last; word++) {
+                bits[word] = 0L;
+            }
+            bits[last] &= ~lastMask;
+        }
+
+        void and(Grid other) {
+            for (int word = 0; word < bits.length; word++) {
+                bits[word] &= other.bits[word];
+            }
+        }
+
+        /**
+         * Clears the slots an availability view marks busy: one digit per
+         * slot, 0 free, 1 tentative, 2 busy, 3 out of office, 4 working
+         * elsewhere. Only slots still free are looked at, so after the
+         * working hours are applied most of the view is skipped.
+         */
+        void clearBusy(String view, boolean tentativeIsBusy) {
+            int length = Math.min(view.length(), slots);
+            for (int word = 0; word < bits.length && word << 6 < length; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    int slot = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    if (slot >= length) {
+                        break;
+                    }
+                    char status = view.charAt(slot);
+                    if (status == '2' || status == '3' || (status == '1' && tentativeIsBusy)) {
+                        bits[word] &= ~(1L << slot);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Slots starting a run of length set slots: after k steps bit i
+         * is the AND of bits i..i+k.
+         */
+        Grid runs(int length) {
+            Grid runs = new Grid(slots);
+            System.arraycopy(bits, 0, runs.bits, 0, bits.length);
+            long[] words = runs.bits;
+            for (int step = 1; step < length; step++) {
+                for (int word = 0; word < words.length; word++) {
+                    long next = word + 1 < words.length ? words[word + 1] : 0L;
+                    words[word] &= (words[word] >>> 1) | (next << 63);
+                }
+            }
+            return runs;
+        }
+
+        /**
+         * The first set slot at or after from, or -1.
+         */
+        int nextSetBit(int from) {
+            if (from >= slots) {
+                return -1;
+            }
+            int word = from >>> 6;
+            long remaining = bits[word] & (-1L << from);
+            while (true) {
+                if (remaining != 0) {
+                    return word * 64 + Long.numberOfTrailingZeros(remaining);
+                }
+                if (++word == bits.length) {
+                    return -1;
+                }
+                remaining = bits[word];
+            }
+        }
+    }
+}
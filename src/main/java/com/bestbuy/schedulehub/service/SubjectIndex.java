@@ -0,0 +1,295 @@
+package com.bestbuy.schedulehub.service;
+
+import com.microsoft.graph.models.DateTimeTimeZone;
+import com.microsoft.graph.models.Event;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user trigram index over the subjects of recently read events, for fuzzy
+ * cancel and reschedule matching: "sync with Mary" finds "Mary / Alex weekly
+ * sync", which a contains() match misses.
+ *
+ * Entries (id, subject, start, end) are added from every Graph read of the
+ * user's events and the whole user index is dropped on any write through
+ * this service, or after ttl. Each user's index is an immutable snapshot
+ * (entries plus trigram postings) swapped on update, so searches take no
+ * locks and score a few hundred events in microseconds.
+ *
+ * Scoring is the share of the query's trigrams found in the subject, ties
+ * broken by Dice similarity and then by the earliest start.
+ */
+@Slf4j
+@Component
+public class SubjectIndex {
+
+    // Words that say nothing about which meeting is meant
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "the", "with", "and", "my", "our", "to", "of",
+            "on", "at", "for", "in");
+
+    @Value("${schedule.subject-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${schedule.subject-index.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${schedule.subject-index.max-entries-per-user:500}")
+    private int maxEntriesPerUser;
+
+    @Value("${schedule.subject-index.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${schedule.subject-index.min-score:0.6}")
+    private double minScore;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final ConcurrentHashMap<String, UserIndex> users = new ConcurrentHashMap<>();
+
+    /**
+     * Compact copy of an event read from Graph.
+     */
+    public record Entry(String id, String subject, LocalDateTime start, LocalDateTime end) {
+
+        /**
+         * The entry as an Event with the fields cancel and reschedule use.
+         */
+        public Event toEvent() {
+            Event event = new Event();
+            event.id = id;
+            event.subject = subject;
+            event.start = dateTime(start);
+            event.end = dateTime(end);
+            return event;
+        }
+
+        private static DateTimeTimeZone dateTime(LocalDateTime value) {
+            if (value == null) {
+                return null;
+            }
+            DateTimeTimeZone dateTime = new DateTimeTimeZone();
+            dateTime.dateTime = value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            return dateTime;
+        }
+    }
+
+    public record Candidate(Entry entry, double score) {
+
+        /**
+         * Every significant word of the query is in the subject. Anything
+         * less is a guess, e.g. "that meeting" against "Team meeting".
+         */
+        public boolean isExact() {
+            return score >= 1.0;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        log.info("Subject index: enabled={}, ttl={}, maxEntriesPerUser={}, minScore={}",
+                enabled, ttl, maxEntriesPerUser, minScore);
+    }
+
+    /**
+     * Adds (or refreshes) events read from Graph for the user.
+     */
+    public void add(String userId, List<Event> events) {
+        if (!enabled || userId == null || events == null || events.isEmpty()) {
+            return;
+        }
+        if (users.size() >= maxUsers) {
+            purgeExpired();
+            if (users.size() >= maxUsers) {
+                return;
+            }
+        }
+        long now = clock.getAsLong();
+        users.compute(key(userId), (k, current) -> {
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            if (current != null && !current.isExpired(now)) {
+                for (Entry entry : current.entries) {
+                    entries.put(entry.id(), entry);
+                }
+            }
+            for (Event event : events) {
+                if (event.id != null && event.subject != null) {
+                    entries.remove(event.id);
+                    entries.put(event.id, new Entry(event.id, event.subject, startOf(event.start),
+                            startOf(event.end)));
+                }
+            }
+            List<Entry> kept = new ArrayList<>(entries.values());
+            if (kept.size() > maxEntriesPerUser) {
+                // Most recently read entries are at the end
+                kept = kept.subList(kept.size() - maxEntriesPerUser, kept.size());
+            }
+            long expiresAt = current != null && !current.isExpired(now) ? current.expiresAtMillis
+                    : now + ttl.toMillis();
+            return new UserIndex(kept.toArray(new Entry[0]), expiresAt);
+        });
+    }
+
+    /**
+     * Drops everything indexed for the user, after this service changed
+     * their calendar.
+     */
+    public void invalidate(String userId) {
+        if (userId != null) {
+            users.remove(key(userId));
+        }
+    }
+
+    /**
+     * Candidates for the subject ranked best first, restricted to events
+     * starting within [startDate, endDate] when both are given, otherwise to
+     * events starting from today.
+     */
+    public List<Candidate> search(String userId, String subject, LocalDateTime startDate, LocalDateTime endDate,
+            int limit) {
+        if (!enabled || userId == null || subject == null || subject.isBlank()) {
+            return List.of();
+        }
+        UserIndex index = users.get(key(userId));
+        if (index == null) {
+            return List.of();
+        }
+        if (index.isExpired(clock.getAsLong())) {
+            users.remove(key(userId), index);
+            return List.of();
+        }
+        boolean dated = startDate != null && endDate != null;
+        LocalDateTime notBefore = dated ? startDate : LocalDate.now().atStartOfDay();
+        return index.search(trigrams(subject), notBefore, dated ? endDate : null, minScore, limit);
+    }
+
+    /**
+     * The best candidate at or above min-score, if any.
+     */
+    public Optional<Candidate> best(String userId, String subject, LocalDateTime startDate, LocalDateTime endDate) {
+        List<Candidate> candidates = search(userId, subject, startDate, endDate, 1);
+        return candidates.isEmpty() ? Optional.empty() : Optional.of(candidates.get(0));
+    }
+
+    /**
+     * Padded trigrams of the significant words: "Weekly sync" -> " we",
+     * "wee", ... "ly ", " sy", "syn", "ync", "nc ". Each is packed into a
+     * long (three 16-bit chars).
+     */
+    static long[] trigrams(String text) {
+        List<Long> grams = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty() || STOP_WORDS.contains(word)) {
+                continue;
+            }
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+            }
+        }
+        return grams.stream().mapToLong(Long::longValue).distinct().toArray();
+    }
+
+    private void purgeExpired() {
+        long now = clock.getAsLong();
+        users.values().removeIf(index -> index.isExpired(now));
+    }
+
+    private static LocalDateTime startOf(DateTimeTimeZone dateTime) {
+        return dateTime != null && dateTime.dateTime != null
+                ? GraphCalendarService.parseDateTime(dateTime.dateTime).toLocalDateTime()
+                : null;
+    }
+
+    private static String key(String userId) {
+        return userId.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable index of one user's entries: trigram -> positions of the
+     * entries containing it.
+     */
+    private static final class UserIndex {
+
+        final Entry[] entries;
+        final int[] gramCounts;
+        final Map<Long, int[]> postings;
+        final long expiresAtMillis;
+
+        UserIndex(Entry[] entries, long expiresAtMillis) {
+            this.entries = entries;
+            this.expiresAtMillis = expiresAtMillis;
+            this.gramCounts = new int[entries.length];
+            Map<Long, List<Integer>> lists = new HashMap<>();
+            for (int i = 0; i < entries.length; i++) {
+                long[] grams = trigrams(entries[i].subject());
+                gramCounts[i] = grams.length;
+                for (long gram : grams) {
+                    lists.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+                }
+            }
+            this.postings = new HashMap<>(lists.size() * 2);
+            lists.forEach((gram, list) -> postings.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtMillis >= 0;
+        }
+
+        List<Candidate> search(long[] query, LocalDateTime notBefore, LocalDateTime notAfter, double minScore,
+                int limit) {
+            if (query.length == 0) {
+                return List.of();
+            }
+            int[] shared = new int[entries.length];
+            for (long gram : query) {
+                int[] positions = postings.get(gram);
+                if (positions != null) {
+                    for (int position : positions) {
+                        shared[position]++;
+                    }
+                }
+            }
+            List<Scored> scored = new ArrayList<>();
+            for (int i = 0; i < entries.length; i++) {
+                double score = (double) shared[i] / query.length;
+                if (score < minScore) {
+                    continue;
+                }
+                LocalDateTime start = entries[i].start();
+                if (start == null || start.isBefore(notBefore) || (notAfter != null && start.isAfter(notAfter))) {
+                    continue;
+                }
+                scored.add(new Scored(entries[i], score, 2.0 * shared[i] / (query.length + gramCounts[i])));
+            }
+            scored.sort(Comparator.comparingDouble(Scored::score).reversed()
+                    .thenComparing(Comparator.comparingDouble(Scored::dice).reversed())
+                    .thenComparing(candidate -> candidate.entry().start()));
+            List<Candidate> ranked = new ArrayList<>(Math.min(limit, scored.size()));
+            for (Scored candidate : scored.subList(0, Math.min(limit, scored.size()))) {
+                ranked.add(new Candidate(candidate.entry(), candidate.score()));
+            }
+            return ranked;
+        }
+    }
+
+    private record Scored(Entry entry, double score, double dice) {
+    }
+}
@@ -0,0 +1,325 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user and per-tenant OpenAI token accounting with sliding-window quotas.
+ *
+ * Totals are LongAdders (striped, so concurrent requests from many threads do
+ * not contend on one counter). The quota window is a ring of time buckets,
+ * each one AtomicLong packing the bucket's epoch with its token count, so a
+ * bucket rolls over and is incremented with a single CAS and no locks.
+ *
+ * Quotas are checked before a request reaches the LLM; see
+ * schedule.quota.action for what happens to requests over quota.
+ *
+ * The tenant of a user is the domain of their X-User-Id (user@contoso.com ->
+ * contoso.com); ids without a domain (object ids) share the "default" tenant.
+ * The id is client-supplied, so only the tenants listed in metric-tenants get
+ * their own tag on schedulehub.openai.tokens.by-tenant and the rest are
+ * counted as "other"; the tokenusage endpoint still lists every tenant.
+ * Once more than 10,000 users or tenants are tracked, each record also
+ * examines the next PURGE_BUDGET of them (a cursor that wraps around) and
+ * drops the idle ones, so no single request pays for a scan of the map.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenUsageTracker {
+
+    static final String DEFAULT_TENANT = "default";
+    static final String OTHER_TENANT = "other";
+    private static final String ANONYMOUS = "anonymous";
+    private static final int MAX_TRACKED = 10_000; // Idle keys are purged beyond this
+    private static final int PURGE_BUDGET = 64; // Keys examined for idleness per record
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${schedule.quota.enabled:true}")
+    private boolean enabled;
+
+    @Value("${schedule.quota.window:1h}")
+    private Duration window;
+
+    @Value("${schedule.quota.buckets:60}")
+    private int buckets;
+
+    @Value("${schedule.quota.user-tokens-per-window:200000}")
+    private long userTokensPerWindow;
+
+    @Value("${schedule.quota.tenant-tokens-per-window:5000000}")
+    private long tenantTokensPerWindow;
+
+    @Value("${schedule.quota.action:downgrade}")
+    private String action;
+
+    @Value("${schedule.quota.downgrade-min-confidence:0.6}")
+    private double downgradeMinConfidence;
+
+    @Value("${schedule.quota.metric-tenants:}")
+    private String metricTenants; // Comma-separated tenants tagged by name on the token metric
+
+    private Set<String> taggedTenants = Set.of(DEFAULT_TENANT);
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final ConcurrentHashMap<String, UsageCounter> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, UsageCounter> tenants = new ConcurrentHashMap<>();
+    private final IdlePurge userPurge = new IdlePurge(users);
+    private final IdlePurge tenantPurge = new IdlePurge(tenants);
+
+    public enum QuotaStatus {
+        ALLOWED, USER_EXCEEDED, TENANT_EXCEEDED
+    }
+
+    @PostConstruct
+    public void init() {
+        buckets = Math.max(1, buckets);
+        Set<String> tagged = new HashSet<>();
+        tagged.add(DEFAULT_TENANT);
+        if (metricTenants != null) {
+            for (String tenant : metricTenants.split(",")) {
+                if (!tenant.isBlank()) {
+                    tagged.add(tenant.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        taggedTenants = Set.copyOf(tagged);
+        log.info("Token quotas: enabled={}, window={} ({} buckets), per user={}, per tenant={}, action={}, "
+                + "metric tenants={}", enabled, window, buckets, userTokensPerWindow, tenantTokensPerWindow, action,
+                taggedTenants);
+    }
+
+    /**
+     * Whether over-quota requests may still be served by the rule-based parser
+     * at {@link #getDowngradeMinConfidence()} ("downgrade"), rather than
+     * rejected outright ("reject").
+     */
+    public boolean isDowngrade() {
+        return "downgrade".equalsIgnoreCase(action);
+    }
+
+    public double getDowngradeMinConfidence() {
+        return downgradeMinConfidence;
+    }
+
+    /**
+     * Charges the tokens of one completion to the user and their tenant.
+     */
+    public void record(String userId, TokenUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        String user = userKey(userId);
+        String tenant = tenantOf(user);
+        long epoch = currentEpoch();
+        users.computeIfAbsent(user, k -> new UsageCounter(buckets)).add(usage, epoch);
+        tenants.computeIfAbsent(tenant, k -> new UsageCounter(buckets)).add(usage, epoch);
+        Counter.builder("schedulehub.openai.tokens.by-tenant")
+                .tag("tenant", taggedTenants.contains(tenant) ? tenant : OTHER_TENANT)
+                .baseUnit("tokens")
+                .register(meterRegistry)
+                .increment(usage.getTotalTokens());
+        if (users.size() > MAX_TRACKED) {
+            userPurge.run(epoch);
+        }
+        if (tenants.size() > MAX_TRACKED) {
+            tenantPurge.run(epoch);
+        }
+    }
+
+    /**
+     * Checks the user's and tenant's token use in the current window, before
+     * a request goes to the LLM.
+     */
+    public QuotaStatus check(String userId) {
+        if (!enabled) {
+            return QuotaStatus.ALLOWED;
+        }
+        String user = userKey(userId);
+        long epoch = currentEpoch();
+        QuotaStatus status = QuotaStatus.ALLOWED;
+        if (windowTokens(tenants.get(tenantOf(user)), epoch) >= tenantTokensPerWindow) {
+            status = QuotaStatus.TENANT_EXCEEDED;
+        } else if (windowTokens(users.get(user), epoch) >= userTokensPerWindow) {
+            status = QuotaStatus.USER_EXCEEDED;
+        }
+        if (status != QuotaStatus.ALLOWED) {
+            Counter.builder("schedulehub.quota.exceeded")
+                    .tag("scope", status == QuotaStatus.TENANT_EXCEEDED ? "tenant" : "user")
+                    .register(meterRegistry)
+                    .increment();
+        }
+        return status;
+    }
+
+    public long windowTokensForUser(String userId) {
+        return windowTokens(users.get(userKey(userId)), currentEpoch());
+    }
+
+    /**
+     * The heaviest users and tenants in the current window, for the
+     * tokenusage actuator endpoint.
+     */
+    public Map<String, Object> topConsumers(int limit) {
+        long epoch = currentEpoch();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", window.toString());
+        result.put("userTokensPerWindow", userTokensPerWindow);
+        result.put("tenantTokensPerWindow", tenantTokensPerWindow);
+        result.put("users", top(users, epoch, limit));
+        result.put("tenants", top(tenants, epoch, limit));
+        return result;
+    }
+
+    static String tenantOf(String userId) {
+        int at = userId.lastIndexOf('@');
+        return at >= 0 && at < userId.length() - 1 ? userId.substring(at + 1) : DEFAULT_TENANT;
+    }
+
+    private static String userKey(String userId) {
+        return userId == null || userId.isBlank() ? ANONYMOUS : userId.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private long currentEpoch() {
+        long bucketMillis = Math.max(1, window.toMillis() / buckets);
+        return clock.getAsLong() / bucketMillis;
+    }
+
+    private static long windowTokens(UsageCounter counter, long epoch) {
+        return counter == null ? 0 : counter.windowTokens(epoch);
+    }
+
+    private static List<Map<String, Object>> top(Map<String, UsageCounter> counters, long epoch, int limit) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        counters.forEach((key, counter) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", key);
+            row.put("windowTokens", counter.windowTokens(epoch));
+            row.put("totalTokens", counter.promptTokens.sum() + counter.completionTokens.sum());
+            row.put("promptTokens", counter.promptTokens.sum());
+            row.put("completionTokens", counter.completionTokens.sum());
+            row.put("cachedTokens", counter.cachedTokens.sum());
+            row.put("requests", counter.requests.sum());
+            rows.add(row);
+        });
+        rows.sort(Comparator.comparingLong((Map<String, Object> row) -> (long) row.get("windowTokens"))
+                .thenComparingLong(row -> (long) row.get("totalTokens"))
+                .reversed());
+        return rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+    }
+
+    /**
+     * Incremental purge of idle counters: each run resumes where the last
+     * one stopped. A run is skipped while another thread is purging.
+     */
+    private static final class IdlePurge {
+
+        private final ConcurrentHashMap<String, UsageCounter> counters;
+        private final ReentrantLock lock = new ReentrantLock();
+        private Iterator<UsageCounter> cursor; // Guarded by lock
+
+        IdlePurge(ConcurrentHashMap<String, UsageCounter> counters) {
+            this.counters = counters;
+        }
+
+        void run(long epoch) {
+            if (!lock.tryLock()) {
+                return;
+            }
+            try {
+                for (int examined = 0; examined < PURGE_BUDGET; examined++) {
+                    if (cursor == null || !cursor.hasNext()) {
+                        cursor = counters.values().iterator();
+                        if (!cursor.hasNext()) {
+                            return;
+                        }
+                    }
+                    if (cursor.next().windowTokens(epoch) == 0) {
+                        cursor.remove();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Lock-free counters for one user or tenant.
+     */
+    static final class UsageCounter {
+
+        private static final int COUNT_BITS = 40; // Up to ~10^12 tokens per bucket
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+        private static final long EPOCH_MASK = (1L << (64 - COUNT_BITS)) - 1;
+
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder completionTokens = new LongAdder();
+        final LongAdder cachedTokens = new LongAdder();
+        final LongAdder requests = new LongAdder();
+        // Each slot: bucket epoch (high bits) | tokens in that bucket (low bits)
+        private final AtomicLongArray slots;
+
+        UsageCounter(int buckets) {
+            slots = new AtomicLongArray(buckets);
+        }
+
+        void add(TokenUsage usage, long epoch) {
+            promptTokens.add(usage.getPromptTokens());
+            completionTokens.add(usage.getCompletionTokens());
+            cachedTokens.add(usage.getCachedTokens());
+            requests.increment();
+            addToWindow(usage.getTotalTokens(), epoch);
+        }
+
+        void addToWindow(long tokens, long epoch) {
+            int index = (int) (epoch % slots.length());
+            long tag = epoch & EPOCH_MASK;
+            while (true) {
+                long current = slots.get(index);
+                long count = (current >>> COUNT_BITS) == tag ? current & COUNT_MASK : 0;
+                long next = (tag << COUNT_BITS) | Math.min(COUNT_MASK, count + tokens);
+                if (slots.compareAndSet(index, current, next)) {
+                    return;
+                }
+            }
+        }
+
+        long windowTokens(long epoch) {
+            long total = 0;
+            int n = slots.length();
+            for (int i = 0; i < n; i++) {
+                long slot = slots.get(i);
+                long age = ((epoch & EPOCH_MASK) - (slot >>> COUNT_BITS)) & EPOCH_MASK;
+                if (age < n) {
+                    total += slot & COUNT_MASK;
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -48,7 +49,7 @@ class ScheduleControllerTest {
                                 .attendees(Arrays.asList("Mary"))
                                 .build();
 
-                when(ScheduleService.processScheduleRequest(anyString(), anyString()))
+                when(ScheduleService.processScheduleRequest(anyString(), anyString(), any()))
                                 .thenReturn(response);
 
                 // Act & Assert
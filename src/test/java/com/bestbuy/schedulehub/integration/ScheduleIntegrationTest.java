@@ -61,7 +61,7 @@ class ScheduleIntegrationTest {
                 when(openAIService.extractIntentAndEntities("Book Mary for 2 PM tomorrow"))
                                 .thenReturn(entities);
                 when(graphCalendarService.createEvent(any(ExtractedEntities.class), anyString()))
-                                .thenReturn("event-123");
+                                .thenReturn(new GraphCalendarService.CreatedEvent("event-123", Collections.emptyList()));
 
                 ScheduleRequest request = new ScheduleRequest();
                 request.setText("Book Mary for 2 PM tomorrow");
@@ -95,7 +95,7 @@ class ScheduleIntegrationTest {
                                 "Book myTeam 3 PM to 4 PM every weekday from Jan to Jul, except every second Tuesday"))
                                 .thenReturn(entities);
                 when(graphCalendarService.createEvent(any(ExtractedEntities.class), anyString()))
-                                .thenReturn("event-456");
+                                .thenReturn(new GraphCalendarService.CreatedEvent("event-456", Collections.emptyList()));
 
                 ScheduleRequest request = new ScheduleRequest();
                 request.setText("Book myTeam 3 PM to 4 PM every weekday from Jan to Jul, except every second Tuesday");
@@ -129,7 +129,7 @@ class ScheduleIntegrationTest {
                                 "Schedule team sync 9 AM every weekday, but skip Monday in the first week and skip Tuesday/Thursday in the second week"))
                                 .thenReturn(entities);
                 when(graphCalendarService.createEvent(any(ExtractedEntities.class), anyString()))
-                                .thenReturn("event-789");
+                                .thenReturn(new GraphCalendarService.CreatedEvent("event-789", Collections.emptyList()));
 
                 ScheduleRequest request = new ScheduleRequest();
                 request.setText("Schedule team sync 9 AM every weekday, but skip Monday in the first week and skip Tuesday/Thursday in the second week");
@@ -0,0 +1,109 @@
+package com.bestbuy.schedulehub.service;
+
+import com.microsoft.graph.models.Attendee;
+import com.microsoft.graph.models.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttendeeResolverTest {
+
+        private final AtomicLong now = new AtomicLong();
+        private final List<List<String>> lookups = new ArrayList<>();
+        private final List<User> directory = new ArrayList<>();
+        private AttendeeResolver resolver;
+
+        @BeforeEach
+        void setUp() {
+                resolver = new AttendeeResolver(null, new SimpleMeterRegistry());
+                ReflectionTestUtils.setField(resolver, "directoryLookup", true);
+                ReflectionTestUtils.setField(resolver, "maxSize", 100);
+                ReflectionTestUtils.setField(resolver, "ttl", Duration.ofHours(1));
+                ReflectionTestUtils.setField(resolver, "negativeTtl", Duration.ofMinutes(10));
+                ReflectionTestUtils.setField(resolver, "fallbackDomain", "example.com");
+                resolver.clock = now::get;
+                resolver.directory = names -> {
+                        lookups.add(List.copyOf(names));
+                        return directory;
+                };
+                resolver.init();
+                directory.add(user("Bob Smith", "bob.smith@contoso.com"));
+                directory.add(user("Alice Jones", "alice@contoso.com"));
+                directory.add(user("Alice Brown", "abrown@contoso.com"));
+        }
+
+        @Test
+        void testNamesOfARequestShareOneLookup() {
+                List<Attendee> attendees = resolver.resolve(List.of("Bob Smith", "carol@contoso.com", "alice jones"));
+
+                assertEquals(List.of("bob.smith@contoso.com", "carol@contoso.com", "alice@contoso.com"),
+                                attendees.stream().map(a -> a.emailAddress.address).toList());
+                assertEquals("Alice Jones", attendees.get(2).emailAddress.name);
+                assertEquals("Carol", attendees.get(1).emailAddress.name);
+                assertEquals(List.of(List.of("Bob Smith", "alice jones")), lookups);
+        }
+
+        @Test
+        void testOnlyExactNamesResolveAndTheRestAreReported() {
+                ReflectionTestUtils.setField(resolver, "fallbackDomain", "");
+                directory.add(user("Bobby Tables", "bobby@contoso.com"));
+                directory.get(0).givenName = "Bob";
+                directory.get(1).givenName = "Alice";
+                directory.get(2).givenName = "Alice";
+
+                List<Attendee> attendees = resolver.resolve(List.of("Bob", "Alice", "Bobb", "alice brown"));
+
+                assertEquals(List.of("bob.smith@contoso.com", "abrown@contoso.com"),
+                                attendees.stream().map(a -> a.emailAddress.address).toList());
+                assertEquals(List.of("Alice", "Bobb"),
+                                resolver.resolveAll(List.of("Bob", "Alice", "Bobb", "alice brown")).unresolved());
+                assertEquals(1, lookups.size());
+        }
+
+        @Test
+        void testUnresolvedNamesUseTheFallbackDomainWhenConfigured() {
+                List<Attendee> attendees = resolver.resolve(List.of("Alice"));
+
+                assertEquals("alice@example.com", attendees.get(0).emailAddress.address);
+                assertTrue(resolver.resolveAll(List.of("Alice")).unresolved().isEmpty());
+        }
+
+        @Test
+        void testHitsAndMissesAreCachedUntilTheirTtl() {
+                resolver.resolve(List.of("Bob Smith", "Dave"));
+                resolver.resolve(List.of("bob smith", "Dave"));
+                assertEquals(1, lookups.size());
+
+                now.addAndGet(Duration.ofMinutes(11).toNanos());
+                resolver.resolve(List.of("Bob Smith", "Dave"));
+                assertEquals(List.of("Dave"), lookups.get(1));
+        }
+
+        @Test
+        void testFailedLookupIsNotCachedAndUnresolvedCanBeDropped() {
+                ReflectionTestUtils.setField(resolver, "fallbackDomain", "");
+                resolver.directory = names -> {
+                        lookups.add(List.copyOf(names));
+                        throw new IllegalStateException("throttled");
+                };
+
+                assertTrue(resolver.resolve(List.of("Bob Smith")).isEmpty());
+                resolver.resolve(List.of("Bob Smith"));
+                assertEquals(2, lookups.size());
+        }
+
+        private static User user(String displayName, String mail) {
+                User user = new User();
+                user.displayName = displayName;
+                user.mail = mail;
+                return user;
+        }
+}
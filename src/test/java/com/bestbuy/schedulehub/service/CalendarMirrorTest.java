@@ -0,0 +1,182 @@
+package com.bestbuy.schedulehub.service;
+
+import com.google.gson.JsonObject;
+import com.microsoft.graph.models.DateTimeTimeZone;
+import com.microsoft.graph.models.Event;
+import com.microsoft.graph.models.EventType;
+import com.microsoft.graph.models.ItemBody;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarMirrorTest {
+
+        private static final String USER = "alice@contoso.com";
+
+        private ThreadPoolTaskScheduler scheduler;
+        private SimpleMeterRegistry meterRegistry;
+        private CalendarMirror mirror;
+        private final AtomicLong now = new AtomicLong(1_000_000L);
+
+        @BeforeEach
+        void setUp() {
+                scheduler = new ThreadPoolTaskScheduler();
+                scheduler.initialize();
+                meterRegistry = new SimpleMeterRegistry();
+                // No Graph client: background syncs fail and leave the mirror unsynced
+                mirror = new CalendarMirror(null, scheduler, meterRegistry);
+                ReflectionTestUtils.setField(mirror, "enabled", true);
+                ReflectionTestUtils.setField(mirror, "lookback", Duration.ofDays(7));
+                ReflectionTestUtils.setField(mirror, "lookahead", Duration.ofDays(90));
+                ReflectionTestUtils.setField(mirror, "maxStaleness", Duration.ofMinutes(2));
+                ReflectionTestUtils.setField(mirror, "idleTimeout", Duration.ofMinutes(30));
+                ReflectionTestUtils.setField(mirror, "maxUsers", 10);
+                ReflectionTestUtils.setField(mirror, "refreshInterval", Duration.ofHours(1));
+                mirror.clock = now::get;
+                mirror.init();
+        }
+
+        @AfterEach
+        void tearDown() {
+                scheduler.shutdown();
+        }
+
+        @Test
+        void testFirstLookupStartsMirroringAndGoesToGraph() {
+                assertTrue(mirror.find("standup", null, null, USER).isEmpty());
+                assertEquals(1.0, meterRegistry.get("schedulehub.calendar.mirror.users").gauge().value());
+
+                // Not synced yet, so still not answered locally
+                assertTrue(mirror.find("standup", null, null, USER).isEmpty());
+        }
+
+        @Test
+        void testFreshMirrorAnswersInStartOrder() {
+                seed(List.of(
+                                event("2", "Team standup", 3),
+                                event("1", "Standup", 1),
+                                event("3", "Planning", 2)));
+
+                List<Event> found = mirror.find("standup", null, null, USER).orElseThrow();
+
+                assertEquals(List.of("1", "2"), found.stream().map(e -> e.id).toList());
+
+                now.addAndGet(Duration.ofMinutes(3).toMillis());
+                assertTrue(mirror.find("standup", null, null, USER).isEmpty());
+                assertEquals(180.0, meterRegistry.get("schedulehub.calendar.mirror.lag").gauge().value());
+        }
+
+        @Test
+        void testMirrorKeepsOnlyTheLookupFields() {
+                Event occurrence = event("1", "Standup", 1);
+                occurrence.type = EventType.OCCURRENCE;
+                occurrence.seriesMasterId = "series-1";
+                occurrence.body = new ItemBody();
+                occurrence.body.content = "Agenda";
+                CalendarMirror.UserMirror user = seed(List.of(occurrence));
+
+                CalendarMirror.MirroredEvent stored = user.events.get("1");
+                assertEquals(LocalDate.now().plusDays(1).atTime(10, 0), stored.start());
+                assertEquals(EventType.OCCURRENCE, stored.type());
+
+                Event found = mirror.find("standup", null, null, USER).orElseThrow().get(0);
+                assertEquals("series-1", found.seriesMasterId);
+                assertNull(found.body);
+        }
+
+        @Test
+        void testLagOfANeverSyncedMirrorCountsFromTracking() {
+                // The sync fails (no Graph client), so the mirror stays unsynced
+                mirror.find("standup", null, null, USER);
+
+                now.addAndGet(Duration.ofMinutes(5).toMillis());
+
+                assertEquals(300.0, meterRegistry.get("schedulehub.calendar.mirror.lag").gauge().value());
+        }
+
+        @Test
+        void testDeltaRemovalsAndCancellationsAreDropped() {
+                CalendarMirror.UserMirror user = seed(List.of(event("1", "Standup", 1), event("2", "Sync", 1)));
+
+                Event removed = new Event();
+                removed.id = "1";
+                removed.additionalDataManager().put("@removed", new JsonObject());
+                Event cancelled = event("2", "Sync", 1);
+                cancelled.isCancelled = true;
+                user.apply(List.of(removed, cancelled, event("4", "Retro", 5)));
+
+                assertEquals(List.of("4"), mirror.find(null, null, null, USER).orElseThrow().stream()
+                                .map(e -> e.id).toList());
+        }
+
+        @Test
+        void testWriteMakesMirrorStaleUntilNextSync() {
+                CalendarMirror.UserMirror user = seed(List.of(event("1", "Standup", 1)));
+
+                now.addAndGet(1000);
+                mirror.invalidate(USER, "1");
+
+                assertTrue(mirror.find("standup", null, null, USER).isEmpty());
+                assertFalse(user.events.containsKey("1"));
+        }
+
+        @Test
+        void testIdleUsersAreEvicted() {
+                seed(List.of(event("1", "Standup", 1)));
+
+                now.addAndGet(Duration.ofMinutes(31).toMillis());
+                mirror.refreshAll();
+
+                assertEquals(0.0, meterRegistry.get("schedulehub.calendar.mirror.users").gauge().value());
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void testLeastRecentlySyncedUsersAreSyncedFirst() {
+                Map<String, CalendarMirror.UserMirror> mirrors = (Map<String, CalendarMirror.UserMirror>) ReflectionTestUtils
+                                .getField(mirror, "mirrors");
+                for (int i = 0; i < 4; i++) {
+                        CalendarMirror.UserMirror user = new CalendarMirror.UserMirror("user" + i + "@contoso.com",
+                                        now.get());
+                        user.lastSyncMillis = now.get() - i * 1000L;
+                        mirrors.put(user.userId, user);
+                }
+                mirrors.get("user2@contoso.com").queued.set(true);
+
+                assertEquals(List.of("user3@contoso.com", "user1@contoso.com", "user0@contoso.com"),
+                                mirror.dueForSync().stream().map(user -> user.userId).toList());
+        }
+
+        @SuppressWarnings("unchecked")
+        private CalendarMirror.UserMirror seed(List<Event> events) {
+                CalendarMirror.UserMirror user = new CalendarMirror.UserMirror(USER, now.get());
+                LocalDateTime windowStart = LocalDate.now().atStartOfDay().minusDays(7);
+                user.replace(events, windowStart, windowStart.plusDays(97));
+                user.lastSyncMillis = now.get();
+                user.lastAccessMillis = now.get();
+                ((Map<String, CalendarMirror.UserMirror>) ReflectionTestUtils.getField(mirror, "mirrors"))
+                                .put(USER, user);
+                return user;
+        }
+
+        private static Event event(String id, String subject, int daysAhead) {
+                Event event = new Event();
+                event.id = id;
+                event.subject = subject;
+                event.start = new DateTimeTimeZone();
+                event.start.dateTime = LocalDate.now().plusDays(daysAhead).atTime(10, 0) + ":00.0000000";
+                return event;
+        }
+}
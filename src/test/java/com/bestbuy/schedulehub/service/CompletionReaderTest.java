@@ -0,0 +1,206 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.TokenUsage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionReaderTest {
+
+        private static final String CONTENT = "{\"intent\":\"BookMeeting\",\"attendees\":[\"Alex\",null,\"bob@example.com\"],"
+                        + "\"startDateTime\":\"2025-12-10T15:00\",\"endDateTime\":\"2025-12-10T16:00\","
+                        + "\"subject\":\"Design review\",\"location\":null,\"recurrencePattern\":\"weekly\","
+                        + "\"exceptions\":[\"first tuesday\"],\"extra\":{\"nested\":[1,2]}}";
+
+        // Bytes per request for rendering the body and reading the completion (about 7.6 KB today)
+        private static final long STREAMING_ALLOCATION_BUDGET = 12_000;
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final CompletionReader reader = new CompletionReader();
+
+        @Test
+        void testReadsContentAndUsageFromCompletion() throws IOException {
+                CompletionReader.Completion completion = reader.readCompletion(stream(completionJson()));
+
+                assertEquals(CONTENT, completion.content());
+                TokenUsage usage = completion.usage();
+                assertEquals(812, usage.getPromptTokens());
+                assertEquals(64, usage.getCompletionTokens());
+                assertEquals(768, usage.getCachedTokens());
+        }
+
+        @Test
+        void testMissingChoicesAndUsage() throws IOException {
+                CompletionReader.Completion completion = reader.readCompletion(stream("{\"id\":\"x\",\"choices\":[]}"));
+
+                assertNull(completion.content());
+                assertNull(completion.usage());
+        }
+
+        @Test
+        void testBindsEntitiesWithoutIntermediateMap() throws IOException {
+                CompletionReader.RawEntities raw = reader.readEntities(CONTENT);
+
+                assertEquals("BookMeeting", raw.intent());
+                assertEquals(List.of("Alex", "bob@example.com"), raw.attendees());
+                assertEquals("2025-12-10T15:00", raw.startDateTime());
+                assertEquals("Design review", raw.subject());
+                assertNull(raw.location());
+                assertEquals("weekly", raw.recurrencePattern());
+                assertEquals(List.of("first tuesday"), raw.exceptions());
+        }
+
+        @Test
+        void testMatchesMapBasedBinding() throws IOException {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> map = objectMapper.readValue(CONTENT, Map.class);
+
+                assertEquals(CompletionReader.fromMap(map), reader.readEntities(CONTENT));
+        }
+
+        @Test
+        void testNonStringValues() throws IOException {
+                CompletionReader.RawEntities raw = reader.readEntities(
+                                "{\"intent\":null,\"subject\":42,\"attendees\":\"Alex\",\"location\":{\"room\":\"A\"}}");
+
+                assertNull(raw.intent());
+                assertEquals("42", raw.subject());
+                assertNull(raw.attendees());
+                assertNull(raw.location());
+        }
+
+        @Test
+        void testTemplateRendersSameRequestAsMapSerialization() throws IOException {
+                ChatRequestTemplate template = new ChatRequestTemplate("gpt-5-chat", "Static \"prompt\"\nline two");
+
+                JsonNode rendered = objectMapper.readTree(template.render(
+                                List.of("Current date: 2025-12-10, Current time: 09:00"), "book \"sync\" at 3pm\t! ✓",
+                                true));
+
+                Map<String, Object> expected = new HashMap<>();
+                expected.put("model", "gpt-5-chat");
+                expected.put("response_format", Map.of("type", "json_object"));
+                expected.put("temperature", 0.1);
+                expected.put("messages", List.of(
+                                Map.of("role", "system", "content", "Static \"prompt\"\nline two"),
+                                Map.of("role", "system", "content", "Current date: 2025-12-10, Current time: 09:00"),
+                                Map.of("role", "user", "content", "book \"sync\" at 3pm\t! ✓")));
+                expected.put("stream", true);
+                expected.put("stream_options", Map.of("include_usage", true));
+                assertEquals(objectMapper.valueToTree(expected), rendered);
+        }
+
+        @Test
+        void testTemplateOmitsModelForAzure() throws IOException {
+                JsonNode rendered = objectMapper.readTree(
+                                new ChatRequestTemplate(null, "p").render(List.of(), "u", false));
+
+                assertFalse(rendered.has("model"));
+                assertFalse(rendered.has("stream"));
+                assertEquals(2, rendered.get("messages").size());
+        }
+
+        /**
+         * Allocation per request of the streaming path versus the previous
+         * Map-based path (String body, two Map parses, per-call formatters,
+         * HashMap request body): at most two thirds of it, and within a fixed
+         * budget so regressions fail the build.
+         */
+        @Test
+        void testStreamingPathAllocatesLessThanMapPath() throws IOException {
+                byte[] response = completionJson().getBytes(StandardCharsets.UTF_8);
+                ChatRequestTemplate template = new ChatRequestTemplate(null, ExtractionPrompts.FULL_SYSTEM_PROMPT);
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+                int iterations = 2_000;
+
+                long legacy = 0;
+                long streaming = 0;
+                // Second round is measured; the first warms up both paths
+                for (int round = 0; round < 2; round++) {
+                        long before = allocatedBytes();
+                        for (int i = 0; i < iterations; i++) {
+                                legacyRequestBody();
+                                legacyParse(response);
+                        }
+                        legacy = (allocatedBytes() - before) / iterations;
+
+                        before = allocatedBytes();
+                        for (int i = 0; i < iterations; i++) {
+                                template.render(List.of("Current date: 2025-12-10, Current time: 09:00"),
+                                                "book design review with Alex at 3pm", false);
+                                CompletionReader.Completion completion = reader.readCompletion(stream(response));
+                                CompletionReader.RawEntities raw = reader.readEntities(completion.content());
+                                LocalDateTime.parse(raw.startDateTime(), formatter);
+                                LocalDateTime.parse(raw.endDateTime(), formatter);
+                        }
+                        streaming = (allocatedBytes() - before) / iterations;
+                }
+                // Zero when the JVM cannot count allocations per thread
+                if (legacy > 0) {
+                        assertTrue(streaming * 3 <= legacy * 2, "streaming=" + streaming + " legacy=" + legacy);
+                        assertTrue(streaming <= STREAMING_ALLOCATION_BUDGET, "streaming=" + streaming);
+                }
+        }
+
+        private void legacyRequestBody() throws IOException {
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("response_format", Map.of("type", "json_object"));
+                requestBody.put("temperature", 0.1);
+                List<Map<String, String>> messages = new ArrayList<>();
+                messages.add(Map.of("role", "system", "content", ExtractionPrompts.FULL_SYSTEM_PROMPT));
+                messages.add(Map.of("role", "system", "content", "Current date: 2025-12-10, Current time: 09:00"));
+                messages.add(Map.of("role", "user", "content", "book design review with Alex at 3pm"));
+                requestBody.put("messages", messages);
+                objectMapper.writeValueAsString(requestBody);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void legacyParse(byte[] response) throws IOException {
+                String body = new String(response, StandardCharsets.UTF_8);
+                Map<String, Object> completion = objectMapper.readValue(body, Map.class);
+                objectMapper.valueToTree(completion.get("usage"));
+                List<Map<String, Object>> choices = (List<Map<String, Object>>) completion.get("choices");
+                Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
+                Map<String, Object> data = objectMapper.readValue((String) message.get("content"), Map.class);
+                LocalDateTime.parse((String) data.get("startDateTime"), DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"));
+                LocalDateTime.parse((String) data.get("endDateTime"), DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"));
+        }
+
+        private static long allocatedBytes() {
+                java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+                if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+                        return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+                return 0;
+        }
+
+        private String completionJson() throws IOException {
+                return "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"created\":1765350000,"
+                                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":"
+                                + objectMapper.writeValueAsString(CONTENT) + ",\"refusal\":null},\"finish_reason\":\"stop\","
+                                + "\"content_filter_results\":{\"hate\":{\"filtered\":false,\"severity\":\"safe\"}}}],"
+                                + "\"usage\":{\"prompt_tokens\":812,\"completion_tokens\":64,\"total_tokens\":876,"
+                                + "\"prompt_tokens_details\":{\"cached_tokens\":768}}}";
+        }
+
+        private static ByteArrayInputStream stream(String json) {
+                return stream(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static ByteArrayInputStream stream(byte[] json) {
+                return new ByteArrayInputStream(json);
+        }
+}
@@ -0,0 +1,178 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.Conflict;
+import com.microsoft.graph.models.Attendee;
+import com.microsoft.graph.models.DateTimeTimeZone;
+import com.microsoft.graph.models.EmailAddress;
+import com.microsoft.graph.models.FreeBusyStatus;
+import com.microsoft.graph.models.ScheduleInformation;
+import com.microsoft.graph.models.ScheduleItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictCheckerTest {
+
+        private static final String ORGANIZER = "alice@contoso.com";
+        private static final String BOB = "bob@contoso.com";
+        private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+        private SimpleMeterRegistry meterRegistry;
+        private ConflictChecker checker;
+        private final AtomicLong now = new AtomicLong(1_000_000L);
+        private final List<List<String>> fetches = new ArrayList<>();
+        private Map<String, List<ScheduleItem>> busy;
+
+        @BeforeEach
+        void setUp() {
+                meterRegistry = new SimpleMeterRegistry();
+                AttendeeResolver resolver = new AttendeeResolver(null, meterRegistry);
+                ReflectionTestUtils.setField(resolver, "directoryLookup", false);
+                ReflectionTestUtils.setField(resolver, "maxSize", 10);
+                ReflectionTestUtils.setField(resolver, "ttl", Duration.ofHours(1));
+                ReflectionTestUtils.setField(resolver, "negativeTtl", Duration.ofMinutes(10));
+                ReflectionTestUtils.setField(resolver, "fallbackDomain", "contoso.com");
+                resolver.init();
+
+                checker = new ConflictChecker(null, resolver, meterRegistry);
+                ReflectionTestUtils.setField(checker, "enabled", true);
+                ReflectionTestUtils.setField(checker, "action", "warn");
+                ReflectionTestUtils.setField(checker, "includeTentative", false);
+                ReflectionTestUtils.setField(checker, "cacheTtl", Duration.ofMinutes(2));
+                ReflectionTestUtils.setField(checker, "maxCachedMailboxes", 100);
+                checker.clock = now::get;
+                checker.schedules = (userId, mailboxes, from, to) -> {
+                        fetches.add(mailboxes);
+                        List<ScheduleInformation> schedules = new ArrayList<>();
+                        for (String mailbox : mailboxes) {
+                                ScheduleInformation schedule = new ScheduleInformation();
+                                schedule.scheduleId = mailbox;
+                                schedule.scheduleItems = busy.getOrDefault(mailbox, List.of());
+                                schedules.add(schedule);
+                        }
+                        return schedules;
+                };
+                checker.init();
+
+                busy = Map.of(
+                                ORGANIZER, List.of(
+                                                item(8, 0, 12, 0, FreeBusyStatus.BUSY),
+                                                item(9, 0, 9, 30, FreeBusyStatus.BUSY),
+                                                item(14, 0, 15, 0, FreeBusyStatus.TENTATIVE)),
+                                BOB, List.of(item(10, 30, 11, 30, FreeBusyStatus.OOF),
+                                                item(16, 0, 17, 0, FreeBusyStatus.FREE)));
+        }
+
+        @Test
+        void testFindsOverlapsOfOrganizerAndAttendees() {
+                List<Conflict> conflicts = checker.findConflicts(ORGANIZER, List.of("Bob"), at(11, 0), at(11, 45));
+
+                // The long 8-12 block is found even though a shorter block starts after it
+                assertEquals(2, conflicts.size());
+                assertEquals(ORGANIZER, conflicts.get(0).getMailbox());
+                assertEquals(at(8, 0), conflicts.get(0).getStart());
+                assertEquals("busy", conflicts.get(0).getStatus());
+                assertEquals(BOB, conflicts.get(1).getMailbox());
+                assertEquals("oof", conflicts.get(1).getStatus());
+
+                assertTrue(checker.findConflicts(ORGANIZER, List.of("Bob"), at(12, 0), at(12, 30)).isEmpty());
+                assertTrue(checker.findConflicts(ORGANIZER, List.of("Bob"), at(16, 0), at(17, 0)).isEmpty());
+        }
+
+        @Test
+        void testTentativeOnlyWhenIncluded() {
+                assertTrue(checker.findConflicts(ORGANIZER, List.of(), at(14, 30), at(15, 30)).isEmpty());
+
+                ReflectionTestUtils.setField(checker, "includeTentative", true);
+
+                List<Conflict> conflicts = checker.findConflicts(ORGANIZER, List.of(), at(14, 30), at(15, 30));
+                assertEquals(1, conflicts.size());
+                assertEquals("tentative", conflicts.get(0).getStatus());
+        }
+
+        @Test
+        void testOneFetchPerCheckAndCacheForSameDay() {
+                checker.findConflicts(ORGANIZER, List.of("Bob"), at(11, 0), at(11, 45));
+                checker.findConflicts(ORGANIZER, List.of("bob@contoso.com"), at(15, 0), at(16, 0));
+
+                assertEquals(1, fetches.size());
+                assertEquals(List.of(ORGANIZER, BOB), fetches.get(0));
+                assertEquals(2.0, meterRegistry.get("schedulehub.conflicts.mailboxes")
+                                .tag("result", "hit").counter().count());
+
+                // Another day is not covered by the cache
+                checker.findConflicts(ORGANIZER, List.of(), at(11, 0).plusDays(1), at(12, 0).plusDays(1));
+                assertEquals(2, fetches.size());
+        }
+
+        @Test
+        void testCacheExpiresAfterTtl() {
+                checker.findConflicts(ORGANIZER, List.of(), at(11, 0), at(11, 45));
+                now.addAndGet(Duration.ofMinutes(3).toMillis());
+                checker.findConflicts(ORGANIZER, List.of(), at(11, 0), at(11, 45));
+
+                assertEquals(2, fetches.size());
+        }
+
+        @Test
+        void testWritesEvictTheChangedMailboxes() {
+                checker.findConflicts(ORGANIZER, List.of("Bob", "carol@contoso.com"), at(11, 0), at(11, 45));
+
+                checker.invalidate(ORGANIZER, List.of(attendee(BOB)));
+                checker.findConflicts(ORGANIZER, List.of("Bob", "carol@contoso.com"), at(11, 0), at(11, 45));
+
+                assertEquals(List.of(ORGANIZER, BOB), fetches.get(1));
+        }
+
+        @Test
+        void testFailedFetchReportsNoConflicts() {
+                checker.schedules = (userId, mailboxes, from, to) -> {
+                        throw new IllegalStateException("throttled");
+                };
+
+                assertTrue(checker.findConflicts(ORGANIZER, List.of("Bob"), at(11, 0), at(11, 45)).isEmpty());
+                assertEquals(2.0, meterRegistry.get("schedulehub.conflicts.mailboxes")
+                                .tag("result", "error").counter().count());
+        }
+
+        @Test
+        void testDisabledChecksNothing() {
+                ReflectionTestUtils.setField(checker, "enabled", false);
+
+                assertTrue(checker.findConflicts(ORGANIZER, List.of("Bob"), at(11, 0), at(11, 45)).isEmpty());
+                assertTrue(fetches.isEmpty());
+        }
+
+        private static Attendee attendee(String address) {
+                Attendee attendee = new Attendee();
+                attendee.emailAddress = new EmailAddress();
+                attendee.emailAddress.address = address;
+                return attendee;
+        }
+
+        private static LocalDateTime at(int hour, int minute) {
+                return DAY.atTime(hour, minute);
+        }
+
+        private static ScheduleItem item(int startHour, int startMinute, int endHour, int endMinute,
+                        FreeBusyStatus status) {
+                ScheduleItem item = new ScheduleItem();
+                item.start = new DateTimeTimeZone();
+                item.start.dateTime = at(startHour, startMinute) + ":00.0000000";
+                item.end = new DateTimeTimeZone();
+                item.end.dateTime = at(endHour, endMinute) + ":00.0000000";
+                item.status = status;
+                return item;
+        }
+}
@@ -0,0 +1,94 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import com.bestbuy.schedulehub.dto.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversationSessionStoreTest {
+
+        private final AtomicLong now = new AtomicLong();
+        private ConversationSessionStore store;
+
+        @BeforeEach
+        void setUp() {
+                store = new ConversationSessionStore(new SimpleMeterRegistry());
+                ReflectionTestUtils.setField(store, "enabled", true);
+                ReflectionTestUtils.setField(store, "ttl", Duration.ofMinutes(15));
+                ReflectionTestUtils.setField(store, "maxSessions", 2);
+                store.clock = now::get;
+                store.init();
+        }
+
+        @Test
+        void testSessionIsPerUserAndSessionId() {
+                store.put("alice@contoso.com", "s1", entities("Standup"), "event-1");
+
+                ConversationSessionStore.Session session = store.get("Alice@Contoso.com", "s1").orElseThrow();
+                assertEquals("Standup", session.entities().getSubject());
+                assertEquals("event-1", session.eventId());
+                assertTrue(store.get("bob@contoso.com", "s1").isEmpty());
+                assertTrue(store.get("alice@contoso.com", "s2").isEmpty());
+                assertTrue(store.get("alice@contoso.com", null).isEmpty());
+        }
+
+        @Test
+        void testNoSessionWithoutSessionId() {
+                store.put("alice@contoso.com", null, entities("Standup"), "event-1");
+
+                assertEquals(0, store.size());
+        }
+
+        @Test
+        void testSessionExpiresAfterTtlSinceLastTurn() {
+                store.put("alice@contoso.com", "s1", entities("Standup"), "event-1");
+                now.addAndGet(Duration.ofMinutes(10).toNanos());
+                store.put("alice@contoso.com", "s1", entities("Retro"), "event-1");
+                now.addAndGet(Duration.ofMinutes(10).toNanos());
+
+                assertEquals("Retro", store.get("alice@contoso.com", "s1").orElseThrow().entities().getSubject());
+
+                now.addAndGet(Duration.ofMinutes(6).toNanos());
+                assertTrue(store.get("alice@contoso.com", "s1").isEmpty());
+        }
+
+        @Test
+        void testLeastRecentlyUpdatedSessionIsEvicted() {
+                store.put("a@contoso.com", "s", entities("A"), null);
+                store.put("b@contoso.com", "s", entities("B"), null);
+                store.put("a@contoso.com", "s", entities("A2"), null);
+                store.put("c@contoso.com", "s", entities("C"), null);
+
+                assertEquals(2, store.size());
+                assertTrue(store.get("b@contoso.com", "s").isEmpty());
+                assertTrue(store.get("a@contoso.com", "s").isPresent());
+        }
+
+        @Test
+        void testStoredStateIsACopyWithoutUsage() {
+                ExtractedEntities entities = entities("Standup");
+                entities.setUsage(TokenUsage.builder().promptTokens(100).build());
+                store.put("alice@contoso.com", "s1", entities, null);
+                entities.getAttendees().add("Bob");
+
+                ExtractedEntities stored = store.get("alice@contoso.com", "s1").orElseThrow().entities();
+                assertNull(stored.getUsage());
+                assertTrue(stored.getAttendees().isEmpty());
+        }
+
+        private static ExtractedEntities entities(String subject) {
+                return ExtractedEntities.builder()
+                                .intent("BookMeeting")
+                                .subject(subject)
+                                .attendees(new ArrayList<>())
+                                .build();
+        }
+}
@@ -0,0 +1,162 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.config.OpenAIRoutingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeploymentRouterTest {
+
+        private final AtomicLong now = new AtomicLong(1_000_000);
+        private SimpleMeterRegistry meterRegistry;
+        private DeploymentRouter router;
+        private DeploymentTarget east;
+        private DeploymentTarget west;
+
+        @BeforeEach
+        void setUp() {
+                OpenAIRoutingProperties properties = new OpenAIRoutingProperties();
+                properties.setFailureThreshold(2);
+                properties.setOpenDuration(Duration.ofSeconds(30));
+                properties.setLatencyAlpha(0.5);
+                properties.setInitialLatency(Duration.ofMillis(1000));
+                properties.setDeployments(List.of(
+                                deployment("east", "https://east.openai.azure.com/", 4),
+                                deployment("west", "https://west.openai.azure.com", 4)));
+
+                meterRegistry = new SimpleMeterRegistry();
+                router = new DeploymentRouter(properties, meterRegistry);
+                ReflectionTestUtils.setField(router, "defaultApiKey", "shared-key");
+                ReflectionTestUtils.setField(router, "defaultApiVersion", "2025-01-01-preview");
+                ReflectionTestUtils.setField(router, "defaultModel", "gpt-5-chat");
+                router.clock = now::get;
+                router.init();
+                east = router.getTargets().get(0);
+                west = router.getTargets().get(1);
+        }
+
+        @Test
+        void testBuildsAzureUrlsAndDefaultsApiKey() {
+                assertEquals("https://east.openai.azure.com/openai/deployments/gpt-5-chat/chat/completions"
+                                + "?api-version=2025-01-01-preview", east.getUrl());
+                assertEquals("shared-key", west.getApiKey());
+                assertTrue(east.isAzure());
+        }
+
+        @Test
+        void testPrefersLowerLatency() {
+                assertSame(east, router.acquire(Set.of()).get());
+                router.recordSuccess(east, 3000);
+                assertSame(west, router.acquire(Set.of()).get());
+                router.recordSuccess(west, 200);
+
+                assertSame(west, router.acquire(Set.of()).get());
+                assertEquals(600.0, west.getEwmaLatencyMillis(), 0.001);
+        }
+
+        @Test
+        void testPrefersHeadroomWhenLatencyIsClose() {
+                // Both start at 1000 ms; west has 3 of 4 slots busy
+                west.tryAcquire();
+                west.tryAcquire();
+                west.tryAcquire();
+
+                assertSame(east, router.acquire(Set.of()).get());
+        }
+
+        @Test
+        void testExcludesTargetsAlreadyTried() {
+                assertSame(west, router.acquire(Set.of("east")).get());
+                assertTrue(router.acquire(Set.of("east", "west")).isEmpty());
+        }
+
+        @Test
+        void testCircuitOpensAfterConsecutiveFailures() {
+                failCall(east, "HTTP 429");
+                assertEquals(DeploymentTarget.CircuitState.CLOSED, east.getState());
+                failCall(east, "HTTP 503");
+
+                assertEquals(DeploymentTarget.CircuitState.OPEN, east.getState());
+                for (int i = 0; i < 5; i++) {
+                        DeploymentTarget target = router.acquire(Set.of()).get();
+                        assertSame(west, target);
+                        router.release(target);
+                }
+                assertTrue(router.acquire(Set.of("west")).isEmpty());
+        }
+
+        @Test
+        void testHalfOpenProbeClosesCircuitOnSuccess() {
+                failCall(east, "timeout");
+                failCall(east, "timeout");
+                now.addAndGet(Duration.ofSeconds(31).toMillis());
+
+                DeploymentTarget probe = router.acquire(Set.of("west")).get();
+                assertSame(east, probe);
+                assertEquals(DeploymentTarget.CircuitState.HALF_OPEN, east.getState());
+                // Only one probe at a time
+                assertTrue(router.acquire(Set.of("west")).isEmpty());
+
+                router.recordSuccess(probe, 500);
+                assertEquals(DeploymentTarget.CircuitState.CLOSED, east.getState());
+                assertSame(east, router.acquire(Set.of("west")).get());
+        }
+
+        @Test
+        void testFailedProbeReopensCircuit() {
+                failCall(east, "HTTP 500");
+                failCall(east, "HTTP 500");
+                now.addAndGet(Duration.ofSeconds(31).toMillis());
+
+                DeploymentTarget probe = router.acquire(Set.of("west")).get();
+                router.recordFailure(probe, "HTTP 500");
+
+                assertEquals(DeploymentTarget.CircuitState.OPEN, east.getState());
+                assertTrue(router.acquire(Set.of("west")).isEmpty());
+        }
+
+        @Test
+        void testSuccessResetsFailureCount() {
+                failCall(east, "HTTP 429");
+                east.tryAcquire();
+                router.recordSuccess(east, 800);
+                failCall(east, "HTTP 429");
+
+                assertEquals(DeploymentTarget.CircuitState.CLOSED, east.getState());
+                assertEquals(0, east.getInFlight());
+        }
+
+        @Test
+        void testPublishesPerTargetGauges() {
+                failCall(east, "HTTP 429");
+                failCall(east, "HTTP 429");
+
+                assertEquals(2.0, meterRegistry.get("schedulehub.openai.deployment.circuit")
+                                .tag("deployment", "east").gauge().value());
+                assertEquals(1000.0, meterRegistry.get("schedulehub.openai.deployment.latency")
+                                .tag("deployment", "west").gauge().value());
+                assertEquals(2, router.stats().size());
+                assertEquals("OPEN", router.stats().get(0).get("state").toString());
+        }
+
+        private void failCall(DeploymentTarget target, String reason) {
+                assertTrue(target.tryAcquire());
+                router.recordFailure(target, reason);
+        }
+
+        private static OpenAIRoutingProperties.Deployment deployment(String name, String endpoint, int maxConcurrent) {
+                OpenAIRoutingProperties.Deployment deployment = new OpenAIRoutingProperties.Deployment();
+                deployment.setName(name);
+                deployment.setEndpoint(endpoint);
+                deployment.setMaxConcurrent(maxConcurrent);
+                return deployment;
+        }
+}
@@ -0,0 +1,101 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import com.bestbuy.schedulehub.dto.TokenUsage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityDeltaTest {
+
+        private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+        private final ObjectMapper objectMapper = new ObjectMapper();
+
+        @Test
+        void testNewStartKeepsMeetingLength() throws IOException {
+                ExtractedEntities merged = delta("{\"startDateTime\":\"2031-03-07T16:00\"}").applyTo(booked());
+
+                assertEquals(LocalDateTime.of(2031, 3, 7, 16, 0), merged.getStartDateTime());
+                assertEquals(LocalDateTime.of(2031, 3, 7, 16, 30), merged.getEndDateTime());
+                assertEquals("BookMeeting", merged.getIntent());
+                assertEquals("Design sync", merged.getSubject());
+        }
+
+        @Test
+        void testOnlyFollowUpsGetADeltaCall() {
+                assertTrue(EntityDelta.looksLikeFollowUp("Actually make it 4pm"));
+                assertTrue(EntityDelta.looksLikeFollowUp("add Bob too"));
+                assertTrue(EntityDelta.looksLikeFollowUp("move it to Friday afternoon please"));
+                assertTrue(EntityDelta.looksLikeFollowUp("friday at 3"));
+                assertTrue(EntityDelta.looksLikeFollowUp("in room 4B"));
+
+                assertFalse(EntityDelta.looksLikeFollowUp("Book a design review with Mary and Alex next Tuesday at 10"));
+                assertFalse(EntityDelta.looksLikeFollowUp("cancel standup tomorrow"));
+                assertFalse(EntityDelta.looksLikeFollowUp("what meetings do I have on Thursday afternoon"));
+                assertFalse(EntityDelta.looksLikeFollowUp(" "));
+        }
+
+        @Test
+        void testAttendeesAreAddedAndRemovedCaseInsensitively() throws IOException {
+                ExtractedEntities current = booked();
+
+                ExtractedEntities merged = delta("{\"addAttendees\":[\"Bob\",\"mary\"],\"removeAttendees\":[\"alex\"]}")
+                                .applyTo(current);
+
+                assertEquals(List.of("Mary", "Bob"), merged.getAttendees());
+                // The session state is not modified
+                assertEquals(List.of("Alex", "Mary"), current.getAttendees());
+        }
+
+        @Test
+        void testExplicitNullClearsLocation() throws IOException {
+                ExtractedEntities current = booked();
+                current.setLocation("Room 4");
+
+                assertNull(delta("{\"location\":null}").applyTo(current).getLocation());
+                assertEquals("Room 4", delta("{\"subject\":\"Retro\"}").applyTo(current).getLocation());
+        }
+
+        @Test
+        void testNewRequestAndEmptyDelta() throws IOException {
+                TokenUsage usage = TokenUsage.builder().promptTokens(90).completionTokens(5).build();
+
+                EntityDelta unrelated = EntityDelta.parse(objectMapper.readTree("{\"newRequest\":true}"), FORMAT, usage);
+                EntityDelta empty = delta("{}");
+
+                assertTrue(unrelated.newRequest());
+                assertSame(usage, unrelated.usage());
+                assertFalse(empty.newRequest());
+                assertTrue(empty.isEmpty());
+                assertFalse(delta("{\"intent\":\"CancelMeeting\"}").isEmpty());
+        }
+
+        @Test
+        void testUnparseableDateIsIgnored() throws IOException {
+                ExtractedEntities merged = delta("{\"startDateTime\":\"4pm\",\"subject\":\"null\"}").applyTo(booked());
+
+                assertEquals(LocalDateTime.of(2031, 3, 7, 15, 0), merged.getStartDateTime());
+                assertEquals("Design sync", merged.getSubject());
+        }
+
+        private EntityDelta delta(String json) throws IOException {
+                return EntityDelta.parse(objectMapper.readTree(json), FORMAT, null);
+        }
+
+        private static ExtractedEntities booked() {
+                return ExtractedEntities.builder()
+                                .intent("BookMeeting")
+                                .subject("Design sync")
+                                .attendees(new ArrayList<>(List.of("Alex", "Mary")))
+                                .startDateTime(LocalDateTime.of(2031, 3, 7, 15, 0))
+                                .endDateTime(LocalDateTime.of(2031, 3, 7, 15, 30))
+                                .build();
+        }
+}
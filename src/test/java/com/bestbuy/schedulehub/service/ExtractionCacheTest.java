@@ -0,0 +1,154 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractionCacheTest {
+
+        private SimpleMeterRegistry meterRegistry;
+        private ExtractionCache cache;
+
+        @BeforeEach
+        void setUp() {
+                meterRegistry = new SimpleMeterRegistry();
+                cache = new ExtractionCache(meterRegistry);
+                ReflectionTestUtils.setField(cache, "enabled", true);
+                ReflectionTestUtils.setField(cache, "maxSize", 2);
+                ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(10));
+                ReflectionTestUtils.setField(cache, "dateBucketMinutes", 60);
+                cache.init();
+        }
+
+        @Test
+        void testKeyFoldsCaseWhitespaceAndPunctuation() {
+                LocalDateTime now = LocalDateTime.of(2025, 12, 10, 9, 15);
+
+                assertEquals(cache.key("Book standup with the team tomorrow at 9", now),
+                                cache.key("  book STANDUP with the team,   tomorrow at 9! ", now));
+                assertEquals("2025-12-10T09:00|invite bob.smith@example.com at 3:30",
+                                cache.key("Invite bob.smith@example.com at 3:30.", now));
+        }
+
+        @Test
+        void testKeyChangesWithDateBucket() {
+                String text = "book standup tomorrow at 9";
+
+                assertEquals(cache.key(text, LocalDateTime.of(2025, 12, 10, 9, 5)),
+                                cache.key(text, LocalDateTime.of(2025, 12, 10, 9, 55)));
+                assertNotEquals(cache.key(text, LocalDateTime.of(2025, 12, 10, 9, 55)),
+                                cache.key(text, LocalDateTime.of(2025, 12, 10, 10, 5)));
+        }
+
+        @Test
+        void testPromptTimeIsBucketStart() {
+                LocalDateTime now = LocalDateTime.of(2025, 12, 10, 9, 41);
+
+                assertEquals(LocalDateTime.of(2025, 12, 10, 9, 0), cache.promptTime("book standup today at 5", now));
+                assertEquals(now, cache.promptTime("book standup in 30 minutes", now));
+        }
+
+        @Test
+        void testClockRelativeUtterancesAreNotCached() {
+                LocalDateTime now = LocalDateTime.of(2025, 12, 10, 9, 41);
+                String key = cache.key("Book a call with Mary in an hour", now);
+
+                cache.put(key, ExtractedEntities.builder().intent("BookMeeting").build());
+
+                assertNull(cache.get(key));
+                assertEquals(0, cache.size());
+                assertNotEquals(key, cache.key("Book a call with Mary in an hour", now.plusMinutes(1)));
+                assertTrue(ExtractionCache.isClockRelative("cancel my next meeting now"));
+                assertTrue(ExtractionCache.isClockRelative("sync with bob in half an hour"));
+                assertFalse(ExtractionCache.isClockRelative("book a 1 hour sync tomorrow at 9"));
+        }
+
+        @Test
+        void testEntityOnlyResultsAreKeptApartFromFullExtractions() {
+                LocalDateTime now = LocalDateTime.of(2025, 12, 10, 9, 41);
+                String text = "cancel standup tomorrow";
+                cache.put(cache.key(text, now, "RescheduleMeeting"),
+                                ExtractedEntities.builder().intent("RescheduleMeeting").build());
+
+                assertNull(cache.get(cache.key(text, now)));
+                assertNull(cache.get(cache.key(text, now, "CancelMeeting")));
+                assertEquals("RescheduleMeeting", cache.get(cache.key(text, now, "RescheduleMeeting")).getIntent());
+        }
+
+        @Test
+        void testHitReturnsCopyAndCountsMetrics() {
+                ExtractedEntities entities = ExtractedEntities.builder()
+                                .intent("BookMeeting")
+                                .attendees(new ArrayList<>(List.of("Mary")))
+                                .subject("Standup")
+                                .build();
+
+                assertNull(cache.get("k1"));
+                cache.put("k1", entities);
+                ExtractedEntities cached = cache.get("k1");
+
+                assertEquals(entities.toBuilder().origin("cache").build(), cached);
+                assertNotSame(entities, cached);
+                cached.getAttendees().add("Bob");
+                assertEquals(List.of("Mary"), cache.get("k1").getAttendees());
+                assertEquals(2.0, meterRegistry.counter("schedulehub.extraction.cache.hits").count());
+                assertEquals(1.0, meterRegistry.counter("schedulehub.extraction.cache.misses").count());
+        }
+
+        @Test
+        void testUnknownIntentIsNotCached() {
+                cache.put("k1", ExtractedEntities.builder().intent("Unknown").build());
+
+                assertNull(cache.get("k1"));
+                assertEquals(0, cache.size());
+        }
+
+        @Test
+        void testEvictsLeastRecentlyUsedWhenFull() {
+                cache.put("k1", ExtractedEntities.builder().intent("BookMeeting").build());
+                cache.put("k2", ExtractedEntities.builder().intent("CancelMeeting").build());
+                cache.get("k1");
+                cache.put("k3", ExtractedEntities.builder().intent("RescheduleMeeting").build());
+
+                assertNotNull(cache.get("k1"));
+                assertNull(cache.get("k2"));
+                assertEquals(1.0, meterRegistry.counter("schedulehub.extraction.cache.evictions", "cause", "size")
+                                .count());
+        }
+
+        @Test
+        void testPutOnlyExaminesTheLeastRecentlyUsedEntries() {
+                ReflectionTestUtils.setField(cache, "maxSize", 100);
+                for (int i = 0; i < 10; i++) {
+                        cache.put("live" + i, ExtractedEntities.builder().intent("BookMeeting").build());
+                }
+                ReflectionTestUtils.setField(cache, "ttl", Duration.ZERO);
+                for (int i = 0; i < 5; i++) {
+                        cache.put("expired" + i, ExtractedEntities.builder().intent("BookMeeting").build());
+                }
+
+                // Puts look at the oldest entries only, which are live; the expired ones wait for a read
+                assertEquals(15, cache.size());
+                assertNull(cache.get("expired0"));
+                assertEquals(14, cache.size());
+        }
+
+        @Test
+        void testExpiredEntriesAreEvicted() {
+                ReflectionTestUtils.setField(cache, "ttl", Duration.ZERO);
+                cache.put("k1", ExtractedEntities.builder().intent("BookMeeting").build());
+
+                assertNull(cache.get("k1"));
+                assertEquals(1.0, meterRegistry.counter("schedulehub.extraction.cache.evictions", "cause", "expired")
+                                .count());
+        }
+}
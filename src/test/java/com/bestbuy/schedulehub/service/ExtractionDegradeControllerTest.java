@@ -0,0 +1,109 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractionDegradeControllerTest {
+
+        private final AtomicLong now = new AtomicLong(1_000_000);
+        private SimpleMeterRegistry meterRegistry;
+        private ExtractionDegradeController controller;
+
+        @BeforeEach
+        void setUp() {
+                meterRegistry = new SimpleMeterRegistry();
+                controller = new ExtractionDegradeController(meterRegistry);
+                ReflectionTestUtils.setField(controller, "enabled", true);
+                ReflectionTestUtils.setField(controller, "latencySlo", Duration.ofMillis(1000));
+                ReflectionTestUtils.setField(controller, "errorRateSlo", 0.2);
+                ReflectionTestUtils.setField(controller, "windowSize", 20);
+                ReflectionTestUtils.setField(controller, "minSamples", 10);
+                ReflectionTestUtils.setField(controller, "recoveryRatio", 0.5);
+                ReflectionTestUtils.setField(controller, "minDwell", Duration.ofSeconds(30));
+                ReflectionTestUtils.setField(controller, "reducedCallTimeout", Duration.ofSeconds(5));
+                ReflectionTestUtils.setField(controller, "reducedDeployment", "small");
+                controller.clock = now::get;
+                controller.init();
+                now.addAndGet(60_000);
+        }
+
+        @Test
+        void testStaysNormalUntilEnoughSamples() {
+                record(9, 5000, false);
+                assertEquals(ExtractionDegradeController.Mode.NORMAL, controller.mode());
+
+                record(1, 5000, false);
+                assertEquals(ExtractionDegradeController.Mode.REDUCED, controller.mode());
+        }
+
+        @Test
+        void testStepsOneLevelPerDwell() {
+                record(10, 5000, false);
+                assertEquals(ExtractionDegradeController.Mode.REDUCED, controller.mode());
+
+                // Still slow, but within min-dwell of the last change
+                record(20, 5000, false);
+                assertEquals(ExtractionDegradeController.Mode.REDUCED, controller.mode());
+
+                now.addAndGet(30_000);
+                record(1, 5000, false);
+                assertEquals(ExtractionDegradeController.Mode.LOCAL, controller.mode());
+                assertEquals(1.0, meterRegistry.counter("schedulehub.extraction.degrade.transitions",
+                                "from", "reduced", "to", "local").count());
+        }
+
+        @Test
+        void testErrorRateBreachDegrades() {
+                record(7, 100, false);
+                record(3, 100, true);
+
+                assertEquals(ExtractionDegradeController.Mode.REDUCED, controller.mode());
+        }
+
+        @Test
+        void testRecoveryNeedsMarginBelowSlo() {
+                record(10, 5000, false);
+                now.addAndGet(30_000);
+
+                // Within the SLO but above recovery-ratio: no change
+                record(20, 800, false);
+                assertEquals(ExtractionDegradeController.Mode.REDUCED, controller.mode());
+
+                record(20, 300, false);
+                assertEquals(ExtractionDegradeController.Mode.NORMAL, controller.mode());
+        }
+
+        @Test
+        void testDegradedSettings() {
+                assertEquals(0, controller.callTimeoutMillis());
+                assertNull(controller.preferredDeployment());
+
+                record(10, 5000, false);
+
+                assertEquals(5000, controller.callTimeoutMillis());
+                assertEquals("small", controller.preferredDeployment());
+                assertEquals(1.0, meterRegistry.get("schedulehub.extraction.degrade.mode").gauge().value());
+        }
+
+        @Test
+        void testDisabledNeverDegrades() {
+                ReflectionTestUtils.setField(controller, "enabled", false);
+
+                record(50, 5000, true);
+
+                assertEquals(ExtractionDegradeController.Mode.NORMAL, controller.mode());
+        }
+
+        private void record(int count, long latencyMillis, boolean failed) {
+                for (int i = 0; i < count; i++) {
+                        controller.record(latencyMillis, failed);
+                }
+        }
+}
@@ -0,0 +1,80 @@
+package com.bestbuy.schedulehub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractionPromptsTest {
+
+        // Token budgets for the static prefixes - the compact one a third of the full prompt or less
+        private static final int FULL_PROMPT_BUDGET = 900;
+        private static final int COMPACT_PROMPT_BUDGET = 250;
+
+        @Test
+        void testCompactPromptStaysWithinTokenBudget() {
+                assertTrue(ExtractionPrompts.FULL_PROMPT_TOKENS <= FULL_PROMPT_BUDGET,
+                                "Full prompt is ~" + ExtractionPrompts.FULL_PROMPT_TOKENS + " tokens");
+                assertTrue(ExtractionPrompts.COMPACT_PROMPT_TOKENS <= COMPACT_PROMPT_BUDGET,
+                                "Compact prompt is ~" + ExtractionPrompts.COMPACT_PROMPT_TOKENS + " tokens");
+                assertTrue(ExtractionPrompts.COMPACT_PROMPT_TOKENS * 3 < ExtractionPrompts.FULL_PROMPT_TOKENS);
+        }
+
+        @Test
+        void testEstimateTokensCountsWordPiecesAndSymbols() {
+                assertEquals(6, ExtractionPrompts.estimateTokens("Current time: 15:00"));
+                // Words longer than eight characters count as several pieces
+                assertEquals(2, ExtractionPrompts.estimateTokens("unrecognizable"));
+                assertEquals(ExtractionPrompts.estimateTokens(ExtractionPrompts.COMPACT_SYSTEM_PROMPT),
+                                ExtractionPrompts.systemPromptTokens(ExtractionPrompts.VARIANT_COMPACT));
+        }
+
+        @Test
+        void testStaticPrefixHasNoDynamicContent() {
+                LocalDateTime now = LocalDateTime.of(2031, 3, 7, 15, 0);
+
+                for (String variant : new String[] { ExtractionPrompts.VARIANT_FULL, ExtractionPrompts.VARIANT_COMPACT }) {
+                        String prompt = ExtractionPrompts.systemPrompt(variant);
+                        assertFalse(prompt.contains("2031-03-07"), variant);
+                        assertSame(prompt, ExtractionPrompts.systemPrompt(variant));
+                }
+                assertEquals("Current date: 2031-03-07, Current time: 15:00", ExtractionPrompts.dateContext(now));
+        }
+
+        @Test
+        void testUnknownVariantFallsBackToFullPrompt() {
+                assertSame(ExtractionPrompts.FULL_SYSTEM_PROMPT, ExtractionPrompts.systemPrompt("verbose"));
+                assertSame(ExtractionPrompts.COMPACT_SYSTEM_PROMPT, ExtractionPrompts.systemPrompt("COMPACT"));
+        }
+
+        @Test
+        void testBatchInstructionsAreStaticAndSmall() {
+                String instructions = ExtractionPrompts.batchInstructions();
+
+                assertSame(instructions, ExtractionPrompts.batchInstructions());
+                assertTrue(instructions.contains("\"results\""));
+                // Sent once per batch instead of the full prefix once per utterance
+                assertTrue(ExtractionPrompts.estimateTokens(instructions) < ExtractionPrompts.COMPACT_PROMPT_TOKENS);
+        }
+
+        @Test
+        void testEntityPromptIsSmallerAndKeepsIntentOutOfPrefix() {
+                LocalDateTime now = LocalDateTime.of(2031, 3, 7, 15, 0);
+
+                assertTrue(ExtractionPrompts.ENTITY_PROMPT_TOKENS < ExtractionPrompts.COMPACT_PROMPT_TOKENS);
+                assertFalse(ExtractionPrompts.entitySystemPrompt().contains("\"intent\""));
+                assertEquals("Current date: 2031-03-07, Current time: 15:00, Intent: CancelMeeting",
+                                ExtractionPrompts.intentContext(now, "CancelMeeting"));
+        }
+
+        @Test
+        void testDeltaPromptIsSmallAndStatic() {
+                LocalDateTime now = LocalDateTime.of(2031, 3, 7, 15, 0);
+
+                assertTrue(ExtractionPrompts.DELTA_PROMPT_TOKENS < ExtractionPrompts.COMPACT_PROMPT_TOKENS);
+                assertSame(ExtractionPrompts.deltaSystemPrompt(), ExtractionPrompts.deltaSystemPrompt());
+                assertEquals("Current date: 2031-03-07, Current time: 15:00\nCurrent request: {\"intent\":\"BookMeeting\"}",
+                                ExtractionPrompts.deltaContext(now, "{\"intent\":\"BookMeeting\"}"));
+        }
+}
@@ -0,0 +1,127 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractionSingleFlightTest {
+
+        private SimpleMeterRegistry meterRegistry;
+        private ExtractionSingleFlight singleFlight;
+        private AtomicInteger calls;
+        private CompletableFuture<ExtractedEntities> source;
+
+        @BeforeEach
+        void setUp() {
+                meterRegistry = new SimpleMeterRegistry();
+                singleFlight = new ExtractionSingleFlight(meterRegistry);
+                ReflectionTestUtils.setField(singleFlight, "enabled", true);
+                singleFlight.init();
+                calls = new AtomicInteger();
+                source = new CompletableFuture<>();
+        }
+
+        @Test
+        void testConcurrentCallersShareOneCall() {
+                CompletableFuture<ExtractedEntities> first = singleFlight.execute("k", this::call);
+                CompletableFuture<ExtractedEntities> second = singleFlight.execute("k", this::call);
+                CompletableFuture<ExtractedEntities> third = singleFlight.execute("k", this::call);
+
+                assertEquals(1, calls.get());
+                assertFalse(first.isDone());
+
+                source.complete(entities("CancelMeeting"));
+
+                assertEquals("CancelMeeting", first.join().getIntent());
+                assertEquals("CancelMeeting", third.join().getIntent());
+                // Each caller gets its own copy
+                assertNotSame(first.join(), second.join());
+                second.join().getAttendees().add("Mallory");
+                assertEquals(List.of("Alex"), first.join().getAttendees());
+                // Only the caller that started the call reports an OpenAI result
+                assertNull(first.join().getOrigin());
+                assertEquals("coalesced", third.join().getOrigin());
+
+                assertEquals(2.0, meterRegistry.get("schedulehub.extraction.single-flight.coalesced").counter().count());
+                assertEquals(3.0, meterRegistry.get("schedulehub.extraction.single-flight.waiters").summary().max());
+        }
+
+        @Test
+        void testDifferentKeysDoNotCoalesce() {
+                singleFlight.execute("a", this::call);
+                singleFlight.execute("b", () -> {
+                        calls.incrementAndGet();
+                        return new CompletableFuture<>();
+                });
+
+                assertEquals(2, calls.get());
+                assertEquals(2, singleFlight.inFlight());
+        }
+
+        @Test
+        void testKeyIsReleasedAfterCompletion() {
+                singleFlight.execute("k", this::call);
+                source.complete(entities("BookMeeting"));
+                assertEquals(0, singleFlight.inFlight());
+
+                source = new CompletableFuture<>();
+                singleFlight.execute("k", this::call);
+
+                assertEquals(2, calls.get());
+        }
+
+        @Test
+        void testFailureCompletesEveryCallerWithUnknown() {
+                CompletableFuture<ExtractedEntities> first = singleFlight.execute("k", this::call);
+                CompletableFuture<ExtractedEntities> second = singleFlight.execute("k", this::call);
+
+                source.completeExceptionally(new IllegalStateException("boom"));
+
+                assertEquals("Unknown", first.join().getIntent());
+                assertEquals("Unknown", second.join().getIntent());
+        }
+
+        @Test
+        void testSharedCallCancelledOnlyWhenEveryCallerCancels() {
+                CompletableFuture<ExtractedEntities> first = singleFlight.execute("k", this::call);
+                CompletableFuture<ExtractedEntities> second = singleFlight.execute("k", this::call);
+
+                first.cancel(true);
+                assertFalse(source.isCancelled());
+
+                second.cancel(true);
+                assertTrue(source.isCancelled());
+                assertEquals(0, singleFlight.inFlight());
+        }
+
+        @Test
+        void testDisabledCallsThrough() {
+                ReflectionTestUtils.setField(singleFlight, "enabled", false);
+
+                singleFlight.execute("k", this::call);
+                singleFlight.execute("k", this::call);
+
+                assertEquals(2, calls.get());
+        }
+
+        private CompletableFuture<ExtractedEntities> call() {
+                calls.incrementAndGet();
+                return source;
+        }
+
+        private static ExtractedEntities entities(String intent) {
+                return ExtractedEntities.builder()
+                                .intent(intent)
+                                .attendees(new ArrayList<>(List.of("Alex")))
+                                .build();
+        }
+}
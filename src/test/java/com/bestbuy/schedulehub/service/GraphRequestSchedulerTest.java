@@ -0,0 +1,198 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphRequestSchedulerTest {
+
+        private SimpleMeterRegistry meterRegistry;
+        private GraphRequestScheduler scheduler;
+        private OkHttpClient client;
+        private final AtomicLong now = new AtomicLong(1_000_000_000L);
+        private final List<Long> sleeps = new ArrayList<>();
+
+        // Stands in for Graph at the end of the chain: canned responses, in order
+        private final ConcurrentLinkedQueue<Response.Builder> responses = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger requestCount = new AtomicInteger();
+        private volatile CountDownLatch hold;
+
+        @BeforeEach
+        void setUp() {
+                meterRegistry = new SimpleMeterRegistry();
+                scheduler = new GraphRequestScheduler(meterRegistry);
+                ReflectionTestUtils.setField(scheduler, "maxConcurrent", 4);
+                ReflectionTestUtils.setField(scheduler, "queueTimeout", Duration.ofSeconds(30));
+                ReflectionTestUtils.setField(scheduler, "maxRetries", 3);
+                ReflectionTestUtils.setField(scheduler, "defaultRetryAfter", Duration.ofSeconds(2));
+                ReflectionTestUtils.setField(scheduler, "maxRetryAfter", Duration.ofSeconds(60));
+                ReflectionTestUtils.setField(scheduler, "maxMailboxes", 100);
+                scheduler.clock = now::get;
+                // Waiting moves the clock instead of sleeping
+                scheduler.sleeper = millis -> {
+                        sleeps.add(millis);
+                        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+                };
+                scheduler.init();
+                Interceptor graph = chain -> {
+                        requestCount.incrementAndGet();
+                        CountDownLatch latch = hold;
+                        if (latch != null) {
+                                hold = null;
+                                try {
+                                        latch.await(5, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                }
+                        }
+                        Response.Builder response = responses.poll();
+                        return (response != null ? response : respond(200)).request(chain.request()).build();
+                };
+                client = new OkHttpClient.Builder().addInterceptor(scheduler).addInterceptor(graph).build();
+        }
+
+        @Test
+        void testMailboxOfUrl() {
+                assertEquals("alice@contoso.com", GraphRequestScheduler.mailboxOf(
+                                HttpUrl.get("https://graph.microsoft.com/v1.0/users/Alice@Contoso.com/events?$top=5")));
+                assertEquals("me", GraphRequestScheduler.mailboxOf(
+                                HttpUrl.get("https://graph.microsoft.com/v1.0/me/calendar/getSchedule")));
+                assertEquals("($batch)", GraphRequestScheduler.mailboxOf(
+                                HttpUrl.get("https://graph.microsoft.com/v1.0/$batch")));
+                assertEquals("(users)", GraphRequestScheduler.mailboxOf(
+                                HttpUrl.get("https://graph.microsoft.com/v1.0/users?$filter=x")));
+        }
+
+        @Test
+        void testRetriesAfterRetryAfter() throws Exception {
+                responses.add(respond(429).header("Retry-After", "3"));
+                responses.add(respond(200));
+
+                try (Response response = call("alice@contoso.com", "GET")) {
+                        assertEquals(200, response.code());
+                }
+
+                assertEquals(2, requestCount.get());
+                assertEquals(3001L, sleeps.stream().mapToLong(Long::longValue).sum());
+                assertEquals(1.0, meterRegistry.get("schedulehub.graph.throttled").tag("status", "429").counter().count());
+                assertEquals(1.0, meterRegistry.get("schedulehub.graph.retries").tag("outcome", "retried").counter()
+                                .count());
+        }
+
+        @Test
+        void testRetryWaitsOutPauseLongerThanQueueTimeout() throws Exception {
+                // Between queue-timeout (30s) and max-retry-after (60s)
+                responses.add(respond(429).header("Retry-After", "45"));
+                responses.add(respond(200));
+
+                try (Response response = call("alice@contoso.com", "GET")) {
+                        assertEquals(200, response.code());
+                }
+
+                assertEquals(2, requestCount.get());
+                assertEquals(45_001L, sleeps.stream().mapToLong(Long::longValue).sum());
+                assertNull(meterRegistry.find("schedulehub.graph.retries").tag("outcome", "rejected").counter());
+        }
+
+        @Test
+        void testLongPauseIsAnsweredLocallyForThatMailboxOnly() throws Exception {
+                responses.add(respond(429).header("Retry-After", "120"));
+
+                // Longer than max-retry-after: returned, mailbox paused for 60s
+                try (Response response = call("alice@contoso.com", "GET")) {
+                        assertEquals(429, response.code());
+                }
+                assertEquals(1.0, meterRegistry.get("schedulehub.graph.mailboxes.paused").gauge().value());
+
+                // 60s is longer than queue-timeout: not sent to Graph
+                try (Response response = call("alice@contoso.com", "GET")) {
+                        assertEquals(429, response.code());
+                        assertEquals("60", response.header("Retry-After"));
+                }
+                assertEquals(1, requestCount.get());
+
+                try (Response response = call("bob@contoso.com", "GET")) {
+                        assertEquals(200, response.code());
+                }
+                assertTrue(sleeps.isEmpty());
+        }
+
+        @Test
+        void testGatewayTimeoutOnPostIsNotRetried() throws Exception {
+                responses.add(respond(504));
+
+                try (Response response = call("alice@contoso.com", "POST")) {
+                        assertEquals(504, response.code());
+                }
+                assertEquals(1, requestCount.get());
+        }
+
+        @Test
+        void testConcurrencyIsCappedPerMailbox() throws Exception {
+                ReflectionTestUtils.setField(scheduler, "maxConcurrent", 1);
+                ReflectionTestUtils.setField(scheduler, "queueTimeout", Duration.ofMillis(100));
+                CountDownLatch release = new CountDownLatch(1);
+                hold = release;
+
+                CompletableFuture<Integer> slow = CompletableFuture.supplyAsync(() -> code("alice@contoso.com"));
+                while (meterRegistry.get("schedulehub.graph.requests.in-flight").gauge().value() < 1) {
+                        Thread.sleep(5);
+                }
+
+                // The only slot for alice is taken; bob's mailbox has its own
+                assertEquals(429, code("alice@contoso.com"));
+                assertEquals(200, code("bob@contoso.com"));
+                release.countDown();
+                assertEquals(200, (int) slow.get(5, TimeUnit.SECONDS));
+                assertEquals(1.0, meterRegistry.get("schedulehub.graph.retries").tag("outcome", "rejected").counter()
+                                .count());
+        }
+
+        private int code(String mailbox) {
+                try (Response response = call(mailbox, "GET")) {
+                        return response.code();
+                } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                }
+        }
+
+        private Response call(String mailbox, String method) throws IOException {
+                Request.Builder request = new Request.Builder()
+                                .url("https://graph.microsoft.com/v1.0/users/" + mailbox + "/events");
+                if ("POST".equals(method)) {
+                        request.post(RequestBody.create("{}", MediaType.get("application/json")));
+                }
+                return client.newCall(request.build()).execute();
+        }
+
+        private static Response.Builder respond(int code) {
+                return new Response.Builder()
+                                .protocol(Protocol.HTTP_1_1)
+                                .code(code)
+                                .message("HTTP " + code)
+                                .body(ResponseBody.create("{}", MediaType.get("application/json")));
+        }
+}
@@ -0,0 +1,57 @@
+package com.bestbuy.schedulehub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalEntityParserTest {
+
+        @Test
+        void testFieldsBecomeAvailableAsTokensArrive() throws Exception {
+                IncrementalEntityParser parser = new IncrementalEntityParser();
+
+                parser.feed("{\"intent\": \"Cancel");
+                assertFalse(parser.has("intent"));
+
+                parser.feed("Meeting\", \"attendees\": [\"Al");
+                assertEquals("CancelMeeting", parser.get("intent"));
+                assertFalse(parser.has("attendees"));
+
+                parser.feed("ex\", \"mary@example.com\"], \"startDateTime\": null, \"sub");
+                assertEquals(Arrays.asList("Alex", "mary@example.com"), parser.get("attendees"));
+                assertTrue(parser.has("startDateTime"));
+                assertNull(parser.get("startDateTime"));
+                assertFalse(parser.has("subject"));
+
+                parser.feed("ject\": \"Sync with Alex\"");
+                assertEquals("Sync with Alex", parser.get("subject"));
+                assertFalse(parser.isComplete());
+
+                parser.feed(", \"location\": null}");
+                assertTrue(parser.isComplete());
+                assertEquals(5, parser.fields().size());
+        }
+
+        @Test
+        void testNestedValuesAreSkipped() throws Exception {
+                IncrementalEntityParser parser = new IncrementalEntityParser();
+
+                parser.feed("{\"intent\": \"BookMeeting\", \"extra\": {\"subject\": \"nested\"}, \"subject\": \"Standup\"}");
+
+                assertEquals("Standup", parser.get("subject"));
+                assertEquals("BookMeeting", parser.get("intent"));
+                assertTrue(parser.isComplete());
+        }
+
+        @Test
+        void testMultiByteCharactersAcrossChunks() throws Exception {
+                IncrementalEntityParser parser = new IncrementalEntityParser();
+
+                parser.feed("{\"subject\": \"Café ");
+                parser.feed("sync ☕\"}");
+
+                assertEquals("Café sync ☕", parser.get("subject"));
+        }
+}
@@ -0,0 +1,180 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntentModelTest {
+
+        private static final String[] PEOPLE = { "Alex", "Priya", "bob@example.com", "the design team", "Jordan" };
+        private static final String[] TOPICS = { "standup", "design review", "1:1", "budget sync", "retro",
+                        "quarterly planning" };
+        private static final String[] WHEN = { "tomorrow at 3pm", "next Friday", "on Monday morning", "today at 10",
+                        "at noon", "next week" };
+
+        private static final String[][] TEMPLATES = {
+                        { "BookMeeting", "book a %s with %s %s" },
+                        { "BookMeeting", "schedule %s with %s %s" },
+                        { "BookMeeting", "can you set up a %s for %s %s" },
+                        { "BookMeeting", "please add %s with %s to my calendar %s" },
+                        { "CancelMeeting", "cancel the %s with %s %s" },
+                        { "CancelMeeting", "delete my %s with %s %s" },
+                        { "CancelMeeting", "please remove the %s (%s) %s" },
+                        { "CancelMeeting", "call off %s with %s %s" },
+                        { "RescheduleMeeting", "move the %s with %s to %s" },
+                        { "RescheduleMeeting", "reschedule %s with %s for %s" },
+                        { "RescheduleMeeting", "push my %s with %s to %s" },
+                        { "RescheduleMeeting", "can we change the %s with %s to %s" },
+        };
+
+        private static final IntentModel.Options SMALL = new IntentModel.Options(16, 2, 4, 10, 0.5, 1e-6, 7);
+
+        @Test
+        void testLearnsSyntheticIntents() {
+                IntentModel model = IntentModel.train(examples(600, 1), SMALL);
+
+                List<IntentModel.Example> holdout = examples(300, 2);
+                long correct = holdout.stream()
+                                .filter(e -> model.predict(e.text()).label().equals(e.label()))
+                                .count();
+
+                assertTrue(correct >= 0.95 * holdout.size(), "accuracy " + correct + "/" + holdout.size());
+                assertEquals(List.of("BookMeeting", "CancelMeeting", "RescheduleMeeting"), model.labels());
+        }
+
+        @Test
+        void testPredictionIsCaseAndWhitespaceInsensitive() {
+                IntentModel model = IntentModel.train(examples(600, 1), SMALL);
+
+                IntentModel.Prediction a = model.predict("cancel the standup with Alex tomorrow");
+                IntentModel.Prediction b = model.predict("  CANCEL the   standup with alex\ttomorrow ");
+
+                assertEquals("CancelMeeting", a.label());
+                assertEquals(a.label(), b.label());
+                assertEquals(a.probability(), b.probability(), 1e-9);
+        }
+
+        @Test
+        void testFeaturesAreNormalized() {
+                IntentModel model = IntentModel.train(examples(60, 1), SMALL);
+
+                IntentModel.Features features = model.features("book a sync");
+
+                double norm = 0;
+                for (int k = 0; k < features.size(); k++) {
+                        norm += features.values()[k] * features.values()[k];
+                        assertTrue(features.indices()[k] >= 0 && features.indices()[k] < model.dimensions());
+                }
+                assertEquals(1.0, norm, 1e-5);
+        }
+
+        @Test
+        void testWriteAndReadRoundTrip() throws IOException {
+                IntentModel model = IntentModel.train(examples(300, 1), SMALL);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                model.write(out);
+
+                IntentModel loaded = IntentModel.read(new ByteArrayInputStream(out.toByteArray()));
+
+                for (IntentModel.Example example : examples(50, 3)) {
+                        assertEquals(model.predict(example.text()), loaded.predict(example.text()));
+                }
+        }
+
+        @Test
+        void testRejectsOtherFiles() {
+                assertThrows(IOException.class,
+                                () -> IntentModel.read(new ByteArrayInputStream("not a model".getBytes())));
+        }
+
+        @Test
+        void testClassifierDefersBelowConfidence() {
+                IntentClassifier classifier = new IntentClassifier(new SimpleMeterRegistry());
+                ReflectionTestUtils.setField(classifier, "minConfidence", 0.9);
+                classifier.init();
+                assertFalse(classifier.classify("cancel the standup").isPresent());
+
+                classifier.setModel(IntentModel.train(examples(600, 1), SMALL));
+
+                assertEquals("CancelMeeting", classifier.classify("cancel the standup with Alex tomorrow")
+                                .orElseThrow().label());
+                ReflectionTestUtils.setField(classifier, "minConfidence", 1.01);
+                assertFalse(classifier.classify("cancel the standup with Alex tomorrow").isPresent());
+        }
+
+        @Test
+        void testTrainingLabelsAreWrittenInTheBackground() throws IOException {
+                Path trainingLog = Files.createTempFile("intent-labels", ".tsv");
+                try {
+                        IntentClassifier classifier = new IntentClassifier(new SimpleMeterRegistry());
+                        ReflectionTestUtils.setField(classifier, "trainingLogPath", trainingLog.toString());
+                        ReflectionTestUtils.setField(classifier, "trainingLogBuffer", 2);
+                        classifier.init();
+
+                        classifier.recordLabel("cancel the\tstandup", "CancelMeeting");
+                        classifier.recordLabel("what's the weather", "Unknown");
+                        classifier.recordLabel("book a retro with Alex", "BookMeeting");
+                        // Buffer of two is full - dropped
+                        classifier.recordLabel("move the 1:1 to Friday", "RescheduleMeeting");
+
+                        classifier.flushLabels();
+
+                        assertEquals(List.of("cancel the standup\tCancelMeeting", "book a retro with Alex\tBookMeeting"),
+                                        Files.readAllLines(trainingLog));
+                        classifier.close();
+                } finally {
+                        Files.deleteIfExists(trainingLog);
+                }
+        }
+
+        /**
+         * Holdout report from the offline trainer: overall accuracy, and
+         * coverage and accuracy of the predictions that pass min-confidence.
+         */
+        @Test
+        void testTrainerReport() {
+                ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+                double accuracy = IntentClassifierTrainer.report(examples(1000, 4), 0.2, 0.9, SMALL,
+                                new PrintStream(report));
+
+                String text = report.toString();
+                assertTrue(accuracy >= 0.95, "accuracy=" + accuracy);
+                assertEquals(accuracy * 100, percent(text, "Holdout accuracy: "), 0.01);
+                assertTrue(percent(text, "coverage ") >= 75, text);
+                assertTrue(percent(text, ", accuracy ") >= 98, text);
+                assertTrue(text.contains("Prediction latency"));
+        }
+
+        private static double percent(String report, String label) {
+                Matcher matcher = Pattern.compile(Pattern.quote(label) + "(\\d+)[.,](\\d+)%").matcher(report);
+                assertTrue(matcher.find(), "no '" + label + "' in report");
+                return Double.parseDouble(matcher.group(1) + "." + matcher.group(2));
+        }
+
+        private static List<IntentModel.Example> examples(int count, long seed) {
+                Random random = new Random(seed);
+                List<IntentModel.Example> examples = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                        String[] template = TEMPLATES[random.nextInt(TEMPLATES.length)];
+                        String text = String.format(template[1], TOPICS[random.nextInt(TOPICS.length)],
+                                        PEOPLE[random.nextInt(PEOPLE.length)], WHEN[random.nextInt(WHEN.length)]);
+                        examples.add(new IntentModel.Example(text, template[0]));
+                }
+                return examples;
+        }
+}
@@ -0,0 +1,232 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAIConcurrencyLimiterTest {
+
+        private SimpleMeterRegistry meterRegistry;
+        private OpenAIConcurrencyLimiter limiter;
+        private AtomicLong now;
+
+        @BeforeEach
+        void setUp() {
+                meterRegistry = new SimpleMeterRegistry();
+                limiter = new OpenAIConcurrencyLimiter(meterRegistry);
+                ReflectionTestUtils.setField(limiter, "enabled", true);
+                ReflectionTestUtils.setField(limiter, "initialLimit", 2);
+                ReflectionTestUtils.setField(limiter, "minLimit", 1);
+                ReflectionTestUtils.setField(limiter, "maxLimit", 4);
+                ReflectionTestUtils.setField(limiter, "maxQueue", 2);
+                ReflectionTestUtils.setField(limiter, "maxWait", Duration.ofSeconds(5));
+                ReflectionTestUtils.setField(limiter, "maxRetryAfter", Duration.ofSeconds(30));
+                ReflectionTestUtils.setField(limiter, "lowRemainingRequests", 5L);
+                ReflectionTestUtils.setField(limiter, "lowRemainingTokens", 4000L);
+                ReflectionTestUtils.setField(limiter, "latencyTolerance", 2.0);
+                ReflectionTestUtils.setField(limiter, "latencyWarmup", 5);
+                now = new AtomicLong(1_000_000);
+                limiter.clock = now::get;
+                limiter.init();
+        }
+
+        @Test
+        void testCallsOverTheWindowQueueUntilASlotFrees() {
+                OpenAIConcurrencyLimiter.Permit first = limiter.acquire().join();
+                limiter.acquire().join();
+                CompletableFuture<OpenAIConcurrencyLimiter.Permit> third = limiter.acquire();
+
+                assertFalse(third.isDone());
+                assertEquals(1, limiter.getQueueDepth());
+                assertEquals(1.0, meterRegistry.get("schedulehub.openai.limiter.queue-depth").gauge().value());
+
+                first.onSuccess("full", 100, -1, -1);
+
+                assertTrue(third.isDone());
+                assertEquals(0, limiter.getQueueDepth());
+                assertEquals(2, limiter.getInFlight());
+        }
+
+        @Test
+        void testFullQueueRejects() {
+                limiter.acquire();
+                limiter.acquire();
+                limiter.acquire();
+                limiter.acquire();
+
+                CompletableFuture<OpenAIConcurrencyLimiter.Permit> rejected = limiter.acquire();
+
+                CompletionException e = assertThrows(CompletionException.class, rejected::join);
+                assertTrue(e.getCause() instanceof OpenAIConcurrencyLimiter.LimitExceededException);
+                assertEquals(1.0, meterRegistry.get("schedulehub.openai.limiter.rejected").counter().count());
+        }
+
+        @Test
+        void testQueuedCallRejectedAfterMaxWait() {
+                ReflectionTestUtils.setField(limiter, "maxWait", Duration.ofMillis(20));
+                limiter.acquire();
+                limiter.acquire();
+
+                CompletableFuture<OpenAIConcurrencyLimiter.Permit> waiting = limiter.acquire();
+
+                assertThrows(CompletionException.class, waiting::join);
+                assertEquals(0, limiter.getQueueDepth());
+                assertEquals(1.0, meterRegistry.get("schedulehub.openai.limiter.rejected").counter().count());
+        }
+
+        @Test
+        void testAdditiveIncreaseWhileWindowIsUsed() {
+                for (int i = 0; i < 8; i++) {
+                        OpenAIConcurrencyLimiter.Permit a = limiter.acquire().join();
+                        OpenAIConcurrencyLimiter.Permit b = limiter.acquire().join();
+                        a.onSuccess("full", 100, 1000, 100_000);
+                        b.onSuccess("full", 100, 1000, 100_000);
+                }
+
+                assertTrue(limiter.getLimit() > 3.0, "limit=" + limiter.getLimit());
+                assertTrue(limiter.getLimit() <= 4.0);
+        }
+
+        @Test
+        void testLowRemainingHeadersShrinkWindow() {
+                ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+                limiter.init();
+
+                limiter.acquire().join().onSuccess("full", 100, 3, 100_000);
+                assertEquals(3.6, limiter.getLimit(), 0.001);
+
+                limiter.acquire().join().onSuccess("full", 100, 1000, 1200);
+                assertEquals(3.24, limiter.getLimit(), 0.001);
+        }
+
+        @Test
+        void testSustainedSlowdownShrinksWindow() {
+                ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+                limiter.init();
+                for (int i = 0; i < 10; i++) {
+                        limiter.acquire().join().onSuccess("full", 1500, -1, -1);
+                }
+                assertEquals(4.0, limiter.getLimit(), 0.001);
+
+                // One slow call is the tail; several in a row are congestion
+                limiter.acquire().join().onSuccess("full", 6000, -1, -1);
+                assertEquals(4.0, limiter.getLimit(), 0.001);
+                limiter.acquire().join().onSuccess("full", 6000, -1, -1);
+                limiter.acquire().join().onSuccess("full", 6000, -1, -1);
+
+                assertTrue(limiter.getLimit() < 4.0, "limit=" + limiter.getLimit());
+        }
+
+        @Test
+        void testTailLatencyDoesNotCollapseWindow() {
+                ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+                limiter.init();
+
+                // p50 around 1.5 s, one call in twenty at 12 s
+                for (int i = 0; i < 500; i++) {
+                        OpenAIConcurrencyLimiter.Permit a = limiter.acquire().join();
+                        OpenAIConcurrencyLimiter.Permit b = limiter.acquire().join();
+                        a.onSuccess("full", i % 20 == 7 ? 12_000 : 1_200 + (i % 7) * 100, -1, -1);
+                        b.onSuccess("full", 1_400 + (i % 5) * 100, -1, -1);
+                }
+
+                assertTrue(limiter.getLimit() >= 3.0, "limit=" + limiter.getLimit());
+        }
+
+        @Test
+        void testLatencyIsJudgedPerCallType() {
+                ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+                limiter.init();
+                for (int i = 0; i < 10; i++) {
+                        limiter.acquire().join().onSuccess("entities", 800, -1, -1);
+                }
+
+                // Much slower than entity-only calls, but normal for full extraction and batches
+                for (int i = 0; i < 10; i++) {
+                        limiter.acquire().join().onSuccess("full", 2500, -1, -1);
+                        limiter.acquire().join().onSuccess(null, 20_000, -1, -1);
+                }
+
+                assertEquals(4.0, limiter.getLimit(), 0.001);
+        }
+
+        @Test
+        void testRateLimitHalvesWindowAndPausesAdmissions() {
+                ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+                limiter.init();
+
+                limiter.acquire().join().onRateLimited(2_000);
+
+                assertEquals(2.0, limiter.getLimit(), 0.001);
+                CompletableFuture<OpenAIConcurrencyLimiter.Permit> paused = limiter.acquire();
+                assertFalse(paused.isDone());
+
+                // A release after retry-after has passed admits the waiter
+                now.addAndGet(2_000);
+                OpenAIConcurrencyLimiter.Permit other = limiter.acquire().join();
+                assertTrue(paused.isDone());
+                other.release();
+        }
+
+        @Test
+        void testConcurrentRateLimitsHalveWindowOnce() {
+                ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+                limiter.init();
+                OpenAIConcurrencyLimiter.Permit[] permits = new OpenAIConcurrencyLimiter.Permit[4];
+                for (int i = 0; i < permits.length; i++) {
+                        permits[i] = limiter.acquire().join();
+                }
+
+                // All four were sent before the first 429 came back - one congestion episode
+                for (OpenAIConcurrencyLimiter.Permit permit : permits) {
+                        permit.onRateLimited(-1);
+                }
+
+                assertEquals(2.0, limiter.getLimit(), 0.001);
+                assertEquals(1.0, meterRegistry.get("schedulehub.openai.limiter.decreases").counter().count());
+
+                // A call sent after the cut that is also limited starts a new episode
+                limiter.acquire().join().onRateLimited(-1);
+
+                assertEquals(1.0, limiter.getLimit(), 0.001);
+        }
+
+        @Test
+        void testOutcomeIsReportedOnce() {
+                OpenAIConcurrencyLimiter.Permit permit = limiter.acquire().join();
+
+                permit.onRateLimited(-1);
+                permit.release();
+                permit.onSuccess("full", 100, -1, -1);
+
+                assertEquals(0, limiter.getInFlight());
+                assertEquals(1.0, limiter.getLimit(), 0.001);
+        }
+
+        @Test
+        void testParsesRetryAfterHeaders() {
+                assertEquals(1500, OpenAIConcurrencyLimiter.retryAfterMillis("1500", "7"));
+                assertEquals(7000, OpenAIConcurrencyLimiter.retryAfterMillis(null, "7"));
+                assertEquals(-1, OpenAIConcurrencyLimiter.retryAfterMillis(null, "Wed, 21 Oct 2015 07:28:00 GMT"));
+                assertEquals(-1, OpenAIConcurrencyLimiter.headerValue(null));
+                assertEquals(42, OpenAIConcurrencyLimiter.headerValue(" 42 "));
+        }
+
+        @Test
+        void testDisabledNeverQueues() {
+                ReflectionTestUtils.setField(limiter, "enabled", false);
+
+                for (int i = 0; i < 10; i++) {
+                        assertTrue(limiter.acquire().isDone());
+                }
+                assertEquals(0, limiter.getInFlight());
+        }
+}
@@ -0,0 +1,100 @@
+package com.bestbuy.schedulehub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAIHedgingPolicyTest {
+
+        private SimpleMeterRegistry meterRegistry;
+        private OpenAIHedgingPolicy policy;
+
+        @BeforeEach
+        void setUp() {
+                meterRegistry = new SimpleMeterRegistry();
+                policy = new OpenAIHedgingPolicy(meterRegistry);
+                ReflectionTestUtils.setField(policy, "enabled", true);
+                ReflectionTestUtils.setField(policy, "percentile", 0.95);
+                ReflectionTestUtils.setField(policy, "budgetPercent", 5.0);
+                ReflectionTestUtils.setField(policy, "minDelay", Duration.ofMillis(100));
+                ReflectionTestUtils.setField(policy, "windowSize", 100);
+                ReflectionTestUtils.setField(policy, "minSamples", 10);
+                policy.init();
+        }
+
+        @Test
+        void testNoHedgeDelayUntilEnoughSamples() {
+                for (int i = 0; i < 9; i++) {
+                        policy.recordLatency(1000);
+                }
+                assertEquals(-1, policy.onCall());
+
+                policy.recordLatency(1000);
+                assertEquals(1000, policy.onCall());
+        }
+
+        @Test
+        void testDelayIsPercentileOfRecentLatencies() {
+                for (int i = 1; i <= 100; i++) {
+                        policy.recordLatency(i * 100L);
+                }
+
+                assertEquals(9500, policy.currentDelayMillis());
+                assertEquals(9500.0, meterRegistry.get("schedulehub.openai.hedge.delay").gauge().value());
+        }
+
+        @Test
+        void testOldSamplesAgeOut() {
+                for (int i = 0; i < 100; i++) {
+                        policy.recordLatency(20_000);
+                }
+                for (int i = 0; i < 100; i++) {
+                        policy.recordLatency(1_500);
+                }
+
+                assertEquals(1500, policy.currentDelayMillis());
+        }
+
+        @Test
+        void testDelayNeverBelowMinimum() {
+                for (int i = 0; i < 20; i++) {
+                        policy.recordLatency(10);
+                }
+
+                assertEquals(100, policy.currentDelayMillis());
+        }
+
+        @Test
+        void testBudgetAllowsAboutFivePercentExtraCalls() {
+                int hedges = 0;
+                for (int i = 0; i < 1000; i++) {
+                        policy.onCall();
+                        // Every call is slow enough to want a hedge
+                        if (policy.tryHedge()) {
+                                hedges++;
+                        }
+                }
+
+                assertEquals(50, hedges);
+                assertEquals(50.0, meterRegistry.get("schedulehub.openai.hedge.fired").counter().count());
+                assertEquals(950.0, meterRegistry.get("schedulehub.openai.hedge.budget-exhausted").counter().count());
+        }
+
+        @Test
+        void testBudgetDoesNotAccumulateWithoutBound() {
+                for (int i = 0; i < 10_000; i++) {
+                        policy.onCall();
+                }
+
+                int hedges = 0;
+                while (policy.tryHedge()) {
+                        hedges++;
+                }
+                assertEquals(10, hedges);
+        }
+}
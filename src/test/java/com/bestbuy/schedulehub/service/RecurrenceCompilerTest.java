@@ -0,0 +1,86 @@
+package com.bestbuy.schedulehub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceCompilerTest {
+
+        // Wednesday
+        private static final LocalDate START = LocalDate.of(2025, 12, 10);
+
+        @Test
+        void testDailyExceptDaysBecomesWeekly() {
+                RecurrenceCompiler.Compiled compiled = RecurrenceCompiler.compile("daily", List.of("monday"), START);
+
+                assertEquals(RecurrenceCompiler.Frequency.WEEKLY, compiled.frequency());
+                assertEquals(EnumSet.complementOf(EnumSet.of(DayOfWeek.MONDAY)), compiled.daysOfWeek());
+                assertTrue(compiled.residual().isEmpty());
+        }
+
+        @Test
+        void testWeekdaysExceptFridayDropsTheDay() {
+                RecurrenceCompiler.Compiled compiled = RecurrenceCompiler.compile("weekday", List.of("Fridays"), START);
+
+                assertEquals(RecurrenceCompiler.Frequency.WEEKLY, compiled.frequency());
+                assertEquals(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.THURSDAY), compiled.daysOfWeek());
+                assertTrue(compiled.residual().isEmpty());
+        }
+
+        @Test
+        void testOrdinalExceptionIsLeftForInstanceDeletion() {
+                RecurrenceCompiler.Compiled compiled = RecurrenceCompiler.compile("weekly on tuesday and thursday",
+                                List.of("second tuesday", "saturday"), START);
+
+                assertEquals(EnumSet.of(DayOfWeek.TUESDAY, DayOfWeek.THURSDAY), compiled.daysOfWeek());
+                assertEquals(1, compiled.residual().size());
+                RecurrenceCompiler.DayRule rule = compiled.residual().get(0);
+                assertTrue(rule.matches(LocalDate.of(2025, 12, 9)));
+                assertFalse(rule.matches(LocalDate.of(2025, 12, 16)));
+                assertFalse(rule.matches(LocalDate.of(2025, 12, 11)));
+        }
+
+        @Test
+        void testRelativeMonthlyAndInterval() {
+                RecurrenceCompiler.Compiled monthly = RecurrenceCompiler.compile("last friday of the month",
+                                List.of("first friday"), START);
+                assertEquals(RecurrenceCompiler.Frequency.RELATIVE_MONTHLY, monthly.frequency());
+                assertEquals(RecurrenceCompiler.WeekIndex.LAST, monthly.index());
+                assertEquals(EnumSet.of(DayOfWeek.FRIDAY), monthly.daysOfWeek());
+                assertTrue(monthly.residual().isEmpty());
+
+                RecurrenceCompiler.Compiled biweekly = RecurrenceCompiler.compile("every other week", null, START);
+                assertEquals(RecurrenceCompiler.Frequency.WEEKLY, biweekly.frequency());
+                assertEquals(2, biweekly.interval());
+                assertEquals(EnumSet.of(DayOfWeek.WEDNESDAY), biweekly.daysOfWeek());
+        }
+
+        @Test
+        void testPatternsThatCannotAbsorbExceptions() {
+                RecurrenceCompiler.Compiled monthly = RecurrenceCompiler.compile("monthly", List.of("monday",
+                                "holidays"), START);
+                assertEquals(RecurrenceCompiler.Frequency.ABSOLUTE_MONTHLY, monthly.frequency());
+                assertEquals(10, monthly.dayOfMonth());
+                assertEquals(1, monthly.residual().size());
+                assertEquals(List.of("holidays"), monthly.unrecognized());
+
+                RecurrenceCompiler.Compiled everyOtherDay = RecurrenceCompiler.compile("every other day",
+                                List.of("sunday"), START);
+                assertEquals(RecurrenceCompiler.Frequency.DAILY, everyOtherDay.frequency());
+                assertEquals(2, everyOtherDay.interval());
+                assertEquals(1, everyOtherDay.residual().size());
+        }
+
+        @Test
+        void testLastWeekOfMonthMatching() {
+                RecurrenceCompiler.DayRule rule = RecurrenceCompiler.parseRule("last Wednesday");
+
+                assertTrue(rule.matches(LocalDate.of(2025, 12, 31)));
+                assertFalse(rule.matches(LocalDate.of(2025, 12, 24)));
+        }
+}
@@ -0,0 +1,140 @@
+package com.bestbuy.schedulehub.service;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenRequestContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshingTokenCredentialTest {
+
+        private static final List<String> SCOPES = List.of("https://graph.microsoft.com/.default");
+
+        private ThreadPoolTaskScheduler scheduler;
+        private SimpleMeterRegistry meterRegistry;
+        private RefreshingTokenCredential credential;
+        private final AtomicReference<OffsetDateTime> now = new AtomicReference<>(
+                        OffsetDateTime.parse("2026-03-09T10:00:00Z"));
+        private final AtomicInteger fetches = new AtomicInteger();
+        private volatile boolean aadDown;
+
+        @BeforeEach
+        void setUp() {
+                scheduler = new ThreadPoolTaskScheduler();
+                scheduler.initialize();
+                meterRegistry = new SimpleMeterRegistry();
+                // AAD stand-in: a new token valid for an hour on each call
+                credential = new RefreshingTokenCredential(request -> {
+                        if (aadDown) {
+                                return Mono.error(new IllegalStateException("AADSTS90033 service unavailable"));
+                        }
+                        int n = fetches.incrementAndGet();
+                        return Mono.just(new AccessToken("token-" + n, now.get().plusHours(1)));
+                }, scheduler, meterRegistry, Duration.ofMinutes(10), Duration.ofSeconds(15), Duration.ofMinutes(2),
+                                Duration.ofSeconds(10), Duration.ofHours(2));
+                credential.clock = now::get;
+        }
+
+        @AfterEach
+        void tearDown() {
+                scheduler.shutdown();
+        }
+
+        @Test
+        void testTokenIsFetchedOnceAndServedFromCache() {
+                assertEquals("token-1", token().getToken());
+                now.set(now.get().plusMinutes(40));
+                assertEquals("token-1", token().getToken());
+
+                assertEquals(1, fetches.get());
+                assertEquals(2400.0, meterRegistry.get("schedulehub.graph.token.age").gauge().value());
+                assertEquals(1200.0, meterRegistry.get("schedulehub.graph.token.remaining").gauge().value());
+                assertEquals(1, meterRegistry.get("schedulehub.graph.token.refresh")
+                                .tag("mode", "blocking").tag("outcome", "success").timer().count());
+        }
+
+        @Test
+        void testBackgroundRefreshReplacesTokenAheadOfExpiry() {
+                token();
+                RefreshingTokenCredential.Entry entry = entry();
+
+                now.set(now.get().plusMinutes(50));
+                credential.refresh(entry);
+
+                assertEquals("token-2", token().getToken());
+                assertEquals(2, fetches.get());
+                assertEquals(1, meterRegistry.get("schedulehub.graph.token.refresh")
+                                .tag("mode", "background").tag("outcome", "success").timer().count());
+        }
+
+        @Test
+        void testFailedRefreshKeepsLastGoodToken() {
+                token();
+                RefreshingTokenCredential.Entry entry = entry();
+
+                aadDown = true;
+                now.set(now.get().plusMinutes(50));
+                credential.refresh(entry);
+
+                assertEquals("token-1", token().getToken());
+                assertEquals(1, entry.failures);
+                assertEquals(1, meterRegistry.get("schedulehub.graph.token.refresh")
+                                .tag("mode", "background").tag("outcome", "failure").timer().count());
+
+                // Inside the expiry margin a request tries AAD itself, and still gets the valid token
+                now.set(now.get().plusMinutes(9).plusSeconds(45));
+                assertEquals("token-1", token().getToken());
+        }
+
+        @Test
+        void testExpiredTokenIsNotServedWhileAadIsDown() {
+                token();
+                aadDown = true;
+                now.set(now.get().plusMinutes(61));
+
+                assertThrows(IllegalStateException.class, this::token);
+
+                aadDown = false;
+                assertEquals("token-2", token().getToken());
+        }
+
+        @Test
+        void testIdleScopesStopRefreshing() {
+                token();
+                RefreshingTokenCredential.Entry entry = entry();
+
+                now.set(now.get().plusHours(3));
+                credential.refresh(entry);
+
+                assertEquals(1, fetches.get());
+                assertNotSame(entry, entry());
+        }
+
+        @Test
+        void testClaimsChallengeBypassesCache() {
+                token();
+                credential.getTokenSync(new TokenRequestContext().setScopes(SCOPES).setClaims("{\"access_token\":{}}"));
+
+                assertEquals(2, fetches.get());
+                assertEquals("token-1", token().getToken());
+        }
+
+        private AccessToken token() {
+                return credential.getTokenSync(new TokenRequestContext().setScopes(SCOPES));
+        }
+
+        private RefreshingTokenCredential.Entry entry() {
+                return credential.entry(new TokenRequestContext().setScopes(SCOPES));
+        }
+}
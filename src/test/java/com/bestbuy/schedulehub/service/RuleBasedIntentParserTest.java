@@ -0,0 +1,100 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.ExtractedEntities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleBasedIntentParserTest {
+
+        // Wednesday
+        private static final LocalDateTime NOW = LocalDateTime.of(2025, 12, 10, 9, 30);
+
+        private RuleBasedIntentParser parser;
+
+        @BeforeEach
+        void setUp() {
+                parser = new RuleBasedIntentParser();
+                ReflectionTestUtils.setField(parser, "enabled", true);
+                ReflectionTestUtils.setField(parser, "minConfidence", 0.9);
+        }
+
+        @Test
+        void testCancelWithRelativeDay() {
+                ExtractedEntities entities = parser.parse("Cancel standup tomorrow", NOW).orElseThrow();
+
+                assertEquals("CancelMeeting", entities.getIntent());
+                assertEquals("Standup", entities.getSubject());
+                assertEquals(LocalDateTime.of(2025, 12, 11, 0, 0), entities.getStartDateTime());
+                assertEquals(LocalDateTime.of(2025, 12, 11, 23, 59), entities.getEndDateTime());
+        }
+
+        @Test
+        void testBookWithAttendeesTimeAndWeekday() {
+                ExtractedEntities entities = parser
+                                .parse("book design review with Mary and bob@example.com at 3pm on Friday", NOW)
+                                .orElseThrow();
+
+                assertEquals("BookMeeting", entities.getIntent());
+                assertEquals("Design review", entities.getSubject());
+                assertEquals(Arrays.asList("Mary", "bob@example.com"), entities.getAttendees());
+                assertEquals(LocalDateTime.of(2025, 12, 12, 15, 0), entities.getStartDateTime());
+                assertEquals(LocalDateTime.of(2025, 12, 12, 16, 0), entities.getEndDateTime());
+        }
+
+        @Test
+        void testMoveDefaultsToToday() {
+                ExtractedEntities entities = parser.parse("move standup to 4pm", NOW).orElseThrow();
+
+                assertEquals("RescheduleMeeting", entities.getIntent());
+                assertEquals("Standup", entities.getSubject());
+                assertEquals(LocalDateTime.of(2025, 12, 10, 16, 0), entities.getStartDateTime());
+        }
+
+        @Test
+        void testAmbiguousTimeFallsBackToLlm() {
+                assertEquals(Optional.empty(), parser.parse("book standup with the team tomorrow at 9", NOW));
+        }
+
+        @Test
+        void testUnsupportedShapesFallBackToLlm() {
+                assertEquals(Optional.empty(), parser.parse("Book Mary for 2 PM tomorrow", NOW));
+                assertEquals(Optional.empty(), parser.parse("Cancel my meeting with Alex on Jan 15 at 10 AM", NOW));
+                assertEquals(Optional.empty(),
+                                parser.parse("Reschedule my meeting with Sarah from 2 PM to 3 PM next Friday", NOW));
+                assertEquals(Optional.empty(),
+                                parser.parse("Book myTeam 3 PM to 4 PM every weekday from Jan to Jul", NOW));
+        }
+
+        @Test
+        void testDisabledParserNeverMatches() {
+                ReflectionTestUtils.setField(parser, "enabled", false);
+
+                assertEquals(Optional.empty(), parser.parse("cancel standup tomorrow", NOW));
+        }
+
+        @Test
+        void testPronounSubjectsFallBackToLlm() {
+                assertEquals(Optional.empty(), parser.parse("cancel it", NOW));
+                assertEquals(Optional.empty(), parser.parse("Cancel that meeting", NOW));
+                assertEquals(Optional.empty(), parser.parse("delete them tomorrow", NOW));
+                assertEquals(Optional.empty(), parser.parse("cancel everything", NOW));
+                assertEquals(Optional.empty(), parser.parse("remove all meetings on Friday", NOW));
+                assertEquals(Optional.empty(), parser.parse("move it to 4pm", NOW));
+                assertEquals(Optional.empty(), parser.parse("reschedule that one to 3pm", NOW));
+                assertEquals(Optional.empty(), parser.parse("book one with Mary at 3pm", NOW));
+        }
+
+        @Test
+        void testSubjectsContainingReferenceWordsStillMatch() {
+                ExtractedEntities entities = parser.parse("cancel team meeting", NOW).orElseThrow();
+
+                assertEquals("Team meeting", entities.getSubject());
+        }
+}
@@ -0,0 +1,124 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.TimeSlot;
+import com.microsoft.graph.core.TimeOfDay;
+import com.microsoft.graph.models.DayOfWeek;
+import com.microsoft.graph.models.ScheduleInformation;
+import com.microsoft.graph.models.WorkingHours;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of finding slots once the schedules are read: decoding each
+ * attendee's availability view, ANDing the bitsets and ranking the runs.
+ *
+ * Run with:
+ *   mvn test-compile
+ *   java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *       com.bestbuy.schedulehub.service.SlotFinderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 8, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotFinderBenchmark {
+
+        private static final int SLOT_MINUTES = 15;
+        private static final int HORIZON_DAYS = 14;
+
+        @Param({"10", "60"})
+        public int attendees;
+
+        @Param({"earliest", "best"})
+        public String ranking;
+
+        private SlotFinder finder;
+        private List<ScheduleInformation> schedules;
+        private LocalDateTime from;
+        private int slots;
+
+        @Setup
+        public void setUp() {
+                SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+                finder = new SlotFinder(null, new AttendeeResolver(null, meterRegistry), meterRegistry,
+                                Runnable::run);
+                ReflectionTestUtils.setField(finder, "slotMinutes", SLOT_MINUTES);
+                ReflectionTestUtils.setField(finder, "suggestions", 3);
+                ReflectionTestUtils.setField(finder, "ranking", ranking);
+                ReflectionTestUtils.setField(finder, "tentativeIsBusy", true);
+                ReflectionTestUtils.setField(finder, "workDays", "MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY");
+                ReflectionTestUtils.setField(finder, "workStart", "09:00");
+                ReflectionTestUtils.setField(finder, "workEnd", "17:00");
+                ReflectionTestUtils.setField(finder, "horizon", Duration.ofDays(HORIZON_DAYS));
+                finder.init();
+
+                from = LocalDate.of(2026, 3, 9).atStartOfDay();
+                slots = HORIZON_DAYS * 24 * 60 / SLOT_MINUTES;
+                schedules = new ArrayList<>();
+                Random random = new Random(42);
+                for (int i = 0; i < attendees; i++) {
+                        ScheduleInformation schedule = new ScheduleInformation();
+                        schedule.scheduleId = "user" + i + "@contoso.com";
+                        schedule.availabilityView = busyView(random);
+                        if (i % 3 == 0) {
+                                // A third report their own (later) working hours
+                                schedule.workingHours = new WorkingHours();
+                                schedule.workingHours.daysOfWeek = List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+                                                DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+                                schedule.workingHours.startTime = new TimeOfDay(10, 0, 0);
+                                schedule.workingHours.endTime = new TimeOfDay(18, 0, 0);
+                        }
+                        schedules.add(schedule);
+                }
+        }
+
+        @Benchmark
+        public List<TimeSlot> findOneHour() {
+                return finder.find(schedules, from, slots, 4);
+        }
+
+        /**
+         * Meetings of 30 minutes to 2 hours, each busy with probability 1/40;
+         * sparse enough that common free hours exist among 60 people.
+         */
+        private String busyView(Random random) {
+                StringBuilder view = new StringBuilder(slots);
+                while (view.length() < slots) {
+                        int length = Math.min(2 + random.nextInt(7), slots - view.length());
+                        char status = random.nextInt(40) == 0 ? (random.nextBoolean() ? '2' : '1') : '0';
+                        view.append(String.valueOf(status).repeat(length));
+                }
+                return view.toString();
+        }
+
+        public static void main(String[] args) throws RunnerException {
+                new Runner(new OptionsBuilder()
+                                .include(SlotFinderBenchmark.class.getSimpleName())
+                                .build())
+                                .run();
+        }
+}
@@ -0,0 +1,204 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.TimeSlot;
+import com.microsoft.graph.core.TimeOfDay;
+import com.microsoft.graph.models.DayOfWeek;
+import com.microsoft.graph.models.ScheduleInformation;
+import com.microsoft.graph.models.WorkingHours;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotFinderTest {
+
+        private static final String ORGANIZER = "alice@contoso.com";
+        private static final LocalDate MONDAY = LocalDate.of(2026, 3, 9);
+        private static final int DAY = 96; // 15-minute slots per day
+
+        private SlotFinder finder;
+        private final List<List<String>> fetches = new ArrayList<>();
+
+        @BeforeEach
+        void setUp() {
+                SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+                AttendeeResolver resolver = new AttendeeResolver(null, meterRegistry);
+                ReflectionTestUtils.setField(resolver, "directoryLookup", false);
+                ReflectionTestUtils.setField(resolver, "maxSize", 10);
+                ReflectionTestUtils.setField(resolver, "ttl", Duration.ofHours(1));
+                ReflectionTestUtils.setField(resolver, "negativeTtl", Duration.ofMinutes(10));
+                ReflectionTestUtils.setField(resolver, "fallbackDomain", "contoso.com");
+                resolver.init();
+
+                finder = new SlotFinder(null, resolver, meterRegistry, Runnable::run);
+                ReflectionTestUtils.setField(finder, "enabled", true);
+                ReflectionTestUtils.setField(finder, "slotMinutes", 15);
+                ReflectionTestUtils.setField(finder, "horizon", Duration.ofDays(2));
+                ReflectionTestUtils.setField(finder, "minNotice", Duration.ofMinutes(30));
+                ReflectionTestUtils.setField(finder, "defaultLength", Duration.ofHours(1));
+                ReflectionTestUtils.setField(finder, "suggestions", 3);
+                ReflectionTestUtils.setField(finder, "ranking", "earliest");
+                ReflectionTestUtils.setField(finder, "tentativeIsBusy", true);
+                ReflectionTestUtils.setField(finder, "workDays", "MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY");
+                ReflectionTestUtils.setField(finder, "workStart", "09:00");
+                ReflectionTestUtils.setField(finder, "workEnd", "17:00");
+                finder.now = () -> MONDAY.atStartOfDay();
+                finder.init();
+        }
+
+        @Test
+        void testGridRangesAndRunsAcrossWords() {
+                SlotFinder.Grid grid = new SlotFinder.Grid(200);
+                grid.set(60, 140);
+                grid.clear(100, 101);
+
+                assertEquals(60, grid.nextSetBit(0));
+                assertEquals(101, grid.nextSetBit(100));
+                assertFalse(grid.get(59));
+                assertTrue(grid.get(139));
+                assertFalse(grid.get(140));
+
+                SlotFinder.Grid runs = grid.runs(8);
+                // Starts of 8 free slots: 60..92 and 101..132
+                assertEquals(60, runs.nextSetBit(0));
+                assertFalse(runs.get(93));
+                assertEquals(101, runs.nextSetBit(93));
+                assertTrue(runs.get(132));
+                assertEquals(-1, runs.nextSetBit(133));
+        }
+
+        @Test
+        void testFirstTimeEveryoneIsFree() {
+                List<ScheduleInformation> schedules = List.of(
+                                schedule(ORGANIZER, view(2 * DAY, 36, 40, '2')), // busy 9:00-10:00
+                                schedule("bob@contoso.com", view(2 * DAY, 40, 42, '3'))); // away 10:00-10:30
+
+                List<TimeSlot> slots = finder.find(schedules, MONDAY.atStartOfDay(), 2 * DAY, 4);
+
+                assertEquals(3, slots.size());
+                assertEquals(MONDAY.atTime(10, 30), slots.get(0).getStart());
+                assertEquals(MONDAY.atTime(11, 30), slots.get(0).getEnd());
+                // Back to back, without overlapping each other
+                assertEquals(MONDAY.atTime(11, 30), slots.get(1).getStart());
+                assertEquals(MONDAY.atTime(12, 30), slots.get(2).getStart());
+        }
+
+        @Test
+        void testTentativeCountsAsBusyOnlyWhenConfigured() {
+                List<ScheduleInformation> schedules = List.of(schedule(ORGANIZER, view(2 * DAY, 36, 40, '1')));
+
+                assertEquals(MONDAY.atTime(10, 0), finder.find(schedules, MONDAY.atStartOfDay(), 2 * DAY, 4)
+                                .get(0).getStart());
+
+                ReflectionTestUtils.setField(finder, "tentativeIsBusy", false);
+                assertEquals(MONDAY.atTime(9, 0), finder.find(schedules, MONDAY.atStartOfDay(), 2 * DAY, 4)
+                                .get(0).getStart());
+        }
+
+        @Test
+        void testGraphWorkingHoursOverrideTheDefault() {
+                ScheduleInformation late = schedule("bob@contoso.com", view(2 * DAY, 0, 0, '0'));
+                late.workingHours = new WorkingHours();
+                late.workingHours.daysOfWeek = List.of(DayOfWeek.TUESDAY);
+                late.workingHours.startTime = new TimeOfDay(13, 0, 0);
+                late.workingHours.endTime = new TimeOfDay(18, 0, 0);
+
+                List<TimeSlot> slots = finder.find(List.of(schedule(ORGANIZER, view(2 * DAY, 0, 0, '0')), late),
+                                MONDAY.atStartOfDay(), 2 * DAY, 4);
+
+                // Tuesday only, within both 9-17 and 13-18
+                assertEquals(MONDAY.plusDays(1).atTime(13, 0), slots.get(0).getStart());
+                assertEquals(MONDAY.plusDays(1).atTime(15, 0), slots.get(2).getStart());
+        }
+
+        @Test
+        void testBestRankingPrefersTheHourWithRoomAround() {
+                ReflectionTestUtils.setField(finder, "ranking", "best");
+                // Free Monday 9:00-9:45 and 10:15-17:00
+                List<ScheduleInformation> schedules = List.of(schedule(ORGANIZER, view(2 * DAY, 39, 41, '2')));
+
+                List<TimeSlot> slots = finder.find(schedules, MONDAY.atStartOfDay(), 2 * DAY, 2);
+
+                // 9:00 has no free time before it (outside working hours); Tuesday is later
+                assertEquals(List.of(MONDAY.atTime(11, 0), MONDAY.atTime(12, 0), MONDAY.atTime(13, 0)),
+                                slots.stream().map(TimeSlot::getStart).toList());
+                assertEquals(1.5, slots.get(0).getScore(), 1e-9);
+        }
+
+        @Test
+        void testSuggestFetchesAllAttendeesInChunks() {
+                finder.schedules = (userId, mailboxes, from, to) -> {
+                        fetches.add(mailboxes);
+                        assertEquals(MONDAY.atTime(0, 30), from);
+                        assertEquals(MONDAY.atTime(0, 30).plusDays(2), to);
+                        return mailboxes.stream().map(mailbox -> schedule(mailbox, view(2 * DAY, 0, 0, '0'))).toList();
+                };
+                List<String> attendees = IntStream.range(0, 30).mapToObj(i -> "user" + i + "@contoso.com").toList();
+
+                List<TimeSlot> slots = finder.suggest(ORGANIZER, attendees, Duration.ofMinutes(30));
+
+                assertEquals(2, fetches.size());
+                assertEquals(31, fetches.get(0).size() + fetches.get(1).size());
+                assertEquals(MONDAY.atTime(9, 0), slots.get(0).getStart());
+                assertEquals(MONDAY.atTime(9, 30), slots.get(0).getEnd());
+        }
+
+        @Test
+        void testChunksAreFetchedConcurrently() throws InterruptedException {
+                ExecutorService pool = Executors.newFixedThreadPool(2);
+                ReflectionTestUtils.setField(finder, "graphLookupExecutor", pool);
+                // Each call waits until all three are in flight
+                CyclicBarrier inFlight = new CyclicBarrier(3);
+                finder.schedules = (userId, mailboxes, from, to) -> {
+                        try {
+                                inFlight.await(5, TimeUnit.SECONDS);
+                        } catch (Exception e) {
+                                throw new IllegalStateException(e);
+                        }
+                        return mailboxes.stream().map(mailbox -> schedule(mailbox, view(2 * DAY, 0, 0, '0'))).toList();
+                };
+                List<String> attendees = IntStream.range(0, 50).mapToObj(i -> "user" + i + "@contoso.com").toList();
+
+                List<TimeSlot> slots = finder.suggest(ORGANIZER, attendees, Duration.ofMinutes(30));
+
+                pool.shutdown();
+                assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+                assertEquals(MONDAY.atTime(9, 0), slots.get(0).getStart());
+        }
+
+        @Test
+        void testFailedFetchSuggestsNothing() {
+                finder.schedules = (userId, mailboxes, from, to) -> {
+                        throw new IllegalStateException("throttled");
+                };
+
+                assertTrue(finder.suggest(ORGANIZER, List.of("bob@contoso.com"), null).isEmpty());
+        }
+
+        private static ScheduleInformation schedule(String mailbox, String view) {
+                ScheduleInformation schedule = new ScheduleInformation();
+                schedule.scheduleId = mailbox;
+                schedule.availabilityView = view;
+                return schedule;
+        }
+
+        private static String view(int slots, int from, int to, char status) {
+                char[] view = new char[slots];
+                Arrays.fill(view, '0');
+                Arrays.fill(view, from, to, status);
+                return new String(view);
+        }
+}
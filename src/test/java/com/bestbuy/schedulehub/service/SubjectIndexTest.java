@@ -0,0 +1,131 @@
+package com.bestbuy.schedulehub.service;
+
+import com.microsoft.graph.models.DateTimeTimeZone;
+import com.microsoft.graph.models.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubjectIndexTest {
+
+        private static final String USER = "alice@contoso.com";
+
+        private SubjectIndex index;
+        private final AtomicLong now = new AtomicLong(1_000_000L);
+
+        @BeforeEach
+        void setUp() {
+                index = new SubjectIndex();
+                ReflectionTestUtils.setField(index, "enabled", true);
+                ReflectionTestUtils.setField(index, "ttl", Duration.ofMinutes(10));
+                ReflectionTestUtils.setField(index, "maxEntriesPerUser", 500);
+                ReflectionTestUtils.setField(index, "maxUsers", 100);
+                ReflectionTestUtils.setField(index, "minScore", 0.6);
+                index.clock = now::get;
+        }
+
+        @Test
+        void testWordOrderAndFillerWordsDoNotMatter() {
+                index.add(USER, List.of(
+                                event("1", "Mary / Alex weekly sync", 2),
+                                event("2", "Budget review", 1),
+                                event("3", "Sync with design", 1)));
+
+                SubjectIndex.Candidate best = index.best(USER, "the sync with Mary", null, null).orElseThrow();
+
+                assertEquals("1", best.entry().id());
+                assertEquals(1.0, best.score());
+        }
+
+        @Test
+        void testTyposStillRankAboveThreshold() {
+                index.add(USER, List.of(event("1", "Quarterly planning", 1), event("2", "Standup", 1)));
+
+                assertEquals("1", index.best(USER, "quartely planing", null, null).orElseThrow().entry().id());
+                assertTrue(index.best(USER, "dentist", null, null).isEmpty());
+        }
+
+        @Test
+        void testGenericWordsOnlyMatchPartially() {
+                index.add(USER, List.of(event("1", "Team meeting", 1), event("2", "Budget review", 1)));
+
+                // Clears min-score on "meeting" alone, but must not be taken as the meeting meant
+                SubjectIndex.Candidate generic = index.best(USER, "that meeting", null, null).orElseThrow();
+                assertEquals("1", generic.entry().id());
+                assertTrue(generic.score() < 1.0, "score=" + generic.score());
+                assertFalse(generic.isExact());
+
+                assertTrue(index.best(USER, "the team meeting", null, null).orElseThrow().isExact());
+        }
+
+        @Test
+        void testTiesPreferTheCloserSubjectThenTheEarlierStart() {
+                index.add(USER, List.of(
+                                event("1", "Team standup and demo", 1),
+                                event("2", "Standup", 3),
+                                event("3", "Standup", 2)));
+
+                List<SubjectIndex.Candidate> ranked = index.search(USER, "standup", null, null, 3);
+
+                assertEquals(List.of("3", "2", "1"), ranked.stream().map(c -> c.entry().id()).toList());
+        }
+
+        @Test
+        void testDateWindowAndPastEventsAreRespected() {
+                index.add(USER, List.of(event("past", "Standup", -2), event("soon", "Standup", 1),
+                                event("later", "Standup", 5)));
+
+                assertEquals("soon", index.best(USER, "standup", null, null).orElseThrow().entry().id());
+                LocalDateTime day = LocalDate.now().plusDays(5).atStartOfDay();
+                assertEquals("later", index.best(USER, "standup", day, day.plusHours(23)).orElseThrow().entry().id());
+        }
+
+        @Test
+        void testInvalidationAndExpiry() {
+                index.add(USER, List.of(event("1", "Standup", 1)));
+                index.invalidate("Alice@Contoso.com");
+                assertTrue(index.best(USER, "standup", null, null).isEmpty());
+
+                index.add(USER, List.of(event("1", "Standup", 1)));
+                now.addAndGet(Duration.ofMinutes(11).toMillis());
+                assertTrue(index.best(USER, "standup", null, null).isEmpty());
+        }
+
+        @Test
+        void testSearchIsFastForAFullIndex() {
+                List<Event> events = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                        events.add(event("e" + i, "Project " + i + " weekly sync with team " + (i % 17), 1 + i % 60));
+                }
+                index.add(USER, events);
+
+                for (int i = 0; i < 1000; i++) {
+                        index.search(USER, "sync with team 3", null, null, 5);
+                }
+                long started = System.nanoTime();
+                for (int i = 0; i < 1000; i++) {
+                        index.search(USER, "sync with team 3", null, null, 5);
+                }
+                long micros = (System.nanoTime() - started) / 1000 / 1000;
+
+                assertTrue(micros < 1000, "search took " + micros + " us");
+        }
+
+        private static Event event(String id, String subject, int daysAhead) {
+                Event event = new Event();
+                event.id = id;
+                event.subject = subject;
+                event.start = new DateTimeTimeZone();
+                event.start.dateTime = LocalDate.now().plusDays(daysAhead).atTime(10, 0) + ":00.0000000";
+                return event;
+        }
+}
@@ -0,0 +1,174 @@
+package com.bestbuy.schedulehub.service;
+
+import com.bestbuy.schedulehub.dto.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenUsageTrackerTest {
+
+        private SimpleMeterRegistry meterRegistry;
+        private TokenUsageTracker tracker;
+        private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+        @BeforeEach
+        void setUp() {
+                meterRegistry = new SimpleMeterRegistry();
+                tracker = new TokenUsageTracker(meterRegistry);
+                ReflectionTestUtils.setField(tracker, "enabled", true);
+                ReflectionTestUtils.setField(tracker, "window", Duration.ofMinutes(10));
+                ReflectionTestUtils.setField(tracker, "buckets", 10);
+                ReflectionTestUtils.setField(tracker, "userTokensPerWindow", 1000L);
+                ReflectionTestUtils.setField(tracker, "tenantTokensPerWindow", 2500L);
+                ReflectionTestUtils.setField(tracker, "action", "downgrade");
+                ReflectionTestUtils.setField(tracker, "metricTenants", "Contoso.com, northwind.com");
+                tracker.clock = now::get;
+                tracker.init();
+        }
+
+        @Test
+        void testUserOverQuotaIsRejected() {
+                tracker.record("alice@contoso.com", usage(600, 300));
+                assertEquals(TokenUsageTracker.QuotaStatus.ALLOWED, tracker.check("alice@contoso.com"));
+
+                tracker.record("Alice@Contoso.com", usage(80, 20));
+
+                assertEquals(TokenUsageTracker.QuotaStatus.USER_EXCEEDED, tracker.check("alice@contoso.com"));
+                assertEquals(TokenUsageTracker.QuotaStatus.ALLOWED, tracker.check("bob@contoso.com"));
+                assertEquals(1.0, meterRegistry.counter("schedulehub.quota.exceeded", "scope", "user").count());
+        }
+
+        @Test
+        void testTenantQuotaCoversAllItsUsers() {
+                tracker.record("a@contoso.com", usage(900, 0));
+                tracker.record("b@contoso.com", usage(900, 0));
+                tracker.record("c@contoso.com", usage(700, 0));
+
+                assertEquals(TokenUsageTracker.QuotaStatus.TENANT_EXCEEDED, tracker.check("d@contoso.com"));
+                assertEquals(TokenUsageTracker.QuotaStatus.ALLOWED, tracker.check("d@fabrikam.com"));
+        }
+
+        @Test
+        void testOldBucketsLeaveTheWindow() {
+                tracker.record("alice@contoso.com", usage(1000, 0));
+                assertEquals(TokenUsageTracker.QuotaStatus.USER_EXCEEDED, tracker.check("alice@contoso.com"));
+
+                now.addAndGet(Duration.ofMinutes(5).toMillis());
+                tracker.record("alice@contoso.com", usage(200, 0));
+                assertEquals(1200, tracker.windowTokensForUser("alice@contoso.com"));
+
+                now.addAndGet(Duration.ofMinutes(6).toMillis());
+                assertEquals(200, tracker.windowTokensForUser("alice@contoso.com"));
+                assertEquals(TokenUsageTracker.QuotaStatus.ALLOWED, tracker.check("alice@contoso.com"));
+        }
+
+        @Test
+        void testBucketIsResetWhenReused() {
+                TokenUsageTracker.UsageCounter counter = new TokenUsageTracker.UsageCounter(4);
+                counter.addToWindow(50, 7);
+                counter.addToWindow(30, 7);
+                assertEquals(80, counter.windowTokens(7));
+
+                // Epoch 11 maps to the same slot as 7 and must not inherit its count
+                counter.addToWindow(5, 11);
+                assertEquals(5, counter.windowTokens(11));
+        }
+
+        @Test
+        void testDisabledAllowsEverything() {
+                ReflectionTestUtils.setField(tracker, "enabled", false);
+                tracker.record("alice@contoso.com", usage(5000, 0));
+
+                assertEquals(TokenUsageTracker.QuotaStatus.ALLOWED, tracker.check("alice@contoso.com"));
+        }
+
+        @Test
+        void testTenantIsEmailDomain() {
+                assertEquals("contoso.com", TokenUsageTracker.tenantOf("alice@contoso.com"));
+                assertEquals(TokenUsageTracker.DEFAULT_TENANT,
+                                TokenUsageTracker.tenantOf("5f1c2a9e-0000-4000-8000-000000000000"));
+                assertEquals(TokenUsageTracker.DEFAULT_TENANT, TokenUsageTracker.tenantOf("trailing@"));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void testTopConsumersAreSortedByWindowTokens() {
+                tracker.record("light@contoso.com", TokenUsage.builder().promptTokens(10).completionTokens(5)
+                                .cachedTokens(8).build());
+                tracker.record("heavy@fabrikam.com", usage(400, 100));
+                tracker.record("heavy@fabrikam.com", usage(400, 100));
+
+                Map<String, Object> top = tracker.topConsumers(1);
+
+                List<Map<String, Object>> users = (List<Map<String, Object>>) top.get("users");
+                assertEquals(1, users.size());
+                assertEquals("heavy@fabrikam.com", users.get(0).get("id"));
+                assertEquals(1000L, users.get(0).get("windowTokens"));
+                assertEquals(2L, users.get(0).get("requests"));
+                List<Map<String, Object>> tenants = (List<Map<String, Object>>) top.get("tenants");
+                assertEquals("fabrikam.com", tenants.get(0).get("id"));
+        }
+
+        @Test
+        void testConcurrentRecordingLosesNoTokens() throws InterruptedException {
+                ExecutorService pool = Executors.newFixedThreadPool(8);
+                for (int i = 0; i < 8000; i++) {
+                        String user = "user" + (i % 4) + "@contoso.com";
+                        pool.execute(() -> tracker.record(user, usage(1, 2)));
+                }
+                pool.shutdown();
+                assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+                assertEquals(6000, tracker.windowTokensForUser("user0@contoso.com"));
+                assertEquals(8000.0 * 3, meterRegistry.counter("schedulehub.openai.tokens.by-tenant",
+                                "tenant", "contoso.com").count());
+        }
+
+        @Test
+        void testUnlistedTenantsShareOneMeterTag() {
+                tracker.record("alice@contoso.com", usage(10, 0));
+                tracker.record("mallory@attacker-1.example", usage(20, 0));
+                tracker.record("mallory@attacker-2.example", usage(30, 0));
+                tracker.record("5f1c2a9e-0000-4000-8000-000000000000", usage(40, 0));
+
+                assertEquals(10.0, meterRegistry.counter("schedulehub.openai.tokens.by-tenant",
+                                "tenant", "contoso.com").count());
+                assertEquals(50.0, meterRegistry.counter("schedulehub.openai.tokens.by-tenant",
+                                "tenant", TokenUsageTracker.OTHER_TENANT).count());
+                assertEquals(40.0, meterRegistry.counter("schedulehub.openai.tokens.by-tenant",
+                                "tenant", TokenUsageTracker.DEFAULT_TENANT).count());
+                assertEquals(3, meterRegistry.find("schedulehub.openai.tokens.by-tenant").counters().size());
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void testIdleTenantsArePurged() {
+                for (int i = 0; i < 10_000; i++) {
+                        tracker.record("user@tenant" + i + ".example", usage(1, 0));
+                }
+                now.addAndGet(Duration.ofMinutes(11).toMillis());
+                tracker.record("alice@contoso.com", usage(1, 0));
+
+                // Over the bound: that record dropped a budget's worth of idle tenants, not all of them
+                List<Map<String, Object>> tenants = (List<Map<String, Object>>) tracker.topConsumers(Integer.MAX_VALUE)
+                                .get("tenants");
+                assertTrue(tenants.size() < 10_000 && tenants.size() > 9_000, "tenants=" + tenants.size());
+                assertEquals("contoso.com", tenants.get(0).get("id"));
+                assertEquals(1L, tenants.get(0).get("windowTokens"));
+        }
+
+        private static TokenUsage usage(int prompt, int completion) {
+                return TokenUsage.builder().promptTokens(prompt).completionTokens(completion).build();
+        }
+}